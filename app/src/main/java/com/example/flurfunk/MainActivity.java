@@ -1,5 +1,6 @@
 package com.example.flurfunk;
 
+import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
@@ -15,8 +16,9 @@ import com.example.flurfunk.network.OfferSyncManager;
 import com.example.flurfunk.network.OkHttpLoRaManager;
 import com.example.flurfunk.network.PeerSyncManager;
 import com.example.flurfunk.network.LoRaManager;
-import com.example.flurfunk.store.OfferManager;
+import com.example.flurfunk.store.DataRepository;
 import com.example.flurfunk.store.PeerManager;
+import com.example.flurfunk.store.StorageExecutor;
 import com.example.flurfunk.ui.activities.ProfileSetupActivity;
 import com.google.android.material.navigation.NavigationView;
 
@@ -96,9 +98,8 @@ public class MainActivity extends AppCompatActivity {
     /**
      * Called when the activity is created.
      * <p>
-     * Loads the user profile, initializes the LoRa backend (either real device or emulator),
-     * sets up the message dispatcher, starts the synchronization task, and configures
-     * the navigation drawer UI.
+     * Loads the user profile on a storage thread and continues in {@link #onProfileLoaded(UserProfile)}.
+     * In debuggable builds, disk access on the main thread is reported from here on.
      *
      * @param savedInstanceState the saved instance state from a previous launch, if any
      */
@@ -124,17 +125,35 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        // Load user profile
-        UserProfile profile = UserProfile.loadFromFile(this);
+        StorageExecutor.enableStrictMode(this);
+
+        // Load user profile and stored data in the background
+        Context appContext = getApplicationContext();
+        StorageExecutor.submit(() -> {
+            DataRepository repository = DataRepository.getInstance(appContext);
+            repository.preload();
+            return repository.getLocalProfile();
+        }, this::onProfileLoaded);
+    }
+
+    /**
+     * Continues the start once the local profile has been loaded.
+     * <p>
+     * Opens the profile setup if no profile exists. Otherwise initializes the LoRa backend (either
+     * real device or emulator), sets up the message dispatcher, starts the synchronization task,
+     * and configures the navigation drawer UI.
+     *
+     * @param profile the local profile, or {@code null} if none has been set up
+     */
+    private void onProfileLoaded(UserProfile profile) {
+        if (isFinishing() || isDestroyed()) return;
+
         if (profile == null) {
             startActivity(new Intent(this, ProfileSetupActivity.class));
             finish();
             return;
         }
 
-        OfferManager.deactivateOffersOfInactiveUsers(this);
-        Log.d(TAG, "Deactivated offers of inactive peers");
-
         // Detect if the app is running on an emulator
         boolean isEmulator =
                 Build.FINGERPRINT.contains("generic")
@@ -199,14 +218,28 @@ public class MainActivity extends AppCompatActivity {
         NavigationUI.setupWithNavController(navigationView, navController);
     }
 
+    /**
+     * Called when the activity is no longer visible.
+     * Writes pending repository changes to disk, since the process may be killed in the background.
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        DataRepository.getInstance(this).flush();
+    }
+
     /**
      * Called when the activity is being destroyed.
-     * Stops the LoRa backend and removes the scheduled sync task.
+     * Stops the LoRa backend, removes the scheduled sync task and releases the sync managers.
      */
     @Override
     protected void onDestroy() {
         super.onDestroy();
         syncHandler.removeCallbacks(syncTask);
+        if (dispatcher != null) {
+            dispatcher.getOfferSyncManager().release();
+            dispatcher.getPeerSyncManager().release();
+        }
         if (loRaManager != null) {
             loRaManager.stop();
         }
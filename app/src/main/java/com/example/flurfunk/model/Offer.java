@@ -54,6 +54,42 @@ public class Offer {
         this.deleted = false;
     }
 
+    /**
+     * Constructs an Offer from previously stored values, e.g. when decoding a binary store.
+     *
+     * @param offerId      the unique ID of the offer
+     * @param title        the title of the offer
+     * @param description  the description of the offer
+     * @param category     the category of the offer
+     * @param creatorId    the ID of the user who created the offer
+     * @param createdAt    the creation timestamp
+     * @param lastModified the last modification timestamp
+     * @param status       the status of the offer
+     * @param deleted      whether the offer has been deleted
+     */
+    public Offer(String offerId, String title, String description, Category category, String creatorId,
+                 long createdAt, long lastModified, OfferStatus status, boolean deleted) {
+        this.offerId = offerId;
+        this.title = title;
+        this.description = description;
+        this.category = category;
+        this.creatorId = creatorId;
+        this.createdAt = createdAt;
+        this.lastModified = lastModified;
+        this.status = status;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Constructs a copy of the given offer, e.g. to change it without affecting the stored instance.
+     *
+     * @param other the offer to copy
+     */
+    public Offer(Offer other) {
+        this(other.offerId, other.title, other.description, other.category, other.creatorId,
+                other.createdAt, other.lastModified, other.status, other.deleted);
+    }
+
     public String getOfferId() {
         return offerId;
     }
@@ -104,6 +140,16 @@ public class Offer {
     }
 
 
+    /**
+     * Sets the description without updating the modification timestamp, for storage code that
+     * moves the description to disk and loads it back. The offer's version does not change.
+     *
+     * @param description the description, or {@code null} if it is only kept on disk
+     */
+    public void setStoredDescription(String description) {
+        this.description = description;
+    }
+
     public void setCategory(Category category) {
         this.category = category;
         updateTimestamp();
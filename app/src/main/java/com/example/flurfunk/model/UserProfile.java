@@ -4,15 +4,15 @@ import android.content.Context;
 import android.util.Base64;
 import android.util.Log;
 
+import com.example.flurfunk.store.FilePersistence;
+import com.example.flurfunk.store.JsonStreams;
 import com.example.flurfunk.util.Protocol;
-import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
@@ -73,6 +73,22 @@ public class UserProfile {
         this.meshId = computeAddressMeshId(street, houseNumber, zipCode, city);
     }
 
+    /**
+     * Constructs a copy of the given profile, e.g. to change it without affecting the stored instance.
+     *
+     * @param other the profile to copy
+     */
+    public UserProfile(UserProfile other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.floor = other.floor;
+        this.phone = other.phone;
+        this.email = other.email;
+        this.meshId = other.meshId;
+        this.timestamp = other.timestamp;
+        this.lastSeen = other.lastSeen;
+    }
+
     public String getId() {
         return id;
     }
@@ -149,17 +165,14 @@ public class UserProfile {
     }
 
     /**
-     * Saves the user profile to a private JSON file in the app's internal storage.
+     * Atomically saves the user profile to a private JSON file in the app's internal storage.
      *
      * @param context the Android context
      */
     public void saveToFile(Context context) {
-        try {
-            String json = new Gson().toJson(this);
-            FileOutputStream fos = context.openFileOutput(PROFILE_FILE, Context.MODE_PRIVATE);
-            fos.write(json.getBytes());
-            fos.close();
-        } catch (IOException e) {
+        String json = JsonStreams.GSON.toJson(this);
+        if (!FilePersistence.writeAtomically(context, PROFILE_FILE,
+                out -> out.write(json.getBytes(StandardCharsets.UTF_8)))) {
             Log.e(TAG, "Could not save user profile.");
         }
     }
@@ -171,20 +184,9 @@ public class UserProfile {
      * @return the loaded {@code UserProfile}, or {@code null} if loading failed
      */
     public static UserProfile loadFromFile(Context context) {
-        try {
-            FileInputStream fis = context.openFileInput(PROFILE_FILE);
-            InputStreamReader isr = new InputStreamReader(fis);
-            BufferedReader reader = new BufferedReader(isr);
-
-            StringBuilder json = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                json.append(line);
-            }
-
-            fis.close();
-            return new Gson().fromJson(json.toString(), UserProfile.class);
-        } catch (IOException e) {
+        try (FileInputStream fis = FilePersistence.openRead(context, PROFILE_FILE)) {
+            return JsonStreams.GSON.fromJson(new InputStreamReader(fis, StandardCharsets.UTF_8), UserProfile.class);
+        } catch (IOException | JsonParseException e) {
             Log.e(TAG, "Could not load user profile.");
             return null;
         }
@@ -196,7 +198,7 @@ public class UserProfile {
      * @param context the Android context
      */
     public static void deleteProfileFile(Context context) {
-        context.deleteFile(PROFILE_FILE);
+        FilePersistence.delete(context, PROFILE_FILE);
     }
 
     /**
@@ -20,6 +20,9 @@ import java.util.Set;
  * <p>
  * Currently supported message types include offer sync, peer sync,
  * peer deletion, and offer data exchange.
+ * <p>
+ * Requests from other nodes are delivered to the sync managers even if this node cannot answer
+ * them, so that the managers drop the overheard IDs from their own pending requests.
  */
 
 public class MessageDispatcher {
@@ -0,0 +1,213 @@
+package com.example.flurfunk.network;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * A hash trie over the {@code (offerId, lastModified)} pairs advertised in offer sync, used to
+ * find the offers two nodes disagree on without exchanging all summaries.
+ * <p>
+ * Each offer is placed at a 64-bit path derived from its ID, read as 16 hex digits. A prefix of
+ * the path selects a subtree; its hash is the XOR of the hashes of all offers in it, so it does
+ * not depend on the order offers were added in and can be updated for a single offer. Two nodes
+ * with the same hash for a prefix hold the same offer versions below it with near certainty, so
+ * reconciliation compares the root hashes first and only descends into the children that differ.
+ * <p>
+ * The hash of the whole trie is kept up to date on every change. Hashes and counts of other
+ * prefixes are computed from the offers below them, which are kept ordered by path, so the cost
+ * is proportional to the size of the subtree.
+ * <p>
+ * This class is not thread-safe.
+ */
+class OfferHashTrie {
+
+    /**
+     * The number of children of every node, one per hex digit.
+     */
+    static final int RADIX = 16;
+
+    /**
+     * The length of the longest prefix, which selects a single path.
+     */
+    static final int MAX_DEPTH = 16;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Map<String, Leaf> leaves = new HashMap<>();
+    private final NavigableSet<Leaf> byPath = new TreeSet<>(Leaf.PATH_ORDER);
+    private long rootHash;
+
+    /**
+     * Adds an offer version or replaces the version stored for the offer.
+     *
+     * @param offerId      the offer ID
+     * @param lastModified the advertised last modification time
+     */
+    void put(String offerId, long lastModified) {
+        Leaf existing = leaves.get(offerId);
+        if (existing != null) {
+            if (existing.lastModified == lastModified) return;
+            remove(offerId);
+        }
+        Leaf leaf = new Leaf(offerId, lastModified);
+        leaves.put(offerId, leaf);
+        byPath.add(leaf);
+        rootHash ^= leaf.hash;
+    }
+
+    /**
+     * Removes an offer.
+     *
+     * @param offerId the offer ID
+     */
+    void remove(String offerId) {
+        Leaf leaf = leaves.remove(offerId);
+        if (leaf == null) return;
+        byPath.remove(leaf);
+        rootHash ^= leaf.hash;
+    }
+
+    /**
+     * @return the number of offers in the trie
+     */
+    int size() {
+        return leaves.size();
+    }
+
+    /**
+     * Returns the hash of the subtree below a prefix.
+     *
+     * @param prefix the path prefix in lowercase hex, empty for the whole trie
+     * @return the XOR of the hashes of all offers below the prefix, {@code 0} if there are none
+     */
+    long hash(String prefix) {
+        if (prefix.isEmpty()) return rootHash;
+        long hash = 0;
+        for (Leaf leaf : subtree(prefix)) hash ^= leaf.hash;
+        return hash;
+    }
+
+    /**
+     * Returns the hashes of the {@link #RADIX} children of a prefix.
+     *
+     * @param prefix the path prefix in lowercase hex, shorter than {@link #MAX_DEPTH}
+     * @return the hash of each child, indexed by its hex digit
+     */
+    long[] childHashes(String prefix) {
+        long[] hashes = new long[RADIX];
+        int shift = 60 - 4 * prefix.length();
+        for (Leaf leaf : subtree(prefix)) {
+            hashes[(int) (leaf.path >>> shift) & 0xF] ^= leaf.hash;
+        }
+        return hashes;
+    }
+
+    /**
+     * Returns the offers below a prefix.
+     *
+     * @param prefix the path prefix in lowercase hex, empty for the whole trie
+     * @return a new map from offer ID to last modification time, in path order
+     */
+    Map<String, Long> entries(String prefix) {
+        Map<String, Long> entries = new LinkedHashMap<>();
+        for (Leaf leaf : subtree(prefix)) entries.put(leaf.offerId, leaf.lastModified);
+        return entries;
+    }
+
+    private SortedSet<Leaf> subtree(String prefix) {
+        int depth = prefix.length();
+        if (depth == 0) return byPath;
+        long low = Long.parseUnsignedLong(prefix, 16) << (4 * (MAX_DEPTH - depth));
+        long high = depth == MAX_DEPTH ? low : low | (-1L >>> (4 * depth));
+        if (high == -1L) return byPath.tailSet(Leaf.cursor(low), true);
+        return byPath.subSet(Leaf.cursor(low), true, Leaf.cursor(high + 1), false);
+    }
+
+    /**
+     * Checks whether a string received from another node is a valid prefix.
+     *
+     * @param prefix the prefix, may be {@code null}
+     * @return {@code true} if it consists of at most {@link #MAX_DEPTH} lowercase hex digits
+     */
+    static boolean isValidPrefix(String prefix) {
+        if (prefix == null || prefix.length() > MAX_DEPTH) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Computes the path of an offer: a 64-bit FNV-1a hash of its ID, mixed so that the leading
+     * hex digits are evenly distributed.
+     */
+    static long pathOf(String offerId) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < offerId.length(); i++) {
+            hash ^= offerId.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Computes the hash of an offer version. Every node computes the same value for the same ID
+     * and timestamp.
+     */
+    static long hashOf(String offerId, long lastModified) {
+        return mix(pathOf(offerId) ^ mix(lastModified));
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * An offer version in the trie.
+     */
+    private static final class Leaf {
+
+        /**
+         * Orders leaves by path as an unsigned number, and by offer ID for equal paths. A cursor
+         * without offer ID sorts before all leaves with the same path.
+         */
+        static final Comparator<Leaf> PATH_ORDER = Comparator
+                .comparing((Leaf leaf) -> leaf.path, Long::compareUnsigned)
+                .thenComparing(leaf -> leaf.offerId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        final String offerId;
+        final long lastModified;
+        final long path;
+        final long hash;
+
+        Leaf(String offerId, long lastModified) {
+            this.offerId = offerId;
+            this.lastModified = lastModified;
+            this.path = pathOf(offerId);
+            this.hash = hashOf(offerId, lastModified);
+        }
+
+        private Leaf(long path) {
+            this.offerId = null;
+            this.lastModified = 0;
+            this.path = path;
+            this.hash = 0;
+        }
+
+        /**
+         * Creates a leaf that only marks a position in the path order.
+         */
+        static Leaf cursor(long path) {
+            return new Leaf(path);
+        }
+    }
+}
@@ -7,6 +7,8 @@ import com.example.flurfunk.model.Offer;
 import com.example.flurfunk.model.UserProfile;
 import com.example.flurfunk.store.OfferManager;
 import com.example.flurfunk.store.PeerManager;
+import com.example.flurfunk.store.StoreChange;
+import com.example.flurfunk.store.StoreChangeListener;
 import com.example.flurfunk.util.Constants;
 import com.example.flurfunk.util.Protocol;
 import com.example.flurfunk.util.Protocol.ParsedMessage;
@@ -19,6 +21,7 @@ import org.json.JSONObject;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
@@ -34,6 +37,37 @@ import java.util.concurrent.ThreadLocalRandom;
  *     <li>Importing incoming offer data and updating local storage</li>
  *     <li>Automatic inactivation of outdated active offers</li>
  * </ul>
+ * <p>
+ * The offer summaries advertised in {@code SYNOF} are cached in an {@link OfferHashTrie} and kept
+ * current through the repository's change notifications, so a sync broadcast does not walk all
+ * stored offers.
+ * <p>
+ * Only active offers that are not deleted are advertised, see {@link #isAdvertised(Offer)}.
+ * Deleted offers and inactive offers of other users are purged by retention after a while, and
+ * inactive offers are evicted first when the storage quota is exceeded, so whether a node still
+ * holds them depends on its own history. Advertising them would keep the root hashes of nodes
+ * with the same active offers from ever matching. Active offers evicted to meet the quota stay
+ * advertised in their evicted version, see {@link OfferManager#loadEvictedVersions(Context)}.
+ * Deletions and inactivations still spread: a node that receives a list with an offer it holds
+ * in a newer, no longer advertised version advertises that version in return.
+ * <p>
+ * Offer sets are reconciled through the hash trie rather than by broadcasting all summaries:
+ * <ol>
+ *     <li>Each sync round broadcasts only the root hash of the trie.</li>
+ *     <li>A node whose hash for a prefix differs answers with the hashes of the prefix's 16
+ *     children, or directly with the complete list of its offers below the prefix if that fits
+ *     into one frame.</li>
+ *     <li>A node receiving child hashes answers the same way for every child that differs, so
+ *     the exchange descends only into subtrees that differ.</li>
+ *     <li>A node receiving the complete list of offers below a prefix requests the offers it is
+ *     missing and advertises those the list is missing, as plain summaries.</li>
+ * </ol>
+ * Once all nodes are in sync, a round costs one short frame per node. Plain summaries from nodes
+ * without reconciliation are still answered with requests.
+ * <p>
+ * Nodes holding the same offers below a prefix would send identical answers, so subtree answers
+ * wait for a response slot and are cancelled when an identical answer is overheard, see
+ * {@link PendingSubtrees}.
  */
 
 public class OfferSyncManager {
@@ -44,6 +78,13 @@ public class OfferSyncManager {
     private static final long MAX_ACTIVE_AGE_MS = 21L * 24 * 60 * 60 * 1000;
     private static final String TAG = "OfferSyncManager";
 
+    private final StoreChangeListener summaryUpdater = this::onStoreChanged;
+    private OfferHashTrie summaries;
+    private final PendingRequests pendingRequests = new PendingRequests();
+    private final PendingResponses pendingResponses = new PendingResponses();
+    private final PendingSubtrees pendingSubtrees = new PendingSubtrees();
+    private final RequestTracker requestTracker = new RequestTracker();
+
     /**
      * Constructs a new {@code OfferSyncManager} for the given user and context.
      *
@@ -60,14 +101,28 @@ public class OfferSyncManager {
     /**
      * Sends a synchronization message to all peers with the same mesh ID.
      * <p>
-     * The message contains a summary of local offers (offer ID and timestamp).
-     * Offers are split into multiple packets if needed to fit within 960 bytes.
+     * The message contains only the root hash of the local {@link OfferHashTrie}. Peers whose
+     * hash differs answer with the hashes of its children, see {@link #handleSyncMessage}.
      */
     public void sendOfferSync() {
         deactivateOutdatedOffers();
 
-        JSONArray offerList = buildOfferList();
+        long rootHash;
+        synchronized (this) {
+            rootHash = currentSummaries().hash("");
+        }
+        String message = buildHashMessage("", new long[]{rootHash});
+        Log.d(TAG, "SYNOF root hash - " + message);
+        loRaManager.sendBroadcast(message);
+    }
 
+    /**
+     * Broadcasts offer summaries as {@code SYNOF} messages, split into multiple packets if
+     * needed to fit within 960 bytes.
+     *
+     * @param offerList the offer summaries (ID and timestamp)
+     */
+    private void sendSummaries(JSONArray offerList) {
         JSONArray chunk = new JSONArray();
         try {
             for (int i = 0; i < offerList.length(); i++) {
@@ -105,24 +160,26 @@ public class OfferSyncManager {
     /**
      * Builds a list of offer summaries for synchronization.
      * <p>
-     * Only active offers from active peers are included.
+     * Only advertised offers whose creator is a known peer are included. The summaries are computed from
+     * all stored offers once and then updated from the repository's change notifications.
      *
      * @return a {@link JSONArray} of offer metadata (ID and timestamp)
      */
     public JSONArray buildOfferList() {
-        JSONArray offerSummaries = new JSONArray();
-        List<Offer> localOffers = OfferManager.loadOffers(context);
-        for (Offer offer : localOffers) {
-            UserProfile peer = PeerManager.getPeerById(context, offer.getCreatorId());
-            if (peer == null) {
-                Log.d(TAG, "Offers with no corresponding user profile found");
-                continue;
-            }
+        Map<String, Long> entries;
+        synchronized (this) {
+            entries = currentSummaries().entries("");
+        }
+        return toSummaryList(entries);
+    }
 
+    private static JSONArray toSummaryList(Map<String, Long> entries) {
+        JSONArray offerSummaries = new JSONArray();
+        for (Map.Entry<String, Long> entry : entries.entrySet()) {
             try {
                 JSONObject summary = new JSONObject();
-                summary.put(Protocol.KEY_OID, offer.getOfferId());
-                summary.put(Protocol.KEY_TS, offer.getLastModified());
+                summary.put(Protocol.KEY_OID, entry.getKey());
+                summary.put(Protocol.KEY_TS, entry.getValue());
                 offerSummaries.put(summary);
             } catch (JSONException e) {
                 Log.w(TAG, "Failed to build offer list");
@@ -131,26 +188,115 @@ public class OfferSyncManager {
         return offerSummaries;
     }
 
+    /**
+     * Stops updating the cached offer summaries. Should be called when this manager is no longer
+     * used, e.g. when the activity owning it is destroyed.
+     */
+    public synchronized void release() {
+        if (summaries != null) OfferManager.removeChangeListener(context, summaryUpdater);
+        summaries = null;
+    }
+
+    /**
+     * Returns the cached summaries, computing them from all stored offers if there are none.
+     * The change listener is registered exactly while summaries are cached, and before the
+     * offers are read, so no change is missed in between. Must be called while holding the lock
+     * of this manager.
+     */
+    private OfferHashTrie currentSummaries() {
+        if (summaries != null) return summaries;
+
+        OfferManager.addChangeListener(context, summaryUpdater, Runnable::run);
+        OfferHashTrie computed = new OfferHashTrie();
+        for (Offer offer : OfferManager.loadOffers(context)) {
+            if (!isAdvertised(offer)) continue;
+            if (PeerManager.getPeerById(context, offer.getCreatorId()) == null) {
+                Log.d(TAG, "Offers with no corresponding user profile found");
+                continue;
+            }
+            computed.put(offer.getOfferId(), offer.getLastModified());
+        }
+        for (Map.Entry<String, Long> entry : OfferManager.loadEvictedVersions(context).entrySet()) {
+            computed.put(entry.getKey(), entry.getValue());
+        }
+        summaries = computed;
+        return computed;
+    }
+
+    /**
+     * Returns whether a stored offer is part of the summaries. Only versions that every node
+     * keeps regardless of its retention state are advertised: active offers that are not
+     * deleted. Active offers evicted to meet the quota stay advertised as well.
+     *
+     * @param offer the stored offer
+     * @return {@code true} if the offer is advertised
+     */
+    static boolean isAdvertised(Offer offer) {
+        return !offer.isDeleted() && offer.getStatus() == Constants.OfferStatus.ACTIVE;
+    }
+
+    /**
+     * Applies store changes to the cached summaries. A new peer may make offers eligible that
+     * were skipped before, so new peers and reloads drop the cache.
+     */
+    private synchronized void onStoreChanged(List<StoreChange> changes) {
+        if (summaries == null) return;
+        for (StoreChange change : changes) {
+            switch (change.getType()) {
+                case OFFER_ADDED:
+                case OFFER_UPDATED:
+                case OFFER_STATUS_CHANGED:
+                    Offer offer = change.getOffer();
+                    if (isAdvertised(offer) && PeerManager.getPeerById(context, offer.getCreatorId()) != null) {
+                        summaries.put(offer.getOfferId(), offer.getLastModified());
+                    } else {
+                        summaries.remove(offer.getOfferId());
+                    }
+                    break;
+                case OFFER_REMOVED:
+                    summaries.remove(change.getId());
+                    break;
+                case OFFER_EVICTED:
+                    // No longer stored, but still advertised in the evicted version
+                    break;
+                case PEER_ADDED:
+                case RELOAD:
+                    OfferManager.removeChangeListener(context, summaryUpdater);
+                    summaries = null;
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+
     /**
      * Handles a received {@code SYNOF} synchronization message.
      * <p>
-     * Compares the incoming list of offer summaries to local offers
-     * and sends a request for any missing or outdated ones.
+     * Messages with trie hashes are answered as described for this class. Otherwise, the
+     * incoming list of offer summaries is compared to local offers and a request is scheduled
+     * for any missing or outdated ones, see {@link #requestOffers(List)}. Offers whose advertised version has been purged locally are
+     * not requested again. If the list is the complete list below a trie prefix, the local
+     * offers it is missing or has in an older version are advertised in return.
      *
      * @param msg the parsed protocol message
      */
     public void handleSyncMessage(ParsedMessage msg) {
         if (!userProfile.getMeshId().equals(msg.getValue(Protocol.KEY_MID))) {
             Log.w(TAG, "Rejected sync message due to different mesh-ID: " + userProfile.getMeshId() + "(local)" + msg.getValue(Protocol.KEY_MID) + "(incoming)");
+            return;
         }
 
-        List<Offer> localOffers = OfferManager.loadOffers(context);
-        Map<String, Offer> localMap = new HashMap<>();
-        for (Offer offer : localOffers) {
-            localMap.put(offer.getOfferId(), offer);
+        String hashes = msg.getValue(Protocol.KEY_HSH);
+        if (hashes != null) {
+            handleTrieHashes(msg.getValue(Protocol.KEY_PFX), hashes);
+            return;
         }
 
+        String prefix = msg.getValue(Protocol.KEY_PFX);
+
         List<String> missing = new ArrayList<>();
+        Map<String, Long> advertised = new HashMap<>();
         try {
             String payload = msg.getValue(Protocol.KEY_OFF);
             if (payload == null || payload.trim().isEmpty()) {
@@ -163,20 +309,221 @@ public class OfferSyncManager {
                 JSONObject r = remote.getJSONObject(i);
                 String offerId = r.getString(Protocol.KEY_OID);
                 long ts = r.getLong(Protocol.KEY_TS);
-                if (!localMap.containsKey(offerId) || localMap.get(offerId).getLastModified() < ts) {
+                advertised.put(offerId, ts);
+                Offer local = OfferManager.getOfferById(context, offerId);
+                if ((local == null || local.getLastModified() < ts) && !OfferManager.isPurged(context, offerId, ts)) {
                     missing.add(offerId);
                 }
             }
 
             if (!missing.isEmpty()) {
-                sendOfferRequest(missing);
-                Log.i(TAG, "Sending offer request");
+                requestOffers(missing);
             }
         } catch (JSONException e) {
             Log.e(TAG, "Error while processing incoming sync", e);
+            return;
+        }
+
+        if (prefix != null) {
+            long hash = 0;
+            for (Map.Entry<String, Long> entry : advertised.entrySet()) {
+                hash ^= OfferHashTrie.hashOf(entry.getKey(), entry.getValue());
+            }
+            cancelSubtreeAnswer(prefix, hash);
+            sendMissingSummaries(prefix, advertised);
+        }
+    }
+
+    /**
+     * Answers trie hashes received from another node. A single hash is compared to the hash of
+     * the prefix; 16 hashes are compared to the hashes of the prefix's children. An answer is
+     * scheduled for every differing subtree, see {@link #sendDueSubtreeAnswers(long)}. 16 hashes
+     * may themselves be another node's answer for the prefix, and cancel an identical pending
+     * answer of this node.
+     *
+     * @param prefix the prefix the hashes refer to
+     * @param hashes the comma-separated hex hashes
+     */
+    private void handleTrieHashes(String prefix, String hashes) {
+        if (!OfferHashTrie.isValidPrefix(prefix)) {
+            Log.w(TAG, "Invalid trie prefix in sync message: " + prefix);
+            return;
+        }
+        long[] remote;
+        try {
+            String[] values = hashes.split(",");
+            remote = new long[values.length];
+            for (int i = 0; i < values.length; i++) remote[i] = Long.parseUnsignedLong(values[i], 16);
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Invalid trie hashes in sync message: " + hashes);
+            return;
+        }
+
+        Map<String, Long> differing = new LinkedHashMap<>();
+        synchronized (this) {
+            OfferHashTrie trie = currentSummaries();
+            if (remote.length == 1) {
+                long local = trie.hash(prefix);
+                if (local != remote[0]) differing.put(prefix, local);
+            } else if (remote.length == OfferHashTrie.RADIX && prefix.length() < OfferHashTrie.MAX_DEPTH) {
+                long overheard = 0;
+                for (long hash : remote) overheard ^= hash;
+                cancelSubtreeAnswer(prefix, overheard);
+
+                long[] local = trie.childHashes(prefix);
+                for (int digit = 0; digit < OfferHashTrie.RADIX; digit++) {
+                    if (local[digit] != remote[digit]) {
+                        differing.put(prefix + Character.forDigit(digit, 16), local[digit]);
+                    }
+                }
+            } else {
+                Log.w(TAG, "Unexpected number of trie hashes: " + remote.length);
+            }
+        }
+        if (differing.isEmpty()) return;
+
+        long now = System.currentTimeMillis();
+        int neighbours = PendingResponses.neighbours(context, userProfile);
+        for (Map.Entry<String, Long> entry : differing.entrySet()) {
+            long deadline = now + PendingResponses.delayMs(false, neighbours);
+            if (!pendingSubtrees.add(entry.getKey(), entry.getValue(), now, deadline)) {
+                Log.d(TAG, "Prefix answered recently, not answering again: " + entry.getKey());
+            }
+        }
+        scheduleSubtreeAnswers();
+    }
+
+    private void cancelSubtreeAnswer(String prefix, long hash) {
+        if (pendingSubtrees.cancel(prefix, hash, System.currentTimeMillis())) {
+            Log.d(TAG, "Cancelled answer for prefix answered by another node: " + prefix);
+        }
+    }
+
+    private void scheduleSubtreeAnswers() {
+        long next = pendingSubtrees.nextSchedule();
+        if (next < 0) return;
+        long delay = Math.max(0, next - System.currentTimeMillis());
+        SyncScheduler.schedule(() -> sendDueSubtreeAnswers(System.currentTimeMillis()), delay);
+    }
+
+    /**
+     * Sends the answers for all prefixes whose response slot has passed and which no other node
+     * has answered identically in the meantime. Each subtree is described as it is stored when
+     * the answer is sent.
+     *
+     * @param now the current time
+     */
+    void sendDueSubtreeAnswers(long now) {
+        List<String> messages = new ArrayList<>();
+        synchronized (this) {
+            OfferHashTrie trie = currentSummaries();
+            for (String prefix : pendingSubtrees.takeDue(now)) messages.add(describeSubtree(trie, prefix));
+        }
+        for (String message : messages) {
+            Log.d(TAG, "SYNOF subtree - " + message);
+            loRaManager.sendBroadcast(message);
+        }
+        scheduleSubtreeAnswers();
+    }
+
+    /**
+     * Builds the answer for a subtree that differs from another node's: the complete list of
+     * local offers below the prefix if it fits into one frame, the hashes of the prefix's
+     * children otherwise.
+     *
+     * @param trie   the local summaries
+     * @param prefix the prefix of the subtree
+     * @return the {@code SYNOF} message to broadcast
+     */
+    private String describeSubtree(OfferHashTrie trie, String prefix) {
+        Map<String, String> payload = newPayload();
+        payload.put(Protocol.KEY_PFX, prefix);
+        payload.put(Protocol.KEY_OFF, toSummaryList(trie.entries(prefix)).toString());
+        String message = Protocol.build(Protocol.SYNOF, payload);
+        if (prefix.length() == OfferHashTrie.MAX_DEPTH
+                || message.getBytes(StandardCharsets.UTF_8).length <= MAX_LORA_BYTES) {
+            return message;
+        }
+        return buildHashMessage(prefix, trie.childHashes(prefix));
+    }
+
+    private String buildHashMessage(String prefix, long[] hashes) {
+        StringBuilder joined = new StringBuilder();
+        for (long hash : hashes) {
+            if (joined.length() > 0) joined.append(',');
+            joined.append(Long.toHexString(hash));
+        }
+        Map<String, String> payload = newPayload();
+        payload.put(Protocol.KEY_PFX, prefix);
+        payload.put(Protocol.KEY_HSH, joined.toString());
+        return Protocol.build(Protocol.SYNOF, payload);
+    }
+
+    /**
+     * Advertises the local offers below a prefix that another node's complete list for the
+     * prefix is missing or has in an older version. Listed offers that are held locally in a
+     * newer version that is no longer advertised, e.g. because it was deleted, are advertised as
+     * well, so that the other node requests the newer version.
+     *
+     * @param prefix     the prefix of the list
+     * @param advertised the offers in the list, by ID
+     */
+    private void sendMissingSummaries(String prefix, Map<String, Long> advertised) {
+        if (!OfferHashTrie.isValidPrefix(prefix)) return;
+        Map<String, Long> newer = new LinkedHashMap<>();
+        Map<String, Long> local;
+        synchronized (this) {
+            local = currentSummaries().entries(prefix);
+        }
+        for (Map.Entry<String, Long> entry : local.entrySet()) {
+            Long remote = advertised.get(entry.getKey());
+            if (remote == null || remote < entry.getValue()) newer.put(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Long> entry : advertised.entrySet()) {
+            if (local.containsKey(entry.getKey())) continue;
+            Offer withdrawn = OfferManager.getOfferById(context, entry.getKey());
+            if (withdrawn != null && withdrawn.getLastModified() > entry.getValue()) {
+                newer.put(withdrawn.getOfferId(), withdrawn.getLastModified());
+            }
+        }
+        if (!newer.isEmpty()) sendSummaries(toSummaryList(newer));
+    }
+
+    private Map<String, String> newPayload() {
+        Map<String, String> payload = new HashMap<>();
+        payload.put(Protocol.KEY_ID, String.format("%016x", ThreadLocalRandom.current().nextLong()));
+        payload.put(Protocol.KEY_UID, userProfile.getId());
+        payload.put(Protocol.KEY_MID, userProfile.getMeshId());
+        return payload;
+    }
+
+    /**
+     * Schedules a {@code REQOF} request for the specified offer IDs after a random delay.
+     * <p>
+     * Neighbours hearing the same {@code SYNOF} usually miss the same offers. IDs requested by
+     * another node during the delay are dropped in {@link #handleOfferRequest(ParsedMessage)},
+     * since the {@code OFDAT} answering that request reaches this node as well.
+     *
+     * @param offerIds the offer IDs to request
+     */
+    void requestOffers(List<String> offerIds) {
+        if (pendingRequests.add(offerIds)) {
+            SyncScheduler.schedule(this::flushOfferRequests, PendingRequests.randomDelayMs());
         }
     }
 
+    /**
+     * Sends the pending offer request with all IDs not requested by other nodes in the meantime.
+     * IDs still awaiting the answer to an earlier request, or found unanswerable, are left out,
+     * see {@link RequestTracker}.
+     */
+    void flushOfferRequests() {
+        List<String> offerIds = requestTracker.admit(pendingRequests.take(), System.currentTimeMillis());
+        if (offerIds.isEmpty()) return;
+        Log.i(TAG, "Sending offer request for " + offerIds.size() + " offers");
+        sendOfferRequest(offerIds);
+    }
+
     /**
      * Sends a {@code REQOF} request message for the specified offer IDs.
      * <p>
@@ -224,8 +571,10 @@ public class OfferSyncManager {
     /**
      * Handles a {@code REQOF} request message received from another peer.
      * <p>
-     * Responds by sending full offer data for each requested offer as {@code OFDAT} messages.
-     * The response is encrypted using the mesh ID as the shared key.
+     * Schedules an answer with the full data of each requested offer held locally, see
+     * {@link PendingResponses} for the response slots. Answers are cancelled if another node
+     * sends the offer first. The requested IDs are removed from this node's own pending
+     * request.
      *
      * @param msg the parsed request message
      */
@@ -235,82 +584,120 @@ public class OfferSyncManager {
             return;
         }
 
+        List<String> overheard = new ArrayList<>();
         try {
             JSONArray requested = new JSONArray(msg.getValue(Protocol.KEY_REQ));
-            List<Offer> localOffers = OfferManager.loadOffers(context);
-            Map<String, Offer> offersById = new HashMap<>();
-            for (Offer offer : localOffers) {
-                offersById.put(offer.getOfferId(), offer);
-            }
+            for (int i = 0; i < requested.length(); i++) overheard.add(requested.getString(i));
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to process offer request", e);
+            return;
+        }
+        int dropped = pendingRequests.drop(overheard);
+        if (dropped > 0) Log.d(TAG, "Dropped " + dropped + " offers requested by another node");
+
+        long now = System.currentTimeMillis();
+        int neighbours = -1;
+        for (String requestedId : overheard) {
+            Offer offer = OfferManager.getOfferById(context, requestedId);
+            if (offer == null) continue;
+
+            boolean creator = userProfile.getId().equals(offer.getCreatorId());
+            if (!creator && neighbours < 0) neighbours = PendingResponses.neighbours(context, userProfile);
+            pendingResponses.add(requestedId, offer.getLastModified(), now + PendingResponses.delayMs(creator, neighbours));
+        }
+        scheduleOfferResponses();
+    }
 
-            JSONArray chunk = new JSONArray();
+    private void scheduleOfferResponses() {
+        long next = pendingResponses.nextSchedule();
+        if (next < 0) return;
+        long delay = Math.max(0, next - System.currentTimeMillis());
+        SyncScheduler.schedule(() -> sendDueOfferResponses(System.currentTimeMillis()), delay);
+    }
 
-            for (int i = 0; i < requested.length(); i++) {
-                String requestedId = requested.getString(i);
-                Offer offer = offersById.get(requestedId);
+    /**
+     * Sends the data of all offers whose response slot has passed and which no other node has
+     * sent in the meantime.
+     *
+     * @param now the current time
+     */
+    void sendDueOfferResponses(long now) {
+        List<Offer> offers = new ArrayList<>();
+        for (String offerId : pendingResponses.takeDue(now)) {
+            Offer offer = OfferManager.getOfferById(context, offerId);
+            if (offer != null) offers.add(offer);
+        }
+        if (!offers.isEmpty()) sendOfferData(offers);
+        scheduleOfferResponses();
+    }
 
-                if (offer == null) {
-                    continue;
-                }
+    /**
+     * Sends full offer data as {@code OFDAT} messages, encrypted using the mesh ID as the shared
+     * key. The data is split into multiple messages if it exceeds the LoRa size limit.
+     *
+     * @param offers the offers to send
+     */
+    private void sendOfferData(List<Offer> offers) {
+        try {
+            JSONArray chunk = new JSONArray();
+
+            for (Offer offer : offers) {
                 JSONObject obj = new JSONObject();
                 obj.put(Protocol.KEY_OID, offer.getOfferId());
                 obj.put(Protocol.KEY_TS, offer.getLastModified());
                 obj.put(Protocol.KEY_TTL, offer.getTitle());
-                obj.put(Protocol.KEY_DESC, offer.getDescription());
+                String description = offer.getDescription() != null ? offer.getDescription()
+                        : OfferManager.loadDescription(context, offer.getOfferId());
+                // A null value would drop the key, which older nodes require
+                obj.put(Protocol.KEY_DESC, description != null ? description : "");
                 obj.put(Protocol.KEY_CAT, offer.getCategory().getCode());
                 obj.put(Protocol.KEY_CID, offer.getCreatorId());
                 obj.put(Protocol.KEY_STAT, offer.getStatus().getCode());
                 chunk.put(obj);
 
-                Map<String, String> payload = new HashMap<>();
-                payload.put(Protocol.KEY_ID, String.format("%016x", ThreadLocalRandom.current().nextLong()));
-                payload.put(Protocol.KEY_UID, userProfile.getId());
-                payload.put(Protocol.KEY_MID, userProfile.getMeshId());
-
-                // Encryption
-                SecureCrypto.EncryptedPayload encrypted = SecureCrypto.encrypt(chunk.toString(), userProfile.getMeshId());
-                payload.put(Protocol.KEY_IV, encrypted.iv);
-                payload.put(Protocol.KEY_OFA, encrypted.ciphertext);
-
-                String message = Protocol.build(Protocol.OFDAT, payload);
-
-                if (message.getBytes(StandardCharsets.UTF_8).length > MAX_LORA_BYTES) {
+                if (buildOfferData(chunk).getBytes(StandardCharsets.UTF_8).length > MAX_LORA_BYTES
+                        && chunk.length() > 1) {
                     chunk.remove(chunk.length() - 1);
+                    String message = buildOfferData(chunk);
+                    Log.d(TAG, "OFDAT larger than 960 B - " + message);
+                    loRaManager.sendBroadcast(message);
 
-                    // Encryption
-                    encrypted = SecureCrypto.encrypt(chunk.toString(), userProfile.getMeshId());
-                    payload.put(Protocol.KEY_IV, encrypted.iv);
-                    payload.put(Protocol.KEY_OFA, encrypted.ciphertext);
-                    Log.d(TAG, "OFDAT larger than 960 B - " + Protocol.build(Protocol.OFDAT, payload));
-                    loRaManager.sendBroadcast(Protocol.build(Protocol.OFDAT, payload));
-
-                    chunk = new JSONArray();
-                }
-
-                if (i == requested.length() - 1 && chunk.length() > 0) {
-                    // Encryption
-                    encrypted = SecureCrypto.encrypt(chunk.toString(), userProfile.getMeshId());
-                    payload.put(Protocol.KEY_IV, encrypted.iv);
-                    payload.put(Protocol.KEY_OFA, encrypted.ciphertext);
-                    Log.d(TAG, "OFDAT smaller than 960 B - " + Protocol.build(Protocol.OFDAT, payload));
-                    loRaManager.sendBroadcast(Protocol.build(Protocol.OFDAT, payload));
+                    chunk = new JSONArray().put(obj);
                 }
             }
 
+            if (chunk.length() > 0) {
+                String message = buildOfferData(chunk);
+                Log.d(TAG, "OFDAT smaller than 960 B - " + message);
+                loRaManager.sendBroadcast(message);
+            }
         } catch (JSONException e) {
-            Log.e(TAG, "Failed to process offer request", e);
+            Log.e(TAG, "Failed to build offer data", e);
         }
     }
 
+    private String buildOfferData(JSONArray chunk) {
+        Map<String, String> payload = newPayload();
+
+        // Encryption
+        SecureCrypto.EncryptedPayload encrypted = SecureCrypto.encrypt(chunk.toString(), userProfile.getMeshId());
+        payload.put(Protocol.KEY_IV, encrypted.iv);
+        payload.put(Protocol.KEY_OFA, encrypted.ciphertext);
+        return Protocol.build(Protocol.OFDAT, payload);
+    }
+
     /**
      * Handles an incoming {@code OFDAT} message containing encrypted offer data.
      * <p>
      * Decrypts and parses the data, updates or adds offers to local storage.
+     * Only the offers contained in the frame are touched in the store.
+     * Pending answers of this node for the received offer versions are cancelled, and the
+     * offers are no longer awaited by the {@link RequestTracker}.
      *
      * @param msg the parsed data message
      */
     public void handleOfferData(ParsedMessage msg) {
-        List<Offer> current = OfferManager.loadOffers(context);
+        List<Offer> imported = new ArrayList<>();
         String iv = msg.getValue(Protocol.KEY_IV);
         String ciphertext = msg.getValue(Protocol.KEY_OFA);
 
@@ -338,7 +725,7 @@ public class OfferSyncManager {
             JSONArray array = new JSONArray(decrypted);
             for (int i = 0; i < array.length(); i++) {
                 try {
-                    importOffer(array.getJSONObject(i), current);
+                    importOffer(array.getJSONObject(i), imported);
                 } catch (JSONException e) {
                     Log.w(TAG, "Invalid offer (idx " + i + ") - skipped: " + e.getMessage());
                 }
@@ -354,7 +741,7 @@ public class OfferSyncManager {
             int ok = 0, bad = 0;
             for (String fragment : fragments) {
                 try {
-                    importOffer(new JSONObject(fragment), current);
+                    importOffer(new JSONObject(fragment), imported);
                     ok++;
                 } catch (JSONException e) {
                     bad++;
@@ -366,7 +753,14 @@ public class OfferSyncManager {
             }
         }
 
-        OfferManager.saveOffers(context, current);
+        for (Offer offer : imported) {
+            requestTracker.answered(offer.getOfferId());
+            if (pendingResponses.cancel(offer.getOfferId(), offer.getLastModified())) {
+                Log.d(TAG, "Offer " + offer.getOfferId() + " sent by another node, response cancelled");
+            }
+        }
+
+        OfferManager.updateOrAddAll(context, imported);
         Log.i(TAG, "Saving incoming offer data");
     }
 
@@ -411,46 +805,35 @@ public class OfferSyncManager {
     }
 
     /**
-     * Imports a single offer from JSON into the given list.
+     * Parses a single offer from JSON and adds it to the given list of imported offers.
      * <p>
-     * Updates the existing entry if already present, or adds it otherwise.
+     * The imported offers are later merged into the store, updating existing entries
+     * or adding new ones.
      *
-     * @param data    the JSON representation of the offer
-     * @param current the list of existing local offers
-     * @throws JSONException if any field is missing or invalid
+     * @param data     the JSON representation of the offer
+     * @param imported the list collecting the offers of the current frame
+     * @throws JSONException if any field other than the description is missing or invalid
      */
-    private void importOffer(JSONObject data, List<Offer> current) throws JSONException {
+    private void importOffer(JSONObject data, List<Offer> imported) throws JSONException {
         Offer offer = new Offer();
         offer.setOfferId(data.getString(Protocol.KEY_OID));
         offer.setTitle(data.getString(Protocol.KEY_TTL));
-        offer.setDescription(data.getString(Protocol.KEY_DESC));
+        offer.setDescription(data.optString(Protocol.KEY_DESC, ""));
         offer.setCreatorId(data.getString(Protocol.KEY_CID));
         offer.setCategory(Constants.getCategoryFromCode(data.getString(Protocol.KEY_CAT)));
         offer.setStatus(Constants.getOfferStatusFromCode(data.getString(Protocol.KEY_STAT)));
         offer.setLastModified(data.getLong(Protocol.KEY_TS));
 
-        OfferManager.updateOrAdd(current, offer);
+        imported.add(offer);
     }
 
     /**
      * Automatically sets offers to INACTIVE if they are older than {@code MAX_ACTIVE_AGE_MS}.
      * <p>
      * The method is called before sending a sync broadcast to avoid advertising stale offers.
+     * Only offers that crossed the age limit since the last round are touched.
      */
     private void deactivateOutdatedOffers() {
-        List<Offer> offers = OfferManager.loadOffers(context);
-        long cutoff = System.currentTimeMillis() - MAX_ACTIVE_AGE_MS;
-        boolean changed = false;
-
-        for (Offer offer : offers) {
-            if (offer.getStatus() == Constants.OfferStatus.ACTIVE && offer.getLastModified() < cutoff) {
-                offer.setStatus(Constants.OfferStatus.INACTIVE);
-                changed = true;
-                Log.d(TAG, "Auto-inactivated state for offer " + offer.getOfferId());
-            }
-        }
-        if (changed) {
-            OfferManager.saveOffers(context, offers);
-        }
+        OfferManager.deactivateOutdatedOffers(context, MAX_ACTIVE_AGE_MS, System.currentTimeMillis());
     }
 }
@@ -7,6 +7,8 @@ import com.example.flurfunk.model.Offer;
 import com.example.flurfunk.model.UserProfile;
 import com.example.flurfunk.store.OfferManager;
 import com.example.flurfunk.store.PeerManager;
+import com.example.flurfunk.store.StoreChange;
+import com.example.flurfunk.store.StoreChangeListener;
 import com.example.flurfunk.util.Constants;
 import com.example.flurfunk.util.Protocol;
 import com.example.flurfunk.util.Protocol.ParsedMessage;
@@ -34,6 +36,18 @@ import java.util.concurrent.ThreadLocalRandom;
  * </ul>
  * This manager ensures that each device maintains an up-to-date set of peer profiles
  * for all users sharing the same mesh (i.e. address-based) network.
+ * <p>
+ * A periodic {@code SYNPR} carries only a digest over the known profile versions, kept current
+ * through the repository's change notifications. Summaries are broadcast only by nodes whose
+ * digest differs, so a round in a mesh where all profiles are known costs one short frame per
+ * node.
+ * <p>
+ * Nodes without digest support still take part: the periodic {@code SYNPR} carries an empty
+ * summary list next to the digest, which such nodes parse without requesting anything. Their own
+ * {@code SYNPR} carries summaries but no digest; it is handled like any summary list and answered
+ * with the local summaries, at most once per {@link #MIN_SUMMARY_INTERVAL_MS}, since such a node
+ * never reports a differing digest. Summaries sent in answer carry the local digest, so they are
+ * not mistaken for those of a node without digest support.
  */
 public class PeerSyncManager {
 
@@ -43,6 +57,19 @@ public class PeerSyncManager {
     private static final int MAX_LORA_BYTES = 960;
     private static final String TAG = "PeerSyncManager";
 
+    /**
+     * The minimum time between two broadcasts of the local summaries in answer to differing
+     * digests.
+     */
+    static final long MIN_SUMMARY_INTERVAL_MS = 30_000;
+
+    private final StoreChangeListener digestUpdater = this::onStoreChanged;
+    private VersionDigest digest;
+    private long lastSummariesSent = Long.MIN_VALUE / 2;
+    private final PendingRequests pendingRequests = new PendingRequests();
+    private final PendingResponses pendingResponses = new PendingResponses();
+    private final RequestTracker requestTracker = new RequestTracker();
+
     /**
      * Constructs a new {@code PeerSyncManager}.
      *
@@ -59,16 +86,40 @@ public class PeerSyncManager {
     /**
      * Sends a {@code SYNPR} broadcast to peers with the same mesh ID.
      * <p>
-     * The message includes the local device's lastSeen timestamp
-     * and a list of known peer profile timestamps for comparison.
+     * The message includes the local device's lastSeen timestamp and a digest over the known
+     * peer profile timestamps. Peers whose digest differs answer with their full list of
+     * summaries, see {@link #handlePeerList(ParsedMessage)}. An empty summary list is included
+     * for nodes that expect one in every {@code SYNPR}.
      */
     public void sendPeerSync() {
-        List<UserProfile> allPeers = PeerManager.loadPeers(context);
-        JSONArray chunk = new JSONArray();
-
         localProfile.updateLastSeen();
         PeerManager.updateLastSeen(context, localProfile.getId(), localProfile.getLastSeen());
 
+        long digest;
+        synchronized (this) {
+            digest = currentDigest().value();
+        }
+
+        Map<String, String> payload = newPayload();
+        payload.put(Protocol.KEY_LS, String.valueOf(localProfile.getLastSeen()));
+        payload.put(Protocol.KEY_DIG, Long.toHexString(digest));
+        payload.put(Protocol.KEY_PRS, new JSONArray().toString());
+        loRaManager.sendBroadcast(Protocol.build(Protocol.SYNPR, payload));
+    }
+
+    /**
+     * Broadcasts the summaries of all known peer profiles with the same mesh ID as
+     * {@code SYNPR} messages, split into multiple packets if needed to fit within 960 bytes.
+     * Each message carries the local digest as well.
+     */
+    void sendPeerSummaries() {
+        String digest;
+        synchronized (this) {
+            digest = Long.toHexString(currentDigest().value());
+        }
+        List<UserProfile> allPeers = PeerManager.loadPeers(context);
+        JSONArray chunk = new JSONArray();
+
         for (UserProfile peer : allPeers) {
             if (!peer.getMeshId().equals(localProfile.getMeshId())) {
                 Log.d(TAG, "No peers with same mesh ID, stopping PeerSync");
@@ -81,11 +132,9 @@ public class PeerSyncManager {
                 summary.put(Protocol.KEY_TS, peer.getTimestamp());
                 chunk.put(summary);
 
-                Map<String, String> payload = new HashMap<>();
-                payload.put(Protocol.KEY_ID, String.format("%016x", ThreadLocalRandom.current().nextLong()));
-                payload.put(Protocol.KEY_UID, localProfile.getId());
-                payload.put(Protocol.KEY_MID, localProfile.getMeshId());
+                Map<String, String> payload = newPayload();
                 payload.put(Protocol.KEY_LS, String.valueOf(localProfile.getLastSeen()));
+                payload.put(Protocol.KEY_DIG, digest);
                 payload.put(Protocol.KEY_PRS, chunk.toString());
 
                 String message = Protocol.build(Protocol.SYNPR, payload);
@@ -104,11 +153,9 @@ public class PeerSyncManager {
         }
 
         if (chunk.length() > 0) {
-            Map<String, String> payload = new HashMap<>();
-            payload.put(Protocol.KEY_ID, String.format("%016x", ThreadLocalRandom.current().nextLong()));
-            payload.put(Protocol.KEY_UID, localProfile.getId());
-            payload.put(Protocol.KEY_MID, localProfile.getMeshId());
+            Map<String, String> payload = newPayload();
             payload.put(Protocol.KEY_LS, String.valueOf(localProfile.getLastSeen()));
+            payload.put(Protocol.KEY_DIG, digest);
             payload.put(Protocol.KEY_PRS, chunk.toString());
 
             loRaManager.sendBroadcast(Protocol.build(Protocol.SYNPR, payload));
@@ -116,13 +163,71 @@ public class PeerSyncManager {
 
     }
 
+    /**
+     * Stops updating the cached peer digest. Should be called when this manager is no longer
+     * used, e.g. when the activity owning it is destroyed.
+     */
+    public synchronized void release() {
+        if (digest != null) PeerManager.removeChangeListener(context, digestUpdater);
+        digest = null;
+    }
+
+    /**
+     * Returns the cached digest, computing it from all stored peers if there is none. The
+     * change listener is registered exactly while a digest is cached, and before the peers are
+     * read, so no change is missed in between. Must be called while holding the lock of this
+     * manager.
+     */
+    private VersionDigest currentDigest() {
+        if (digest != null) return digest;
+
+        PeerManager.addChangeListener(context, digestUpdater, Runnable::run);
+        VersionDigest computed = new VersionDigest();
+        for (UserProfile peer : PeerManager.loadPeers(context)) {
+            if (localProfile.getMeshId().equals(peer.getMeshId())) {
+                computed.put(peer.getId(), peer.getTimestamp());
+            }
+        }
+        digest = computed;
+        return computed;
+    }
+
+    /**
+     * Applies peer changes to the cached digest. Reloads drop the cache.
+     */
+    private synchronized void onStoreChanged(List<StoreChange> changes) {
+        if (digest == null) return;
+        for (StoreChange change : changes) {
+            switch (change.getType()) {
+                case PEER_ADDED:
+                case PEER_UPDATED:
+                    UserProfile peer = change.getPeer();
+                    if (localProfile.getMeshId().equals(peer.getMeshId())) {
+                        digest.put(peer.getId(), peer.getTimestamp());
+                    } else {
+                        digest.remove(peer.getId());
+                    }
+                    break;
+                case RELOAD:
+                    PeerManager.removeChangeListener(context, digestUpdater);
+                    digest = null;
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+
     /**
      * Handles an incoming {@code SYNPR} peer list message.
      * <p>
-     * Updates the sender's {@code lastSeen} timestamp and determines
-     * which profiles are missing or outdated. A {@code REQPR} is sent if needed.
+     * Updates the sender's {@code lastSeen} timestamp. If the message carries summaries,
+     * determines which profiles are missing or outdated and schedules a {@code REQPR} if needed,
+     * see {@link #requestPeers(List)}. If it carries only a digest that differs from the local
+     * one, or summaries from a node without digest support, the local summaries are broadcast in
+     * return, at most once per {@link #MIN_SUMMARY_INTERVAL_MS}.
      *
-     * @param msg the parsed {@link ParsedMessage} containing peer summaries
+     * @param msg the parsed {@link ParsedMessage} containing a digest or peer summaries
      */
     public void handlePeerList(ParsedMessage msg) {
         if (!localProfile.getMeshId().equals(msg.getValue(Protocol.KEY_MID))) {
@@ -141,14 +246,31 @@ public class PeerSyncManager {
             }
         }
 
-        try {
-            JSONArray remote = new JSONArray(msg.getValue(Protocol.KEY_PRS));
-            List<UserProfile> localPeers = PeerManager.loadPeers(context);
-            Map<String, UserProfile> localMap = new HashMap<>();
-            for (UserProfile profile : localPeers) {
-                localMap.put(profile.getId(), profile);
-            }
+        String remoteDigest = msg.getValue(Protocol.KEY_DIG);
+        String summaries = msg.getValue(Protocol.KEY_PRS);
+        if (remoteDigest == null && summaries == null) {
+            Log.w(TAG, "Received peer sync without digest or summaries");
+            return;
+        }
 
+        int received = summaries != null ? handleSummaries(summaries) : 0;
+        if (remoteDigest == null) {
+            Log.d(TAG, "Peer sync without digest, answering with summaries");
+            sendSummariesThrottled();
+        } else if (received == 0) {
+            handleDigest(remoteDigest);
+        }
+    }
+
+    /**
+     * Requests the profiles of a received summary list that are missing or outdated locally.
+     *
+     * @param summaries the summaries as a JSON array
+     * @return the number of summaries in the list
+     */
+    private int handleSummaries(String summaries) {
+        try {
+            JSONArray remote = new JSONArray(summaries);
             List<String> toRequest = new ArrayList<>();
 
             for (int i = 0; i < remote.length(); i++) {
@@ -156,16 +278,90 @@ public class PeerSyncManager {
                 String id = remotePeer.getString(Protocol.KEY_UID);
                 long ts = remotePeer.getLong(Protocol.KEY_TS);
 
-                if (!localMap.containsKey(id) || localMap.get(id).getTimestamp() < ts) {
+                UserProfile local = PeerManager.getPeerById(context, id);
+                if (local == null || local.getTimestamp() < ts) {
                     toRequest.add(id);
                 }
             }
             if (!toRequest.isEmpty()) {
-                sendPeerRequest(toRequest);
+                requestPeers(toRequest);
             }
+            return remote.length();
         } catch (JSONException e) {
             Log.e(TAG, "Failed to parse peer list", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Compares a received peer digest to the local one and broadcasts the local summaries if
+     * they differ. Several nodes usually report the same difference in one round, so summaries
+     * are not sent again within {@link #MIN_SUMMARY_INTERVAL_MS}.
+     *
+     * @param remoteDigest the received digest in hex
+     */
+    private void handleDigest(String remoteDigest) {
+        long remote;
+        try {
+            remote = Long.parseUnsignedLong(remoteDigest, 16);
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Invalid peer digest: " + remoteDigest);
+            return;
+        }
+
+        synchronized (this) {
+            if (currentDigest().value() == remote) return;
         }
+        sendSummariesThrottled();
+    }
+
+    /**
+     * Broadcasts the local summaries unless they were sent within
+     * {@link #MIN_SUMMARY_INTERVAL_MS}.
+     */
+    private void sendSummariesThrottled() {
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now - lastSummariesSent < MIN_SUMMARY_INTERVAL_MS) {
+                Log.d(TAG, "Peer summaries sent recently");
+                return;
+            }
+            lastSummariesSent = now;
+        }
+        Log.d(TAG, "Sending peer summaries");
+        sendPeerSummaries();
+    }
+
+    private Map<String, String> newPayload() {
+        Map<String, String> payload = new HashMap<>();
+        payload.put(Protocol.KEY_ID, String.format("%016x", ThreadLocalRandom.current().nextLong()));
+        payload.put(Protocol.KEY_UID, localProfile.getId());
+        payload.put(Protocol.KEY_MID, localProfile.getMeshId());
+        return payload;
+    }
+
+    /**
+     * Schedules a {@code REQPR} request for the specified peer IDs after a random delay. IDs
+     * requested by another node during the delay are dropped in
+     * {@link #handlePeerRequest(ParsedMessage)}, since the {@code PRDAT} answering that request
+     * reaches this node as well.
+     *
+     * @param peerIds the peer IDs to request
+     */
+    void requestPeers(List<String> peerIds) {
+        if (pendingRequests.add(peerIds)) {
+            SyncScheduler.schedule(this::flushPeerRequests, PendingRequests.randomDelayMs());
+        }
+    }
+
+    /**
+     * Sends the pending peer request with all IDs not requested by other nodes in the meantime.
+     * IDs still awaiting the answer to an earlier request, or found unanswerable, are left out,
+     * see {@link RequestTracker}.
+     */
+    void flushPeerRequests() {
+        List<String> peerIds = requestTracker.admit(pendingRequests.take(), System.currentTimeMillis());
+        if (!peerIds.isEmpty()) sendPeerRequest(peerIds);
     }
 
     /**
@@ -213,8 +409,10 @@ public class PeerSyncManager {
     /**
      * Handles an incoming {@code REQPR} request.
      * <p>
-     * Sends a {@code PRDAT} response containing full profile data for all requested peer IDs
-     * that are available locally.
+     * Schedules a {@code PRDAT} response containing full profile data for all requested peer
+     * IDs that are available locally, see {@link PendingResponses} for the response slots.
+     * Responses are cancelled if another node sends the profile first. The requested IDs are
+     * removed from this node's own pending request.
      *
      * @param msg the parsed peer request message
      */
@@ -223,26 +421,53 @@ public class PeerSyncManager {
 
         try {
             JSONArray requested = new JSONArray(msg.getValue(Protocol.KEY_REQ));
-            List<UserProfile> allPeers = PeerManager.loadPeers(context);
-            List<UserProfile> toSend = new ArrayList<>();
-
-            for (int i = 0; i < requested.length(); i++) {
-                String id = requested.getString(i);
-                for (UserProfile peer : allPeers) {
-                    if (peer.getId().equals(id)) {
-                        toSend.add(peer);
-                        break;
-                    }
-                }
+            List<String> overheard = new ArrayList<>();
+            for (int i = 0; i < requested.length(); i++) overheard.add(requested.getString(i));
+            pendingRequests.drop(overheard);
+
+            long now = System.currentTimeMillis();
+            int neighbours = -1;
+
+            for (String id : overheard) {
+                UserProfile peer = PeerManager.getPeerById(context, id);
+                if (peer == null) continue;
+                boolean owner = id.equals(localProfile.getId());
+                if (!owner && neighbours < 0) neighbours = PendingResponses.neighbours(context, localProfile);
+                pendingResponses.add(id, peer.getTimestamp(), now + PendingResponses.delayMs(owner, neighbours));
             }
-
-            if (!toSend.isEmpty()) sendPeerData(toSend);
+            schedulePeerResponses();
 
         } catch (JSONException e) {
             Log.e(TAG, "Failed to handle peer request", e);
         }
     }
 
+    private void schedulePeerResponses() {
+        long next = pendingResponses.nextSchedule();
+        if (next < 0) return;
+        long delay = Math.max(0, next - System.currentTimeMillis());
+        SyncScheduler.schedule(() -> sendDuePeerResponses(System.currentTimeMillis()), delay);
+    }
+
+    /**
+     * Sends the profiles whose response slot has passed and which no other node has sent in the
+     * meantime.
+     *
+     * @param now the current time
+     */
+    void sendDuePeerResponses(long now) {
+        List<String> due = pendingResponses.takeDue(now);
+        if (!due.isEmpty()) {
+            List<UserProfile> toSend = new ArrayList<>();
+            for (String id : due) {
+                UserProfile peer = PeerManager.getPeerById(context, id);
+                if (peer != null) toSend.add(peer);
+            }
+            if (!toSend.isEmpty()) sendPeerData(toSend);
+        }
+        schedulePeerResponses();
+    }
+
     /**
      * Sends a {@code PRDAT} message containing full profile data.
      * <p>
@@ -296,7 +521,9 @@ public class PeerSyncManager {
      * Handles an incoming {@code PRDAT} message with encrypted peer profile data.
      * <p>
      * Decrypts the payload and updates the local peer list accordingly.
-     * New peers are added, and outdated entries are updated.
+     * New peers are added, and outdated entries are updated. Pending responses of this node
+     * for the received profile versions are cancelled, and the profiles are no longer awaited
+     * by the {@link RequestTracker}.
      *
      * @param msg the parsed peer data message
      */
@@ -321,15 +548,12 @@ public class PeerSyncManager {
                 profile.setEmail(data.optString(Protocol.KEY_MAIL, null));
                 profile.setTimestamp(data.getLong(Protocol.KEY_TS));
                 profile.setMeshId(data.getString(Protocol.KEY_MID));
+                pendingResponses.cancel(profile.getId(), profile.getTimestamp());
+                requestTracker.answered(profile.getId());
 
-                List<UserProfile> current = PeerManager.loadPeers(context);
-                for (UserProfile existing : current) {
-                    if (existing.getId().equals(profile.getId())) {
-                        if (existing.getTimestamp() >= profile.getTimestamp()) {
-                            return;
-                        }
-                        break;
-                    }
+                UserProfile existing = PeerManager.getPeerById(context, profile.getId());
+                if (existing != null && existing.getTimestamp() >= profile.getTimestamp()) {
+                    continue;
                 }
 
                 PeerManager.updateOrAddPeer(context, profile);
@@ -343,6 +567,7 @@ public class PeerSyncManager {
      * Handles an incoming {@code USRDEL} message indicating a peer was deleted.
      * <p>
      * Marks the peer as inactive and sets all of their active offers to {@code INACTIVE}.
+     * Both changes are applied together in one transaction.
      *
      * @param msg the parsed deletion message
      */
@@ -352,20 +577,24 @@ public class PeerSyncManager {
 
         if (!localProfile.getMeshId().equals(meshId)) return;
 
-        PeerManager.updateLastSeen(context, deletedUserId, 0);
-        List<Offer> offers = OfferManager.loadOffers(context);
-        boolean changed = false;
+        int[] deactivated = new int[1];
+        OfferManager.runInTransaction(context, transaction -> {
+            UserProfile peer = transaction.getPeer(deletedUserId);
+            if (peer != null) {
+                peer.setLastSeen(0);
+                transaction.putPeer(peer);
+            }
 
-        for (Offer offer : offers) {
-            if (deletedUserId.equals(offer.getCreatorId()) && offer.getStatus() == Constants.OfferStatus.ACTIVE) {
+            List<Offer> offers = transaction.queryOffers(null, Constants.OfferStatus.ACTIVE, deletedUserId, null);
+            for (Offer offer : offers) {
                 offer.setStatus(Constants.OfferStatus.INACTIVE);
                 offer.setLastModified(System.currentTimeMillis());
-                changed = true;
+                transaction.putOffer(offer);
             }
-        }
+            deactivated[0] = offers.size();
+        });
 
-        if (changed) {
-            OfferManager.saveOffers(context, offers);
+        if (deactivated[0] > 0) {
             Log.i(TAG, "Offers of deleted user " + deletedUserId + " marked as inactive.");
         } else {
             Log.i(TAG, "User deletion received for " + deletedUserId + ", no active offers found.");
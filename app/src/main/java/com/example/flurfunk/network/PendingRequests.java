@@ -0,0 +1,84 @@
+package com.example.flurfunk.network;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Collects the IDs a node is about to request ({@code REQOF} or {@code REQPR}) during a
+ * randomized delay.
+ * <p>
+ * A sync broadcast reaches all neighbours at once, and those lacking the same items would
+ * otherwise send the same request at the same time, where the frames collide. Instead, each node
+ * waits a random time before sending its request. Requests overheard from other nodes in the
+ * meantime remove their IDs from the pending set: the data is broadcast in response to the other
+ * request, so this node receives it as well. When the delay ends, only the remaining IDs are
+ * requested.
+ * <p>
+ * All methods are thread-safe. The caller schedules the end of the delay, e.g. with
+ * {@link SyncScheduler}.
+ */
+class PendingRequests {
+
+    /**
+     * The shortest delay before a request is sent.
+     */
+    static final long MIN_DELAY_MS = 1000;
+
+    /**
+     * The longest delay before a request is sent. It spans several frame airtimes, so that
+     * neighbours pick distinguishable slots.
+     */
+    static final long MAX_DELAY_MS = 6000;
+
+    private final Set<String> ids = new LinkedHashSet<>();
+    private boolean scheduled;
+
+    /**
+     * Adds IDs to the pending request. The caller must schedule a flush if this returns
+     * {@code true}.
+     *
+     * @param requested the IDs to request
+     * @return {@code true} if no flush was scheduled yet
+     */
+    synchronized boolean add(Collection<String> requested) {
+        ids.addAll(requested);
+        if (scheduled || ids.isEmpty()) return false;
+        scheduled = true;
+        return true;
+    }
+
+    /**
+     * Removes IDs another node has requested.
+     *
+     * @param overheard the IDs in the overheard request
+     * @return the number of IDs removed from the pending request
+     */
+    synchronized int drop(Collection<String> overheard) {
+        int before = ids.size();
+        ids.removeAll(overheard);
+        return before - ids.size();
+    }
+
+    /**
+     * Takes all pending IDs, ending the current delay.
+     *
+     * @return the IDs to request now, in the order they were added
+     */
+    synchronized List<String> take() {
+        List<String> taken = new ArrayList<>(ids);
+        ids.clear();
+        scheduled = false;
+        return taken;
+    }
+
+    /**
+     * @return a random delay between {@link #MIN_DELAY_MS} and {@link #MAX_DELAY_MS}
+     */
+    static long randomDelayMs() {
+        return ThreadLocalRandom.current().nextLong(MIN_DELAY_MS, MAX_DELAY_MS + 1);
+    }
+}
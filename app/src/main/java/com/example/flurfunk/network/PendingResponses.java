@@ -0,0 +1,158 @@
+package com.example.flurfunk.network;
+
+import android.content.Context;
+
+import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.store.PeerManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Holds the answers ({@code OFDAT} or {@code PRDAT}) a node is about to send, each until a
+ * randomized deadline.
+ * <p>
+ * Every node holding a requested item could answer a request, but one answer reaches all of them.
+ * Each node therefore waits for a response slot before answering, and cancels its answer for an
+ * item once it overhears another node's answer with the same or a newer version. Slots are
+ * weighted so that usually one suitable node answers first:
+ * <ul>
+ *     <li>The creator of an offer, or the owner of a profile, answers in the first slot.</li>
+ *     <li>Other nodes wait one slot plus one slot for each neighbour they have fewer than
+ *     {@link #LINK_SLOTS}, so nodes that hear many peers answer before those at the edge of the
+ *     mesh.</li>
+ *     <li>A random offset of up to {@link #SPREAD_SLOTS} slots separates nodes with the same
+ *     weight.</li>
+ * </ul>
+ * Neighbours are the peers heard directly within {@link #NEIGHBOUR_WINDOW_MS}, as recorded by
+ * their last seen timestamp.
+ * <p>
+ * All methods are thread-safe.
+ */
+class PendingResponses {
+
+    /**
+     * The length of a response slot, about the airtime of one full frame.
+     */
+    static final long SLOT_MS = 1500;
+
+    /**
+     * The number of neighbours from which a node gets no additional delay.
+     */
+    static final int LINK_SLOTS = 4;
+
+    /**
+     * The number of slots over which nodes with the same weight are spread.
+     */
+    static final int SPREAD_SLOTS = 4;
+
+    /**
+     * How long a peer counts as a neighbour after it was last heard.
+     */
+    static final long NEIGHBOUR_WINDOW_MS = 5 * 60 * 1000;
+
+    private final Map<String, Long> versions = new HashMap<>();
+    private final Map<String, Long> deadlines = new HashMap<>();
+    private long scheduledFor;
+
+    /**
+     * Adds an answer for an item. An answer already pending for the item keeps the earlier
+     * deadline.
+     *
+     * @param id       the ID of the item
+     * @param version  the timestamp of the local version
+     * @param deadline the time at which to answer
+     */
+    synchronized void add(String id, long version, long deadline) {
+        versions.put(id, version);
+        Long previous = deadlines.get(id);
+        if (previous == null || deadline < previous) deadlines.put(id, deadline);
+    }
+
+    /**
+     * Cancels the answer for an item if another node's answer carries the same or a newer
+     * version.
+     *
+     * @param id      the ID of the overheard item
+     * @param version the timestamp of the overheard version
+     * @return {@code true} if a pending answer was cancelled
+     */
+    synchronized boolean cancel(String id, long version) {
+        Long pending = versions.get(id);
+        if (pending == null || version < pending) return false;
+        versions.remove(id);
+        deadlines.remove(id);
+        return true;
+    }
+
+    /**
+     * Takes all answers whose deadline has passed.
+     *
+     * @param now the current time
+     * @return the IDs to answer now
+     */
+    synchronized List<String> takeDue(long now) {
+        List<String> due = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> it = deadlines.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (entry.getValue() <= now) {
+                due.add(entry.getKey());
+                versions.remove(entry.getKey());
+                it.remove();
+            }
+        }
+        if (scheduledFor <= now) scheduledFor = 0;
+        return due;
+    }
+
+    /**
+     * Returns the time at which the next answers are due, if no task is scheduled for that time
+     * yet. The caller must schedule a task for the returned time.
+     *
+     * @return the earliest deadline, or {@code -1} if nothing needs to be scheduled
+     */
+    synchronized long nextSchedule() {
+        long next = Long.MAX_VALUE;
+        for (long deadline : deadlines.values()) next = Math.min(next, deadline);
+        if (next == Long.MAX_VALUE || (scheduledFor != 0 && scheduledFor <= next)) return -1;
+        scheduledFor = next;
+        return next;
+    }
+
+    /**
+     * Computes the delay before answering for an item.
+     *
+     * @param creator    whether the local user created the item
+     * @param neighbours the number of neighbours of this node
+     * @return the delay in milliseconds
+     */
+    static long delayMs(boolean creator, int neighbours) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (creator) return random.nextLong(SLOT_MS);
+        int penalty = Math.max(0, LINK_SLOTS - neighbours);
+        return SLOT_MS * (1 + penalty) + random.nextLong(SLOT_MS * SPREAD_SLOTS);
+    }
+
+    /**
+     * Counts the peers of the local mesh heard within {@link #NEIGHBOUR_WINDOW_MS}.
+     *
+     * @param context      the Android context
+     * @param localProfile the local user profile
+     * @return the number of neighbours
+     */
+    static int neighbours(Context context, UserProfile localProfile) {
+        long since = System.currentTimeMillis() - NEIGHBOUR_WINDOW_MS;
+        int count = 0;
+        for (UserProfile peer : PeerManager.loadPeers(context)) {
+            if (peer.getId().equals(localProfile.getId())) continue;
+            if (!localProfile.getMeshId().equals(peer.getMeshId())) continue;
+            if (peer.getLastSeen() >= since) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.flurfunk.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the subtree answers ({@code SYNOF} with a trie prefix) a node is about to send, each
+ * until a randomized deadline.
+ * <p>
+ * Every node whose subtree differs from a received hash answers it, and nodes holding the same
+ * offers below the prefix send identical answers. Each node therefore waits for a response slot,
+ * see {@link PendingResponses#delayMs(boolean, int)}, and cancels its answer for a prefix once it
+ * overhears another node's answer describing the same offers below it. The content of an answer
+ * is identified by the local hash of the subtree when it was added.
+ * <p>
+ * A prefix that was answered, by this node or by an overheard identical answer, is not answered
+ * again for {@link #MIN_INTERVAL_MS}, so hashes sent by several nodes in the same round do not
+ * trigger an answer each.
+ * <p>
+ * All methods are thread-safe.
+ */
+class PendingSubtrees {
+
+    /**
+     * How long a prefix is not answered again after it was answered.
+     */
+    static final long MIN_INTERVAL_MS = 30_000;
+
+    /**
+     * The maximum number of answered prefixes remembered for the rate limit.
+     */
+    static final int MAX_ANSWERED = 256;
+
+    private final Map<String, Long> hashes = new HashMap<>();
+    private final Map<String, Long> deadlines = new HashMap<>();
+    private final Map<String, Long> answered = new LinkedHashMap<String, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_ANSWERED;
+        }
+    };
+    private long scheduledFor;
+
+    /**
+     * Adds an answer for a prefix, unless the prefix was answered within
+     * {@link #MIN_INTERVAL_MS}. An answer already pending for the prefix keeps its deadline.
+     *
+     * @param prefix   the trie prefix
+     * @param hash     the local hash of the subtree below the prefix
+     * @param now      the current time
+     * @param deadline the time at which to answer
+     * @return {@code true} if an answer is pending for the prefix
+     */
+    synchronized boolean add(String prefix, long hash, long now, long deadline) {
+        Long last = answered.get(prefix);
+        if (last != null && now - last < MIN_INTERVAL_MS) return false;
+        hashes.put(prefix, hash);
+        if (!deadlines.containsKey(prefix)) deadlines.put(prefix, deadline);
+        return true;
+    }
+
+    /**
+     * Cancels the answer for a prefix if another node's answer describes the same offers.
+     *
+     * @param prefix the trie prefix of the overheard answer
+     * @param hash   the hash of the offers described by the overheard answer
+     * @param now    the current time
+     * @return {@code true} if a pending answer was cancelled
+     */
+    synchronized boolean cancel(String prefix, long hash, long now) {
+        Long pending = hashes.get(prefix);
+        if (pending == null || pending != hash) return false;
+        hashes.remove(prefix);
+        deadlines.remove(prefix);
+        answered.remove(prefix);
+        answered.put(prefix, now);
+        return true;
+    }
+
+    /**
+     * Takes all answers whose deadline has passed. The prefixes count as answered from now on.
+     *
+     * @param now the current time
+     * @return the prefixes to answer now
+     */
+    synchronized List<String> takeDue(long now) {
+        List<String> due = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> it = deadlines.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (entry.getValue() <= now) {
+                due.add(entry.getKey());
+                hashes.remove(entry.getKey());
+                answered.remove(entry.getKey());
+                answered.put(entry.getKey(), now);
+                it.remove();
+            }
+        }
+        if (scheduledFor <= now) scheduledFor = 0;
+        return due;
+    }
+
+    /**
+     * Returns the time at which the next answers are due, if no task is scheduled for that time
+     * yet. The caller must schedule a task for the returned time.
+     *
+     * @return the earliest deadline, or {@code -1} if nothing needs to be scheduled
+     */
+    synchronized long nextSchedule() {
+        long next = Long.MAX_VALUE;
+        for (long deadline : deadlines.values()) next = Math.min(next, deadline);
+        if (next == Long.MAX_VALUE || (scheduledFor != 0 && scheduledFor <= next)) return -1;
+        scheduledFor = next;
+        return next;
+    }
+}
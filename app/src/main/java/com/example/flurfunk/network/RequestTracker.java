@@ -0,0 +1,133 @@
+package com.example.flurfunk.network;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the IDs requested with {@code REQOF} or {@code REQPR} until their data arrives.
+ * <p>
+ * Every sync round may advertise an item again that a node requested but never received, e.g.
+ * because no node in range holds it anymore. Without tracking, each round would request it again.
+ * The tracker admits a request for an ID only if:
+ * <ul>
+ *     <li>No earlier request for it is still awaiting an answer. The answer is awaited for
+ *     {@link #BASE_TIMEOUT_MS}, doubled with every attempt up to {@link #MAX_TIMEOUT_MS}, so
+ *     retries back off exponentially.</li>
+ *     <li>It is not in the negative cache. After {@link #MAX_ATTEMPTS} unanswered requests, an ID
+ *     is considered unanswerable and not requested again for {@link #NEGATIVE_TTL_MS}.</li>
+ * </ul>
+ * Both the outstanding IDs and the negative cache are bounded; the oldest entries are dropped
+ * first. Receiving the data of an ID clears it from both.
+ * <p>
+ * All methods are thread-safe.
+ */
+class RequestTracker {
+
+    /**
+     * How long the answer to a first request is awaited. It covers the request delay and
+     * several response slots.
+     */
+    static final long BASE_TIMEOUT_MS = 30_000;
+
+    /**
+     * The longest time the answer to a request is awaited.
+     */
+    static final long MAX_TIMEOUT_MS = 30 * 60 * 1000;
+
+    /**
+     * The number of unanswered requests after which an ID is put into the negative cache.
+     */
+    static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * How long an unanswerable ID stays in the negative cache.
+     */
+    static final long NEGATIVE_TTL_MS = 60 * 60 * 1000;
+
+    /**
+     * The maximum number of requested IDs tracked while awaiting an answer.
+     */
+    static final int MAX_OUTSTANDING = 1024;
+
+    /**
+     * The maximum number of IDs in the negative cache.
+     */
+    static final int MAX_NEGATIVE = 512;
+
+    /**
+     * The state of an ID that has been requested.
+     */
+    private static final class Attempts {
+        int count;
+        long deadline;
+    }
+
+    private final Map<String, Attempts> outstanding = new LinkedHashMap<String, Attempts>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Attempts> eldest) {
+            return size() > MAX_OUTSTANDING;
+        }
+    };
+
+    private final Map<String, Long> negative = new LinkedHashMap<String, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_NEGATIVE;
+        }
+    };
+
+    /**
+     * Selects the IDs that may be requested now and records a request for each of them.
+     *
+     * @param ids the IDs about to be requested
+     * @param now the current time
+     * @return the IDs to request, in the given order
+     */
+    synchronized List<String> admit(Collection<String> ids, long now) {
+        List<String> admitted = new ArrayList<>();
+        for (String id : ids) {
+            Long expiry = negative.get(id);
+            if (expiry != null) {
+                if (now < expiry) continue;
+                negative.remove(id);
+            }
+
+            Attempts attempts = outstanding.get(id);
+            if (attempts != null && now < attempts.deadline) continue;
+            if (attempts != null && attempts.count >= MAX_ATTEMPTS) {
+                outstanding.remove(id);
+                negative.put(id, now + NEGATIVE_TTL_MS);
+                continue;
+            }
+            if (attempts == null) {
+                attempts = new Attempts();
+                outstanding.put(id, attempts);
+            }
+            attempts.count++;
+            attempts.deadline = now + timeoutMs(attempts.count);
+            admitted.add(id);
+        }
+        return admitted;
+    }
+
+    /**
+     * Records that the data of an ID has been received.
+     *
+     * @param id the ID
+     */
+    synchronized void answered(String id) {
+        outstanding.remove(id);
+        negative.remove(id);
+    }
+
+    /**
+     * @return how long the answer to the given attempt is awaited
+     */
+    static long timeoutMs(int attempt) {
+        int doublings = Math.min(attempt - 1, 16);
+        return Math.min(BASE_TIMEOUT_MS << doublings, MAX_TIMEOUT_MS);
+    }
+}
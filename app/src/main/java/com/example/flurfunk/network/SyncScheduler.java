@@ -0,0 +1,41 @@
+package com.example.flurfunk.network;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the delayed tasks of the sync managers, such as sending pending requests or answers once
+ * their randomized delay has passed.
+ * <p>
+ * All tasks run on one shared background thread, created on first use. Tasks should be short,
+ * since a long task delays all others.
+ */
+final class SyncScheduler {
+
+    private static ScheduledExecutorService timer;
+
+    private SyncScheduler() {
+    }
+
+    /**
+     * Runs a task after a delay on the shared background thread.
+     *
+     * @param task    the task to run
+     * @param delayMs the delay in milliseconds
+     */
+    static void schedule(Runnable task, long delayMs) {
+        timer().schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static synchronized ScheduledExecutorService timer() {
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sync-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return timer;
+    }
+}
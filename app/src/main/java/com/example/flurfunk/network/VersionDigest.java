@@ -0,0 +1,52 @@
+package com.example.flurfunk.network;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An order-independent digest over a set of {@code (id, timestamp)} pairs, such as the peer
+ * profiles advertised in peer sync.
+ * <p>
+ * The digest is the XOR of {@link OfferHashTrie#hashOf(String, long)} over all pairs, so two
+ * nodes holding the same versions compute the same value regardless of the order they learned
+ * them in, and a single change updates it without visiting the other pairs.
+ * <p>
+ * This class is not thread-safe.
+ */
+class VersionDigest {
+
+    private final Map<String, Long> versions = new HashMap<>();
+    private long value;
+
+    /**
+     * Adds a version or replaces the version stored for the ID.
+     *
+     * @param id        the ID
+     * @param timestamp the advertised timestamp
+     */
+    void put(String id, long timestamp) {
+        Long previous = versions.put(id, timestamp);
+        if (previous != null) {
+            if (previous == timestamp) return;
+            value ^= OfferHashTrie.hashOf(id, previous);
+        }
+        value ^= OfferHashTrie.hashOf(id, timestamp);
+    }
+
+    /**
+     * Removes the version stored for an ID.
+     *
+     * @param id the ID
+     */
+    void remove(String id) {
+        Long previous = versions.remove(id);
+        if (previous != null) value ^= OfferHashTrie.hashOf(id, previous);
+    }
+
+    /**
+     * @return the digest over all stored versions, {@code 0} if there are none
+     */
+    long value() {
+        return value;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Stores all offers in a compact binary file ({@code offers.bin}), see {@link BinaryOfferFile}
+ * for the format.
+ * <p>
+ * The file is read through a memory mapping. Since the {@link DataRepository} serves all queries
+ * from memory, the whole file is decoded once on load; changes rewrite the file atomically.
+ * <p>
+ * If no binary file exists yet, offers are migrated from the JSON snapshot and journal on first
+ * load. The JSON files are removed once the binary file has been written.
+ */
+class BinaryOfferBackend implements OfferBackend {
+
+    private static final String TAG = "BinaryOfferBackend";
+    private static final String BINARY_FILE = Constants.OFFER_BINARY_FILE;
+
+    private final Context context;
+
+    BinaryOfferBackend(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Loads all offers from the binary file, migrating existing JSON data if necessary.
+     *
+     * @return the stored offers in file order, or an empty list if reading fails
+     */
+    @Override
+    public List<Offer> load() {
+        if (!FilePersistence.exists(context, BINARY_FILE)) {
+            return migrateFromJson();
+        }
+        BinaryOfferFile file = open();
+        if (file == null) return new ArrayList<>();
+        try {
+            return file.readAll();
+        } catch (IOException e) {
+            Log.e(TAG, "Could not decode offers", e);
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public void writeChanges(Collection<Offer> changed, Collection<String> removedIds, Supplier<List<Offer>> snapshot) {
+        writeSnapshot(snapshot.get());
+    }
+
+    @Override
+    public void writeSnapshot(List<Offer> offers) {
+        if (!write(offers)) {
+            Log.e(TAG, "Could not save offers.");
+        }
+    }
+
+    private boolean write(List<Offer> offers) {
+        return FilePersistence.writeAtomically(context, BINARY_FILE, out -> BinaryOfferFile.write(out, offers));
+    }
+
+    private BinaryOfferFile open() {
+        try (FileInputStream fis = FilePersistence.openRead(context, BINARY_FILE)) {
+            return BinaryOfferFile.open(fis);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not open " + BINARY_FILE, e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads offers from the JSON snapshot and journal, writes them to the binary file and removes
+     * the JSON files. If the binary file cannot be written, the JSON files are kept.
+     */
+    private List<Offer> migrateFromJson() {
+        if (!FilePersistence.exists(context, Constants.OFFER_FILE)
+                && !FilePersistence.exists(context, Constants.OFFER_JOURNAL_FILE)) {
+            return new ArrayList<>();
+        }
+        List<Offer> offers = new JournalOfferBackend(context).load();
+        if (write(offers)) {
+            FilePersistence.delete(context, Constants.OFFER_FILE);
+            FilePersistence.delete(context, Constants.OFFER_JOURNAL_FILE);
+            Log.i(TAG, "Migrated " + offers.size() + " offers from JSON");
+        } else {
+            Log.e(TAG, "Could not migrate offers from JSON");
+        }
+        return offers;
+    }
+}
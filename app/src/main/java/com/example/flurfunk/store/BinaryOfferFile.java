@@ -0,0 +1,247 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants.Category;
+import com.example.flurfunk.util.Constants.OfferStatus;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only view of a binary offer file, accessed through a {@link MappedByteBuffer}.
+ * <p>
+ * The file consists of a fixed header, the offer records and an offset index:
+ * <pre>
+ * header:  int magic, short version, short reserved, int record count, int index offset
+ * record:  int payload length, payload
+ * payload: string offerId, string title, string description, byte category,
+ *          string creatorId, long createdAt, long lastModified, byte status, byte deleted
+ * index:   per record: string offerId, int record offset
+ * </pre>
+ * Strings are stored as an {@code int} byte length followed by UTF-8 bytes, with a length of
+ * {@code -1} for {@code null}. Enums are stored by ordinal, {@code -1} meaning {@code null}, so
+ * new enum constants must only ever be appended.
+ * All numbers are big-endian.
+ * <p>
+ * Opening a file only reads the header and the index; records are decoded on demand, so looking
+ * up a single offer touches only the bytes of that record.
+ */
+class BinaryOfferFile {
+
+    static final int MAGIC = 0x464C4F46; // "FLOF"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> offsets;
+
+    private BinaryOfferFile(ByteBuffer buffer, Map<String, Integer> offsets) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Maps the given file into memory and reads its header and offset index.
+     * The stream can be closed afterwards; the mapping stays valid.
+     *
+     * @param in a stream positioned at the start of the file
+     * @return the opened file
+     * @throws IOException if the file cannot be mapped or is not a valid offer file
+     */
+    static BinaryOfferFile open(FileInputStream in) throws IOException {
+        FileChannel channel = in.getChannel();
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        return open(mapped);
+    }
+
+    /**
+     * Reads the header and offset index of binary offer data held in a buffer.
+     *
+     * @param buffer the complete file content
+     * @return the opened file
+     * @throws IOException if the data is not a valid offer file
+     */
+    static BinaryOfferFile open(ByteBuffer buffer) throws IOException {
+        try {
+            ByteBuffer header = buffer.duplicate();
+            if (header.getInt() != MAGIC) throw new IOException("Not an offer file");
+            short version = header.getShort();
+            if (version != VERSION) throw new IOException("Unsupported offer file version " + version);
+            header.getShort();
+            int count = header.getInt();
+            int indexOffset = header.getInt();
+
+            ByteBuffer index = buffer.duplicate();
+            index.position(indexOffset);
+            Map<String, Integer> offsets = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                String offerId = readString(index);
+                offsets.put(offerId, index.getInt());
+            }
+            return new BinaryOfferFile(buffer, offsets);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated offer file", e);
+        }
+    }
+
+    /**
+     * @return the number of offers in the file
+     */
+    int size() {
+        return offsets.size();
+    }
+
+    /**
+     * @return the IDs of all offers in file order
+     */
+    Set<String> offerIds() {
+        return Collections.unmodifiableSet(offsets.keySet());
+    }
+
+    /**
+     * Decodes the offer with the given ID.
+     *
+     * @param offerId the offer ID
+     * @return the decoded {@link Offer}, or {@code null} if the file contains no such offer
+     * @throws IOException if the record is damaged
+     */
+    Offer read(String offerId) throws IOException {
+        Integer offset = offsets.get(offerId);
+        return offset == null ? null : readAt(offset);
+    }
+
+    /**
+     * Decodes all offers in file order.
+     *
+     * @return a new list containing all offers
+     * @throws IOException if a record is damaged
+     */
+    List<Offer> readAll() throws IOException {
+        List<Offer> offers = new ArrayList<>(offsets.size());
+        for (int offset : offsets.values()) {
+            offers.add(readAt(offset));
+        }
+        return offers;
+    }
+
+    private Offer readAt(int offset) throws IOException {
+        try {
+            ByteBuffer record = buffer.duplicate();
+            record.position(offset);
+            record.getInt();
+            String offerId = readString(record);
+            String title = readString(record);
+            String description = readString(record);
+            Category category = readEnum(record, Category.values());
+            String creatorId = readString(record);
+            long createdAt = record.getLong();
+            long lastModified = record.getLong();
+            OfferStatus status = readEnum(record, OfferStatus.values());
+            boolean deleted = record.get() != 0;
+            return new Offer(offerId, title, description, category, creatorId,
+                    createdAt, lastModified, status, deleted);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Damaged offer record at " + offset, e);
+        }
+    }
+
+    /**
+     * Writes the given offers in the binary format.
+     * <p>
+     * Records are encoded first so that the offset index can be written with the header.
+     * The stream is flushed but not closed.
+     *
+     * @param out    the stream to write to
+     * @param offers the offers to write
+     * @throws IOException if writing fails
+     */
+    static void write(OutputStream out, List<Offer> offers) throws IOException {
+        List<byte[]> records = new ArrayList<>(offers.size());
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+        DataOutputStream record = new DataOutputStream(recordBytes);
+        for (Offer offer : offers) {
+            recordBytes.reset();
+            writeString(record, offer.getOfferId());
+            writeString(record, offer.getTitle());
+            writeString(record, offer.getDescription());
+            writeEnum(record, offer.getCategory());
+            writeString(record, offer.getCreatorId());
+            record.writeLong(offer.getCreatedAt());
+            record.writeLong(offer.getLastModified());
+            writeEnum(record, offer.getStatus());
+            record.writeByte(offer.isDeleted() ? 1 : 0);
+            record.flush();
+            records.add(recordBytes.toByteArray());
+        }
+
+        int indexOffset = HEADER_SIZE;
+        for (byte[] payload : records) {
+            indexOffset += 4 + payload.length;
+        }
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeShort(0);
+        data.writeInt(records.size());
+        data.writeInt(indexOffset);
+
+        for (byte[] payload : records) {
+            data.writeInt(payload.length);
+            data.write(payload);
+        }
+
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < records.size(); i++) {
+            writeString(data, offers.get(i).getOfferId());
+            data.writeInt(offset);
+            offset += 4 + records.get(i).length;
+        }
+        data.flush();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        if (length > in.remaining()) throw new IllegalArgumentException("String exceeds buffer");
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+        out.writeByte(value == null ? -1 : value.ordinal());
+    }
+
+    private static <E extends Enum<E>> E readEnum(ByteBuffer in, E[] values) {
+        byte ordinal = in.get();
+        if (ordinal < 0) return null;
+        if (ordinal >= values.length) throw new IllegalArgumentException("Unknown ordinal " + ordinal);
+        return values[ordinal];
+    }
+}
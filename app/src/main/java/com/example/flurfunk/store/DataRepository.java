@@ -0,0 +1,1216 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.util.Constants;
+import com.example.flurfunk.util.Constants.Category;
+import com.example.flurfunk.util.Constants.OfferStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Process-wide in-memory repository for offers, peers and the local user profile.
+ * <p>
+ * The persisted data is read once, on first access, and all further reads are served from
+ * memory. Changes are applied to the in-memory state immediately and written back to
+ * disk asynchronously by a single background writer thread ("write-behind").
+ * <p>
+ * Writes are group-committed by a {@link GroupCommitter}: all changes requested within
+ * {@link #COMMIT_WINDOW_MS} result in a single atomic write per data set containing the latest
+ * state (see {@link FilePersistence}). For offers, the repository tracks
+ * which offers changed or were removed, so that an {@link OfferBackend} such as
+ * {@link JournalOfferBackend} can persist only those. Peers are kept in a directory by ID and tracked the same way; frequent
+ * lastSeen updates are only persisted periodically.
+ * <p>
+ * A {@link RetentionEngine} purges deleted and long-inactive offers in the background. Purged
+ * versions are remembered as {@link Tombstones} and ignored when they are received again. An
+ * {@link InactivityMonitor} deactivates the offers of peers that have not been seen for a long
+ * time, also in the background.
+ * <p>
+ * The offers are kept within an {@link OfferQuota}. When a change exceeds it, the least recently
+ * used offers of other users are evicted on the writer thread, inactive ones first. Evicted
+ * inactive offers leave a tombstone like purged offers. Evicted active offers are recorded
+ * separately: other nodes still hold them, so their versions stay advertised by the sync engine
+ * and are not requested again until a newer version appears.
+ * <p>
+ * Offers are kept in memory without their descriptions, which only the detail view needs. A
+ * description stays in the offer until the offer is flushed; it is then appended to the
+ * {@link DescriptionStore} on disk and dropped from memory, and read back on demand through
+ * {@link #getOfferDescription(String)}.
+ * <p>
+ * Offer titles and descriptions are indexed for {@link #searchOffers full-text search}. The
+ * {@link SearchIndex} is maintained with the offers and persisted lazily; after a restart, only
+ * offers that changed since its last write are indexed again.
+ * <p>
+ * Changes that depend on the current state, such as read-modify-write updates from the UI and
+ * the network threads, should be made in a {@link StoreTransaction} through
+ * {@link #runInTransaction(Consumer)}. Transactions work on copies and are committed with a
+ * compare-and-set on the versions of everything they read, so the lock is only held for the
+ * short validation and apply step.
+ * <p>
+ * Every applied change is published as a {@link StoreChange} to the registered
+ * {@link StoreChangeListener}s, so screens and the sync engine can update incrementally instead
+ * of reloading. Changes are collected while the lock is held and delivered after it is released.
+ */
+public class DataRepository {
+
+    private static final String TAG = "DataRepository";
+    private static final long COMMIT_WINDOW_MS = 500;
+    private static final String COMMIT_OFFERS = "offers";
+    private static final String COMMIT_PEERS = "peers";
+    private static final String COMMIT_PROFILE = "profile";
+    private static final String COMMIT_TOMBSTONES = "tombstones";
+    private static final String COMMIT_SEARCH_INDEX = "searchIndex";
+    private static final String COMMIT_QUOTA = "quota";
+    private static final long LAST_SEEN_FLUSH_INTERVAL_MS = 30_000;
+    private static final long SEARCH_INDEX_FLUSH_INTERVAL_MS = 60_000;
+    static final int MAX_OPTIMISTIC_ATTEMPTS = 3;
+
+    private static volatile DataRepository instance;
+
+    private final Context context;
+    private final GroupCommitter committer;
+    private final Object lock = new Object();
+
+    private final OfferBackend offerBackend;
+    private final PeerBackend peerBackend;
+
+    private OfferStore offers;
+    private DescriptionStore descriptions;
+    private Tombstones tombstones;
+    private Tombstones evicted;
+    private final Set<String> dirtyOfferIds = new LinkedHashSet<>();
+    private final Set<String> removedOfferIds = new LinkedHashSet<>();
+    private boolean offersReplaced = false;
+    private final VersionTable offerVersions = new VersionTable();
+    private final VersionTable creatorVersions = new VersionTable();
+    private volatile OfferQuota quota = OfferQuota.DEFAULT;
+    private boolean quotaUnmetReported = false;
+    private Map<String, UserProfile> peers;
+    private final Set<String> dirtyPeerIds = new LinkedHashSet<>();
+    private boolean peersReplaced = false;
+    private final VersionTable peerVersions = new VersionTable();
+    private UserProfile localProfile;
+    private boolean profileLoaded = false;
+
+    private final List<ListenerRegistration> listeners = new CopyOnWriteArrayList<>();
+    private volatile long changeCount;
+
+    private DataRepository(Context context) {
+        this.context = context;
+        this.offerBackend = createOfferBackend(context, Constants.STORAGE_MODE);
+        this.peerBackend = createPeerBackend(context, Constants.STORAGE_MODE);
+        this.committer = new GroupCommitter("StoreWriter", COMMIT_WINDOW_MS);
+        new RetentionEngine(this, committer, RetentionEngine.DEFAULT_POLICIES).start();
+        new InactivityMonitor(this, committer, PeerManager.INACTIVITY_TIMEOUT_MS).start();
+    }
+
+    /**
+     * Returns the process-wide repository instance, creating it on first use.
+     *
+     * @param context any Android context; the application context is retained
+     * @return the shared {@code DataRepository}
+     */
+    public static DataRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (DataRepository.class) {
+                if (instance == null) {
+                    Context appContext = context.getApplicationContext();
+                    instance = new DataRepository(appContext != null ? appContext : context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    // --- Offers ---
+
+    /**
+     * Returns all stored offers.
+     * <p>
+     * The returned list is a copy and may be modified freely; the contained {@link Offer}
+     * instances are shared with the repository.
+     *
+     * @return a new list containing all offers
+     */
+    public List<Offer> getOffers() {
+        synchronized (lock) {
+            ensureOffersLoaded();
+            return offers.all();
+        }
+    }
+
+    /**
+     * Returns the offer with the given ID using the primary index.
+     *
+     * @param offerId the offer ID
+     * @return the stored {@link Offer}, or {@code null} if unknown
+     */
+    public Offer getOffer(String offerId) {
+        synchronized (lock) {
+            ensureOffersLoaded();
+            offers.recordAccess(offerId);
+            return offers.get(offerId);
+        }
+    }
+
+    /**
+     * Returns the description of an offer. Descriptions that were already written are read from
+     * disk, so this should not be called on the UI thread.
+     *
+     * @param offerId the offer ID
+     * @return the description, or {@code null} if the offer is unknown or has no description
+     */
+    public String getOfferDescription(String offerId) {
+        DescriptionStore store;
+        synchronized (lock) {
+            ensureOffersLoaded();
+            Offer offer = offers.get(offerId);
+            if (offer == null) return null;
+            if (offer.getDescription() != null) return offer.getDescription();
+            store = descriptions;
+        }
+        return store.read(offerId);
+    }
+
+    /**
+     * Returns all offers matching the given criteria using the secondary indexes.
+     * A {@code null} criterion matches any value.
+     *
+     * @param category  the category to match, or {@code null}
+     * @param status    the status to match, or {@code null}
+     * @param creatorId the creator ID to match, or {@code null}
+     * @param deleted   the deletion flag to match, or {@code null}
+     * @return a new list of matching offers
+     */
+    public List<Offer> queryOffers(Category category, OfferStatus status, String creatorId, Boolean deleted) {
+        synchronized (lock) {
+            ensureOffersLoaded();
+            return offers.query(category, status, creatorId, deleted);
+        }
+    }
+
+    /**
+     * Returns one page of offers matching the given criteria, ordered by last modification,
+     * newest first. A {@code null} criterion matches any value.
+     *
+     * @param category  the category to match, or {@code null}
+     * @param status    the status to match, or {@code null}
+     * @param creatorId the creator ID to match, or {@code null}
+     * @param deleted   the deletion flag to match, or {@code null}
+     * @param after     the previous page, or {@code null} for the first page
+     * @param pageSize  the maximum number of offers on the page
+     * @return the next {@link OfferPage}
+     */
+    public OfferPage queryOfferPage(Category category, OfferStatus status, String creatorId, Boolean deleted,
+                                    OfferPage after, int pageSize) {
+        synchronized (lock) {
+            ensureOffersLoaded();
+            OfferPage page = offers.page(category, status, creatorId, deleted, after, pageSize);
+            for (Offer offer : page.getOffers()) offers.recordAccess(offer.getOfferId());
+            return page;
+        }
+    }
+
+    /**
+     * Returns the IDs of the offers with the given status that were last modified before the
+     * cutoff, oldest first. Only the returned offers are looked at, so this is cheap enough to
+     * call on every sync round.
+     *
+     * @param status the status of the offers
+     * @param cutoff the last modification time before which offers are returned
+     * @return a new list of offer IDs
+     */
+    public List<String> offersModifiedBefore(OfferStatus status, long cutoff) {
+        synchronized (lock) {
+            ensureOffersLoaded();
+            return offers.modifiedBefore(status, cutoff);
+        }
+    }
+
+    /**
+     * Searches the titles and descriptions of the offers matching the given criteria.
+     * <p>
+     * All terms of the query must occur in an offer, each as a whole word or as the beginning of
+     * a word. Case, umlauts and accents are ignored, e.g. "kuehl" finds "Kühlschrank".
+     * A {@code null} criterion matches any value.
+     *
+     * @param query     the search text
+     * @param category  the category to match, or {@code null}
+     * @param status    the status to match, or {@code null}
+     * @param creatorId the creator ID to match, or {@code null}
+     * @param deleted   the deletion flag to match, or {@code null}
+     * @param limit     the maximum number of results
+     * @return a new list of matching offers, newest first
+     */
+    public List<Offer> searchOffers(String query, Category category, OfferStatus status, String creatorId,
+                                    Boolean deleted, int limit) {
+        synchronized (lock) {
+            ensureOffersLoaded();
+            List<Offer> found = offers.search(query, category, status, creatorId, deleted, limit);
+            for (Offer offer : found) offers.recordAccess(offer.getOfferId());
+            return found;
+        }
+    }
+
+    /**
+     * Adds or updates the given offers and schedules a write to disk.
+     * <p>
+     * Offers already stored under the same ID are merged using {@link Offer#merge(Offer)}.
+     * Offers that were changed in place must be passed here as well to keep the indexes current.
+     * Versions of purged offers that are not newer than the purged version are ignored.
+     *
+     * @param changed the new or changed offers
+     */
+    public void putOffers(Collection<Offer> changed) {
+        if (changed.isEmpty()) return;
+        boolean tombstonesChanged = false;
+        boolean overQuota;
+        List<StoreChange> changes;
+        synchronized (lock) {
+            changes = newChangeList();
+            ensureOffersLoaded();
+            for (Offer offer : changed) {
+                if (tombstones.covers(offer.getOfferId(), offer.getLastModified())
+                        || evicted.covers(offer.getOfferId(), offer.getLastModified())) {
+                    Log.d(TAG, "Ignored purged offer " + offer.getOfferId());
+                    continue;
+                }
+                tombstonesChanged |= tombstones.remove(offer.getOfferId());
+                tombstonesChanged |= evicted.remove(offer.getOfferId());
+                String previousCreatorId = creatorOf(offer.getOfferId());
+                StoreChange.Type type = offers.putTracked(offer);
+                dirtyOfferIds.add(offer.getOfferId());
+                bumpOfferVersions(offer.getOfferId(), previousCreatorId);
+                recordOfferChange(changes, type, offer.getOfferId());
+            }
+            overQuota = isOverQuota();
+        }
+        committer.commit(COMMIT_OFFERS, this::flushOffers);
+        if (tombstonesChanged) committer.commit(COMMIT_TOMBSTONES, this::flushTombstones);
+        if (overQuota) committer.commit(COMMIT_QUOTA, this::enforceQuota);
+        publish(changes);
+    }
+
+    /**
+     * Checks whether the given version of an offer has been purged by the retention engine or
+     * evicted to meet the storage quota. Such versions should not be requested from other peers.
+     *
+     * @param offerId      the offer ID
+     * @param lastModified the last modification time of the version
+     * @return {@code true} if the version is covered by a tombstone
+     */
+    public boolean isPurged(String offerId, long lastModified) {
+        synchronized (lock) {
+            ensureOffersLoaded();
+            return tombstones.covers(offerId, lastModified) || evicted.covers(offerId, lastModified);
+        }
+    }
+
+    /**
+     * Returns the versions of the active offers evicted to meet the storage quota. They are no
+     * longer stored, but other nodes still hold them, so the sync engine keeps advertising them.
+     *
+     * @return the evicted versions by offer ID
+     */
+    public Map<String, Long> evictedVersions() {
+        synchronized (lock) {
+            ensureOffersLoaded();
+            return evicted.snapshot();
+        }
+    }
+
+    /**
+     * Forgets evicted offers last modified before the given time. Other nodes deactivate such
+     * offers and stop advertising them, see {@link OfferManager#deactivateOutdatedOffers}, so
+     * their evicted versions are no longer advertised either.
+     *
+     * @param cutoff the last modification time before which evicted versions are dropped
+     * @return the number of dropped versions
+     */
+    public int expireEvicted(long cutoff) {
+        List<StoreChange> changes;
+        List<String> expired;
+        synchronized (lock) {
+            changes = newChangeList();
+            ensureOffersLoaded();
+            expired = evicted.expire(cutoff);
+            for (String offerId : expired) {
+                recordOfferChange(changes, StoreChange.Type.OFFER_REMOVED, offerId);
+            }
+        }
+        if (!expired.isEmpty()) committer.commit(COMMIT_TOMBSTONES, this::flushTombstones);
+        publish(changes);
+        return expired.size();
+    }
+
+    /**
+     * Replaces the stored offers and schedules a write to disk.
+     *
+     * @param newOffers the complete list of offers to keep
+     */
+    public void setOffers(List<Offer> newOffers) {
+        synchronized (lock) {
+            if (offers == null) offers = new OfferStore(new SearchIndex(), descriptions());
+            offers.replaceAll(newOffers);
+            dirtyOfferIds.clear();
+            removedOfferIds.clear();
+            offersReplaced = true;
+            offerVersions.bumpAll();
+            creatorVersions.bumpAll();
+            changeCount++;
+        }
+        committer.commit(COMMIT_OFFERS, this::flushOffers);
+        publishReload();
+    }
+
+    // --- Peers ---
+
+    /**
+     * Returns all known peers.
+     * <p>
+     * The returned list is a copy and may be modified freely; the contained
+     * {@link UserProfile} instances are shared with the repository.
+     *
+     * @return a new list containing all peers
+     */
+    public List<UserProfile> getPeers() {
+        synchronized (lock) {
+            ensurePeersLoaded();
+            return new ArrayList<>(peers.values());
+        }
+    }
+
+    /**
+     * Returns the peer with the given ID from the peer directory.
+     *
+     * @param peerId the ID of the peer
+     * @return the matching {@link UserProfile}, or {@code null} if unknown
+     */
+    public UserProfile getPeer(String peerId) {
+        if (peerId == null) return null;
+        synchronized (lock) {
+            ensurePeersLoaded();
+            return peers.get(peerId);
+        }
+    }
+
+    /**
+     * Adds a peer or replaces the stored peer with the same ID and schedules a write to disk.
+     *
+     * @param peer the new or updated peer
+     */
+    public void putPeer(UserProfile peer) {
+        List<StoreChange> changes;
+        synchronized (lock) {
+            changes = newChangeList();
+            ensurePeersLoaded();
+            UserProfile previous = peers.put(peer.getId(), peer);
+            dirtyPeerIds.add(peer.getId());
+            peerVersions.bump(peer.getId());
+            recordPeerChange(changes, previous == null, peer);
+        }
+        committer.commit(COMMIT_PEERS, this::flushPeers);
+        publish(changes);
+    }
+
+    /**
+     * Updates the lastSeen timestamp of a known peer in place.
+     * <p>
+     * Since lastSeen changes with every received sync message, the write is deferred: changed
+     * peers are persisted at most every {@link #LAST_SEEN_FLUSH_INTERVAL_MS}, together with any
+     * other pending peer change, or on {@link #flush()}.
+     *
+     * @param peerId   the ID of the peer
+     * @param lastSeen the new lastSeen timestamp
+     * @return {@code true} if the peer is known
+     */
+    public boolean updateLastSeen(String peerId, long lastSeen) {
+        if (peerId == null) return false;
+        List<StoreChange> changes;
+        synchronized (lock) {
+            changes = newChangeList();
+            ensurePeersLoaded();
+            UserProfile peer = peers.get(peerId);
+            if (peer == null) return false;
+            if (peer.getLastSeen() == lastSeen) return true;
+            peer.setLastSeen(lastSeen);
+            dirtyPeerIds.add(peerId);
+            peerVersions.bump(peerId);
+            recordPeerChange(changes, false, peer);
+        }
+        committer.commitDeferred(COMMIT_PEERS, this::flushPeers, LAST_SEEN_FLUSH_INTERVAL_MS);
+        publish(changes);
+        return true;
+    }
+
+    /**
+     * Replaces the stored peers and schedules a write to disk.
+     *
+     * @param newPeers the complete list of peers to keep
+     */
+    public void setPeers(List<UserProfile> newPeers) {
+        synchronized (lock) {
+            peers = toDirectory(newPeers);
+            dirtyPeerIds.clear();
+            peersReplaced = true;
+            peerVersions.bumpAll();
+            changeCount++;
+        }
+        committer.commit(COMMIT_PEERS, this::flushPeers);
+        publishReload();
+    }
+
+    // --- Transactions ---
+
+    /**
+     * Runs the given function in a {@link StoreTransaction} and commits its changes atomically.
+     * <p>
+     * The function reads copies of offers and peers from the transaction and stages its changes
+     * there. If another thread changed anything the function has read before the commit, the
+     * changes are discarded and the function runs again on fresh copies. After
+     * {@link #MAX_OPTIMISTIC_ATTEMPTS} conflicts, the function runs once more while holding the
+     * repository lock, so it always completes. The function may therefore run several times and
+     * must not have side effects outside the transaction.
+     *
+     * @param body the reads and changes to apply
+     */
+    public void runInTransaction(Consumer<StoreTransaction> body) {
+        for (int attempt = 1; attempt <= MAX_OPTIMISTIC_ATTEMPTS; attempt++) {
+            StoreTransaction transaction = new StoreTransaction(this);
+            body.accept(transaction);
+            if (commit(transaction)) return;
+            Log.d(TAG, "Transaction conflict, attempt " + attempt);
+        }
+        List<StoreChange> changes;
+        synchronized (lock) {
+            StoreTransaction transaction = new StoreTransaction(this);
+            body.accept(transaction);
+            changes = apply(transaction);
+        }
+        publish(changes);
+    }
+
+    Offer readOffer(StoreTransaction transaction, String offerId) {
+        synchronized (lock) {
+            ensureOffersLoaded();
+            transaction.offerReads.put(offerId, offerVersions.get(offerId));
+            Offer offer = offers.get(offerId);
+            return offer != null ? new Offer(offer) : null;
+        }
+    }
+
+    List<Offer> readOffers(StoreTransaction transaction, Category category, OfferStatus status,
+                           String creatorId, Boolean deleted) {
+        synchronized (lock) {
+            ensureOffersLoaded();
+            transaction.creatorReads.put(creatorId, creatorVersions.get(creatorId));
+            List<Offer> copies = new ArrayList<>();
+            for (Offer offer : offers.query(category, status, creatorId, deleted)) {
+                transaction.offerReads.put(offer.getOfferId(), offerVersions.get(offer.getOfferId()));
+                copies.add(new Offer(offer));
+            }
+            return copies;
+        }
+    }
+
+    UserProfile readPeer(StoreTransaction transaction, String peerId) {
+        if (peerId == null) return null;
+        synchronized (lock) {
+            ensurePeersLoaded();
+            transaction.peerReads.put(peerId, peerVersions.get(peerId));
+            UserProfile peer = peers.get(peerId);
+            return peer != null ? new UserProfile(peer) : null;
+        }
+    }
+
+    /**
+     * Applies the staged changes of a transaction if nothing it has read was changed since.
+     *
+     * @param transaction the transaction to commit
+     * @return {@code false} if a conflict was detected and nothing was applied
+     */
+    boolean commit(StoreTransaction transaction) {
+        List<StoreChange> changes = apply(transaction);
+        if (changes == null) return false;
+        publish(changes);
+        return true;
+    }
+
+    /**
+     * Applies the staged changes of a transaction without notifying listeners, so that
+     * {@link #runInTransaction(Consumer)} can publish them after releasing the lock.
+     *
+     * @param transaction the transaction to commit
+     * @return the changes to publish, or {@code null} if a conflict was detected and nothing was
+     * applied
+     */
+    private List<StoreChange> apply(StoreTransaction transaction) {
+        if (transaction.isEmpty()) return Collections.emptyList();
+        boolean tombstonesChanged = false;
+        boolean overQuota;
+        List<StoreChange> changes;
+        synchronized (lock) {
+            changes = newChangeList();
+            ensureOffersLoaded();
+            ensurePeersLoaded();
+            for (Map.Entry<String, Long> read : transaction.offerReads.entrySet()) {
+                if (offerVersions.get(read.getKey()) != read.getValue()) return null;
+            }
+            for (Map.Entry<String, Long> read : transaction.creatorReads.entrySet()) {
+                if (creatorVersions.get(read.getKey()) != read.getValue()) return null;
+            }
+            for (Map.Entry<String, Long> read : transaction.peerReads.entrySet()) {
+                if (peerVersions.get(read.getKey()) != read.getValue()) return null;
+            }
+            for (Offer offer : transaction.offerWrites.values()) {
+                tombstonesChanged |= tombstones.remove(offer.getOfferId());
+                tombstonesChanged |= evicted.remove(offer.getOfferId());
+                String previousCreatorId = creatorOf(offer.getOfferId());
+                StoreChange.Type type = offers.replaceTracked(offer);
+                dirtyOfferIds.add(offer.getOfferId());
+                bumpOfferVersions(offer.getOfferId(), previousCreatorId);
+                recordOfferChange(changes, type, offer.getOfferId());
+            }
+            for (UserProfile peer : transaction.peerWrites.values()) {
+                UserProfile previous = peers.put(peer.getId(), peer);
+                dirtyPeerIds.add(peer.getId());
+                peerVersions.bump(peer.getId());
+                recordPeerChange(changes, previous == null, peer);
+            }
+            overQuota = isOverQuota();
+        }
+        if (!transaction.offerWrites.isEmpty()) committer.commit(COMMIT_OFFERS, this::flushOffers);
+        if (overQuota) committer.commit(COMMIT_QUOTA, this::enforceQuota);
+        if (!transaction.peerWrites.isEmpty()) committer.commit(COMMIT_PEERS, this::flushPeers);
+        if (tombstonesChanged) committer.commit(COMMIT_TOMBSTONES, this::flushTombstones);
+        return changes != null ? changes : Collections.emptyList();
+    }
+
+    // --- Change notification ---
+
+    /**
+     * Registers a listener for the changes applied to this repository.
+     * <p>
+     * Changes are only collected while at least one listener is registered. The listener is
+     * registered under the repository lock, so every change applied after this method returns is
+     * delivered to it, and a snapshot read afterwards includes every change that is not. The
+     * listener is called on the given executor, never while the repository lock is held, so it
+     * may read from the repository. A listener registered twice is called twice.
+     *
+     * @param listener the listener to add
+     * @param executor runs the listener calls, e.g. a main thread {@code Handler::post}
+     */
+    public void addChangeListener(StoreChangeListener listener, Executor executor) {
+        synchronized (lock) {
+            listeners.add(new ListenerRegistration(listener, executor));
+        }
+    }
+
+    /**
+     * Removes all registrations of the given listener. Calls already handed to the listener's
+     * executor may still arrive.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeChangeListener(StoreChangeListener listener) {
+        for (ListenerRegistration registration : listeners) {
+            if (registration.listener == listener) listeners.remove(registration);
+        }
+    }
+
+    /**
+     * Returns a counter that increases with every applied change, whether or not listeners are
+     * registered. Lets an observer that stopped listening find out whether it missed anything.
+     *
+     * @return the number of changes applied so far
+     */
+    long getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Returns the list collecting the changes of a mutation, or {@code null} if no listener is
+     * registered. Must be called while holding the lock, in the same critical section as the
+     * mutation, see {@link #addChangeListener(StoreChangeListener, Executor)}.
+     */
+    private List<StoreChange> newChangeList() {
+        return listeners.isEmpty() ? null : new ArrayList<>();
+    }
+
+    private void recordOfferChange(List<StoreChange> changes, StoreChange.Type type, String offerId) {
+        if (type == null) return;
+        changeCount++;
+        if (changes == null) return;
+        changes.add(type == StoreChange.Type.OFFER_REMOVED
+                ? StoreChange.offerRemoved(offerId)
+                : StoreChange.offer(type, offers.get(offerId)));
+    }
+
+    private void recordPeerChange(List<StoreChange> changes, boolean added, UserProfile peer) {
+        changeCount++;
+        if (changes == null) return;
+        changes.add(StoreChange.peer(added ? StoreChange.Type.PEER_ADDED : StoreChange.Type.PEER_UPDATED, peer));
+    }
+
+    private void publishReload() {
+        publish(listeners.isEmpty() ? null : Collections.singletonList(StoreChange.reload()));
+    }
+
+    private void publish(List<StoreChange> changes) {
+        if (changes == null || changes.isEmpty()) return;
+        List<StoreChange> batch = Collections.unmodifiableList(changes);
+        for (ListenerRegistration registration : listeners) {
+            try {
+                registration.executor.execute(() -> registration.listener.onStoreChanged(batch));
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "Could not deliver store changes", e);
+            }
+        }
+    }
+
+    private static final class ListenerRegistration {
+        final StoreChangeListener listener;
+        final Executor executor;
+
+        ListenerRegistration(StoreChangeListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+    }
+
+    // --- Local profile ---
+
+    /**
+     * Returns the local user profile.
+     *
+     * @return the cached {@link UserProfile}, or {@code null} if no profile has been set up
+     */
+    public UserProfile getLocalProfile() {
+        synchronized (lock) {
+            if (!profileLoaded) {
+                localProfile = UserProfile.loadFromFile(context);
+                profileLoaded = true;
+            }
+            return localProfile;
+        }
+    }
+
+    /**
+     * Stores the local user profile and schedules a write to disk.
+     *
+     * @param profile the profile to store
+     */
+    public void saveLocalProfile(UserProfile profile) {
+        synchronized (lock) {
+            localProfile = profile;
+            profileLoaded = true;
+        }
+        committer.commit(COMMIT_PROFILE, this::flushProfile);
+    }
+
+    /**
+     * Removes the local user profile from memory and deletes its file.
+     * <p>
+     * A write that is still pending for the profile is discarded.
+     */
+    public void deleteLocalProfile() {
+        synchronized (lock) {
+            localProfile = null;
+            profileLoaded = true;
+        }
+        committer.execute(() -> UserProfile.deleteProfileFile(context));
+    }
+
+    // --- Persistence ---
+
+    /**
+     * Reads the local profile, offers and peers into memory if this has not happened yet.
+     * Should be called on a background thread, e.g. through {@link StorageExecutor}, so that
+     * later reads from the UI thread are served from memory.
+     */
+    public void preload() {
+        getLocalProfile();
+        synchronized (lock) {
+            ensureOffersLoaded();
+            ensurePeersLoaded();
+        }
+    }
+
+    /**
+     * Writes all pending changes to disk as soon as possible instead of waiting for the
+     * commit window to close. Should be called when the app moves to the background.
+     */
+    public void flush() {
+        committer.flush();
+    }
+
+    /**
+     * Writes the changed and removed offers, or all offers after they were replaced, to the
+     * offer backend.
+     * The backend serializes copies taken under the lock, since stored offers are changed in
+     * place by later merges while the write is running.
+     */
+    private void flushOffers() {
+        List<Offer> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<Offer> snapshot = null;
+        synchronized (lock) {
+            if (offers == null) return;
+            if (offersReplaced) {
+                snapshot = copyOffers();
+                offersReplaced = false;
+            } else {
+                for (String offerId : dirtyOfferIds) {
+                    Offer offer = offers.get(offerId);
+                    if (offer != null) changed.add(new Offer(offer));
+                }
+                for (String offerId : removedOfferIds) {
+                    if (offers.get(offerId) == null) removed.add(offerId);
+                }
+            }
+            dirtyOfferIds.clear();
+            removedOfferIds.clear();
+        }
+        moveDescriptionsToDisk(snapshot != null ? snapshot : changed);
+        if (snapshot != null) {
+            offerBackend.writeSnapshot(snapshot);
+            Log.d(TAG, "Flushed all " + snapshot.size() + " offers");
+        } else {
+            offerBackend.writeChanges(changed, removed, this::snapshotOffers);
+            Log.d(TAG, "Flushed " + changed.size() + " changed and " + removed.size() + " removed offers");
+        }
+        scheduleSearchIndexFlush();
+    }
+
+    /**
+     * Appends the descriptions still held by the given copies to the {@link DescriptionStore}
+     * and drops them from the copies and the stored offers, so that the offer backend persists
+     * them without their descriptions. A description changed in the meantime is kept in memory
+     * for the next flush. If the append fails, the descriptions stay in memory and are persisted
+     * by the backend.
+     *
+     * @param written copies of the offers about to be written
+     */
+    private void moveDescriptionsToDisk(List<Offer> written) {
+        Map<String, String> hot = new LinkedHashMap<>();
+        for (Offer offer : written) {
+            if (offer.getDescription() != null) hot.put(offer.getOfferId(), offer.getDescription());
+        }
+        if (hot.isEmpty() || !descriptions.append(hot)) return;
+        for (Offer offer : written) {
+            offer.setStoredDescription(null);
+        }
+        synchronized (lock) {
+            for (Map.Entry<String, String> entry : hot.entrySet()) {
+                Offer offer = offers.get(entry.getKey());
+                if (offer == null) {
+                    descriptions.remove(entry.getKey());
+                } else if (offer.getDescription() == entry.getValue()) {
+                    offer.setStoredDescription(null);
+                }
+            }
+        }
+        descriptions.compactIfSparse();
+        Log.d(TAG, "Moved " + hot.size() + " descriptions to disk");
+    }
+
+    /**
+     * Schedules a write of the search index if it changed. The index can be rebuilt from the
+     * offers, so it is written less often than they are.
+     */
+    private void scheduleSearchIndexFlush() {
+        boolean dirty;
+        synchronized (lock) {
+            dirty = offers != null && offers.textIndex().isDirty();
+        }
+        if (dirty) {
+            committer.commitDeferred(COMMIT_SEARCH_INDEX, this::flushSearchIndex, SEARCH_INDEX_FLUSH_INTERVAL_MS);
+        }
+    }
+
+    private void flushSearchIndex() {
+        SearchIndex.Snapshot snapshot;
+        synchronized (lock) {
+            if (offers == null || !offers.textIndex().isDirty()) return;
+            snapshot = offers.textIndex().snapshot();
+        }
+        SearchIndex.write(context, snapshot);
+        Log.d(TAG, "Flushed search index");
+    }
+
+    private List<Offer> snapshotOffers() {
+        synchronized (lock) {
+            return copyOffers();
+        }
+    }
+
+    /**
+     * Copies all stored offers for a backend write. Must be called while holding the lock.
+     */
+    private List<Offer> copyOffers() {
+        List<Offer> copies = new ArrayList<>();
+        for (Offer offer : offers.all()) copies.add(new Offer(offer));
+        return copies;
+    }
+
+    private void flushTombstones() {
+        Map<String, Long> snapshot;
+        Map<String, Long> evictedSnapshot;
+        synchronized (lock) {
+            if (tombstones == null) return;
+            snapshot = tombstones.snapshot();
+            evictedSnapshot = evicted.snapshot();
+        }
+        Tombstones.write(context, Tombstones.FILE_NAME, snapshot);
+        Tombstones.write(context, Tombstones.EVICTED_FILE_NAME, evictedSnapshot);
+    }
+
+    // --- Retention ---
+
+    /**
+     * Returns the IDs of all offers a {@link RetentionPolicy} may apply to: deleted and
+     * inactive offers.
+     */
+    List<String> retentionCandidates() {
+        synchronized (lock) {
+            ensureOffersLoaded();
+            Set<String> ids = new LinkedHashSet<>();
+            for (Offer offer : offers.query(null, null, null, true)) ids.add(offer.getOfferId());
+            for (Offer offer : offers.query(null, OfferStatus.INACTIVE, null, null)) ids.add(offer.getOfferId());
+            return new ArrayList<>(ids);
+        }
+    }
+
+    /**
+     * Removes those of the given offers that match one of the policies and records a tombstone
+     * for each. The offer store is persisted as a whole afterwards.
+     *
+     * @param offerIds the offers to check
+     * @param policies the retention policies
+     * @param now      the current time in milliseconds
+     * @return the number of purged offers
+     */
+    int purge(List<String> offerIds, List<RetentionPolicy> policies, long now) {
+        UserProfile profile = getLocalProfile();
+        String localUserId = profile != null ? profile.getId() : null;
+        int purged = 0;
+        List<StoreChange> changes;
+        synchronized (lock) {
+            changes = newChangeList();
+            ensureOffersLoaded();
+            for (String offerId : offerIds) {
+                Offer offer = offers.get(offerId);
+                if (offer == null) continue;
+                for (RetentionPolicy policy : policies) {
+                    if (policy.shouldPurge(offer, localUserId, now)) {
+                        removeWithTombstone(offer, changes);
+                        purged++;
+                        break;
+                    }
+                }
+            }
+        }
+        if (purged > 0) {
+            committer.commit(COMMIT_OFFERS, this::flushOffers);
+            committer.commit(COMMIT_TOMBSTONES, this::flushTombstones);
+        }
+        publish(changes);
+        return purged;
+    }
+
+    /**
+     * Removes a stored offer and records a tombstone for its version. Must be called while
+     * holding the lock; the caller schedules the write of the offers afterwards.
+     */
+    private void removeWithTombstone(Offer offer, List<StoreChange> changes) {
+        remove(offer);
+        tombstones.add(offer.getOfferId(), offer.getLastModified());
+        recordOfferChange(changes, StoreChange.Type.OFFER_REMOVED, offer.getOfferId());
+    }
+
+    /**
+     * Removes an active offer of a known peer to meet the quota. Other nodes keep such offers,
+     * so instead of a tombstone its version is recorded as evicted: it is not requested again
+     * and stays advertised, so that the hash trie of this node still matches its neighbours'.
+     * Must be called while holding the lock; the caller schedules the write of the offers
+     * afterwards.
+     */
+    private void evict(Offer offer, List<StoreChange> changes) {
+        remove(offer);
+        evicted.add(offer.getOfferId(), offer.getLastModified());
+        changeCount++;
+        if (changes != null) changes.add(StoreChange.offer(StoreChange.Type.OFFER_EVICTED, offer));
+    }
+
+    /**
+     * Removes a stored offer and records the removal for the next write of the offers. Must be
+     * called while holding the lock.
+     */
+    private void remove(Offer offer) {
+        String offerId = offer.getOfferId();
+        offers.remove(offerId);
+        dirtyOfferIds.remove(offerId);
+        removedOfferIds.add(offerId);
+        offerVersions.remove(offerId);
+        creatorVersions.bump(null);
+        creatorVersions.bump(offer.getCreatorId());
+    }
+
+    /**
+     * @return the creator ID of the stored offer, or {@code null} if it is not stored
+     */
+    private String creatorOf(String offerId) {
+        Offer stored = offers.get(offerId);
+        return stored != null ? stored.getCreatorId() : null;
+    }
+
+    /**
+     * Records a change of a stored offer in the version tables: for the offer itself, for the
+     * offer set of its previous and current creator, and for the set of all offers, which has the
+     * key {@code null}. Must be called while holding the lock, after the change was applied.
+     *
+     * @param offerId           the ID of the changed offer
+     * @param previousCreatorId the creator ID before the change, or {@code null} for a new offer
+     */
+    private void bumpOfferVersions(String offerId, String previousCreatorId) {
+        offerVersions.bump(offerId);
+        creatorVersions.bump(null);
+        if (previousCreatorId != null) creatorVersions.bump(previousCreatorId);
+        String creatorId = creatorOf(offerId);
+        if (creatorId != null && !creatorId.equals(previousCreatorId)) creatorVersions.bump(creatorId);
+    }
+
+    // --- Quota ---
+
+    /**
+     * Changes the storage budget for offers. If the stored offers exceed the new budget, offers
+     * are evicted in the background.
+     *
+     * @param maxOffers the maximum number of offers
+     * @param maxBytes  the maximum estimated size of all offers in bytes
+     */
+    public void setOfferQuota(int maxOffers, long maxBytes) {
+        synchronized (lock) {
+            quotaUnmetReported = false;
+        }
+        quota = new OfferQuota(maxOffers, maxBytes);
+        committer.commit(COMMIT_QUOTA, this::enforceQuota);
+    }
+
+    private boolean isOverQuota() {
+        return quota.isExceeded(offers.size(), offers.totalBytes());
+    }
+
+    /**
+     * Evicts offers of other users until the store is back under the low-water mark of the
+     * quota, least recently used first and inactive offers before active ones. Inactive and
+     * deleted offers get a tombstone; active offers of known peers are evicted without one,
+     * see {@link #evict(Offer, List)}. If the quota is still exceeded afterwards, e.g. by the
+     * local user's own offers, a warning is logged once until the quota is met or changed.
+     *
+     * @return the number of evicted offers
+     */
+    int enforceQuota() {
+        UserProfile profile = getLocalProfile();
+        String localUserId = profile != null ? profile.getId() : null;
+        OfferQuota current = quota;
+        List<StoreChange> changes;
+        int removed;
+        int offersLeft;
+        long bytesLeft;
+        boolean reportUnmet;
+        synchronized (lock) {
+            changes = newChangeList();
+            ensureOffersLoaded();
+            ensurePeersLoaded();
+            if (!isOverQuota()) {
+                quotaUnmetReported = false;
+                return 0;
+            }
+            List<String> victims = offers.evictionCandidates(localUserId, current.targetOffers(), current.targetBytes());
+            for (String offerId : victims) {
+                Offer offer = offers.get(offerId);
+                if (!offer.isDeleted() && offer.getStatus() == OfferStatus.ACTIVE
+                        && peers.containsKey(offer.getCreatorId())) {
+                    evict(offer, changes);
+                } else {
+                    removeWithTombstone(offer, changes);
+                }
+            }
+            removed = victims.size();
+            offersLeft = offers.size();
+            bytesLeft = offers.totalBytes();
+            boolean unmet = isOverQuota();
+            reportUnmet = unmet && !quotaUnmetReported;
+            quotaUnmetReported = unmet;
+        }
+        if (removed > 0) {
+            committer.commit(COMMIT_OFFERS, this::flushOffers);
+            committer.commit(COMMIT_TOMBSTONES, this::flushTombstones);
+            Log.i(TAG, "Quota exceeded, evicted " + removed + " offers, " + bytesLeft + " bytes left");
+        }
+        if (reportUnmet) {
+            Log.w(TAG, "Quota cannot be met by evicting offers of other users, " + offersLeft
+                    + " offers and " + bytesLeft + " bytes left");
+        }
+        publish(changes);
+        return removed;
+    }
+
+    /**
+     * Drops tombstones of purged versions older than the given time.
+     *
+     * @param cutoff the last modification time before which tombstones are dropped
+     * @return the number of dropped tombstones
+     */
+    int expireTombstones(long cutoff) {
+        int expired;
+        synchronized (lock) {
+            ensureOffersLoaded();
+            expired = tombstones.expire(cutoff).size();
+        }
+        if (expired > 0) committer.commit(COMMIT_TOMBSTONES, this::flushTombstones);
+        return expired;
+    }
+
+    private void flushPeers() {
+        List<UserProfile> changed = new ArrayList<>();
+        List<UserProfile> snapshot = null;
+        synchronized (lock) {
+            if (peers == null) return;
+            if (peersReplaced) {
+                snapshot = new ArrayList<>(peers.values());
+                peersReplaced = false;
+            } else {
+                for (String peerId : dirtyPeerIds) {
+                    UserProfile peer = peers.get(peerId);
+                    if (peer != null) changed.add(peer);
+                }
+            }
+            dirtyPeerIds.clear();
+        }
+        if (snapshot != null) {
+            peerBackend.writeSnapshot(snapshot);
+            Log.d(TAG, "Flushed all " + snapshot.size() + " peers");
+        } else {
+            peerBackend.writeChanges(changed, this::snapshotPeers);
+            Log.d(TAG, "Flushed " + changed.size() + " changed peers");
+        }
+    }
+
+    private List<UserProfile> snapshotPeers() {
+        synchronized (lock) {
+            return new ArrayList<>(peers.values());
+        }
+    }
+
+    private void flushProfile() {
+        UserProfile snapshot;
+        synchronized (lock) {
+            snapshot = localProfile;
+        }
+        if (snapshot != null) {
+            snapshot.saveToFile(context);
+        }
+    }
+
+    private void ensureOffersLoaded() {
+        if (tombstones == null) {
+            tombstones = Tombstones.load(context, Tombstones.FILE_NAME);
+            evicted = Tombstones.load(context, Tombstones.EVICTED_FILE_NAME);
+        }
+        if (offers == null) {
+            offers = new OfferStore(SearchIndex.load(context), descriptions());
+            offers.replaceAll(offerBackend.load());
+            Log.d(TAG, "Loaded " + offers.size() + " offers");
+            if (hasDescriptionsInMemory()) {
+                // Written before descriptions were kept on disk, or before they could be moved
+                offersReplaced = true;
+                committer.commit(COMMIT_OFFERS, this::flushOffers);
+            }
+            if (offers.textIndex().isDirty()) {
+                committer.commitDeferred(COMMIT_SEARCH_INDEX, this::flushSearchIndex, SEARCH_INDEX_FLUSH_INTERVAL_MS);
+            }
+            if (isOverQuota()) committer.commit(COMMIT_QUOTA, this::enforceQuota);
+        }
+    }
+
+    private DescriptionStore descriptions() {
+        if (descriptions == null) {
+            descriptions = DescriptionStore.open(context);
+        }
+        return descriptions;
+    }
+
+    private boolean hasDescriptionsInMemory() {
+        for (Offer offer : offers.all()) {
+            if (offer.getDescription() != null) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Creates the offer persistence strategy for the given storage mode.
+     *
+     * @param context the context used for file access
+     * @param mode    the configured {@link Constants.StorageMode}
+     * @return the matching {@link OfferBackend}
+     */
+    private static OfferBackend createOfferBackend(Context context, Constants.StorageMode mode) {
+        switch (mode) {
+            case JOURNAL:
+                return new JournalOfferBackend(context);
+            case BINARY:
+                return new BinaryOfferBackend(context);
+            case SQLITE:
+                return new SqliteOfferBackend(context, FlurfunkDatabase.getInstance(context));
+            case JSON:
+            default:
+                return new JsonOfferBackend(context);
+        }
+    }
+
+    /**
+     * Creates the peer persistence strategy for the given storage mode.
+     *
+     * @param context the context used for file and database access
+     * @param mode    the configured {@link Constants.StorageMode}
+     * @return the matching {@link PeerBackend}
+     */
+    private static PeerBackend createPeerBackend(Context context, Constants.StorageMode mode) {
+        if (mode == Constants.StorageMode.SQLITE) {
+            return new SqlitePeerBackend(context, FlurfunkDatabase.getInstance(context));
+        }
+        return new JsonPeerBackend(context);
+    }
+
+    private void ensurePeersLoaded() {
+        if (peers == null) {
+            peers = toDirectory(peerBackend.load());
+            Log.d(TAG, "Loaded " + peers.size() + " peers");
+        }
+    }
+
+    private static Map<String, UserProfile> toDirectory(List<UserProfile> list) {
+        Map<String, UserProfile> directory = new LinkedHashMap<>();
+        for (UserProfile peer : list) {
+            directory.put(peer.getId(), peer);
+        }
+        return directory;
+    }
+}
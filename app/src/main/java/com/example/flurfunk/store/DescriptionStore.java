@@ -0,0 +1,295 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps offer descriptions on disk, so that only the fields shown in lists stay in memory.
+ * <p>
+ * Descriptions are appended to a log file ({@code offer_descriptions.bin}); an in-memory offset
+ * index maps each offer ID to the position of its latest description. Reading a description
+ * touches only the bytes of that record. The file has the following format:
+ * <pre>
+ * header: int magic, short version
+ * record: UTF offerId, int byte length, UTF-8 description
+ * </pre>
+ * Opening the file only reads the record headers to rebuild the index. A record cut off by a
+ * crash during an append is discarded and truncated, so later appends start at a clean position.
+ * <p>
+ * Newer descriptions and removed offers leave unused records behind. Once they make up more than
+ * half of the file, {@link #compactIfSparse()} rewrites it with the live records only.
+ * <p>
+ * All methods are synchronized, so descriptions can be read outside the {@link DataRepository}
+ * lock while the writer thread appends.
+ */
+class DescriptionStore {
+
+    private static final String TAG = "DescriptionStore";
+    static final String FILE_NAME = "offer_descriptions.bin";
+    static final int MAGIC = 0x464C4453; // "FLDS"
+    static final short VERSION = 1;
+    private static final int HEADER_SIZE = 6;
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+    private final File file;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long fileLength;
+    private long liveBytes;
+
+    /**
+     * The position of a description in the file.
+     */
+    private static final class Entry {
+        final long offset;
+        final int length;
+        final long recordLength;
+
+        Entry(long offset, int length, long recordLength) {
+            this.offset = offset;
+            this.length = length;
+            this.recordLength = recordLength;
+        }
+    }
+
+    private DescriptionStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the description file in internal storage and reads its index.
+     *
+     * @param context the Android context used for file access
+     * @return the opened store; empty if no file exists or it cannot be read
+     */
+    static DescriptionStore open(Context context) {
+        DescriptionStore store = new DescriptionStore(new File(context.getFilesDir(), FILE_NAME));
+        store.readIndex();
+        return store;
+    }
+
+    /**
+     * Reads the description of an offer from disk.
+     *
+     * @param offerId the offer ID
+     * @return the description, or {@code null} if none is stored or reading fails
+     */
+    synchronized String read(String offerId) {
+        Entry entry = entries.get(offerId);
+        if (entry == null) return null;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            byte[] bytes = new byte[entry.length];
+            in.seek(entry.offset);
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not read description of " + offerId, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the size of the stored description of an offer in bytes, or {@code 0} if none is
+     * stored
+     */
+    synchronized int length(String offerId) {
+        Entry entry = entries.get(offerId);
+        return entry != null ? entry.length : 0;
+    }
+
+    /**
+     * @return the number of offers with a stored description
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Appends descriptions to the file and syncs it. The new records replace earlier descriptions
+     * of the same offers.
+     *
+     * @param descriptions the descriptions by offer ID
+     * @return {@code true} if all descriptions were written; if not, the store is unchanged
+     */
+    synchronized boolean append(Map<String, String> descriptions) {
+        if (descriptions.isEmpty()) return true;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Map<String, Entry> written = new LinkedHashMap<>();
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            long position = fileLength == 0 ? HEADER_SIZE : fileLength;
+            if (fileLength == 0) writeHeader(out);
+            for (Map.Entry<String, String> description : descriptions.entrySet()) {
+                int start = out.size();
+                byte[] text = description.getValue().getBytes(StandardCharsets.UTF_8);
+                out.writeUTF(description.getKey());
+                out.writeInt(text.length);
+                int textOffset = out.size();
+                out.write(text);
+                written.put(description.getKey(), new Entry(position + textOffset - start,
+                        text.length, out.size() - start));
+                position += out.size() - start;
+            }
+            out.flush();
+        } catch (IOException e) {
+            Log.e(TAG, "Could not encode descriptions", e);
+            return false;
+        }
+
+        try (FileOutputStream fos = new FileOutputStream(file, true)) {
+            bytes.writeTo(fos);
+            fos.flush();
+            fos.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Could not append descriptions", e);
+            truncate(fileLength);
+            return false;
+        }
+
+        fileLength += bytes.size();
+        for (Map.Entry<String, Entry> entry : written.entrySet()) {
+            Entry previous = entries.put(entry.getKey(), entry.getValue());
+            if (previous != null) liveBytes -= previous.recordLength;
+            liveBytes += entry.getValue().recordLength;
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the description of a removed offer. The record stays in the file until it is
+     * compacted.
+     *
+     * @param offerId the offer ID
+     */
+    synchronized void remove(String offerId) {
+        Entry removed = entries.remove(offerId);
+        if (removed != null) liveBytes -= removed.recordLength;
+    }
+
+    /**
+     * Forgets the descriptions of all offers whose ID is not in the given set, e.g. after the
+     * stored offers were replaced or loaded.
+     *
+     * @param offerIds the IDs of the offers to keep
+     */
+    synchronized void retainAll(Collection<String> offerIds) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> entry = it.next();
+            if (!offerIds.contains(entry.getKey())) {
+                liveBytes -= entry.getValue().recordLength;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Rewrites the file with the live records only, if unused records make up more than half of
+     * it. The new file is written next to the old one and renamed over it.
+     *
+     * @return {@code true} if the file was compacted
+     */
+    synchronized boolean compactIfSparse() {
+        if (fileLength < MIN_COMPACT_BYTES || liveBytes * 2 >= fileLength - HEADER_SIZE) return false;
+
+        File compacted = new File(file.getPath() + ".new");
+        Map<String, Entry> moved = new HashMap<>();
+        long position = HEADER_SIZE;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r");
+             FileOutputStream fos = new FileOutputStream(compacted)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            writeHeader(out);
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Entry old = entry.getValue();
+                byte[] record = new byte[(int) old.recordLength];
+                in.seek(old.offset + old.length - old.recordLength);
+                in.readFully(record);
+                out.write(record);
+                moved.put(entry.getKey(), new Entry(position + old.recordLength - old.length,
+                        old.length, old.recordLength));
+                position += old.recordLength;
+            }
+            out.flush();
+            fos.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Could not compact descriptions", e);
+            compacted.delete();
+            return false;
+        }
+        if (!compacted.renameTo(file)) {
+            Log.e(TAG, "Could not replace " + FILE_NAME);
+            compacted.delete();
+            return false;
+        }
+
+        Log.d(TAG, "Compacted descriptions from " + fileLength + " to " + position + " bytes");
+        entries.clear();
+        entries.putAll(moved);
+        fileLength = position;
+        liveBytes = position - HEADER_SIZE;
+        return true;
+    }
+
+    /**
+     * Rebuilds the offset index from the record headers, skipping the descriptions themselves.
+     */
+    private void readIndex() {
+        if (!file.exists()) return;
+        long valid = 0;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            long length = in.length();
+            if (in.readInt() != MAGIC) throw new IOException("Not a description file");
+            short version = in.readShort();
+            if (version != VERSION) throw new IOException("Unsupported description file version " + version);
+            valid = HEADER_SIZE;
+            while (valid < length) {
+                String offerId = in.readUTF();
+                int textLength = in.readInt();
+                long textOffset = in.getFilePointer();
+                if (textLength < 0 || textOffset + textLength > length) throw new EOFException();
+                in.seek(textOffset + textLength);
+                Entry entry = new Entry(textOffset, textLength, textOffset + textLength - valid);
+                Entry previous = entries.put(offerId, entry);
+                if (previous != null) liveBytes -= previous.recordLength;
+                liveBytes += entry.recordLength;
+                valid = textOffset + textLength;
+            }
+        } catch (EOFException e) {
+            Log.w(TAG, "Discarding incomplete description record at " + valid);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not read description index", e);
+            entries.clear();
+            liveBytes = 0;
+            valid = 0;
+        }
+        if (valid < file.length()) truncate(valid);
+        fileLength = valid;
+    }
+
+    private void truncate(long length) {
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(length);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not truncate " + FILE_NAME, e);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+    }
+}
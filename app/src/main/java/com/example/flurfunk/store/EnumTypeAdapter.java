@@ -0,0 +1,48 @@
+package com.example.flurfunk.store;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes the enums in {@link com.example.flurfunk.util.Constants} by constant name,
+ * the same format Gson's reflective enum adapter uses.
+ * <p>
+ * The name lookup table is built once, so reading a value costs one map lookup; unknown names
+ * are read as {@code null}.
+ *
+ * @param <E> the enum type
+ */
+final class EnumTypeAdapter<E extends Enum<E>> extends TypeAdapter<E> {
+
+    private final Map<String, E> byName = new HashMap<>();
+
+    EnumTypeAdapter(Class<E> type) {
+        for (E constant : type.getEnumConstants()) {
+            byName.put(constant.name(), constant);
+        }
+    }
+
+    @Override
+    public void write(JsonWriter out, E value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(value.name());
+        }
+    }
+
+    @Override
+    public E read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return byName.get(in.nextString());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Shared low-level file access for all stores in the app's internal storage.
+ * <p>
+ * Whole-file writes go through {@link AtomicFile}: the new content is written to a separate file,
+ * synced to disk and only then moved over the previous version. A crash during a write therefore
+ * leaves either the old or the new content behind, never a truncated file. Reads use the same
+ * mechanism, so an interrupted write is rolled back transparently.
+ * <p>
+ * Scheduling and batching of writes is handled by the {@link GroupCommitter}.
+ */
+public class FilePersistence {
+
+    private static final String TAG = "FilePersistence";
+
+    /**
+     * Produces the content of a file by writing it to the given stream.
+     */
+    public interface StreamWriter {
+        /**
+         * Writes the file content.
+         *
+         * @param out the stream to write to; must not be closed by the implementation
+         * @throws IOException if writing fails
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Atomically replaces the content of a file in internal storage.
+     *
+     * @param context  the Android context used to locate the files directory
+     * @param fileName the name of the file
+     * @param writer   produces the new content
+     * @return {@code true} if the new content was written and synced completely
+     */
+    public static boolean writeAtomically(Context context, String fileName, StreamWriter writer) {
+        AtomicFile file = new AtomicFile(new File(context.getFilesDir(), fileName));
+        FileOutputStream fos = null;
+        try {
+            fos = file.startWrite();
+            writer.writeTo(fos);
+            fos.flush();
+            file.finishWrite(fos);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Could not write " + fileName, e);
+            if (fos != null) file.failWrite(fos);
+            return false;
+        }
+    }
+
+    /**
+     * Appends to a file in internal storage and syncs it to disk.
+     * <p>
+     * Appends are not atomic; callers must tolerate a partially written tail after a crash.
+     *
+     * @param context  the Android context used to locate the files directory
+     * @param fileName the name of the file
+     * @param writer   produces the content to append
+     * @return {@code true} if the content was appended and synced completely
+     */
+    public static boolean append(Context context, String fileName, StreamWriter writer) {
+        File file = new File(context.getFilesDir(), fileName);
+        try (FileOutputStream fos = new FileOutputStream(file, true)) {
+            writer.writeTo(fos);
+            fos.flush();
+            fos.getFD().sync();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Could not append to " + fileName, e);
+            return false;
+        }
+    }
+
+    /**
+     * Opens a file in internal storage for reading, restoring the last complete version
+     * if a previous atomic write was interrupted.
+     *
+     * @param context  the Android context used to locate the files directory
+     * @param fileName the name of the file
+     * @return an input stream positioned at the start of the file
+     * @throws FileNotFoundException if the file does not exist
+     */
+    public static FileInputStream openRead(Context context, String fileName) throws FileNotFoundException {
+        return new AtomicFile(new File(context.getFilesDir(), fileName)).openRead();
+    }
+
+    /**
+     * Checks whether a file exists in internal storage.
+     *
+     * @param context  the Android context used to locate the files directory
+     * @param fileName the name of the file
+     * @return {@code true} if the file exists
+     */
+    public static boolean exists(Context context, String fileName) {
+        return new File(context.getFilesDir(), fileName).exists();
+    }
+
+    /**
+     * Returns the size of a file in internal storage.
+     *
+     * @param context  the Android context used to locate the files directory
+     * @param fileName the name of the file
+     * @return the file size in bytes, or {@code 0} if it does not exist
+     */
+    public static long length(Context context, String fileName) {
+        return new File(context.getFilesDir(), fileName).length();
+    }
+
+    /**
+     * Deletes a file, including any leftovers of an interrupted atomic write.
+     *
+     * @param context  the Android context used to locate the files directory
+     * @param fileName the name of the file
+     */
+    public static void delete(Context context, String fileName) {
+        new AtomicFile(new File(context.getFilesDir(), fileName)).delete();
+    }
+}
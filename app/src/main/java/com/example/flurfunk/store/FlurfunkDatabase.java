@@ -0,0 +1,111 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import com.example.flurfunk.util.Constants;
+
+/**
+ * SQLite database holding offers and peers in {@link Constants.StorageMode#SQLITE} mode.
+ * <p>
+ * Both tables are keyed by the ID of the stored object, so updates replace rows in place
+ * through the primary key index. Enum values are stored by name, like in the JSON files.
+ */
+class FlurfunkDatabase extends SQLiteOpenHelper {
+
+    private static final int VERSION = 1;
+
+    static final String TABLE_OFFERS = "offers";
+    static final String TABLE_PEERS = "peers";
+
+    private static volatile FlurfunkDatabase instance;
+
+    FlurfunkDatabase(Context context) {
+        super(context, Constants.DATABASE_NAME, null, VERSION);
+    }
+
+    /**
+     * Returns the process-wide database helper, creating it on first use.
+     *
+     * @param context any Android context; the application context is retained
+     * @return the shared {@code FlurfunkDatabase}
+     */
+    static FlurfunkDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (FlurfunkDatabase.class) {
+                if (instance == null) {
+                    Context appContext = context.getApplicationContext();
+                    instance = new FlurfunkDatabase(appContext != null ? appContext : context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_OFFERS + " ("
+                + "offer_id TEXT PRIMARY KEY NOT NULL, "
+                + "title TEXT, "
+                + "description TEXT, "
+                + "category TEXT, "
+                + "creator_id TEXT, "
+                + "created_at INTEGER NOT NULL, "
+                + "last_modified INTEGER NOT NULL, "
+                + "status TEXT, "
+                + "deleted INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE TABLE " + TABLE_PEERS + " ("
+                + "id TEXT PRIMARY KEY NOT NULL, "
+                + "name TEXT, "
+                + "floor TEXT, "
+                + "phone TEXT, "
+                + "email TEXT, "
+                + "mesh_id TEXT, "
+                + "timestamp INTEGER NOT NULL, "
+                + "last_seen INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Only one schema version exists so far.
+    }
+
+    /**
+     * Binds a string or {@code null} to a prepared statement.
+     *
+     * @param statement the statement
+     * @param index     the 1-based parameter index
+     * @param value     the value to bind, may be {@code null}
+     */
+    static void bindString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    /**
+     * Resolves a stored enum name.
+     *
+     * @param type the enum class
+     * @param name the stored name, may be {@code null}
+     * @param <E>  the enum type
+     * @return the matching constant, or {@code null} if the name is {@code null} or unknown
+     */
+    static <E extends Enum<E>> E enumOf(Class<E> type, String name) {
+        if (name == null) return null;
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
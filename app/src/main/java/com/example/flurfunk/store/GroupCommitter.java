@@ -0,0 +1,144 @@
+package com.example.flurfunk.store;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches write requests issued within a short time window into a single group commit.
+ * <p>
+ * The first commit request opens a window of {@code windowMs} milliseconds. All requests that
+ * arrive until the window closes are collected, keyed by the data set they write; a later request
+ * for the same key replaces the earlier one. When the window closes, each collected task runs once
+ * on a dedicated background thread. A burst of changes to the same data set therefore results in
+ * a single disk write.
+ * <p>
+ * Commit tasks should read the state they persist at the time they run, not when they are
+ * requested, so that the write contains the latest state.
+ */
+class GroupCommitter {
+
+    private static final String TAG = "GroupCommitter";
+
+    private final ScheduledExecutorService executor;
+    private final long windowMs;
+    private final Map<String, Runnable> pending = new LinkedHashMap<>();
+    private final Map<String, Runnable> deferred = new LinkedHashMap<>();
+    private boolean windowOpen = false;
+
+    /**
+     * Constructs a new {@code GroupCommitter} with its own writer thread.
+     *
+     * @param threadName the name of the writer thread
+     * @param windowMs   the length of the commit window in milliseconds
+     */
+    GroupCommitter(String threadName, long windowMs) {
+        this.windowMs = windowMs;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Requests a commit for the given data set.
+     *
+     * @param key  identifies the data set; pending requests with the same key are coalesced
+     * @param task the task writing the data set, run once on the writer thread
+     */
+    void commit(String key, Runnable task) {
+        synchronized (pending) {
+            deferred.remove(key);
+            pending.put(key, task);
+            if (windowOpen) return;
+            windowOpen = true;
+        }
+        executor.schedule(this::runPending, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Requests a commit for the given data set that may be delayed by up to {@code maxDelayMs}.
+     * <p>
+     * Used for frequent, low-value changes: all deferred requests for the same key within the
+     * delay result in a single commit. A regular {@link #commit} or {@link #flush()} for the
+     * same key runs the deferred request earlier.
+     *
+     * @param key        identifies the data set
+     * @param task       the task writing the data set
+     * @param maxDelayMs the maximum time until the commit is requested
+     */
+    void commitDeferred(String key, Runnable task, long maxDelayMs) {
+        synchronized (pending) {
+            if (pending.containsKey(key)) {
+                pending.put(key, task);
+                return;
+            }
+            if (deferred.put(key, task) != null) return;
+        }
+        executor.schedule(() -> promote(key), maxDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Closes the current window early and runs all pending and deferred commits as soon as
+     * possible.
+     */
+    void flush() {
+        executor.execute(() -> {
+            synchronized (pending) {
+                pending.putAll(deferred);
+                deferred.clear();
+            }
+            runPending();
+        });
+    }
+
+    private void promote(String key) {
+        Runnable task;
+        synchronized (pending) {
+            task = deferred.remove(key);
+        }
+        if (task != null) commit(key, task);
+    }
+
+    /**
+     * Runs a task on the writer thread after the given delay.
+     *
+     * @param task    the task to run
+     * @param delayMs the delay in milliseconds
+     */
+    void schedule(Runnable task, long delayMs) {
+        executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs a task on the writer thread, ordered after all previously submitted work.
+     *
+     * @param task the task to run
+     */
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    private void runPending() {
+        List<Runnable> batch;
+        synchronized (pending) {
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+            windowOpen = false;
+        }
+        for (Runnable task : batch) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Commit task failed", e);
+            }
+        }
+    }
+}
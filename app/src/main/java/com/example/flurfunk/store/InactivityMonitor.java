@@ -0,0 +1,221 @@
+package com.example.flurfunk.store;
+
+import android.util.Log;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.util.Constants.OfferStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Deactivates the offers of peers that have not been seen for longer than the inactivity timeout.
+ * <p>
+ * The monitor keeps the set of inactive peer IDs and the active peers ordered by lastSeen. The
+ * first run evaluates all peers and deactivates the active offers of every inactive one, looked
+ * up through the store's creator index. Later runs are incremental and only look at:
+ * <ul>
+ *     <li>peers whose lastSeen changed since the last run, as reported by the repository's
+ *     change notifications,</li>
+ *     <li>active peers whose lastSeen has fallen behind the timeout since the last run, which are
+ *     found at the head of the lastSeen order,</li>
+ *     <li>inactive creators of offers that became active since the last run.</li>
+ * </ul>
+ * Runs take place on the repository's writer thread every {@link #RUN_INTERVAL_MS}, and all
+ * offers deactivated in a run are changed in one transaction.
+ */
+class InactivityMonitor {
+
+    private static final String TAG = "InactivityMonitor";
+
+    static final long INITIAL_DELAY_MS = 5_000;
+    static final long RUN_INTERVAL_MS = 15 * 60 * 1000;
+
+    private static final Comparator<PeerAge> OLDEST_FIRST = Comparator
+            .comparingLong((PeerAge age) -> age.lastSeen)
+            .thenComparing(age -> age.peerId);
+
+    private final DataRepository repository;
+    private final GroupCommitter committer;
+    private final long timeoutMs;
+
+    // Only accessed on the writer thread
+    private boolean initialized;
+    private final Set<String> inactivePeerIds = new HashSet<>();
+    private final Map<String, PeerAge> activePeers = new HashMap<>();
+    private final NavigableSet<PeerAge> activeByLastSeen = new TreeSet<>(OLDEST_FIRST);
+
+    // Filled by the change listener on any thread, guarded by this
+    private final Set<String> changedPeerIds = new HashSet<>();
+    private final Set<String> activatedCreatorIds = new HashSet<>();
+    private boolean reloadRequested;
+
+    InactivityMonitor(DataRepository repository, GroupCommitter committer, long timeoutMs) {
+        this.repository = repository;
+        this.committer = committer;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Starts listening for changes and schedules the first run after {@link #INITIAL_DELAY_MS}.
+     */
+    void start() {
+        repository.addChangeListener(this::onStoreChanged, Runnable::run);
+        committer.schedule(this::scheduledRun, INITIAL_DELAY_MS);
+    }
+
+    private void scheduledRun() {
+        try {
+            run(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Inactivity check failed", e);
+        }
+        committer.schedule(this::scheduledRun, RUN_INTERVAL_MS);
+    }
+
+    /**
+     * Brings the inactive peer set up to date and deactivates the active offers of peers that
+     * became inactive, or of inactive peers that have new active offers.
+     *
+     * @param now the current time in milliseconds
+     * @return the number of creators whose offers were checked
+     */
+    int run(long now) {
+        long cutoff = now - timeoutMs;
+        Set<String> changed;
+        Set<String> activated;
+        boolean reload;
+        synchronized (this) {
+            changed = new HashSet<>(changedPeerIds);
+            activated = new HashSet<>(activatedCreatorIds);
+            reload = reloadRequested;
+            changedPeerIds.clear();
+            activatedCreatorIds.clear();
+            reloadRequested = false;
+        }
+
+        Set<String> creators = new LinkedHashSet<>();
+        if (!initialized || reload) {
+            inactivePeerIds.clear();
+            activePeers.clear();
+            activeByLastSeen.clear();
+            for (UserProfile peer : repository.getPeers()) {
+                if (track(peer.getId(), peer.getLastSeen(), cutoff)) creators.add(peer.getId());
+            }
+            initialized = true;
+        } else {
+            for (String peerId : changed) {
+                untrack(peerId);
+                UserProfile peer = repository.getPeer(peerId);
+                if (peer != null && track(peerId, peer.getLastSeen(), cutoff)) creators.add(peerId);
+            }
+            while (!activeByLastSeen.isEmpty() && activeByLastSeen.first().lastSeen <= cutoff) {
+                PeerAge expired = activeByLastSeen.pollFirst();
+                activePeers.remove(expired.peerId);
+                inactivePeerIds.add(expired.peerId);
+                creators.add(expired.peerId);
+            }
+            for (String creatorId : activated) {
+                if (inactivePeerIds.contains(creatorId)) creators.add(creatorId);
+            }
+        }
+
+        deactivateOffersOf(creators);
+        return creators.size();
+    }
+
+    /**
+     * @return {@code true} if the given peer is currently considered inactive
+     */
+    boolean isInactive(String peerId) {
+        return inactivePeerIds.contains(peerId);
+    }
+
+    /**
+     * Records a peer as active or inactive.
+     *
+     * @return {@code true} if the peer is inactive
+     */
+    private boolean track(String peerId, long lastSeen, long cutoff) {
+        if (lastSeen <= 0 || lastSeen <= cutoff) {
+            inactivePeerIds.add(peerId);
+            return true;
+        }
+        PeerAge age = new PeerAge(peerId, lastSeen);
+        activePeers.put(peerId, age);
+        activeByLastSeen.add(age);
+        return false;
+    }
+
+    private void untrack(String peerId) {
+        inactivePeerIds.remove(peerId);
+        PeerAge age = activePeers.remove(peerId);
+        if (age != null) activeByLastSeen.remove(age);
+    }
+
+    private void deactivateOffersOf(Set<String> creators) {
+        if (creators.isEmpty()) return;
+        List<String> creatorIds = new ArrayList<>(creators);
+        int[] deactivated = new int[1];
+        repository.runInTransaction(transaction -> {
+            deactivated[0] = 0;
+            for (String creatorId : creatorIds) {
+                for (Offer offer : transaction.queryOffers(null, OfferStatus.ACTIVE, creatorId, null)) {
+                    offer.setStatus(OfferStatus.INACTIVE);
+                    offer.setLastModified(System.currentTimeMillis());
+                    transaction.putOffer(offer);
+                    deactivated[0]++;
+                }
+            }
+        });
+        if (deactivated[0] > 0) {
+            Log.i(TAG, "Deactivated " + deactivated[0] + " offers of " + creatorIds.size() + " inactive peers");
+        }
+    }
+
+    synchronized void onStoreChanged(List<StoreChange> changes) {
+        for (StoreChange change : changes) {
+            switch (change.getType()) {
+                case PEER_ADDED:
+                case PEER_UPDATED:
+                    changedPeerIds.add(change.getId());
+                    break;
+                case OFFER_ADDED:
+                case OFFER_UPDATED:
+                case OFFER_STATUS_CHANGED:
+                    Offer offer = change.getOffer();
+                    if (offer.getStatus() == OfferStatus.ACTIVE && offer.getCreatorId() != null) {
+                        activatedCreatorIds.add(offer.getCreatorId());
+                    }
+                    break;
+                case RELOAD:
+                    reloadRequested = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * The lastSeen timestamp of an active peer at the time it was evaluated.
+     */
+    private static final class PeerAge {
+        final String peerId;
+        final long lastSeen;
+
+        PeerAge(String peerId, long lastSeen) {
+            this.peerId = peerId;
+            this.lastSeen = lastSeen;
+        }
+    }
+}
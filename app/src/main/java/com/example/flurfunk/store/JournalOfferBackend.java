@@ -0,0 +1,175 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Log-structured offer storage consisting of a snapshot ({@code offers.json}) and an append-only
+ * journal ({@code offers.journal}).
+ * <p>
+ * Every change appends one JSON line with the full state of the changed offer to the journal, so
+ * the cost of a write is proportional to the size of the changed offers instead of the whole store.
+ * A removed offer is recorded as a line holding only its ID, e.g. {@code {"removed":"<id>"}}.
+ * On load, the journal is replayed on top of the snapshot; later records replace earlier ones.
+ * <p>
+ * Once the journal grows beyond {@link #COMPACTION_THRESHOLD_BYTES}, it is compacted: the current
+ * state is atomically written as a new snapshot and the journal is truncated. Appends are synced
+ * to disk before the write is considered done. A journal that survives a crash
+ * between these two steps is harmless, as replaying it over the new snapshot yields the same state.
+ * A partially written last line is skipped during replay, and the journal is compacted on the next
+ * write so that new records are not appended to the damaged line.
+ */
+class JournalOfferBackend implements OfferBackend {
+
+    private static final String TAG = "JournalOfferBackend";
+    private static final String JOURNAL_FILE = Constants.OFFER_JOURNAL_FILE;
+    private static final long COMPACTION_THRESHOLD_BYTES = 256 * 1024;
+    private static final String KEY_REMOVED = "removed";
+    private static final String REMOVAL_PREFIX = "{\"" + KEY_REMOVED + "\":";
+
+    private final Context context;
+    private boolean compactionRequired = false;
+
+    JournalOfferBackend(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Loads the snapshot and replays the journal on top of it.
+     *
+     * @return the current offers in snapshot order, followed by offers only found in the journal
+     */
+    @Override
+    public List<Offer> load() {
+        Map<String, Offer> offers = new LinkedHashMap<>();
+        for (Offer offer : OfferManager.readOffersFromFile(context)) {
+            offers.put(offer.getOfferId(), offer);
+        }
+
+        if (!FilePersistence.exists(context, JOURNAL_FILE)) {
+            return new ArrayList<>(offers.values());
+        }
+
+        int replayed = 0, skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(new File(context.getFilesDir(), JOURNAL_FILE)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                try {
+                    if (line.startsWith(REMOVAL_PREFIX)) {
+                        offers.remove(readRemoval(line));
+                        replayed++;
+                        continue;
+                    }
+                    Offer offer = JsonStreams.OFFER_ADAPTER.fromJson(line);
+                    if (offer != null && offer.getOfferId() != null) {
+                        offers.put(offer.getOfferId(), offer);
+                        replayed++;
+                    }
+                } catch (JsonParseException | IOException | IllegalStateException e) {
+                    skipped++;
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Could not read offer journal", e);
+        }
+        Log.d(TAG, "Replayed " + replayed + " journal records, skipped " + skipped);
+        compactionRequired = skipped > 0;
+        return new ArrayList<>(offers.values());
+    }
+
+    /**
+     * Reads the offer ID of a removal record.
+     *
+     * @param line a journal line starting with {@link #REMOVAL_PREFIX}
+     * @return the ID of the removed offer
+     * @throws IOException if the line is not a valid removal record
+     */
+    private static String readRemoval(String line) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(line));
+        reader.beginObject();
+        reader.nextName();
+        String offerId = reader.nextString();
+        reader.endObject();
+        return offerId;
+    }
+
+    /**
+     * Appends one record per changed or removed offer to the journal and compacts it if it has
+     * grown beyond the threshold.
+     */
+    @Override
+    public void writeChanges(Collection<Offer> changed, Collection<String> removedIds, Supplier<List<Offer>> snapshot) {
+        if (changed.isEmpty() && removedIds.isEmpty()) return;
+
+        if (compactionRequired) {
+            writeSnapshot(snapshot.get());
+            return;
+        }
+
+        boolean appended = FilePersistence.append(context, JOURNAL_FILE, out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            for (Offer offer : changed) {
+                writer.write(JsonStreams.OFFER_ADAPTER.toJson(offer));
+                writer.write('\n');
+            }
+            for (String offerId : removedIds) {
+                JsonWriter record = new JsonWriter(writer);
+                record.beginObject().name(KEY_REMOVED).value(offerId).endObject();
+                record.flush();
+                writer.write('\n');
+            }
+            writer.flush();
+        });
+        if (!appended) {
+            Log.w(TAG, "Could not append to offer journal, writing snapshot instead");
+            writeSnapshot(snapshot.get());
+            return;
+        }
+
+        long journalSize = FilePersistence.length(context, JOURNAL_FILE);
+        if (journalSize > COMPACTION_THRESHOLD_BYTES) {
+            Log.i(TAG, "Compacting offer journal (" + journalSize + " bytes)");
+            writeSnapshot(snapshot.get());
+        }
+    }
+
+    /**
+     * Writes a new snapshot and truncates the journal.
+     */
+    @Override
+    public void writeSnapshot(List<Offer> offers) {
+        if (!OfferManager.writeOffersToFile(context, offers)) {
+            return;
+        }
+        File journal = new File(context.getFilesDir(), JOURNAL_FILE);
+        if (journal.exists() && !journal.delete()) {
+            Log.w(TAG, "Could not truncate offer journal");
+            return;
+        }
+        compactionRequired = false;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+
+import com.example.flurfunk.model.Offer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Stores all offers in a single JSON file ({@code offers.json}) that is rewritten on every change.
+ */
+class JsonOfferBackend implements OfferBackend {
+
+    private final Context context;
+
+    JsonOfferBackend(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public List<Offer> load() {
+        return OfferManager.readOffersFromFile(context);
+    }
+
+    @Override
+    public void writeChanges(Collection<Offer> changed, Collection<String> removedIds, Supplier<List<Offer>> snapshot) {
+        writeSnapshot(snapshot.get());
+    }
+
+    @Override
+    public void writeSnapshot(List<Offer> offers) {
+        OfferManager.writeOffersToFile(context, offers);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+
+import com.example.flurfunk.model.UserProfile;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Stores all peers in a single JSON file ({@code peers.json}) that is rewritten on every change.
+ */
+class JsonPeerBackend implements PeerBackend {
+
+    private final Context context;
+
+    JsonPeerBackend(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public List<UserProfile> load() {
+        return PeerManager.readPeersFromFile(context);
+    }
+
+    @Override
+    public void writeChanges(Collection<UserProfile> changed, Supplier<List<UserProfile>> snapshot) {
+        writeSnapshot(snapshot.get());
+    }
+
+    @Override
+    public void writeSnapshot(List<UserProfile> peers) {
+        PeerManager.writePeersToFile(context, peers);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.util.Constants.Category;
+import com.example.flurfunk.util.Constants.OfferStatus;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared JSON serialization for all stores.
+ * <p>
+ * A single {@link Gson} instance and the type adapters for the stored types are created once and
+ * reused, instead of building a new {@code Gson} and resolving the type for every file access.
+ * {@link Offer}, {@link UserProfile} and the enums in {@link com.example.flurfunk.util.Constants}
+ * are handled by hand-written adapters ({@link OfferTypeAdapter}, {@link UserProfileTypeAdapter},
+ * {@link EnumTypeAdapter}) registered on that instance, so no reflection is used for them.
+ * <p>
+ * Lists are read and written element by element with {@link JsonReader} and {@link JsonWriter},
+ * directly from and to the file streams. The file content is never held in memory as a whole, so
+ * peak memory while loading is about the size of the resulting objects.
+ */
+public final class JsonStreams {
+
+    /**
+     * The shared {@link Gson} instance. {@code Gson} is thread-safe and caches its type adapters.
+     */
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Offer.class, new OfferTypeAdapter())
+            .registerTypeAdapter(UserProfile.class, new UserProfileTypeAdapter())
+            .registerTypeAdapter(Category.class, new EnumTypeAdapter<>(Category.class))
+            .registerTypeAdapter(OfferStatus.class, new EnumTypeAdapter<>(OfferStatus.class))
+            .create();
+
+    static final TypeToken<Offer> OFFER_TYPE = TypeToken.get(Offer.class);
+    static final TypeToken<UserProfile> PEER_TYPE = TypeToken.get(UserProfile.class);
+
+    static final TypeAdapter<Offer> OFFER_ADAPTER = GSON.getAdapter(OFFER_TYPE);
+    static final TypeAdapter<UserProfile> PEER_ADAPTER = GSON.getAdapter(PEER_TYPE);
+
+    private JsonStreams() {
+    }
+
+    /**
+     * Reads a JSON array from the given stream, one element at a time.
+     * <p>
+     * An empty stream or a JSON {@code null} yields an empty list; {@code null} elements are
+     * skipped. The stream is not closed.
+     *
+     * @param in      the UTF-8 encoded input
+     * @param adapter the adapter for the element type
+     * @param <T>     the element type
+     * @return a new list containing the parsed elements
+     * @throws IOException if reading fails or the content is not a valid JSON array
+     */
+    static <T> List<T> readList(InputStream in, TypeAdapter<T> adapter) throws IOException {
+        List<T> items = new ArrayList<>();
+        JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        JsonToken first;
+        try {
+            first = reader.peek();
+        } catch (EOFException e) {
+            return items;
+        }
+        if (first == JsonToken.NULL) {
+            return items;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            T item = adapter.read(reader);
+            if (item != null) items.add(item);
+        }
+        reader.endArray();
+        return items;
+    }
+
+    /**
+     * Writes the given elements as a JSON array to the stream, one element at a time.
+     * The stream is flushed but not closed.
+     *
+     * @param out     the output, written as UTF-8
+     * @param items   the elements to write
+     * @param adapter the adapter for the element type
+     * @param <T>     the element type
+     * @throws IOException if writing fails
+     */
+    static <T> void writeList(OutputStream out, List<T> items, TypeAdapter<T> adapter) throws IOException {
+        JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        writer.beginArray();
+        for (T item : items) {
+            adapter.write(writer, item);
+        }
+        writer.endArray();
+        writer.flush();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Persistence strategy for offers held by the {@link DataRepository}.
+ * <p>
+ * Implementations are only called from the repository's writer thread (and once for the initial
+ * load), so they do not need to be thread-safe.
+ */
+interface OfferBackend {
+
+    /**
+     * Loads all persisted offers.
+     *
+     * @return the stored offers, or an empty list if nothing is stored or loading fails
+     */
+    List<Offer> load();
+
+    /**
+     * Persists the offers that changed or were removed since the last write.
+     *
+     * @param changed    the new or changed offers
+     * @param removedIds the IDs of the removed offers, none of which is in {@code changed}
+     * @param snapshot   supplies a copy of all offers, for backends that need to rewrite everything
+     */
+    void writeChanges(Collection<Offer> changed, Collection<String> removedIds, Supplier<List<Offer>> snapshot);
+
+    /**
+     * Replaces everything that is persisted with the given offers.
+     *
+     * @param offers the complete list of offers to keep
+     */
+    void writeSnapshot(List<Offer> offers);
+}
@@ -3,21 +3,21 @@ package com.example.flurfunk.store;
 import android.content.Context;
 import android.util.Log;
 
+import androidx.lifecycle.LiveData;
+
 import com.example.flurfunk.model.Offer;
-import com.example.flurfunk.model.UserProfile;
 import com.example.flurfunk.util.Constants;
 import com.example.flurfunk.util.Constants.OfferStatus;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
-import java.io.BufferedReader;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.lang.reflect.Type;
 
 /**
  * A utility class for managing offer data within the Flurfunk application.
@@ -25,7 +25,11 @@ import java.lang.reflect.Type;
  * This class provides static methods for saving, loading, filtering, retrieving, and updating {@link Offer} objects,
  * which represent items offered by users on the local mesh network.
  * <p>
- * Offers are serialized to and deserialized from a JSON file in the app's internal storage.
+ * Offers are held in memory by the {@link DataRepository}, which writes changes back through an
+ * {@link OfferBackend} chosen by {@link Constants#STORAGE_MODE}: by default a JSON snapshot plus
+ * an append-only journal ({@link JournalOfferBackend}), otherwise a single JSON file, a binary file
+ * or an SQLite database. The JSON file methods of this class are used by the JSON based backends
+ * and when migrating from them.
  * Filtering methods support common criteria such as status, creator, and category.
  */
 public class OfferManager {
@@ -34,48 +38,60 @@ public class OfferManager {
     private static final String TAG = "OfferManager";
 
     /**
-     * Saves a list of offers to the internal storage as a JSON file.
+     * Saves a list of offers.
+     * <p>
+     * The list replaces the offers held by the {@link DataRepository}; the storage backend is
+     * updated asynchronously.
      *
-     * @param context the Android context used for file operations
+     * @param context the Android context used to access the repository
      * @param offers  the list of {@link Offer} objects to save
      */
     public static void saveOffers(Context context, List<Offer> offers) {
-        try {
-            String json = new Gson().toJson(offers);
-            FileOutputStream fos = context.openFileOutput(FILE_NAME, Context.MODE_PRIVATE);
-            fos.write(json.getBytes());
-            fos.close();
-        } catch (Exception e) {
-            Log.e(TAG, "Could not save offers.");
-            ;
-        }
+        DataRepository.getInstance(context).setOffers(offers);
     }
 
     /**
-     * Loads the list of offers from internal storage.
+     * Loads the list of offers.
+     * <p>
+     * Offers are served from the in-memory {@link DataRepository}; the storage backend is only
+     * read on first access.
      *
-     * @param context the Android context used for file access
-     * @return a list of {@link Offer} objects, or an empty list if loading fails
+     * @param context the Android context used to access the repository
+     * @return a modifiable list of {@link Offer} objects, or an empty list if none are stored
      */
     public static List<Offer> loadOffers(Context context) {
-        List<Offer> offers = new ArrayList<>();
-        try {
-            FileInputStream fis = context.openFileInput(FILE_NAME);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(fis));
-            StringBuilder jsonBuilder = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                jsonBuilder.append(line);
-            }
-            fis.close();
-            String json = jsonBuilder.toString();
-            Type listType = new TypeToken<List<Offer>>() {
-            }.getType();
-            offers = new Gson().fromJson(json, listType);
+        return DataRepository.getInstance(context).getOffers();
+    }
+
+    /**
+     * Atomically writes a list of offers to the internal storage as a JSON file.
+     *
+     * @param context the Android context used for file operations
+     * @param offers  the list of {@link Offer} objects to write
+     * @return {@code true} if the file was written successfully
+     */
+    static boolean writeOffersToFile(Context context, List<Offer> offers) {
+        boolean written = FilePersistence.writeAtomically(context, FILE_NAME,
+                out -> JsonStreams.writeList(out, offers, JsonStreams.OFFER_ADAPTER));
+        if (!written) Log.e(TAG, "Could not save offers.");
+        return written;
+    }
+
+    /**
+     * Reads the list of offers from internal storage.
+     * <p>
+     * The file is parsed directly from the stream, one offer at a time.
+     *
+     * @param context the Android context used for file access
+     * @return a list of {@link Offer} objects, or an empty list if reading fails
+     */
+    static List<Offer> readOffersFromFile(Context context) {
+        try (FileInputStream fis = FilePersistence.openRead(context, FILE_NAME)) {
+            return JsonStreams.readList(fis, JsonStreams.OFFER_ADAPTER);
         } catch (Exception e) {
             Log.e(TAG, "Could not load offers.");
+            return new ArrayList<>();
         }
-        return offers;
     }
 
     /**
@@ -155,28 +171,202 @@ public class OfferManager {
     }
 
     /**
-     * Deactivates all offers created by peers marked as inactive.
+     * Retrieves a single stored offer by its unique ID using the repository's primary index.
+     *
+     * @param context the Android context used to access the repository
+     * @param id      the offer ID to look for
+     * @return the matching {@link Offer} or {@code null} if not found
+     */
+    public static Offer getOfferById(Context context, String id) {
+        return DataRepository.getInstance(context).getOffer(id);
+    }
+
+    /**
+     * Loads the description of an offer. Stored offers do not keep their description in memory,
+     * so it may be read from disk; call this on a background thread.
+     *
+     * @param context the Android context used to access the repository
+     * @param id      the offer ID
+     * @return the description, or {@code null} if the offer is unknown or has none
+     */
+    public static String loadDescription(Context context, String id) {
+        return DataRepository.getInstance(context).getOfferDescription(id);
+    }
+
+    /**
+     * Checks whether the given version of an offer has been purged by the retention engine or
+     * evicted to meet the storage quota and should therefore not be requested again.
+     *
+     * @param context      the Android context used to access the repository
+     * @param offerId      the offer ID
+     * @param lastModified the last modification time advertised for the offer
+     * @return {@code true} if the version is covered by a tombstone
+     */
+    public static boolean isPurged(Context context, String offerId, long lastModified) {
+        return DataRepository.getInstance(context).isPurged(offerId, lastModified);
+    }
+
+    /**
+     * Returns the versions of active offers that were evicted to meet the storage quota. Other
+     * nodes still hold them, so they are advertised like stored offers.
+     *
+     * @param context the Android context used to access the repository
+     * @return the evicted versions by offer ID
+     * @see DataRepository#evictedVersions()
+     */
+    public static Map<String, Long> loadEvictedVersions(Context context) {
+        return DataRepository.getInstance(context).evictedVersions();
+    }
+
+    /**
+     * Returns all stored offers matching the given criteria, using the repository's secondary
+     * indexes instead of scanning every offer. A {@code null} criterion matches any value.
+     *
+     * @param context   the Android context used to access the repository
+     * @param category  the {@link Constants.Category} to match, or {@code null}
+     * @param status    the {@link OfferStatus} to match, or {@code null}
+     * @param creatorId the creator ID to match, or {@code null}
+     * @param deleted   the deletion flag to match, or {@code null}
+     * @return a new list of matching offers
+     */
+    public static List<Offer> queryOffers(Context context, Constants.Category category, OfferStatus status,
+                                          String creatorId, Boolean deleted) {
+        return DataRepository.getInstance(context).queryOffers(category, status, creatorId, deleted);
+    }
+
+    /**
+     * Returns one page of offers matching the given criteria, newest first by last modification.
+     * A {@code null} criterion matches any value.
+     *
+     * @param context   the Android context used to access the repository
+     * @param category  the {@link Constants.Category} to match, or {@code null}
+     * @param status    the {@link OfferStatus} to match, or {@code null}
+     * @param creatorId the creator ID to match, or {@code null}
+     * @param deleted   the deletion flag to match, or {@code null}
+     * @param after     the previously loaded page, or {@code null} to load the first page
+     * @param pageSize  the maximum number of offers on the page
+     * @return the next {@link OfferPage}
+     */
+    public static OfferPage queryOfferPage(Context context, Constants.Category category, OfferStatus status,
+                                           String creatorId, Boolean deleted, OfferPage after, int pageSize) {
+        return DataRepository.getInstance(context).queryOfferPage(category, status, creatorId, deleted, after, pageSize);
+    }
+
+    /**
+     * Searches the titles and descriptions of the offers matching the given criteria.
+     * A {@code null} criterion matches any value.
+     *
+     * @param context   the Android context used to access the repository
+     * @param query     the search text; all of its words must occur, as whole words or prefixes
+     * @param category  the {@link Constants.Category} to match, or {@code null}
+     * @param status    the {@link OfferStatus} to match, or {@code null}
+     * @param creatorId the creator ID to match, or {@code null}
+     * @param deleted   the deletion flag to match, or {@code null}
+     * @param limit     the maximum number of results
+     * @return the matching offers, newest first
+     * @see DataRepository#searchOffers(String, Constants.Category, OfferStatus, String, Boolean, int)
+     */
+    public static List<Offer> searchOffers(Context context, String query, Constants.Category category,
+                                           OfferStatus status, String creatorId, Boolean deleted, int limit) {
+        return DataRepository.getInstance(context).searchOffers(query, category, status, creatorId, deleted, limit);
+    }
+
+    /**
+     * Updates a stored offer or adds it if not present, and saves the change.
      * <p>
-     * An offer will be marked as {@link OfferStatus#INACTIVE} if its creator exists in the peer list
-     * but has not been seen recently (based on the activity threshold defined in {@link PeerManager}).
-     * If any offer status is updated, the updated list is saved.
-     *
-     * @param context the Android context used for loading and saving offers and peers
-     */
-    public static void deactivateOffersOfInactiveUsers(Context context) {
-        List<UserProfile> peers = PeerManager.loadPeers(context);
-        List<Offer> offers = loadOffers(context);
-
-        boolean changed = false;
-        for (Offer offer : offers) {
-            for (UserProfile peer : peers) {
-                if (offer.getCreatorId().equals(peer.getId()) && !PeerManager.isPeerActive(peer) && offer.getStatus() == OfferStatus.ACTIVE) {
-                    offer.setStatus(OfferStatus.INACTIVE);
-                    offer.setLastModified(System.currentTimeMillis());
-                    changed = true;
+     * If an offer with the same ID exists, the newer data is merged using {@link Offer#merge(Offer)}.
+     * Offers obtained from the store and changed in place must be passed here to be saved.
+     *
+     * @param context  the Android context used to access the repository
+     * @param newOffer the new or updated offer
+     */
+    public static void updateOrAdd(Context context, Offer newOffer) {
+        DataRepository.getInstance(context).putOffers(Collections.singletonList(newOffer));
+    }
+
+    /**
+     * Updates or adds several offers at once and saves the changes.
+     *
+     * @param context the Android context used to access the repository
+     * @param offers  the new or updated offers
+     * @see #updateOrAdd(Context, Offer)
+     */
+    public static void updateOrAddAll(Context context, Collection<Offer> offers) {
+        DataRepository.getInstance(context).putOffers(offers);
+    }
+
+    /**
+     * Runs a read-modify-write operation on offers and peers as one atomic transaction.
+     *
+     * @param context the Android context used to access the repository
+     * @param body    the reads and changes to apply; may run more than once on conflicts
+     * @see DataRepository#runInTransaction(Consumer)
+     */
+    public static void runInTransaction(Context context, Consumer<StoreTransaction> body) {
+        DataRepository.getInstance(context).runInTransaction(body);
+    }
+
+    /**
+     * Registers a listener for changes of offers and peers, called on the given executor.
+     *
+     * @param context  the Android context
+     * @param listener the listener to add
+     * @param executor runs the listener calls
+     * @see DataRepository#addChangeListener(StoreChangeListener, Executor)
+     */
+    public static void addChangeListener(Context context, StoreChangeListener listener, Executor executor) {
+        DataRepository.getInstance(context).addChangeListener(listener, executor);
+    }
+
+    /**
+     * Removes a listener registered with {@link #addChangeListener(Context, StoreChangeListener, Executor)}.
+     *
+     * @param context  the Android context
+     * @param listener the listener to remove
+     */
+    public static void removeChangeListener(Context context, StoreChangeListener listener) {
+        DataRepository.getInstance(context).removeChangeListener(listener);
+    }
+
+    /**
+     * Returns the changes of offers and peers as {@link LiveData} for observation by a screen.
+     * Each observed value is one batch of changes.
+     *
+     * @param context the Android context
+     * @return a new {@code LiveData} of change batches
+     */
+    public static LiveData<List<StoreChange>> observeChanges(Context context) {
+        return new StoreChangeLiveData(DataRepository.getInstance(context));
+    }
+
+    /**
+     * Sets active offers to {@link OfferStatus#INACTIVE} that have not been modified for longer
+     * than the given time.
+     * <p>
+     * The due offers are taken from an index ordered by age, so offers that are not due are not
+     * loaded or checked. The due offers are changed in one transaction. Evicted versions of the
+     * same age are forgotten, since other nodes stop advertising them now.
+     *
+     * @param context  the Android context used to access the repository
+     * @param maxAgeMs the maximum time since the last modification of an active offer
+     * @param now      the current time in milliseconds
+     */
+    public static void deactivateOutdatedOffers(Context context, long maxAgeMs, long now) {
+        long cutoff = now - maxAgeMs;
+        DataRepository.getInstance(context).expireEvicted(cutoff);
+        List<String> due = DataRepository.getInstance(context).offersModifiedBefore(OfferStatus.ACTIVE, cutoff);
+        if (due.isEmpty()) return;
+
+        runInTransaction(context, transaction -> {
+            for (String offerId : due) {
+                Offer offer = transaction.getOffer(offerId);
+                if (offer == null || offer.getStatus() != OfferStatus.ACTIVE || offer.getLastModified() >= cutoff) {
+                    continue;
                 }
+                offer.setStatus(OfferStatus.INACTIVE);
+                transaction.putOffer(offer);
+                Log.d(TAG, "Auto-inactivated state for offer " + offerId);
             }
-        }
-        if (changed) saveOffers(context, offers);
+        });
     }
 }
@@ -0,0 +1,41 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+
+import java.util.List;
+
+/**
+ * One page of offers, ordered by last modification, newest first.
+ * <p>
+ * A page remembers where it ended, so it can be passed to
+ * {@link OfferManager#queryOfferPage} to load the following page. Offers that change while
+ * the list is being paged move to the front of the order and are not repeated on later pages.
+ */
+public class OfferPage {
+
+    private final List<Offer> offers;
+    private final boolean hasMore;
+    final long lastModified;
+    final String lastOfferId;
+
+    OfferPage(List<Offer> offers, boolean hasMore, long lastModified, String lastOfferId) {
+        this.offers = offers;
+        this.hasMore = hasMore;
+        this.lastModified = lastModified;
+        this.lastOfferId = lastOfferId;
+    }
+
+    /**
+     * @return the offers on this page
+     */
+    public List<Offer> getOffers() {
+        return offers;
+    }
+
+    /**
+     * @return {@code true} if more matching offers follow this page
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
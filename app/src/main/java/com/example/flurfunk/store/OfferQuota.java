@@ -0,0 +1,75 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants;
+
+/**
+ * The storage budget for offers: a maximum number of offers and a maximum estimated size.
+ * <p>
+ * When the budget is exceeded, the {@link DataRepository} evicts offers of other users until the
+ * store is back at {@link #LOW_WATER_MARK} of both limits, so that eviction does not run again
+ * for every single offer received afterwards. The user's own offers are never evicted.
+ */
+final class OfferQuota {
+
+    /**
+     * The budget configured in {@link Constants#OFFER_QUOTA_COUNT} and
+     * {@link Constants#OFFER_QUOTA_BYTES}.
+     */
+    static final OfferQuota DEFAULT = new OfferQuota(Constants.OFFER_QUOTA_COUNT, Constants.OFFER_QUOTA_BYTES);
+
+    /**
+     * The share of the limits eviction brings the store down to.
+     */
+    static final double LOW_WATER_MARK = 0.9;
+
+    /**
+     * A rough per-offer overhead for field names, timestamps and enums in the stored formats.
+     */
+    private static final int OFFER_OVERHEAD_BYTES = 96;
+
+    final int maxOffers;
+    final long maxBytes;
+
+    OfferQuota(int maxOffers, long maxBytes) {
+        this.maxOffers = maxOffers;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return {@code true} if the given number of offers or bytes is over the budget
+     */
+    boolean isExceeded(int offers, long bytes) {
+        return offers > maxOffers || bytes > maxBytes;
+    }
+
+    /**
+     * @return the number of offers eviction brings the store down to
+     */
+    int targetOffers() {
+        return (int) (maxOffers * LOW_WATER_MARK);
+    }
+
+    /**
+     * @return the estimated size eviction brings the store down to
+     */
+    long targetBytes() {
+        return (long) (maxBytes * LOW_WATER_MARK);
+    }
+
+    /**
+     * Estimates the stored size of an offer from the length of its text fields. The estimate is
+     * meant for budgeting only and is not exact for any storage format.
+     *
+     * @param offer the offer
+     * @return the estimated size in bytes
+     */
+    static int estimateBytes(Offer offer) {
+        return OFFER_OVERHEAD_BYTES + length(offer.getOfferId()) + length(offer.getTitle())
+                + length(offer.getDescription()) + length(offer.getCreatorId());
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
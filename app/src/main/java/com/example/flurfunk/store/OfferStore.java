@@ -0,0 +1,555 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants.Category;
+import com.example.flurfunk.util.Constants.OfferStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * An in-memory collection of {@link Offer} objects keyed by offer ID.
+ * <p>
+ * In addition to the primary index, the store maintains an {@link OfferTable} with the category,
+ * status, creator and deletion flag of each offer in primitive columns, an ordered index by last
+ * modification for paging, per-status indexes ordered by age for time-based transitions, and a
+ * {@link SearchIndex} over titles and descriptions. All indexes are updated on every mutation, so
+ * lookups by ID are O(1) and filtered queries are a single loop over the table's columns.
+ * <p>
+ * Descriptions may be kept on disk in a {@link DescriptionStore} instead of in the offers; the
+ * store then reads a description only to index an offer whose version the text index does not
+ * know, and counts the stored description in the offer's size.
+ * <p>
+ * For the storage quota, the store keeps the estimated size of all offers and the order in which
+ * offers were last used. Reads only append the offer ID to a small buffer, see
+ * {@link #recordAccess(String)}; the order is updated from the buffer when it is full or when
+ * eviction candidates are selected.
+ * <p>
+ * Because {@link Offer} objects are mutable, the store remembers the values each offer was indexed
+ * under. After changing a stored offer in place, callers must pass it to {@link #put(Offer)} again
+ * so the indexes are brought up to date.
+ * <p>
+ * This class is not thread-safe; the {@link DataRepository} guards all access.
+ */
+class OfferStore {
+
+    private final Map<String, Offer> offersById = new LinkedHashMap<>();
+    private final Map<String, IndexKey> indexedKeys = new HashMap<>();
+
+    private final OfferTable table = new OfferTable();
+    private final NavigableSet<IndexKey> byRecency = new TreeSet<>(IndexKey.NEWEST_FIRST);
+    private final Map<OfferStatus, NavigableSet<IndexKey>> byStatusAge = new EnumMap<>(OfferStatus.class);
+    private final SearchIndex textIndex;
+    private final DescriptionStore descriptions;
+
+    private static final int ACCESS_BUFFER_SIZE = 64;
+    private final LinkedHashMap<String, Boolean> accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+    private final String[] accessBuffer = new String[ACCESS_BUFFER_SIZE];
+    private int bufferedAccesses;
+    private long totalBytes;
+
+    /**
+     * Constructs an empty store with an empty text index that keeps all descriptions in memory.
+     */
+    OfferStore() {
+        this(new SearchIndex());
+    }
+
+    /**
+     * Constructs an empty store that maintains the given text index and keeps all descriptions in
+     * memory.
+     *
+     * @param textIndex the text index to maintain
+     */
+    OfferStore(SearchIndex textIndex) {
+        this(textIndex, null);
+    }
+
+    /**
+     * Constructs an empty store that maintains the given text index, e.g. one loaded from disk.
+     * Offers the index already knows in their current version are not tokenized again.
+     *
+     * @param textIndex    the text index to maintain
+     * @param descriptions holds the descriptions not kept in the offers, or {@code null} if all
+     *                     descriptions are kept in memory
+     */
+    OfferStore(SearchIndex textIndex, DescriptionStore descriptions) {
+        this.textIndex = textIndex;
+        this.descriptions = descriptions;
+    }
+
+    /**
+     * Returns the offer with the given ID.
+     *
+     * @param offerId the offer ID
+     * @return the stored {@link Offer}, or {@code null} if unknown
+     */
+    Offer get(String offerId) {
+        return offerId == null ? null : offersById.get(offerId);
+    }
+
+    /**
+     * @return the number of stored offers
+     */
+    int size() {
+        return offersById.size();
+    }
+
+    /**
+     * @return the estimated size of all stored offers in bytes, see {@link OfferQuota}
+     */
+    long totalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Records that an offer was read, for the least-recently-used order of the quota.
+     * <p>
+     * This only stores the ID in a buffer, so it costs no more than an array write on the read
+     * path. The buffer is applied to the order once it is full.
+     *
+     * @param offerId the ID of the offer read
+     */
+    void recordAccess(String offerId) {
+        if (bufferedAccesses == ACCESS_BUFFER_SIZE) drainAccesses();
+        accessBuffer[bufferedAccesses++] = offerId;
+    }
+
+    private void drainAccesses() {
+        for (int i = 0; i < bufferedAccesses; i++) {
+            // In an access-ordered map, get() moves the entry to the end; unknown IDs are ignored
+            accessOrder.get(accessBuffer[i]);
+            accessBuffer[i] = null;
+        }
+        bufferedAccesses = 0;
+    }
+
+    /**
+     * Selects offers to evict until the store is within the given limits.
+     * <p>
+     * Offers are taken in order of least recent use or change. Inactive and deleted offers are
+     * taken first; active offers only if that is not enough. Offers of the local user are never
+     * selected, so the result may not reach the limits.
+     *
+     * @param localUserId the ID of the local user, or {@code null} if no profile exists
+     * @param maxOffers   the number of offers to get down to
+     * @param maxBytes    the estimated size to get down to
+     * @return the IDs of the offers to evict, least recently used first
+     */
+    List<String> evictionCandidates(String localUserId, int maxOffers, long maxBytes) {
+        drainAccesses();
+        int count = offersById.size();
+        long bytes = totalBytes;
+        List<String> victims = new ArrayList<>();
+        for (int pass = 0; pass < 2 && (count > maxOffers || bytes > maxBytes); pass++) {
+            boolean takeInactive = pass == 0;
+            for (String id : accessOrder.keySet()) {
+                if (count <= maxOffers && bytes <= maxBytes) break;
+                IndexKey key = indexedKeys.get(id);
+                if (key == null || (localUserId != null && localUserId.equals(key.creatorId))) continue;
+                boolean inactive = key.deleted || key.status != OfferStatus.ACTIVE;
+                if (inactive != takeInactive) continue;
+                victims.add(id);
+                count--;
+                bytes -= key.bytes;
+            }
+        }
+        return victims;
+    }
+
+    /**
+     * @return a new list of all stored offers in insertion order
+     */
+    List<Offer> all() {
+        return new ArrayList<>(offersById.values());
+    }
+
+    /**
+     * Adds an offer or re-indexes it if an offer with the same ID is already stored.
+     * <p>
+     * If a different instance with the same ID is stored, the new data is merged into it using
+     * {@link Offer#merge(Offer)}, so only newer versions overwrite existing data.
+     *
+     * @param offer the new or changed offer
+     * @return the stored instance after the update
+     */
+    Offer put(Offer offer) {
+        Offer existing = offersById.get(offer.getOfferId());
+        if (existing == null) {
+            offersById.put(offer.getOfferId(), offer);
+            index(offer);
+            return offer;
+        }
+        if (existing != offer) {
+            existing.merge(offer);
+        }
+        reindex(existing);
+        return existing;
+    }
+
+    /**
+     * Stores the given instance in place of an existing offer with the same ID, without merging.
+     * Used to apply the changes of a validated {@link StoreTransaction}.
+     *
+     * @param offer the offer to store
+     */
+    void replace(Offer offer) {
+        offersById.put(offer.getOfferId(), offer);
+        reindex(offer);
+    }
+
+    /**
+     * Puts the offer like {@link #put(Offer)} and reports how the stored offer changed.
+     *
+     * @param offer the new or changed offer
+     * @return the kind of change, or {@code null} if no indexed value changed
+     */
+    StoreChange.Type putTracked(Offer offer) {
+        IndexKey before = indexedKeys.get(offer.getOfferId());
+        return changeType(before, put(offer));
+    }
+
+    /**
+     * Replaces the offer like {@link #replace(Offer)} and reports how the stored offer changed.
+     *
+     * @param offer the offer to store
+     * @return the kind of change, or {@code null} if no indexed value changed
+     */
+    StoreChange.Type replaceTracked(Offer offer) {
+        IndexKey before = indexedKeys.get(offer.getOfferId());
+        replace(offer);
+        return changeType(before, offer);
+    }
+
+    private static StoreChange.Type changeType(IndexKey before, Offer after) {
+        if (before == null) return StoreChange.Type.OFFER_ADDED;
+        if (before.status != after.getStatus() || before.deleted != after.isDeleted()) {
+            return StoreChange.Type.OFFER_STATUS_CHANGED;
+        }
+        if (!before.matches(after)) {
+            return StoreChange.Type.OFFER_UPDATED;
+        }
+        return null;
+    }
+
+    /**
+     * Removes the offer with the given ID and all its index entries.
+     *
+     * @param offerId the offer ID
+     * @return the removed offer, or {@code null} if unknown
+     */
+    Offer remove(String offerId) {
+        Offer removed = offersById.remove(offerId);
+        if (removed == null) return null;
+        IndexKey key = indexedKeys.remove(offerId);
+        if (key != null) {
+            unindex(key);
+            table.remove(key.row);
+            compactTable();
+        }
+        accessOrder.remove(offerId);
+        textIndex.remove(offerId);
+        if (descriptions != null) descriptions.remove(offerId);
+        return removed;
+    }
+
+    /**
+     * Replaces the whole content of the store with the given offers. The text index keeps the
+     * terms of offers whose version did not change, and the description store the descriptions
+     * of the offers that are kept.
+     *
+     * @param offers the offers to keep
+     */
+    void replaceAll(Collection<Offer> offers) {
+        clear();
+        for (Offer offer : offers) {
+            put(offer);
+        }
+        textIndex.retainAll(offersById.keySet());
+        if (descriptions != null) descriptions.retainAll(offersById.keySet());
+    }
+
+    /**
+     * Removes all offers and indexes. The text index is left as is, see
+     * {@link #replaceAll(Collection)}.
+     */
+    void clear() {
+        offersById.clear();
+        indexedKeys.clear();
+        table.clear();
+        byRecency.clear();
+        byStatusAge.clear();
+        accessOrder.clear();
+        Arrays.fill(accessBuffer, null);
+        bufferedAccesses = 0;
+        totalBytes = 0;
+    }
+
+    /**
+     * Returns all offers matching the given criteria.
+     * <p>
+     * A {@code null} criterion matches any value. The query is a loop over the primitive
+     * columns of the {@link OfferTable}, which does not allocate anything but the result.
+     *
+     * @param category  the category to match, or {@code null}
+     * @param status    the status to match, or {@code null}
+     * @param creatorId the creator ID to match, or {@code null}
+     * @param deleted   the deletion flag to match, or {@code null}
+     * @return a new list of matching offers in insertion order
+     */
+    List<Offer> query(Category category, OfferStatus status, String creatorId, Boolean deleted) {
+        return table.query(category, status, creatorId, deleted);
+    }
+
+    /**
+     * Returns the offers whose title or description contain all terms of the query and that
+     * match the given criteria, newest first. A {@code null} criterion matches any value.
+     *
+     * @param query     the search text, see {@link SearchIndex#search(String)}
+     * @param category  the category to match, or {@code null}
+     * @param status    the status to match, or {@code null}
+     * @param creatorId the creator ID to match, or {@code null}
+     * @param deleted   the deletion flag to match, or {@code null}
+     * @param limit     the maximum number of offers to return
+     * @return a new list of matching offers
+     */
+    List<Offer> search(String query, Category category, OfferStatus status, String creatorId, Boolean deleted,
+                       int limit) {
+        List<IndexKey> keys = new ArrayList<>();
+        for (String id : textIndex.search(query)) {
+            IndexKey key = indexedKeys.get(id);
+            if (key != null && key.matches(category, status, creatorId, deleted)) keys.add(key);
+        }
+        keys.sort(IndexKey.NEWEST_FIRST);
+
+        List<Offer> result = new ArrayList<>(Math.min(keys.size(), limit));
+        for (int i = 0; i < keys.size() && i < limit; i++) {
+            result.add(offersById.get(keys.get(i).offerId));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the IDs of the offers with the given status that were last modified before the
+     * cutoff, oldest first.
+     * <p>
+     * Offers are kept per status in order of last modification, which for a fixed maximum age is
+     * the order in which they expire. The lookup therefore only touches the offers that are due,
+     * however many offers with the status are stored.
+     *
+     * @param status the status of the offers
+     * @param cutoff the last modification time before which offers are returned
+     * @return a new list of offer IDs
+     */
+    List<String> modifiedBefore(OfferStatus status, long cutoff) {
+        NavigableSet<IndexKey> keys = byStatusAge.get(status);
+        List<String> ids = new ArrayList<>();
+        if (keys == null) return ids;
+        for (IndexKey key : keys.headSet(IndexKey.cursor(null, cutoff), false)) {
+            ids.add(key.offerId);
+        }
+        return ids;
+    }
+
+    /**
+     * @return the text index maintained by this store
+     */
+    SearchIndex textIndex() {
+        return textIndex;
+    }
+
+    /**
+     * Returns a page of offers matching the given criteria, ordered by last modification,
+     * newest first.
+     * <p>
+     * The page walks the recency index from the end of the previous page and stops as soon as
+     * {@code limit} matching offers are found, so its cost does not depend on the total number
+     * of offers for common criteria.
+     *
+     * @param category  the category to match, or {@code null}
+     * @param status    the status to match, or {@code null}
+     * @param creatorId the creator ID to match, or {@code null}
+     * @param deleted   the deletion flag to match, or {@code null}
+     * @param after     the previous page, or {@code null} for the first page
+     * @param limit     the maximum number of offers on the page
+     * @return the next page of matching offers
+     */
+    OfferPage page(Category category, OfferStatus status, String creatorId, Boolean deleted,
+                   OfferPage after, int limit) {
+        Set<IndexKey> keys = after == null ? byRecency
+                : byRecency.tailSet(IndexKey.cursor(after.lastOfferId, after.lastModified), false);
+
+        List<Offer> result = new ArrayList<>(limit);
+        IndexKey last = null;
+        boolean hasMore = false;
+        for (IndexKey key : keys) {
+            if (!key.matches(category, status, creatorId, deleted)) continue;
+            if (result.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            result.add(offersById.get(key.offerId));
+            last = key;
+        }
+
+        if (last == null) {
+            return after == null ? new OfferPage(result, false, Long.MAX_VALUE, null)
+                    : new OfferPage(result, false, after.lastModified, after.lastOfferId);
+        }
+        return new OfferPage(result, hasMore, last.lastModified, last.offerId);
+    }
+
+    private void reindex(Offer offer) {
+        updateTextIndex(offer);
+        IndexKey old = indexedKeys.get(offer.getOfferId());
+        if (old == null) {
+            index(offer, table.add(offer));
+            return;
+        }
+        table.set(old.row, offer);
+        if (old.matches(offer)) return;
+        unindex(old);
+        index(offer, old.row);
+    }
+
+    private void index(Offer offer) {
+        updateTextIndex(offer);
+        index(offer, table.add(offer));
+    }
+
+    private void index(Offer offer, int row) {
+        String id = offer.getOfferId();
+        IndexKey key = new IndexKey(offer, row, estimateBytes(offer));
+        indexedKeys.put(id, key);
+        byRecency.add(key);
+        accessOrder.put(id, Boolean.TRUE);
+        totalBytes += key.bytes;
+
+        if (key.status != null) {
+            byStatusAge.computeIfAbsent(key.status, k -> new TreeSet<>(IndexKey.OLDEST_FIRST)).add(key);
+        }
+    }
+
+    private void updateTextIndex(Offer offer) {
+        String description = offer.getDescription();
+        if (description == null && descriptions != null && !textIndex.isIndexed(offer)) {
+            description = descriptions.read(offer.getOfferId());
+        }
+        textIndex.update(offer, description);
+    }
+
+    private int estimateBytes(Offer offer) {
+        int bytes = OfferQuota.estimateBytes(offer);
+        if (offer.getDescription() == null && descriptions != null) {
+            bytes += descriptions.length(offer.getOfferId());
+        }
+        return bytes;
+    }
+
+    private void unindex(IndexKey key) {
+        if (key.status != null) {
+            NavigableSet<IndexKey> aged = byStatusAge.get(key.status);
+            if (aged != null) aged.remove(key);
+        }
+        byRecency.remove(key);
+        totalBytes -= key.bytes;
+    }
+
+    /**
+     * Compacts the table if enough offers were removed and moves the keys to the new rows.
+     */
+    private void compactTable() {
+        int[] rows = table.compactIfSparse();
+        if (rows == null) return;
+        for (IndexKey key : indexedKeys.values()) {
+            key.row = rows[key.row];
+        }
+    }
+
+    /**
+     * The values an offer was indexed under, used to detect changes and to remove stale
+     * index entries, and the row of the offer in the {@link OfferTable}. Keys also serve as
+     * entries of the recency index.
+     */
+    private static final class IndexKey {
+
+        /**
+         * Orders keys by last modification, newest first, and by offer ID for equal timestamps.
+         */
+        static final Comparator<IndexKey> NEWEST_FIRST = Comparator
+                .comparingLong((IndexKey key) -> key.lastModified).reversed()
+                .thenComparing(key -> key.offerId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        /**
+         * Orders keys by last modification, oldest first, and by offer ID for equal timestamps.
+         * A cursor without offer ID sorts before all keys with the same timestamp.
+         */
+        static final Comparator<IndexKey> OLDEST_FIRST = Comparator
+                .comparingLong((IndexKey key) -> key.lastModified)
+                .thenComparing(key -> key.offerId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        final String offerId;
+        final Category category;
+        final OfferStatus status;
+        final String creatorId;
+        final boolean deleted;
+        final long lastModified;
+        final int bytes;
+        int row;
+
+        IndexKey(Offer offer, int row, int bytes) {
+            this.offerId = offer.getOfferId();
+            this.category = offer.getCategory();
+            this.status = offer.getStatus();
+            this.creatorId = offer.getCreatorId();
+            this.deleted = offer.isDeleted();
+            this.lastModified = offer.getLastModified();
+            this.bytes = bytes;
+            this.row = row;
+        }
+
+        private IndexKey(String offerId, long lastModified) {
+            this.offerId = offerId;
+            this.category = null;
+            this.status = null;
+            this.creatorId = null;
+            this.deleted = false;
+            this.lastModified = lastModified;
+            this.bytes = 0;
+            this.row = -1;
+        }
+
+        /**
+         * Creates a key that only marks a position in the recency index.
+         */
+        static IndexKey cursor(String offerId, long lastModified) {
+            return new IndexKey(offerId, lastModified);
+        }
+
+        boolean matches(Offer offer) {
+            return category == offer.getCategory()
+                    && status == offer.getStatus()
+                    && deleted == offer.isDeleted()
+                    && lastModified == offer.getLastModified()
+                    && Objects.equals(creatorId, offer.getCreatorId());
+        }
+
+        boolean matches(Category category, OfferStatus status, String creatorId, Boolean deleted) {
+            return (category == null || category == this.category)
+                    && (status == null || status == this.status)
+                    && (creatorId == null || creatorId.equals(this.creatorId))
+                    && (deleted == null || deleted == this.deleted);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants.Category;
+import com.example.flurfunk.util.Constants.OfferStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A columnar table of the values offers are filtered by.
+ * <p>
+ * Each stored offer occupies one row. Creator IDs are kept as primitive longs, since they are
+ * 16-digit hex values; IDs in any other format are referenced by their position in a pool of
+ * creator IDs. The pool also interns the creator ID strings of the stored offers, so the offers
+ * of one creator share a single instance. Categories and statuses are kept as byte ordinals and the deletion flag as a bit, so a
+ * filter over all offers is a loop over a few primitive arrays instead of lookups in per-value
+ * sets of offer IDs.
+ * <p>
+ * Rows of removed offers are marked free and reclaimed by compaction once they make up half of
+ * the table. Compaction keeps the order of the remaining rows, so queries return offers in the
+ * order they were added. Callers keep the row of each offer and must update it from the mapping
+ * returned by {@link #compactIfSparse()}.
+ * <p>
+ * This class is not thread-safe; the {@link DataRepository} guards all access.
+ */
+class OfferTable {
+
+    static final byte NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MIN_COMPACT_ROWS = 64;
+
+    private static final byte FLAG_USED = 1;
+    private static final byte FLAG_DELETED = 1 << 1;
+    private static final byte FLAG_POOLED_CREATOR = 1 << 2;
+    private static final byte FLAG_NO_CREATOR = 1 << 3;
+
+    private long[] creatorIds = new long[INITIAL_CAPACITY];
+    private byte[] categories = new byte[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private Offer[] offers = new Offer[INITIAL_CAPACITY];
+    private int rows;
+    private int freeRows;
+
+    private final Map<String, Integer> pooledCreators = new HashMap<>();
+    private final List<String> creatorPool = new ArrayList<>();
+
+    /**
+     * Appends a row for the given offer.
+     *
+     * @param offer the offer to add
+     * @return the row of the offer
+     */
+    int add(Offer offer) {
+        if (rows == offers.length) grow();
+        int row = rows++;
+        set(row, offer);
+        return row;
+    }
+
+    /**
+     * Overwrites the row of an offer with its current values. The creator ID of the offer is
+     * replaced by its interned instance.
+     *
+     * @param row   the row of the offer
+     * @param offer the stored offer, which may be a different instance than before
+     */
+    void set(int row, Offer offer) {
+        offers[row] = offer;
+        categories[row] = offer.getCategory() != null ? (byte) offer.getCategory().ordinal() : NONE;
+        statuses[row] = offer.getStatus() != null ? (byte) offer.getStatus().ordinal() : NONE;
+
+        byte rowFlags = FLAG_USED;
+        if (offer.isDeleted()) rowFlags |= FLAG_DELETED;
+        String creatorId = offer.getCreatorId();
+        if (creatorId == null) {
+            rowFlags |= FLAG_NO_CREATOR;
+            creatorIds[row] = 0;
+        } else {
+            int pooled = pool(creatorId);
+            String interned = creatorPool.get(pooled);
+            if (interned != creatorId) offer.setCreatorId(interned);
+            if (isHexId(creatorId)) {
+                creatorIds[row] = Long.parseUnsignedLong(creatorId, 16);
+            } else {
+                rowFlags |= FLAG_POOLED_CREATOR;
+                creatorIds[row] = pooled;
+            }
+        }
+        flags[row] = rowFlags;
+    }
+
+    /**
+     * Marks a row as free.
+     *
+     * @param row the row of the removed offer
+     */
+    void remove(int row) {
+        if ((flags[row] & FLAG_USED) == 0) return;
+        flags[row] = 0;
+        offers[row] = null;
+        freeRows++;
+    }
+
+    /**
+     * Removes all rows and interned creator IDs.
+     */
+    void clear() {
+        Arrays.fill(offers, 0, rows, null);
+        Arrays.fill(flags, 0, rows, (byte) 0);
+        rows = 0;
+        freeRows = 0;
+        pooledCreators.clear();
+        creatorPool.clear();
+    }
+
+    /**
+     * Returns the offers matching the given criteria. A {@code null} criterion matches any value.
+     *
+     * @param category  the category to match, or {@code null}
+     * @param status    the status to match, or {@code null}
+     * @param creatorId the creator ID to match, or {@code null}
+     * @param deleted   the deletion flag to match, or {@code null}
+     * @return a new list of matching offers in the order they were added
+     */
+    List<Offer> query(Category category, OfferStatus status, String creatorId, Boolean deleted) {
+        List<Offer> result = new ArrayList<>();
+        byte wantedCategory = category != null ? (byte) category.ordinal() : NONE;
+        byte wantedStatus = status != null ? (byte) status.ordinal() : NONE;
+
+        byte mask = FLAG_USED;
+        byte wantedFlags = FLAG_USED;
+        if (deleted != null) {
+            mask |= FLAG_DELETED;
+            if (deleted) wantedFlags |= FLAG_DELETED;
+        }
+        long wantedCreator = 0;
+        if (creatorId != null) {
+            mask |= FLAG_POOLED_CREATOR | FLAG_NO_CREATOR;
+            if (isHexId(creatorId)) {
+                wantedCreator = Long.parseUnsignedLong(creatorId, 16);
+            } else {
+                Integer pooled = pooledCreators.get(creatorId);
+                if (pooled == null) return result;
+                wantedFlags |= FLAG_POOLED_CREATOR;
+                wantedCreator = pooled;
+            }
+        }
+
+        for (int row = 0; row < rows; row++) {
+            if ((flags[row] & mask) != wantedFlags) continue;
+            if (wantedCategory != NONE && categories[row] != wantedCategory) continue;
+            if (wantedStatus != NONE && statuses[row] != wantedStatus) continue;
+            if (creatorId != null && creatorIds[row] != wantedCreator) continue;
+            result.add(offers[row]);
+        }
+        return result;
+    }
+
+    /**
+     * Moves the used rows to the front of the table if at least half of the rows are free.
+     *
+     * @return a mapping from old to new rows, with {@code -1} for free rows, or {@code null} if
+     * the table was not compacted
+     */
+    int[] compactIfSparse() {
+        if (rows < MIN_COMPACT_ROWS || freeRows * 2 < rows) return null;
+        int[] mapping = new int[rows];
+        int target = 0;
+        for (int row = 0; row < rows; row++) {
+            if ((flags[row] & FLAG_USED) == 0) {
+                mapping[row] = -1;
+                continue;
+            }
+            mapping[row] = target;
+            creatorIds[target] = creatorIds[row];
+            categories[target] = categories[row];
+            statuses[target] = statuses[row];
+            flags[target] = flags[row];
+            offers[target] = offers[row];
+            target++;
+        }
+        Arrays.fill(offers, target, rows, null);
+        Arrays.fill(flags, target, rows, (byte) 0);
+        rows = target;
+        freeRows = 0;
+        return mapping;
+    }
+
+    /**
+     * @return the number of rows in use, including free rows not yet compacted
+     */
+    int rowCount() {
+        return rows;
+    }
+
+    private int pool(String creatorId) {
+        Integer pooled = pooledCreators.get(creatorId);
+        if (pooled != null) return pooled;
+        int index = creatorPool.size();
+        creatorPool.add(creatorId);
+        pooledCreators.put(creatorId, index);
+        return index;
+    }
+
+    private void grow() {
+        int capacity = offers.length * 2;
+        creatorIds = Arrays.copyOf(creatorIds, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        offers = Arrays.copyOf(offers, capacity);
+    }
+
+    /**
+     * @return {@code true} if the ID consists of exactly 16 lowercase hex digits, as generated
+     * for offers and profiles
+     */
+    static boolean isHexId(String id) {
+        if (id == null || id.length() != 16) return false;
+        for (int i = 0; i < 16; i++) {
+            char c = id.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants.Category;
+import com.example.flurfunk.util.Constants.OfferStatus;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Hand-written JSON codec for {@link Offer}, replacing Gson's reflective adapter.
+ * <p>
+ * The format is identical to the one written by reflection: the field names of {@code Offer},
+ * {@code null} fields omitted, enums by constant name. Existing files can therefore be read and
+ * older app versions can read files written by this adapter. Unknown fields are skipped. Fields
+ * missing from the input get the same defaults as with {@link Offer#Offer()}.
+ * <p>
+ * Reading creates the resulting {@code Offer} and its strings only; no reflection, field lookup
+ * or intermediate tree is involved.
+ */
+final class OfferTypeAdapter extends TypeAdapter<Offer> {
+
+    private static final EnumTypeAdapter<Category> CATEGORY = new EnumTypeAdapter<>(Category.class);
+    private static final EnumTypeAdapter<OfferStatus> STATUS = new EnumTypeAdapter<>(OfferStatus.class);
+
+    @Override
+    public void write(JsonWriter out, Offer offer) throws IOException {
+        if (offer == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeString(out, "offerId", offer.getOfferId());
+        writeString(out, "title", offer.getTitle());
+        writeString(out, "description", offer.getDescription());
+        if (offer.getCategory() != null) {
+            out.name("category");
+            CATEGORY.write(out, offer.getCategory());
+        }
+        writeString(out, "creatorId", offer.getCreatorId());
+        out.name("createdAt").value(offer.getCreatedAt());
+        out.name("lastModified").value(offer.getLastModified());
+        if (offer.getStatus() != null) {
+            out.name("status");
+            STATUS.write(out, offer.getStatus());
+        }
+        out.name("deleted").value(offer.isDeleted());
+        out.endObject();
+    }
+
+    @Override
+    public Offer read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String offerId = null;
+        String title = null;
+        String description = null;
+        Category category = null;
+        String creatorId = null;
+        long createdAt = 0;
+        long lastModified = 0;
+        boolean hasCreatedAt = false;
+        boolean hasLastModified = false;
+        OfferStatus status = null;
+        boolean deleted = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "offerId":
+                    offerId = in.nextString();
+                    break;
+                case "title":
+                    title = in.nextString();
+                    break;
+                case "description":
+                    description = in.nextString();
+                    break;
+                case "category":
+                    category = CATEGORY.read(in);
+                    break;
+                case "creatorId":
+                    creatorId = in.nextString();
+                    break;
+                case "createdAt":
+                    createdAt = in.nextLong();
+                    hasCreatedAt = true;
+                    break;
+                case "lastModified":
+                    lastModified = in.nextLong();
+                    hasLastModified = true;
+                    break;
+                case "status":
+                    status = STATUS.read(in);
+                    break;
+                case "deleted":
+                    deleted = in.nextBoolean();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        if (!hasCreatedAt || !hasLastModified) {
+            long now = System.currentTimeMillis();
+            if (!hasCreatedAt) createdAt = now;
+            if (!hasLastModified) lastModified = now;
+        }
+        return new Offer(offerId, title, description, category, creatorId, createdAt, lastModified, status, deleted);
+    }
+
+    static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+}
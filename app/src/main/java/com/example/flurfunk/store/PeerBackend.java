@@ -0,0 +1,38 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.UserProfile;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Persistence strategy for peers held by the {@link DataRepository}.
+ * <p>
+ * Like {@link OfferBackend}, implementations are only called from the repository's writer thread
+ * (and once for the initial load), so they do not need to be thread-safe.
+ */
+interface PeerBackend {
+
+    /**
+     * Loads all persisted peers.
+     *
+     * @return the stored peers, or an empty list if nothing is stored or loading fails
+     */
+    List<UserProfile> load();
+
+    /**
+     * Persists the peers that changed since the last write.
+     *
+     * @param changed  the new or changed peers
+     * @param snapshot supplies a copy of all peers, for backends that need to rewrite everything
+     */
+    void writeChanges(Collection<UserProfile> changed, Supplier<List<UserProfile>> snapshot);
+
+    /**
+     * Replaces everything that is persisted with the given peers.
+     *
+     * @param peers the complete list of peers to keep
+     */
+    void writeSnapshot(List<UserProfile> peers);
+}
@@ -4,52 +4,65 @@ import android.content.Context;
 import android.util.Log;
 
 import com.example.flurfunk.model.UserProfile;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
-import java.io.BufferedReader;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.InputStreamReader;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
  * Utility class for managing peer data (i.e., other user profiles) in the Flurfunk app.
  * <p>
  * This class provides methods to load, save, retrieve, and update peer {@link UserProfile} instances.
- * Peers are other users who are part of the LoRa mesh network. Their data is stored locally
- * in a JSON file and used for synchronization and activity tracking.
+ * Peers are other users who are part of the LoRa mesh network. Their data is held in memory by the
+ * {@link DataRepository}, stored locally in a JSON file and used for synchronization and activity tracking.
  * <p>
  * A peer is considered inactive if no message has been received from them within 6 weeks.
  */
 public class PeerManager {
 
-    private static final long INACTIVITY_TIMEOUT_MS = 1000L * 60 * 60 * 24 * 7 * 6;
-    private static final String FILE_NAME = "peers.json";
+    static final long INACTIVITY_TIMEOUT_MS = 1000L * 60 * 60 * 24 * 7 * 6;
+    static final String FILE_NAME = "peers.json";
     private static final String TAG = "PeerManager";
 
     /**
-     * Loads a list of peers (user profiles) from internal storage.
+     * Loads a list of peers (user profiles).
+     * <p>
+     * Peers are served from the in-memory {@link DataRepository}; the JSON file is only read on
+     * first access.
      *
-     * @param context the Android context used for file access
-     * @return a list of {@link UserProfile} objects, or an empty list if loading fails
+     * @param context the Android context used to access the repository
+     * @return a modifiable list of {@link UserProfile} objects, or an empty list if none are stored
      */
     public static List<UserProfile> loadPeers(Context context) {
-        try {
-            FileInputStream fis = context.openFileInput(FILE_NAME);
-            BufferedReader reader = new BufferedReader((new InputStreamReader(fis)));
-            StringBuilder builder = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                builder.append(line);
-            }
-            fis.close();
-            Type listType = new TypeToken<List<UserProfile>>() {
-            }.getType();
-            return new Gson().fromJson(builder.toString(), listType);
+        return DataRepository.getInstance(context).getPeers();
+    }
+
+    /**
+     * Saves a list of peers (user profiles).
+     * <p>
+     * The list replaces the peers held by the {@link DataRepository}; the JSON file in internal
+     * storage is updated asynchronously.
+     *
+     * @param context the Android context used to access the repository
+     * @param peers   the list of {@link UserProfile} objects to save
+     */
+    public static void savePeers(Context context, List<UserProfile> peers) {
+        DataRepository.getInstance(context).setPeers(peers);
+    }
+
+    /**
+     * Reads the list of peers from internal storage.
+     * <p>
+     * The file is parsed directly from the stream, one peer at a time.
+     *
+     * @param context the Android context used for file access
+     * @return a list of {@link UserProfile} objects, or an empty list if reading fails
+     */
+    static List<UserProfile> readPeersFromFile(Context context) {
+        try (FileInputStream fis = FilePersistence.openRead(context, FILE_NAME)) {
+            return JsonStreams.readList(fis, JsonStreams.PEER_ADAPTER);
         } catch (Exception e) {
             Log.e(TAG, "Couldn't load peers.");
             return new ArrayList<>();
@@ -57,18 +70,14 @@ public class PeerManager {
     }
 
     /**
-     * Saves a list of peers (user profiles) to internal storage as JSON.
+     * Atomically writes a list of peers (user profiles) to internal storage as JSON.
      *
      * @param context the Android context used for file operations
-     * @param peers   the list of {@link UserProfile} objects to save
+     * @param peers   the list of {@link UserProfile} objects to write
      */
-    public static void savePeers(Context context, List<UserProfile> peers) {
-        try {
-            String json = new Gson().toJson(peers);
-            FileOutputStream fos = context.openFileOutput(FILE_NAME, Context.MODE_PRIVATE);
-            fos.write(json.getBytes());
-            fos.close();
-        } catch (Exception e) {
+    static void writePeersToFile(Context context, List<UserProfile> peers) {
+        if (!FilePersistence.writeAtomically(context, FILE_NAME,
+                out -> JsonStreams.writeList(out, peers, JsonStreams.PEER_ADAPTER))) {
             Log.e(TAG, "Couldn't save peers.");
         }
     }
@@ -76,39 +85,23 @@ public class PeerManager {
     /**
      * Retrieves a peer profile by its unique ID.
      *
-     * @param context   the Android context used for loading data
+     * @param context   the Android context used to access the repository
      * @param creatorId the ID of the peer to retrieve
      * @return the {@link UserProfile} with the given ID, or {@code null} if not found
      */
     public static UserProfile getPeerById(Context context, String creatorId) {
-        if (creatorId == null) return null;
-        List<UserProfile> peers = loadPeers(context);
-        for (UserProfile peer : peers) {
-            if (creatorId.equals(peer.getId())) {
-                return peer;
-            }
-        }
-        return null;
+        return DataRepository.getInstance(context).getPeer(creatorId);
     }
 
     /**
-     * Updates a peer if it already exists (matching by ID), or adds it to the list otherwise.
-     * The updated list is immediately saved to storage.
+     * Updates a peer if it already exists (matching by ID), or adds it to the peer directory otherwise.
+     * The change is written to storage asynchronously.
      *
-     * @param context the Android context used for file operations
+     * @param context the Android context used to access the repository
      * @param newPeer the new or updated {@link UserProfile} to add
      */
     public static void updateOrAddPeer(Context context, UserProfile newPeer) {
-        List<UserProfile> peers = loadPeers(context);
-        for (int i = 0; i < peers.size(); i++) {
-            if (peers.get(i).getId().equals(newPeer.getId())) {
-                peers.set(i, newPeer);
-                savePeers(context, peers);
-                return;
-            }
-        }
-        peers.add(newPeer);
-        savePeers(context, peers);
+        DataRepository.getInstance(context).putPeer(newPeer);
     }
 
     /**
@@ -139,22 +132,36 @@ public class PeerManager {
 
     /**
      * Updates the lastSeen timestamp of a peer with the given ID.
-     * If the peer is found, its lastSeen is set and saved.
+     * If the peer is found, its lastSeen is updated in memory; the change is persisted
+     * periodically together with other lastSeen updates.
      *
-     * @param context   the Android context used for file access
+     * @param context   the Android context used to access the repository
      * @param peerId    the ID of the peer to update
      * @param lastSeen  the new lastSeen timestamp (usually from a received SYNPR)
      */
     public static void updateLastSeen(Context context, String peerId, long lastSeen) {
-        List<UserProfile> peers = loadPeers(context);
-        boolean changed = false;
-        for (UserProfile peer : peers) {
-            if (peer.getId().equals(peerId)) {
-                peer.setLastSeen(lastSeen);
-                changed = true;
-                break;
-            }
-        }
-        if (changed) savePeers(context, peers);
+        DataRepository.getInstance(context).updateLastSeen(peerId, lastSeen);
+    }
+
+    /**
+     * Registers a listener for changes of peers and offers, called on the given executor.
+     *
+     * @param context  the Android context used to access the repository
+     * @param listener the listener to add
+     * @param executor runs the listener calls
+     * @see DataRepository#addChangeListener(StoreChangeListener, Executor)
+     */
+    public static void addChangeListener(Context context, StoreChangeListener listener, Executor executor) {
+        DataRepository.getInstance(context).addChangeListener(listener, executor);
+    }
+
+    /**
+     * Removes a listener registered with {@link #addChangeListener(Context, StoreChangeListener, Executor)}.
+     *
+     * @param context  the Android context used to access the repository
+     * @param listener the listener to remove
+     */
+    public static void removeChangeListener(Context context, StoreChangeListener listener) {
+        DataRepository.getInstance(context).removeChangeListener(listener);
     }
 }
@@ -0,0 +1,99 @@
+package com.example.flurfunk.store;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Periodically removes offers that are no longer worth keeping, as decided by a list of
+ * {@link RetentionPolicy} objects.
+ * <p>
+ * A run collects the candidate offers (deleted or inactive) once and then checks them in batches
+ * of {@link #BATCH_SIZE} on the repository's writer thread. Between two batches the repository
+ * lock is released and other queued writes can run, so a run never blocks readers for long.
+ * Each purged offer leaves a tombstone, see {@link Tombstones}.
+ */
+class RetentionEngine {
+
+    private static final String TAG = "RetentionEngine";
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    static final int BATCH_SIZE = 100;
+    static final long INITIAL_DELAY_MS = 60_000;
+    static final long RUN_INTERVAL_MS = 6 * 60 * 60 * 1000;
+
+    /**
+     * Tombstones are dropped once the purged version is older than this.
+     */
+    static final long TOMBSTONE_RETENTION_MS = 180 * DAY_MS;
+
+    /**
+     * The default policies: offers deleted for more than 7 days and inactive offers of other
+     * users that have not changed for 30 days are purged.
+     */
+    static final List<RetentionPolicy> DEFAULT_POLICIES = Collections.unmodifiableList(Arrays.asList(
+            RetentionPolicy.deletedFor(7 * DAY_MS),
+            RetentionPolicy.inactiveForeignFor(30 * DAY_MS)));
+
+    private final DataRepository repository;
+    private final GroupCommitter committer;
+    private final List<RetentionPolicy> policies;
+
+    RetentionEngine(DataRepository repository, GroupCommitter committer, List<RetentionPolicy> policies) {
+        this.repository = repository;
+        this.committer = committer;
+        this.policies = policies;
+    }
+
+    /**
+     * Schedules the first run after {@link #INITIAL_DELAY_MS}; further runs follow every
+     * {@link #RUN_INTERVAL_MS}.
+     */
+    void start() {
+        committer.schedule(this::run, INITIAL_DELAY_MS);
+    }
+
+    /**
+     * Starts a run on the writer thread.
+     */
+    private void run() {
+        try {
+            List<String> candidates = repository.retentionCandidates();
+            Log.d(TAG, "Checking " + candidates.size() + " offers for retention");
+            step(candidates, 0, 0);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Retention run failed", e);
+            committer.schedule(this::run, RUN_INTERVAL_MS);
+        }
+    }
+
+    /**
+     * Checks one batch of candidates and queues the next batch, or finishes the run.
+     */
+    private void step(List<String> candidates, int from, int purgedSoFar) {
+        int to = Math.min(from + BATCH_SIZE, candidates.size());
+        int purged = purgedSoFar;
+        if (from < to) {
+            purged += repository.purge(new ArrayList<>(candidates.subList(from, to)), policies,
+                    System.currentTimeMillis());
+        }
+        if (to < candidates.size()) {
+            int next = purged;
+            committer.execute(() -> {
+                try {
+                    step(candidates, to, next);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Retention run failed", e);
+                    committer.schedule(this::run, RUN_INTERVAL_MS);
+                }
+            });
+            return;
+        }
+        int expired = repository.expireTombstones(System.currentTimeMillis() - TOMBSTONE_RETENTION_MS);
+        Log.i(TAG, "Retention run purged " + purged + " offers, expired " + expired + " tombstones");
+        committer.schedule(this::run, RUN_INTERVAL_MS);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants.OfferStatus;
+
+/**
+ * Decides whether a stored offer may be removed for good.
+ * <p>
+ * Policies are evaluated by the {@link RetentionEngine}; an offer is purged as soon as one policy
+ * matches. Purged offers leave a tombstone behind, so synchronization does not pull them back in.
+ */
+public interface RetentionPolicy {
+
+    /**
+     * Checks whether the given offer should be purged.
+     *
+     * @param offer       the stored offer
+     * @param localUserId the ID of the local user, or {@code null} if no profile exists
+     * @param now         the current time in milliseconds
+     * @return {@code true} if the offer should be removed
+     */
+    boolean shouldPurge(Offer offer, String localUserId, long now);
+
+    /**
+     * Purges offers that have been marked as deleted for longer than the given time.
+     *
+     * @param maxAgeMs the time since the last modification after which deleted offers are purged
+     * @return the policy
+     */
+    static RetentionPolicy deletedFor(long maxAgeMs) {
+        return (offer, localUserId, now) -> offer.isDeleted() && now - offer.getLastModified() > maxAgeMs;
+    }
+
+    /**
+     * Purges inactive offers of other users that have not changed for longer than the given time.
+     * The local user's own offers are kept, so they can still be reactivated.
+     *
+     * @param maxAgeMs the time since the last modification after which inactive offers are purged
+     * @return the policy
+     */
+    static RetentionPolicy inactiveForeignFor(long maxAgeMs) {
+        return (offer, localUserId, now) -> offer.getStatus() == OfferStatus.INACTIVE
+                && (localUserId == null || !localUserId.equals(offer.getCreatorId()))
+                && now - offer.getLastModified() > maxAgeMs;
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.flurfunk.model.Offer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * An inverted full-text index over the titles and descriptions of offers.
+ * <p>
+ * Texts are split into terms by {@link #tokenize(String)}, which folds case, German umlauts and
+ * other accents, so that "Kühlschrank", "KUEHLSCHRANK" and "kuehlschrank" are the same term. The
+ * terms are kept in a sorted map from term to offer IDs, so a query term matches all terms it is
+ * a prefix of with a single range lookup. A query with several terms matches the offers that
+ * contain all of them.
+ * <p>
+ * The index is updated incrementally: an offer is only tokenized again if its last modification
+ * time changed, since every change of title or description produces a newer version. The index
+ * is persisted in a compact binary file together with the version of each offer, so that after a
+ * restart only offers that changed since the last write are tokenized again.
+ * <p>
+ * This class is not thread-safe; the {@link DataRepository} guards all access.
+ */
+class SearchIndex {
+
+    private static final String TAG = "SearchIndex";
+    private static final String FILE_NAME = "search_index.bin";
+    static final int MAGIC = 0x464C5349; // "FLSI"
+    static final short VERSION = 1;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int MIN_TERM_LENGTH = 2;
+
+    private final NavigableMap<String, Set<String>> postings = new TreeMap<>();
+    private final Map<String, Document> documents = new HashMap<>();
+    private boolean dirty;
+
+    /**
+     * The terms an offer was indexed with, and the version they were taken from.
+     */
+    private static final class Document {
+        final long lastModified;
+        final String[] terms;
+
+        Document(long lastModified, String[] terms) {
+            this.lastModified = lastModified;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * Adds an offer to the index or updates its terms if its version changed.
+     *
+     * @param offer the new or changed offer
+     */
+    void update(Offer offer) {
+        update(offer, offer.getDescription());
+    }
+
+    /**
+     * Adds an offer to the index or updates its terms if its version changed, using a
+     * description kept apart from the offer, see {@link DescriptionStore}.
+     *
+     * @param offer       the new or changed offer
+     * @param description the description of the offer
+     */
+    void update(Offer offer, String description) {
+        String id = offer.getOfferId();
+        if (id == null || isIndexed(offer)) return;
+        Document existing = documents.get(id);
+
+        Set<String> terms = new LinkedHashSet<>(tokenize(offer.getTitle()));
+        terms.addAll(tokenize(description));
+        if (existing != null) unlink(id, existing);
+        add(id, new Document(offer.getLastModified(), terms.toArray(new String[0])));
+        dirty = true;
+    }
+
+    /**
+     * @return {@code true} if the offer is indexed in its current version
+     */
+    boolean isIndexed(Offer offer) {
+        Document existing = documents.get(offer.getOfferId());
+        return existing != null && existing.lastModified == offer.getLastModified();
+    }
+
+    /**
+     * Removes an offer from the index.
+     *
+     * @param offerId the offer ID
+     */
+    void remove(String offerId) {
+        Document existing = documents.remove(offerId);
+        if (existing == null) return;
+        unlink(offerId, existing);
+        dirty = true;
+    }
+
+    /**
+     * Removes all offers whose ID is not in the given set, e.g. after the stored offers were
+     * replaced or loaded.
+     *
+     * @param offerIds the IDs of the offers to keep
+     */
+    void retainAll(Collection<String> offerIds) {
+        Iterator<Map.Entry<String, Document>> it = documents.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Document> entry = it.next();
+            if (!offerIds.contains(entry.getKey())) {
+                unlink(entry.getKey(), entry.getValue());
+                it.remove();
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Finds the offers containing all terms of the query. Each query term matches every indexed
+     * term it is a prefix of, so "fahr" finds "Fahrrad".
+     *
+     * @param query the search text as typed by the user
+     * @return the IDs of the matching offers, in no particular order; empty if the query has no
+     * terms
+     */
+    Set<String> search(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) return Collections.emptySet();
+
+        List<Set<String>> matches = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Set<String> ids = matchPrefix(term);
+            if (ids.isEmpty()) return Collections.emptySet();
+            matches.add(ids);
+        }
+        matches.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        Set<String> result = new LinkedHashSet<>(matches.get(0));
+        for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+            result.retainAll(matches.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of indexed offers
+     */
+    int size() {
+        return documents.size();
+    }
+
+    /**
+     * @return {@code true} if the index changed since it was last loaded or snapshotted
+     */
+    boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Copies the indexed documents for writing on another thread and clears the dirty flag.
+     * Term arrays are never modified, so they are shared with the copy.
+     *
+     * @return a writable copy of the index content
+     */
+    Snapshot snapshot() {
+        dirty = false;
+        return new Snapshot(new HashMap<>(documents));
+    }
+
+    private Set<String> matchPrefix(String prefix) {
+        NavigableMap<String, Set<String>> range =
+                postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.size() == 1) return range.firstEntry().getValue();
+
+        Set<String> ids = new LinkedHashSet<>();
+        for (Set<String> termIds : range.values()) ids.addAll(termIds);
+        return ids;
+    }
+
+    private void add(String id, Document document) {
+        for (int i = 0; i < document.terms.length; i++) {
+            String term = document.terms[i];
+            Map.Entry<String, Set<String>> entry = postings.ceilingEntry(term);
+            Set<String> ids;
+            if (entry != null && entry.getKey().equals(term)) {
+                // Reuse the key instance so that each term is kept in memory only once
+                document.terms[i] = entry.getKey();
+                ids = entry.getValue();
+            } else {
+                ids = new LinkedHashSet<>();
+                postings.put(term, ids);
+            }
+            ids.add(id);
+        }
+        documents.put(id, document);
+    }
+
+    private void unlink(String id, Document document) {
+        for (String term : document.terms) {
+            Set<String> ids = postings.get(term);
+            if (ids == null) continue;
+            ids.remove(id);
+            if (ids.isEmpty()) postings.remove(term);
+        }
+    }
+
+    /**
+     * Splits a text into normalized search terms.
+     * <p>
+     * The text is lowercased; ä, ö, ü and ß are written as ae, oe, ue and ss, and accents of
+     * other letters are removed. Terms are the runs of letters and digits; terms shorter than
+     * two characters are dropped unless they are numbers.
+     *
+     * @param text the text to split, may be {@code null}
+     * @return the distinct terms in order of first occurrence
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) return new ArrayList<>();
+
+        String folded = fold(Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.GERMAN));
+        if (!isAscii(folded)) {
+            folded = COMBINING_MARKS.matcher(Normalizer.normalize(folded, Normalizer.Form.NFD)).replaceAll("");
+        }
+
+        Set<String> terms = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean partOfTerm = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (partOfTerm) {
+                if (start < 0) start = i;
+            } else if (start >= 0) {
+                String term = folded.substring(start, i);
+                if (term.length() >= MIN_TERM_LENGTH || Character.isDigit(term.charAt(0))) {
+                    terms.add(term);
+                }
+                start = -1;
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    private static String fold(String text) {
+        StringBuilder out = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement;
+            switch (c) {
+                case 'ä':
+                    replacement = "ae";
+                    break;
+                case 'ö':
+                    replacement = "oe";
+                    break;
+                case 'ü':
+                    replacement = "ue";
+                    break;
+                case 'ß':
+                    replacement = "ss";
+                    break;
+                default:
+                    replacement = null;
+            }
+            if (replacement != null && out == null) {
+                out = new StringBuilder(text.length() + 8).append(text, 0, i);
+            }
+            if (out != null) {
+                if (replacement != null) out.append(replacement);
+                else out.append(c);
+            }
+        }
+        return out != null ? out.toString() : text;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) return false;
+        }
+        return true;
+    }
+
+    /**
+     * An immutable copy of the index content, written by {@link #write(Context, Snapshot)}.
+     */
+    static final class Snapshot {
+        private final Map<String, Document> documents;
+
+        private Snapshot(Map<String, Document> documents) {
+            this.documents = documents;
+        }
+    }
+
+    /**
+     * Reads the index from internal storage.
+     *
+     * @param context the Android context used for file access
+     * @return the stored index, or an empty index if none is stored or reading fails
+     */
+    static SearchIndex load(Context context) {
+        SearchIndex index = new SearchIndex();
+        if (!FilePersistence.exists(context, FILE_NAME)) return index;
+        try (FileInputStream fis = FilePersistence.openRead(context, FILE_NAME);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a search index file");
+            short version = in.readShort();
+            if (version != VERSION) throw new IOException("Unsupported search index version " + version);
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                long lastModified = in.readLong();
+                String[] terms = new String[in.readUnsignedShort()];
+                for (int t = 0; t < terms.length; t++) terms[t] = in.readUTF();
+                index.add(id, new Document(lastModified, terms));
+            }
+            Log.d(TAG, "Loaded search index with " + count + " offers");
+        } catch (IOException e) {
+            Log.e(TAG, "Could not load search index, rebuilding", e);
+            return new SearchIndex();
+        }
+        return index;
+    }
+
+    /**
+     * Atomically writes an index snapshot to internal storage.
+     *
+     * @param context  the Android context used for file access
+     * @param snapshot the content to write
+     */
+    static void write(Context context, Snapshot snapshot) {
+        boolean written = FilePersistence.writeAtomically(context, FILE_NAME, out -> {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            data.writeInt(MAGIC);
+            data.writeShort(VERSION);
+            data.writeInt(snapshot.documents.size());
+            for (Map.Entry<String, Document> entry : snapshot.documents.entrySet()) {
+                Document document = entry.getValue();
+                int termCount = Math.min(document.terms.length, 0xFFFF);
+                data.writeUTF(entry.getKey());
+                data.writeLong(document.lastModified);
+                data.writeShort(termCount);
+                for (int t = 0; t < termCount; t++) data.writeUTF(document.terms[t]);
+            }
+            data.flush();
+        });
+        if (!written) Log.e(TAG, "Could not save search index.");
+    }
+}
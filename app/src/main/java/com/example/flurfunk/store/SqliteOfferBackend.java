@@ -0,0 +1,156 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants;
+import com.example.flurfunk.util.Constants.Category;
+import com.example.flurfunk.util.Constants.OfferStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Stores offers in the {@code offers} table of the {@link FlurfunkDatabase}.
+ * <p>
+ * Changed offers are written with a single prepared {@code INSERT OR REPLACE} statement inside one
+ * transaction, so the cost of a write is proportional to the number of changed offers. If the
+ * table is empty on first load, offers are migrated from the JSON snapshot and journal, which are
+ * removed afterwards.
+ */
+class SqliteOfferBackend implements OfferBackend {
+
+    private static final String TAG = "SqliteOfferBackend";
+
+    private static final String INSERT = "INSERT OR REPLACE INTO " + FlurfunkDatabase.TABLE_OFFERS
+            + " (offer_id, title, description, category, creator_id, created_at, last_modified, status, deleted)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final Context context;
+    private final FlurfunkDatabase database;
+
+    SqliteOfferBackend(Context context, FlurfunkDatabase database) {
+        this.context = context;
+        this.database = database;
+    }
+
+    /**
+     * Loads all offers, migrating existing JSON data if the table is empty.
+     *
+     * @return the stored offers in insertion order, or an empty list if reading fails
+     */
+    @Override
+    public List<Offer> load() {
+        List<Offer> offers = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT * FROM " + FlurfunkDatabase.TABLE_OFFERS + " ORDER BY rowid", null)) {
+            int id = cursor.getColumnIndexOrThrow("offer_id");
+            int title = cursor.getColumnIndexOrThrow("title");
+            int description = cursor.getColumnIndexOrThrow("description");
+            int category = cursor.getColumnIndexOrThrow("category");
+            int creatorId = cursor.getColumnIndexOrThrow("creator_id");
+            int createdAt = cursor.getColumnIndexOrThrow("created_at");
+            int lastModified = cursor.getColumnIndexOrThrow("last_modified");
+            int status = cursor.getColumnIndexOrThrow("status");
+            int deleted = cursor.getColumnIndexOrThrow("deleted");
+            while (cursor.moveToNext()) {
+                offers.add(new Offer(
+                        cursor.getString(id),
+                        cursor.getString(title),
+                        cursor.getString(description),
+                        FlurfunkDatabase.enumOf(Category.class, cursor.getString(category)),
+                        cursor.getString(creatorId),
+                        cursor.getLong(createdAt),
+                        cursor.getLong(lastModified),
+                        FlurfunkDatabase.enumOf(OfferStatus.class, cursor.getString(status)),
+                        cursor.getInt(deleted) != 0));
+            }
+        } catch (SQLException e) {
+            Log.e(TAG, "Could not load offers.", e);
+            return offers;
+        }
+        if (offers.isEmpty()) {
+            return migrateFromJson();
+        }
+        return offers;
+    }
+
+    @Override
+    public void writeChanges(Collection<Offer> changed, Collection<String> removedIds, Supplier<List<Offer>> snapshot) {
+        if (changed.isEmpty() && removedIds.isEmpty()) return;
+        write(changed, removedIds, false);
+    }
+
+    @Override
+    public void writeSnapshot(List<Offer> offers) {
+        write(offers, Collections.emptyList(), true);
+    }
+
+    /**
+     * Inserts or replaces the given offers and deletes the removed ones in one transaction.
+     *
+     * @param offers     the offers to write
+     * @param removedIds the IDs of the offers to delete
+     * @param replaceAll whether all other offers are deleted first
+     * @return {@code true} if the transaction was committed
+     */
+    private boolean write(Collection<Offer> offers, Collection<String> removedIds, boolean replaceAll) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try (SQLiteStatement insert = db.compileStatement(INSERT)) {
+            if (replaceAll) {
+                db.delete(FlurfunkDatabase.TABLE_OFFERS, null, null);
+            }
+            for (String offerId : removedIds) {
+                db.delete(FlurfunkDatabase.TABLE_OFFERS, "offer_id = ?", new String[]{offerId});
+            }
+            for (Offer offer : offers) {
+                if (offer.getOfferId() == null) continue;
+                insert.clearBindings();
+                FlurfunkDatabase.bindString(insert, 1, offer.getOfferId());
+                FlurfunkDatabase.bindString(insert, 2, offer.getTitle());
+                FlurfunkDatabase.bindString(insert, 3, offer.getDescription());
+                FlurfunkDatabase.bindString(insert, 4, offer.getCategory() != null ? offer.getCategory().name() : null);
+                FlurfunkDatabase.bindString(insert, 5, offer.getCreatorId());
+                insert.bindLong(6, offer.getCreatedAt());
+                insert.bindLong(7, offer.getLastModified());
+                FlurfunkDatabase.bindString(insert, 8, offer.getStatus() != null ? offer.getStatus().name() : null);
+                insert.bindLong(9, offer.isDeleted() ? 1 : 0);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+            return true;
+        } catch (SQLException e) {
+            Log.e(TAG, "Could not save offers.", e);
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Reads offers from the JSON snapshot and journal, inserts them and removes the JSON files.
+     * If the offers cannot be inserted, the JSON files are kept.
+     */
+    private List<Offer> migrateFromJson() {
+        if (!FilePersistence.exists(context, Constants.OFFER_FILE)
+                && !FilePersistence.exists(context, Constants.OFFER_JOURNAL_FILE)) {
+            return new ArrayList<>();
+        }
+        List<Offer> offers = new JournalOfferBackend(context).load();
+        if (write(offers, Collections.emptyList(), true)) {
+            FilePersistence.delete(context, Constants.OFFER_FILE);
+            FilePersistence.delete(context, Constants.OFFER_JOURNAL_FILE);
+            Log.i(TAG, "Migrated " + offers.size() + " offers from JSON");
+        }
+        return offers;
+    }
+}
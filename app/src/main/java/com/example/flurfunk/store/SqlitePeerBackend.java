@@ -0,0 +1,143 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.example.flurfunk.model.UserProfile;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Stores peers in the {@code peers} table of the {@link FlurfunkDatabase}.
+ * <p>
+ * Peers are written with a prepared statement inside one transaction; changes only touch the rows
+ * of the changed peers. If the table is empty on
+ * first load, peers are migrated from {@code peers.json}, which is removed afterwards.
+ */
+class SqlitePeerBackend implements PeerBackend {
+
+    private static final String TAG = "SqlitePeerBackend";
+
+    private static final String INSERT = "INSERT OR REPLACE INTO " + FlurfunkDatabase.TABLE_PEERS
+            + " (id, name, floor, phone, email, mesh_id, timestamp, last_seen)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final Context context;
+    private final FlurfunkDatabase database;
+
+    SqlitePeerBackend(Context context, FlurfunkDatabase database) {
+        this.context = context;
+        this.database = database;
+    }
+
+    /**
+     * Loads all peers, migrating existing JSON data if the table is empty.
+     *
+     * @return the stored peers in insertion order, or an empty list if reading fails
+     */
+    @Override
+    public List<UserProfile> load() {
+        List<UserProfile> peers = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT * FROM " + FlurfunkDatabase.TABLE_PEERS + " ORDER BY rowid", null)) {
+            int id = cursor.getColumnIndexOrThrow("id");
+            int name = cursor.getColumnIndexOrThrow("name");
+            int floor = cursor.getColumnIndexOrThrow("floor");
+            int phone = cursor.getColumnIndexOrThrow("phone");
+            int email = cursor.getColumnIndexOrThrow("email");
+            int meshId = cursor.getColumnIndexOrThrow("mesh_id");
+            int timestamp = cursor.getColumnIndexOrThrow("timestamp");
+            int lastSeen = cursor.getColumnIndexOrThrow("last_seen");
+            while (cursor.moveToNext()) {
+                UserProfile peer = new UserProfile();
+                peer.setId(cursor.getString(id));
+                peer.setName(cursor.getString(name));
+                peer.setFloor(cursor.getString(floor));
+                peer.setPhone(cursor.getString(phone));
+                peer.setEmail(cursor.getString(email));
+                peer.setMeshId(cursor.getString(meshId));
+                peer.setTimestamp(cursor.getLong(timestamp));
+                peer.setLastSeen(cursor.getLong(lastSeen));
+                peers.add(peer);
+            }
+        } catch (SQLException e) {
+            Log.e(TAG, "Couldn't load peers.", e);
+            return peers;
+        }
+        if (peers.isEmpty()) {
+            return migrateFromJson();
+        }
+        return peers;
+    }
+
+    @Override
+    public void writeChanges(Collection<UserProfile> changed, Supplier<List<UserProfile>> snapshot) {
+        if (changed.isEmpty()) return;
+        write(changed, false);
+    }
+
+    @Override
+    public void writeSnapshot(List<UserProfile> peers) {
+        write(peers, true);
+    }
+
+    /**
+     * Inserts or replaces the given peers in one transaction.
+     *
+     * @param peers      the peers to write
+     * @param replaceAll whether all other peers are deleted first
+     * @return {@code true} if the transaction was committed
+     */
+    private boolean write(Collection<UserProfile> peers, boolean replaceAll) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try (SQLiteStatement insert = db.compileStatement(INSERT)) {
+            if (replaceAll) {
+                db.delete(FlurfunkDatabase.TABLE_PEERS, null, null);
+            }
+            for (UserProfile peer : peers) {
+                if (peer.getId() == null) continue;
+                insert.clearBindings();
+                FlurfunkDatabase.bindString(insert, 1, peer.getId());
+                FlurfunkDatabase.bindString(insert, 2, peer.getName());
+                FlurfunkDatabase.bindString(insert, 3, peer.getFloor());
+                FlurfunkDatabase.bindString(insert, 4, peer.getPhone());
+                FlurfunkDatabase.bindString(insert, 5, peer.getEmail());
+                FlurfunkDatabase.bindString(insert, 6, peer.getMeshId());
+                insert.bindLong(7, peer.getTimestamp());
+                insert.bindLong(8, peer.getLastSeen());
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+            return true;
+        } catch (SQLException e) {
+            Log.e(TAG, "Couldn't save peers.", e);
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Reads peers from {@code peers.json}, inserts them and removes the JSON file.
+     * If the peers cannot be inserted, the JSON file is kept.
+     */
+    private List<UserProfile> migrateFromJson() {
+        if (!FilePersistence.exists(context, PeerManager.FILE_NAME)) {
+            return new ArrayList<>();
+        }
+        List<UserProfile> peers = PeerManager.readPeersFromFile(context);
+        if (write(peers, true)) {
+            FilePersistence.delete(context, PeerManager.FILE_NAME);
+            Log.i(TAG, "Migrated " + peers.size() + " peers from JSON");
+        }
+        return peers;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.StrictMode;
+import android.util.Log;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs storage operations on a small, bounded pool of background threads, so the UI thread never
+ * waits for the disk.
+ * <p>
+ * Screens load and change data through {@link #submit(Callable, Callback)}, which delivers the
+ * result on the main thread, or {@link #execute(Runnable)} for changes without a result. The pool
+ * has {@link #THREADS} threads and a queue of {@link #QUEUE_CAPACITY} tasks; tasks submitted while
+ * the queue is full are rejected and logged instead of blocking the caller.
+ * <p>
+ * In debuggable builds, {@link #enableStrictMode(Context)} makes disk reads and writes on the main
+ * thread visible, so that new synchronous storage access is noticed during development.
+ */
+public final class StorageExecutor {
+
+    private static final String TAG = "StorageExecutor";
+
+    static final int THREADS = 2;
+    static final int QUEUE_CAPACITY = 64;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            THREADS, THREADS, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "Storage-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static Handler mainHandler;
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private StorageExecutor() {
+    }
+
+    /**
+     * Receives the result of a storage operation on the main thread.
+     *
+     * @param <T> the type of the result
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * Runs a storage operation in the background.
+     *
+     * @param task the operation
+     * @param <T>  the type of the result
+     * @return a future completed with the result, or exceptionally if the task failed or was
+     * rejected
+     */
+    public static <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Exception e) {
+                    Log.e(TAG, "Storage task failed", e);
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Storage task rejected, queue is full", e);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Runs a storage operation in the background and passes its result to the callback on the
+     * main thread. If the operation fails, the callback is not called.
+     *
+     * @param task     the operation
+     * @param callback receives the result on the main thread
+     * @param <T>      the type of the result
+     */
+    public static <T> void submit(Callable<T> task, Callback<T> callback) {
+        submit(task).thenAccept(result -> mainHandler().post(() -> callback.onResult(result)));
+    }
+
+    /**
+     * Runs a storage operation without a result in the background.
+     *
+     * @param task the operation
+     */
+    public static void execute(Runnable task) {
+        submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Detects disk reads and writes on the main thread if the app is debuggable. Violations are
+     * logged and flash the screen.
+     *
+     * @param context any Android context
+     */
+    public static void enableStrictMode(Context context) {
+        if ((context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) == 0) return;
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .penaltyLog()
+                .penaltyFlashScreen()
+                .build());
+        Log.i(TAG, "StrictMode disk access detection enabled");
+    }
+
+    private static synchronized Handler mainHandler() {
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        return mainHandler;
+    }
+}
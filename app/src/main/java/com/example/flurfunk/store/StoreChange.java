@@ -0,0 +1,107 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.model.UserProfile;
+
+/**
+ * A single change of the data held by the {@link DataRepository}, published to
+ * {@link StoreChangeListener}s after the change has been applied.
+ * <p>
+ * Offer and peer changes carry a copy of the changed object in its new state, so listeners on
+ * other threads can use it without synchronization. {@link Type#RELOAD} carries no object; it
+ * signals that too much changed to describe individually and that listeners should reload what
+ * they show.
+ */
+public final class StoreChange {
+
+    /**
+     * The kind of a change.
+     */
+    public enum Type {
+        /** An offer that was not stored before has been added. */
+        OFFER_ADDED,
+        /** The content of a stored offer has changed. */
+        OFFER_UPDATED,
+        /** The status or deletion flag of a stored offer has changed. */
+        OFFER_STATUS_CHANGED,
+        /** An offer has been removed from the store, e.g. by the retention engine. */
+        OFFER_REMOVED,
+        /**
+         * An active offer has been removed from the store to meet the storage quota. Other nodes
+         * still hold it, so its version stays advertised; the change carries the evicted version.
+         */
+        OFFER_EVICTED,
+        /** A peer that was not known before has been added. */
+        PEER_ADDED,
+        /** A stored peer has changed, including its lastSeen timestamp. */
+        PEER_UPDATED,
+        /** Many offers or peers have been replaced at once. */
+        RELOAD
+    }
+
+    private final Type type;
+    private final String id;
+    private final Offer offer;
+    private final UserProfile peer;
+
+    private StoreChange(Type type, String id, Offer offer, UserProfile peer) {
+        this.type = type;
+        this.id = id;
+        this.offer = offer;
+        this.peer = peer;
+    }
+
+    static StoreChange offer(Type type, Offer offer) {
+        return new StoreChange(type, offer.getOfferId(), new Offer(offer), null);
+    }
+
+    static StoreChange offerRemoved(String offerId) {
+        return new StoreChange(Type.OFFER_REMOVED, offerId, null, null);
+    }
+
+    static StoreChange peer(Type type, UserProfile peer) {
+        return new StoreChange(type, peer.getId(), null, new UserProfile(peer));
+    }
+
+    static StoreChange reload() {
+        return new StoreChange(Type.RELOAD, null, null, null);
+    }
+
+    /**
+     * @return the kind of change
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the ID of the changed offer or peer, or {@code null} for {@link Type#RELOAD}
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return a copy of the offer in its new state, or {@code null} if this is not an offer
+     * change or the offer has been removed
+     */
+    public Offer getOffer() {
+        return offer;
+    }
+
+    /**
+     * @return a copy of the peer in its new state, or {@code null} if this is not a peer change
+     */
+    public UserProfile getPeer() {
+        return peer;
+    }
+
+    /**
+     * @return {@code true} if this change concerns an offer
+     */
+    public boolean isOfferChange() {
+        return type == Type.OFFER_ADDED || type == Type.OFFER_UPDATED
+                || type == Type.OFFER_STATUS_CHANGED || type == Type.OFFER_REMOVED
+                || type == Type.OFFER_EVICTED;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.flurfunk.store;
+
+import java.util.List;
+
+/**
+ * Receives the changes made to the {@link DataRepository}.
+ * <p>
+ * Each call carries the changes of one repository operation, in the order they were applied.
+ * Listeners are called on the executor they were registered with, see
+ * {@link DataRepository#addChangeListener(StoreChangeListener, java.util.concurrent.Executor)}.
+ */
+public interface StoreChangeListener {
+
+    /**
+     * Called after one or more changes have been applied.
+     *
+     * @param changes the changes, never empty
+     */
+    void onStoreChanged(List<StoreChange> changes);
+}
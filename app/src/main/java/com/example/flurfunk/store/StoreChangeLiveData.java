@@ -0,0 +1,43 @@
+package com.example.flurfunk.store;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exposes the changes of the {@link DataRepository} as {@link LiveData} for screens.
+ * <p>
+ * While observers are active, every batch of changes is set on the main thread and delivered
+ * immediately, so no batch is lost. While no observer is active, the listener is removed; if the
+ * repository changed in the meantime, a single {@link StoreChange.Type#RELOAD} is delivered when
+ * an observer becomes active again.
+ */
+class StoreChangeLiveData extends LiveData<List<StoreChange>> {
+
+    private final DataRepository repository;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final StoreChangeListener listener = this::setValue;
+    private long changeCountAtInactive = -1;
+
+    StoreChangeLiveData(DataRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    protected void onActive() {
+        repository.addChangeListener(listener, mainHandler::post);
+        if (changeCountAtInactive >= 0 && repository.getChangeCount() != changeCountAtInactive) {
+            setValue(Collections.singletonList(StoreChange.reload()));
+        }
+    }
+
+    @Override
+    protected void onInactive() {
+        repository.removeChangeListener(listener);
+        changeCountAtInactive = repository.getChangeCount();
+    }
+}
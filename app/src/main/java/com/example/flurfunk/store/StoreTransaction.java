@@ -0,0 +1,112 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.util.Constants.Category;
+import com.example.flurfunk.util.Constants.OfferStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of reads and changes on the {@link DataRepository} that is applied atomically.
+ * <p>
+ * Reads return copies of the stored offers and peers together with the version they had when
+ * they were read. Changes are made on these copies and staged with {@link #putOffer(Offer)} and
+ * {@link #putPeer(UserProfile)}; nothing is visible to others until the transaction commits. On
+ * commit, the repository compares the versions of everything read with the current versions. If
+ * any of them changed in the meantime the commit fails and the transaction is run again, see
+ * {@link DataRepository#runInTransaction(java.util.function.Consumer)}. A query also records the
+ * version of the queried creator's offers, or of all offers if it is not limited to a creator,
+ * so that offers added or removed since the query let the commit fail as well.
+ * <p>
+ * Instances are created by the repository and must only be used by the thread running the
+ * transaction.
+ */
+public final class StoreTransaction {
+
+    private final DataRepository repository;
+
+    final Map<String, Long> offerReads = new HashMap<>();
+    final Map<String, Long> creatorReads = new HashMap<>();
+    final Map<String, Long> peerReads = new HashMap<>();
+    final Map<String, Offer> offerWrites = new LinkedHashMap<>();
+    final Map<String, UserProfile> peerWrites = new LinkedHashMap<>();
+
+    StoreTransaction(DataRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Returns a copy of the offer with the given ID, or the staged version if the offer has
+     * already been changed in this transaction.
+     *
+     * @param offerId the offer ID
+     * @return a copy of the offer, or {@code null} if unknown
+     */
+    public Offer getOffer(String offerId) {
+        Offer staged = offerWrites.get(offerId);
+        if (staged != null) return staged;
+        return repository.readOffer(this, offerId);
+    }
+
+    /**
+     * Returns copies of all offers matching the given criteria. A {@code null} criterion matches
+     * any value. Offers already changed in this transaction are returned in their staged version.
+     *
+     * @param category  the category to match, or {@code null}
+     * @param status    the status to match, or {@code null}
+     * @param creatorId the creator ID to match, or {@code null}
+     * @param deleted   the deletion flag to match, or {@code null}
+     * @return a new list of matching offers
+     */
+    public List<Offer> queryOffers(Category category, OfferStatus status, String creatorId, Boolean deleted) {
+        List<Offer> result = new ArrayList<>();
+        for (Offer offer : repository.readOffers(this, category, status, creatorId, deleted)) {
+            Offer staged = offerWrites.get(offer.getOfferId());
+            result.add(staged != null ? staged : offer);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the peer with the given ID, or the staged version if the peer has
+     * already been changed in this transaction.
+     *
+     * @param peerId the peer ID
+     * @return a copy of the peer, or {@code null} if unknown
+     */
+    public UserProfile getPeer(String peerId) {
+        UserProfile staged = peerWrites.get(peerId);
+        if (staged != null) return staged;
+        return repository.readPeer(this, peerId);
+    }
+
+    /**
+     * Stages a new or changed offer. The offer replaces the stored one on commit.
+     *
+     * @param offer the offer to write
+     */
+    public void putOffer(Offer offer) {
+        offerWrites.put(offer.getOfferId(), offer);
+    }
+
+    /**
+     * Stages a new or changed peer. The peer replaces the stored one on commit.
+     *
+     * @param peer the peer to write
+     */
+    public void putPeer(UserProfile peer) {
+        peerWrites.put(peer.getId(), peer);
+    }
+
+    /**
+     * @return {@code true} if no changes have been staged
+     */
+    public boolean isEmpty() {
+        return offerWrites.isEmpty() && peerWrites.isEmpty();
+    }
+}
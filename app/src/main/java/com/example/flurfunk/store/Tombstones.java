@@ -0,0 +1,155 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact records of purged offers: the offer ID and the last modification time of the purged
+ * version.
+ * <p>
+ * A tombstone hides every version of an offer that is not newer than the purged one, so peers
+ * that still advertise the offer do not cause it to be requested and stored again. A newer
+ * version, e.g. after the creator reactivated the offer, replaces the tombstone.
+ * <p>
+ * The same records are kept in a separate file for active offers evicted to meet the storage
+ * quota, whose versions stay advertised to other nodes, see {@link DataRepository}.
+ * <p>
+ * This class is not thread-safe; the {@link DataRepository} guards all access.
+ */
+class Tombstones {
+
+    private static final String TAG = "Tombstones";
+    static final String FILE_NAME = "tombstones.json";
+    static final String EVICTED_FILE_NAME = "evicted.json";
+    private static final TypeToken<Map<String, Long>> TYPE = new TypeToken<Map<String, Long>>() {
+    };
+
+    private final Map<String, Long> purged;
+
+    private Tombstones(Map<String, Long> purged) {
+        this.purged = purged;
+    }
+
+    /**
+     * @return an empty set of tombstones
+     */
+    static Tombstones empty() {
+        return new Tombstones(new HashMap<>());
+    }
+
+    /**
+     * Checks whether the given version of an offer has been purged.
+     *
+     * @param offerId      the offer ID
+     * @param lastModified the last modification time of the version
+     * @return {@code true} if a tombstone exists that is at least as new as the version
+     */
+    boolean covers(String offerId, long lastModified) {
+        Long purgedAt = purged.get(offerId);
+        return purgedAt != null && purgedAt >= lastModified;
+    }
+
+    /**
+     * Records that an offer has been purged.
+     *
+     * @param offerId      the offer ID
+     * @param lastModified the last modification time of the purged version
+     */
+    void add(String offerId, long lastModified) {
+        purged.put(offerId, lastModified);
+    }
+
+    /**
+     * Removes the tombstone of an offer, e.g. because a newer version has been received.
+     *
+     * @param offerId the offer ID
+     * @return {@code true} if a tombstone was removed
+     */
+    boolean remove(String offerId) {
+        return purged.remove(offerId) != null;
+    }
+
+    /**
+     * Drops tombstones of versions older than the given time. Such offers would have been
+     * purged again right away, so keeping their tombstones forever is not worth the space.
+     *
+     * @param cutoff the last modification time before which tombstones are dropped
+     * @return the IDs of the dropped tombstones
+     */
+    List<String> expire(long cutoff) {
+        List<String> expired = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> it = purged.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (entry.getValue() < cutoff) {
+                expired.add(entry.getKey());
+                it.remove();
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * @return the number of tombstones
+     */
+    int size() {
+        return purged.size();
+    }
+
+    /**
+     * @return a copy of all tombstones, for writing on another thread
+     */
+    Map<String, Long> snapshot() {
+        return new HashMap<>(purged);
+    }
+
+    /**
+     * Reads the tombstones from internal storage.
+     *
+     * @param context  the Android context used for file access
+     * @param fileName {@link #FILE_NAME} or {@link #EVICTED_FILE_NAME}
+     * @return the stored tombstones, or an empty set if none are stored or reading fails
+     */
+    static Tombstones load(Context context, String fileName) {
+        if (!FilePersistence.exists(context, fileName)) return empty();
+        try (FileInputStream fis = FilePersistence.openRead(context, fileName)) {
+            Map<String, Long> purged = JsonStreams.GSON.fromJson(
+                    new InputStreamReader(fis, StandardCharsets.UTF_8), TYPE.getType());
+            return new Tombstones(purged != null ? new HashMap<>(purged) : new HashMap<>());
+        } catch (IOException | JsonParseException e) {
+            Log.e(TAG, "Could not load tombstones.");
+            return empty();
+        }
+    }
+
+    /**
+     * Atomically writes the given tombstones to internal storage.
+     *
+     * @param context  the Android context used for file access
+     * @param fileName {@link #FILE_NAME} or {@link #EVICTED_FILE_NAME}
+     * @param snapshot the tombstones to write
+     */
+    static void write(Context context, String fileName, Map<String, Long> snapshot) {
+        boolean written = FilePersistence.writeAtomically(context, fileName, out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            JsonStreams.GSON.toJson(snapshot, TYPE.getType(), writer);
+            writer.flush();
+        });
+        if (!written) Log.e(TAG, "Could not save tombstones.");
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.UserProfile;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Hand-written JSON codec for {@link UserProfile}, used for the peer list and the local profile.
+ * <p>
+ * Like {@link OfferTypeAdapter}, it writes exactly the format of Gson's reflective adapter, so
+ * existing files stay readable in both directions. Unknown fields are skipped.
+ */
+final class UserProfileTypeAdapter extends TypeAdapter<UserProfile> {
+
+    @Override
+    public void write(JsonWriter out, UserProfile profile) throws IOException {
+        if (profile == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        OfferTypeAdapter.writeString(out, "id", profile.getId());
+        OfferTypeAdapter.writeString(out, "name", profile.getName());
+        OfferTypeAdapter.writeString(out, "floor", profile.getFloor());
+        OfferTypeAdapter.writeString(out, "phone", profile.getPhone());
+        OfferTypeAdapter.writeString(out, "email", profile.getEmail());
+        OfferTypeAdapter.writeString(out, "meshId", profile.getMeshId());
+        out.name("timestamp").value(profile.getTimestamp());
+        out.name("lastSeen").value(profile.getLastSeen());
+        out.endObject();
+    }
+
+    @Override
+    public UserProfile read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        UserProfile profile = new UserProfile();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    profile.setId(in.nextString());
+                    break;
+                case "name":
+                    profile.setName(in.nextString());
+                    break;
+                case "floor":
+                    profile.setFloor(in.nextString());
+                    break;
+                case "phone":
+                    profile.setPhone(in.nextString());
+                    break;
+                case "email":
+                    profile.setEmail(in.nextString());
+                    break;
+                case "meshId":
+                    profile.setMeshId(in.nextString());
+                    break;
+                case "timestamp":
+                    profile.setTimestamp(in.nextLong());
+                    break;
+                case "lastSeen":
+                    profile.setLastSeen(in.nextLong());
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return profile;
+    }
+}
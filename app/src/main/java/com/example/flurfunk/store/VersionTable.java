@@ -0,0 +1,60 @@
+package com.example.flurfunk.store;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Version numbers of the objects in one data set, used by {@link StoreTransaction} to detect
+ * conflicting changes.
+ * <p>
+ * Every change of an object assigns it the next value of a counter. Replacing the whole data set
+ * assigns one new version to all objects at once, so only objects changed since then need an
+ * entry of their own.
+ * <p>
+ * This class is not thread-safe; the {@link DataRepository} guards all access.
+ */
+class VersionTable {
+
+    private final Map<String, Long> versions = new HashMap<>();
+    private long counter = 0;
+    private long base = 0;
+
+    /**
+     * @param id the object ID
+     * @return the current version of the object
+     */
+    long get(String id) {
+        Long version = versions.get(id);
+        return version != null ? version : base;
+    }
+
+    /**
+     * Records a change of a single object, including its removal.
+     *
+     * @param id the object ID
+     */
+    void bump(String id) {
+        versions.put(id, ++counter);
+    }
+
+    /**
+     * Drops the entry of a removed object, so that the table does not grow with every object
+     * ever stored. The removed object then has the base version again, so a new base version is
+     * assigned: every object without an entry of its own counts as changed, and reads of the
+     * removed object fail validation whatever version they saw.
+     *
+     * @param id the object ID
+     */
+    void remove(String id) {
+        versions.remove(id);
+        base = ++counter;
+    }
+
+    /**
+     * Records a change of all objects, e.g. after the data set was replaced.
+     */
+    void bumpAll() {
+        versions.clear();
+        base = ++counter;
+    }
+}
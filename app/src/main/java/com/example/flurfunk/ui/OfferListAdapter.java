@@ -19,11 +19,19 @@ import com.example.flurfunk.model.UserProfile;
 import com.example.flurfunk.store.PeerManager;
 import com.example.flurfunk.util.Constants;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * RecyclerView adapter for displaying a list of {@link Offer} objects in the UI.
  * <p>
+ * Offers are loaded page by page; further pages are added with {@link #appendOffers(List)}.
+ * Changes of single offers and their creators are applied in place with
+ * {@link #applyOffer(Offer, boolean, boolean)}, {@link #removeOffer(String)} and
+ * {@link #refreshCreator(String)}, so the list does not have to be reloaded.
+ * <p>
  * Each item displays the offer's title, creator name, floor, and contact information.
  * When tapped, the user is navigated to {@code OfferDetailFragment} for detailed viewing.
  * <p>
@@ -34,6 +42,14 @@ import java.util.List;
  * </ul>
  */
 public class OfferListAdapter extends RecyclerView.Adapter<OfferListAdapter.OfferViewHolder> {
+
+    /**
+     * The order of the list, matching the order of the pages: newest first, then by offer ID.
+     */
+    private static final Comparator<Offer> NEWEST_FIRST = Comparator
+            .comparingLong(Offer::getLastModified).reversed()
+            .thenComparing(Offer::getOfferId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
     private final List<Offer> offers;
     private final Context context;
     private Constants.Category category;
@@ -46,7 +62,7 @@ public class OfferListAdapter extends RecyclerView.Adapter<OfferListAdapter.Offe
      * @param category the category to filter and style the display accordingly
      */
     public OfferListAdapter(List<Offer> offers, Context context, Constants.Category category) {
-        this.offers = offers;
+        this.offers = new ArrayList<>(offers);
         this.context = context;
         this.category = category;
     }
@@ -116,6 +132,100 @@ public class OfferListAdapter extends RecyclerView.Adapter<OfferListAdapter.Offe
         }
     }
 
+    /**
+     * Adds the offers of a further page to the end of the list.
+     *
+     * @param more the offers to append
+     */
+    public void appendOffers(List<Offer> more) {
+        int start = offers.size();
+        for (Offer offer : more) {
+            if (indexOf(offer.getOfferId()) < 0) offers.add(offer);
+        }
+        if (offers.size() > start) notifyItemRangeInserted(start, offers.size() - start);
+    }
+
+    /**
+     * Inserts, moves or updates an offer after it has changed, or removes it if it no longer
+     * belongs to the list.
+     * <p>
+     * An offer that sorts behind the last loaded offer is only added if all pages have been
+     * loaded; otherwise it will arrive with a later page.
+     *
+     * @param offer    the offer in its new state
+     * @param matches  whether the offer matches the filter of the list
+     * @param complete whether all pages have been loaded
+     */
+    public void applyOffer(Offer offer, boolean matches, boolean complete) {
+        int index = indexOf(offer.getOfferId());
+        if (!matches) {
+            if (index >= 0) removeAt(index);
+            return;
+        }
+        if (index >= 0) {
+            offers.remove(index);
+        }
+        int position = insertionPoint(offer);
+        if (position == offers.size() && !complete) {
+            if (index >= 0) notifyItemRemoved(index);
+            return;
+        }
+        offers.add(position, offer);
+        if (index < 0) {
+            notifyItemInserted(position);
+        } else {
+            if (index != position) notifyItemMoved(index, position);
+            notifyItemChanged(position);
+        }
+    }
+
+    /**
+     * Removes the offer with the given ID if it is in the list.
+     *
+     * @param offerId the offer ID
+     */
+    public void removeOffer(String offerId) {
+        int index = indexOf(offerId);
+        if (index >= 0) removeAt(index);
+    }
+
+    /**
+     * Rebinds all offers of the given creator, e.g. after the creator's name or contact changed.
+     *
+     * @param creatorId the ID of the changed peer
+     */
+    public void refreshCreator(String creatorId) {
+        for (int i = 0; i < offers.size(); i++) {
+            if (Objects.equals(offers.get(i).getCreatorId(), creatorId)) notifyItemChanged(i);
+        }
+    }
+
+    private void removeAt(int index) {
+        offers.remove(index);
+        notifyItemRemoved(index);
+    }
+
+    private int indexOf(String offerId) {
+        for (int i = 0; i < offers.size(); i++) {
+            if (Objects.equals(offers.get(i).getOfferId(), offerId)) return i;
+        }
+        return -1;
+    }
+
+    private int insertionPoint(Offer offer) {
+        int low = 0;
+        int high = offers.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (NEWEST_FIRST.compare(offers.get(mid), offer) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     /**
      * @return the total number of offers in the list
      */
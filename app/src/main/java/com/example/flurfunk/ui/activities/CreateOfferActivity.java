@@ -1,5 +1,6 @@
 package com.example.flurfunk.ui.activities;
 
+import android.content.Context;
 import android.os.Bundle;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
@@ -17,12 +18,13 @@ import com.example.flurfunk.R;
 
 import com.example.flurfunk.model.Offer;
 import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.store.DataRepository;
 import com.example.flurfunk.store.OfferManager;
+import com.example.flurfunk.store.StorageExecutor;
 import com.example.flurfunk.util.Constants;
 import com.example.flurfunk.util.Constants.Category;
 import com.google.android.material.textfield.TextInputEditText;
 
-import java.util.List;
 
 /**
  * Activity for creating a new {@link Offer}.
@@ -92,6 +94,7 @@ public class CreateOfferActivity extends AppCompatActivity {
     /**
      * Validates the form input and creates a new {@link Offer} if all fields are valid.
      * The offer is saved to local storage and associated with the current user profile.
+     * Both happen on a storage thread; the activity closes once the offer has been stored.
      */
     private void createOffer() {
         String title = String.valueOf(editTitle.getText()).trim();
@@ -109,18 +112,19 @@ public class CreateOfferActivity extends AppCompatActivity {
             return;
         }
 
-        UserProfile profile = UserProfile.loadFromFile(this);
-        if (profile == null) {
-            Toast.makeText(this, "Kein Benutzerprofil gefunden.", Toast.LENGTH_LONG).show();
-            return;
-        }
-
-        Offer newOffer = new Offer(title, description, category, profile.getId());
-        List<Offer> offers = OfferManager.loadOffers(this);
-        OfferManager.updateOrAdd(offers, newOffer);
-        OfferManager.saveOffers(this, offers);
-
-        Toast.makeText(this, "Angebot erstellt!", Toast.LENGTH_SHORT).show();
-        finish();
+        Context context = getApplicationContext();
+        StorageExecutor.submit(() -> {
+            UserProfile profile = DataRepository.getInstance(context).getLocalProfile();
+            if (profile == null) return false;
+            OfferManager.updateOrAdd(context, new Offer(title, description, category, profile.getId()));
+            return true;
+        }, created -> {
+            if (!created) {
+                Toast.makeText(this, "Kein Benutzerprofil gefunden.", Toast.LENGTH_LONG).show();
+                return;
+            }
+            Toast.makeText(this, "Angebot erstellt!", Toast.LENGTH_SHORT).show();
+            finish();
+        });
     }
 }
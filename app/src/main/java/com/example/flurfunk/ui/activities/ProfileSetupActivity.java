@@ -14,7 +14,9 @@ import androidx.core.view.WindowInsetsCompat;
 import com.example.flurfunk.MainActivity;
 import com.example.flurfunk.R;
 import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.store.DataRepository;
 import com.example.flurfunk.store.PeerManager;
+import com.example.flurfunk.store.StorageExecutor;
 import com.google.android.material.textfield.TextInputEditText;
 
 /**
@@ -74,9 +76,9 @@ public class ProfileSetupActivity extends AppCompatActivity {
             }
 
             UserProfile profile = new UserProfile(street, houseNumber, zipCode, city, name, floor, phone, email);
-            profile.saveToFile(this);
+            DataRepository.getInstance(this).saveLocalProfile(profile);
             Toast.makeText(this, "Profil gespeichert!", Toast.LENGTH_SHORT).show();
-            PeerManager.updateOrAddPeer(this, profile);
+            StorageExecutor.execute(() -> PeerManager.updateOrAddPeer(getApplicationContext(), profile));
 
             Intent intent = new Intent(ProfileSetupActivity.this, MainActivity.class);
             startActivity(intent);
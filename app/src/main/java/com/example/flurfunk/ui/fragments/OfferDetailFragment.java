@@ -1,6 +1,7 @@
 package com.example.flurfunk.ui.fragments;
 
 import android.app.AlertDialog;
+import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
@@ -19,13 +20,14 @@ import androidx.fragment.app.Fragment;
 import com.example.flurfunk.R;
 import com.example.flurfunk.model.Offer;
 import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.store.DataRepository;
 import com.example.flurfunk.store.OfferManager;
 import com.example.flurfunk.store.PeerManager;
+import com.example.flurfunk.store.StorageExecutor;
 import com.example.flurfunk.util.Constants;
 
 import java.text.DateFormat;
 import java.util.Date;
-import java.util.List;
 
 /**
  * A fragment that displays detailed information about a selected {@link Offer}.
@@ -34,6 +36,9 @@ import java.util.List;
  * and if the current user is the creator, allows them to deactivate or hide the offer.
  * <p>
  * Hiding an offer removes it from the user's own list permanently.
+ * <p>
+ * The offer is loaded and changed through the {@link StorageExecutor}, never on the UI thread.
+ * Its description is not kept in memory with the offer and is read from disk together with it.
  */
 public class OfferDetailFragment extends Fragment {
 
@@ -75,9 +80,24 @@ public class OfferDetailFragment extends Fragment {
         String offerId = getArguments() != null ? getArguments().getString("offerId") : null;
         if (offerId == null) return;
 
-        List<Offer> offers = OfferManager.loadOffers(requireContext());
-        Offer offer = OfferManager.getOfferById(offers, offerId);
-        if (offer == null) return;
+        Context context = requireContext().getApplicationContext();
+        StorageExecutor.submit(() -> OfferDetails.load(context, offerId), details -> {
+            if (details.offer != null && getView() == view) {
+                showOffer(view, details);
+            }
+        });
+    }
+
+    /**
+     * Fills the views with the loaded offer and sets up the actions for the offer's creator.
+     *
+     * @param view    the root view of the fragment
+     * @param details the loaded offer, its creator and the local user ID
+     */
+    private void showOffer(View view, OfferDetails details) {
+        Offer offer = details.offer;
+        String offerId = offer.getOfferId();
+        Context context = requireContext().getApplicationContext();
 
         TextView titleView = view.findViewById(R.id.detailTitle);
         TextView descriptionView = view.findViewById(R.id.detailDescription);
@@ -93,13 +113,12 @@ public class OfferDetailFragment extends Fragment {
         annotationView.setVisibility(View.GONE);
 
         titleView.setText(offer.getTitle());
-        descriptionView.setText(offer.getDescription());
+        descriptionView.setText(details.description);
         DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.MEDIUM);
         String createdAtFormatted = dateFormat.format(new Date(offer.getCreatedAt()));
         createdAtView.setText(createdAtFormatted);
 
-        List<UserProfile> peers = PeerManager.loadPeers(requireContext());
-        UserProfile creator = peers.stream().filter(peer -> peer.getId().equals(offer.getCreatorId())).findFirst().orElse(null);
+        UserProfile creator = details.creator;
 
         if (creator != null) {
             nameView.setText(creator.getName() != null ? creator.getName() : getString(R.string.unknown_user));
@@ -133,27 +152,17 @@ public class OfferDetailFragment extends Fragment {
         Button deactivateButton = view.findViewById(R.id.buttonDeactivate);
         Button hideButton = view.findViewById(R.id.buttonHide);
 
-        String currentUserId = UserProfile.loadFromFile(requireContext()).getId();
-        boolean isOwnOffer = currentUserId.equals(offer.getCreatorId());
+        boolean isOwnOffer = details.currentUserId != null && details.currentUserId.equals(offer.getCreatorId());
 
         if (isOwnOffer) {
             deactivateButton.setVisibility(View.VISIBLE);
             updateButtonLabel(deactivateButton, offer.getStatus());
 
-            deactivateButton.setOnClickListener(v -> {
-                Constants.OfferStatus newStatus = (offer.getStatus() == Constants.OfferStatus.ACTIVE)
-                        ? Constants.OfferStatus.INACTIVE
-                        : Constants.OfferStatus.ACTIVE;
-
-                offer.setStatus(newStatus);
-                offer.setLastModified(System.currentTimeMillis());
-
-                List<Offer> allOffers = OfferManager.loadOffers(requireContext());
-                OfferManager.updateOrAdd(allOffers, offer);
-                OfferManager.saveOffers(requireContext(), allOffers);
-
-                updateButtonLabel(deactivateButton, newStatus);
-            });
+            deactivateButton.setOnClickListener(v -> StorageExecutor.submit(() -> toggleStatus(context, offerId), newStatus -> {
+                if (newStatus != null && getView() == view) {
+                    updateButtonLabel(deactivateButton, newStatus);
+                }
+            }));
 
             hideButton.setVisibility(View.VISIBLE);
 
@@ -162,13 +171,14 @@ public class OfferDetailFragment extends Fragment {
                         .setTitle("Angebot ausblenden")
                         .setMessage("Willst du dieses Angebot wirklich aus deiner Liste entfernen? Diese Aktion kannst du nicht rückgängig machen.")
                         .setPositiveButton("Ja", (dialog, which) -> {
-                            offer.setStatus(Constants.OfferStatus.INACTIVE);
-                            offer.setDeleted(true);
-                            offer.setLastModified(System.currentTimeMillis());
-
-                            List<Offer> allOffers = OfferManager.loadOffers(requireContext());
-                            OfferManager.updateOrAdd(allOffers, offer);
-                            OfferManager.saveOffers(requireContext(), allOffers);
+                            StorageExecutor.execute(() -> OfferManager.runInTransaction(context, transaction -> {
+                                Offer current = transaction.getOffer(offerId);
+                                if (current == null) return;
+                                current.setStatus(Constants.OfferStatus.INACTIVE);
+                                current.setDeleted(true);
+                                current.setLastModified(System.currentTimeMillis());
+                                transaction.putOffer(current);
+                            }));
 
                             requireActivity().onBackPressed();
                         })
@@ -180,6 +190,28 @@ public class OfferDetailFragment extends Fragment {
         }
     }
 
+    /**
+     * Switches an offer between active and inactive. Runs on a storage thread.
+     *
+     * @param context the Android context used to access the repository
+     * @param offerId the ID of the offer
+     * @return the new status, or {@code null} if the offer no longer exists
+     */
+    private static Constants.OfferStatus toggleStatus(Context context, String offerId) {
+        Constants.OfferStatus[] newStatus = new Constants.OfferStatus[1];
+        OfferManager.runInTransaction(context, transaction -> {
+            Offer current = transaction.getOffer(offerId);
+            if (current == null) return;
+            newStatus[0] = (current.getStatus() == Constants.OfferStatus.ACTIVE)
+                    ? Constants.OfferStatus.INACTIVE
+                    : Constants.OfferStatus.ACTIVE;
+            current.setStatus(newStatus[0]);
+            current.setLastModified(System.currentTimeMillis());
+            transaction.putOffer(current);
+        });
+        return newStatus[0];
+    }
+
     /**
      * Updates the deactivate/reactivate button label and color based on offer status.
      *
@@ -196,4 +228,25 @@ public class OfferDetailFragment extends Fragment {
         }
     }
 
+    /**
+     * The data shown by this fragment, loaded together on a storage thread.
+     */
+    private static class OfferDetails {
+        Offer offer;
+        String description;
+        UserProfile creator;
+        String currentUserId;
+
+        static OfferDetails load(Context context, String offerId) {
+            OfferDetails details = new OfferDetails();
+            details.offer = OfferManager.getOfferById(context, offerId);
+            if (details.offer != null) {
+                details.description = OfferManager.loadDescription(context, offerId);
+                details.creator = PeerManager.getPeerById(context, details.offer.getCreatorId());
+            }
+            UserProfile profile = DataRepository.getInstance(context).getLocalProfile();
+            details.currentUserId = profile != null ? profile.getId() : null;
+            return details;
+        }
+    }
 }
@@ -1,7 +1,12 @@
 package com.example.flurfunk.ui.fragments;
 
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -9,23 +14,23 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import android.view.LayoutInflater;
-import android.view.View;
-import android.view.ViewGroup;
-import android.widget.TextView;
-
 import com.example.flurfunk.R;
+import com.example.flurfunk.model.Offer;
 import com.example.flurfunk.model.UserProfile;
 import com.example.flurfunk.ui.OfferListAdapter;
-import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.store.DataRepository;
 import com.example.flurfunk.store.OfferManager;
+import com.example.flurfunk.store.OfferPage;
+import com.example.flurfunk.store.StorageExecutor;
+import com.example.flurfunk.store.StoreChange;
 import com.example.flurfunk.ui.activities.CreateOfferActivity;
 import com.example.flurfunk.util.Constants;
 import com.example.flurfunk.util.Constants.Category;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * A fragment that displays a list of offers filtered by {@link Constants.Category}.
@@ -33,13 +38,30 @@ import java.util.List;
  * If the category is {@code MY_OFFERS}, only offers created by the current user are shown.
  * Otherwise, the fragment shows all active, non-deleted offers within the selected category.
  * <p>
+ * Offers are shown newest first and loaded in pages of {@link #PAGE_SIZE}; the next page is
+ * loaded when the user scrolls close to the end of the list, so the time to show the first
+ * offers does not depend on the total number of stored offers. Pages are loaded through the
+ * {@link StorageExecutor} and shown when they arrive on the main thread.
+ * <p>
  * A floating action button allows users to create new offers in the current category.
- * The list updates automatically when the fragment is resumed.
+ * The list follows the repository's change notifications: added, changed and removed offers are
+ * applied to the loaded list in place, and offers are rebound when their creator changes. Only if
+ * the whole store was replaced, or changes were missed while the fragment was stopped, is the
+ * first page loaded again.
  */
 public class OfferListFragment extends Fragment {
 
     private static final String CATEGORY = "category";
+    private static final int PAGE_SIZE = 30;
+    private static final int PREFETCH_DISTANCE = 10;
+
     private Category category;
+    private OfferListAdapter adapter;
+    private OfferPage lastPage;
+    private boolean loading;
+    private int generation;
+    private String localUserId;
+    private final List<StoreChange> pendingChanges = new ArrayList<>();
 
     /**
      * Reads the category to display from the fragment arguments.
@@ -65,12 +87,8 @@ public class OfferListFragment extends Fragment {
     /**
      * Inflates the offer list layout and sets up the RecyclerView.
      * <p>
-     * Offers are filtered based on the selected category:
-     * <ul>
-     *     <li>{@code MY_OFFERS} → only user's own offers (excluding deleted)</li>
-     *     <li>Other categories → only active, non-deleted offers in the selected category</li>
-     * </ul>
-     * If the filtered list is empty, a placeholder text is shown.
+     * The offers themselves are loaded in {@link #onViewCreated(View, Bundle)}. A scroll listener loads the next
+     * page once fewer than {@link #PREFETCH_DISTANCE} offers are left below the visible ones.
      * The floating action button opens the {@link CreateOfferActivity}.
      *
      * @param inflater           the layout inflater
@@ -84,32 +102,26 @@ public class OfferListFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_offer_list, container, false);
 
         RecyclerView recyclerView = view.findViewById(R.id.recyclerViewOffers);
-        recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
-
-        TextView emptyView = view.findViewById(R.id.emptyView);
-
-        List<Offer> offers = OfferManager.loadOffers(requireContext());
-        if (category == Category.MY_OFFERS) {
-            String myId = UserProfile.loadFromFile(requireContext()).getId();
-            offers = OfferManager.filterByCreator(offers, myId);
-            offers = OfferManager.filterByDeletion(offers, false);
-        } else if (category != null) {
-            offers = OfferManager.filterByCategory(offers, category);
-            offers = OfferManager.filterByStatus(offers, Constants.OfferStatus.ACTIVE);
-            offers = OfferManager.filterByDeletion(offers, false);
-        } else {
-            offers = Collections.emptyList();
-        }
-
-        recyclerView.setAdapter(new OfferListAdapter(offers, requireContext(), category));
-
-        if (offers.isEmpty()) {
-            emptyView.setVisibility(View.VISIBLE);
-            recyclerView.setVisibility(View.GONE);
-        } else {
-            emptyView.setVisibility(View.GONE);
-            recyclerView.setVisibility(View.VISIBLE);
-        }
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0 || loading || adapter == null || lastPage == null || !lastPage.hasMore()) return;
+                if (layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    OfferPage after = lastPage;
+                    OfferListAdapter target = adapter;
+                    Context context = requireContext().getApplicationContext();
+                    loading = true;
+                    StorageExecutor.submit(() -> loadPage(context, category, after), page -> {
+                        if (adapter != target) return;
+                        loading = false;
+                        lastPage = page;
+                        target.appendOffers(page.getOffers());
+                    });
+                }
+            }
+        });
 
         FloatingActionButton fab = view.findViewById(R.id.fabCreateOffer);
         fab.setOnClickListener(v -> {
@@ -122,36 +134,118 @@ public class OfferListFragment extends Fragment {
     }
 
     /**
-     * Reloads the list of offers when the fragment becomes visible again.
-     * <p>
-     * This ensures that new or changed offers (e.g., created, deleted, deactivated)
-     * are reflected in the UI without requiring a full restart.
-     * <p>
-     * If the offer list is empty after filtering, a placeholder message is shown.
+     * Loads the first page of offers and starts observing changes for the lifetime of the view.
+     *
+     * @param view               the root view of the fragment
+     * @param savedInstanceState unused
      */
     @Override
-    public void onResume() {
-        super.onResume();
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        OfferManager.observeChanges(requireContext()).observe(getViewLifecycleOwner(), this::onStoreChanged);
+        loadFirstPage();
+    }
 
-        RecyclerView recyclerView = requireView().findViewById(R.id.recyclerViewOffers);
-        TextView emptyView = requireView().findViewById(R.id.emptyView);
+    /**
+     * Loads the first page of offers, replacing the current list once it arrives.
+     */
+    private void loadFirstPage() {
+        Context context = requireContext().getApplicationContext();
+        int requested = ++generation;
+        adapter = null;
+        loading = true;
+        pendingChanges.clear();
+        StorageExecutor.submit(() -> loadPage(context, category, null), page -> {
+            if (requested == generation) showFirstPage(page);
+        });
+    }
+
+    /**
+     * Shows a freshly loaded first page, replacing the current list. Changes received while the
+     * page was loading are applied afterwards; applying a change the page already contains has
+     * no effect.
+     *
+     * @param page the first page of offers
+     */
+    private void showFirstPage(OfferPage page) {
+        View view = getView();
+        if (view == null) return;
+
+        RecyclerView recyclerView = view.findViewById(R.id.recyclerViewOffers);
+
+        UserProfile profile = DataRepository.getInstance(requireContext()).getLocalProfile();
+        localUserId = profile != null ? profile.getId() : null;
+        loading = false;
+        lastPage = page;
+        adapter = new OfferListAdapter(lastPage.getOffers(), requireContext(), category);
+        recyclerView.setAdapter(adapter);
+
+        List<StoreChange> pending = new ArrayList<>(pendingChanges);
+        pendingChanges.clear();
+        if (!pending.isEmpty()) onStoreChanged(pending);
+        updateEmptyView();
+    }
+
+    /**
+     * Applies a batch of store changes to the shown list.
+     * <p>
+     * While the first page is loading, the changes are kept until it arrives. A
+     * {@link StoreChange.Type#RELOAD} loads the first page again.
+     *
+     * @param changes the changes, in the order they were applied
+     */
+    private void onStoreChanged(List<StoreChange> changes) {
+        if (getView() == null) return;
+        if (adapter == null) {
+            pendingChanges.addAll(changes);
+            return;
+        }
+        for (StoreChange change : changes) {
+            switch (change.getType()) {
+                case OFFER_ADDED:
+                case OFFER_UPDATED:
+                case OFFER_STATUS_CHANGED:
+                    adapter.applyOffer(change.getOffer(), matchesFilter(change.getOffer()),
+                            lastPage == null || !lastPage.hasMore());
+                    break;
+                case OFFER_REMOVED:
+                case OFFER_EVICTED:
+                    adapter.removeOffer(change.getId());
+                    break;
+                case PEER_ADDED:
+                case PEER_UPDATED:
+                    adapter.refreshCreator(change.getId());
+                    break;
+                case RELOAD:
+                    loadFirstPage();
+                    return;
+            }
+        }
+        updateEmptyView();
+    }
 
-        List<Offer> offers = OfferManager.loadOffers(requireContext());
+    /**
+     * Checks whether an offer belongs to this list, using the same criteria as
+     * {@link #loadPage(Context, Category, OfferPage)}.
+     */
+    private boolean matchesFilter(Offer offer) {
+        if (offer.isDeleted()) return false;
         if (category == Category.MY_OFFERS) {
-            String myId = UserProfile.loadFromFile(requireContext()).getId();
-            offers = OfferManager.filterByCreator(offers, myId);
-            offers = OfferManager.filterByDeletion(offers, false);
-        } else if (category != null) {
-            offers = OfferManager.filterByCategory(offers, category);
-            offers = OfferManager.filterByStatus(offers, Constants.OfferStatus.ACTIVE);
-            offers = OfferManager.filterByDeletion(offers, false);
-        } else {
-            offers = Collections.emptyList();
+            return localUserId != null && Objects.equals(localUserId, offer.getCreatorId());
         }
+        return offer.getCategory() == category && offer.getStatus() == Constants.OfferStatus.ACTIVE;
+    }
 
-        recyclerView.setAdapter(new OfferListAdapter(offers, requireContext(), category));
+    /**
+     * Shows a placeholder message instead of the list if no offer matches the filter.
+     */
+    private void updateEmptyView() {
+        View view = getView();
+        if (view == null || adapter == null) return;
 
-        if (offers.isEmpty()) {
+        RecyclerView recyclerView = view.findViewById(R.id.recyclerViewOffers);
+        TextView emptyView = view.findViewById(R.id.emptyView);
+        if (adapter.getItemCount() == 0) {
             emptyView.setVisibility(View.VISIBLE);
             recyclerView.setVisibility(View.GONE);
         } else {
@@ -159,4 +253,29 @@ public class OfferListFragment extends Fragment {
             recyclerView.setVisibility(View.VISIBLE);
         }
     }
+
+    /**
+     * Loads the page following {@code after}, filtered by the selected category:
+     * <ul>
+     *     <li>{@code MY_OFFERS} → only user's own offers (excluding deleted)</li>
+     *     <li>Other categories → only active, non-deleted offers in the selected category</li>
+     * </ul>
+     * Runs on a storage thread. The repository is preloaded first, so that the adapter's peer
+     * lookups on the UI thread are served from memory.
+     *
+     * @param context  the Android context used to access the repository
+     * @param category the selected category
+     * @param after    the previously loaded page, or {@code null} for the first page
+     * @return the loaded {@link OfferPage}
+     */
+    private static OfferPage loadPage(Context context, Category category, OfferPage after) {
+        DataRepository repository = DataRepository.getInstance(context);
+        repository.preload();
+        if (category == Category.MY_OFFERS) {
+            String myId = repository.getLocalProfile().getId();
+            return OfferManager.queryOfferPage(context, null, null, myId, false, after, PAGE_SIZE);
+        }
+        return OfferManager.queryOfferPage(context, category, Constants.OfferStatus.ACTIVE, null, false,
+                after, PAGE_SIZE);
+    }
 }
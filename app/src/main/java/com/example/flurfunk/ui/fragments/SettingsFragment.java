@@ -22,7 +22,9 @@ import com.example.flurfunk.R;
 import com.example.flurfunk.model.UserProfile;
 import com.example.flurfunk.network.LoRaManager;
 import com.example.flurfunk.network.PeerSyncManager;
+import com.example.flurfunk.store.DataRepository;
 import com.example.flurfunk.store.PeerManager;
+import com.example.flurfunk.store.StorageExecutor;
 import com.example.flurfunk.ui.activities.ProfileSetupActivity;
 
 /**
@@ -78,12 +80,15 @@ public class SettingsFragment extends Fragment {
         Button buttonDelete = view.findViewById(R.id.buttonDeleteProfile);
 
         Context context = requireContext();
-        profile = UserProfile.loadFromFile(context);
-        if (profile != null) {
-            editFloor.setText(profile.getFloor());
-            editEmail.setText(profile.getEmail());
-            editPhone.setText(profile.getPhone());
-        }
+        Context appContext = context.getApplicationContext();
+        StorageExecutor.submit(() -> DataRepository.getInstance(appContext).getLocalProfile(), loaded -> {
+            profile = loaded;
+            if (profile != null && getView() == view) {
+                editFloor.setText(profile.getFloor());
+                editEmail.setText(profile.getEmail());
+                editPhone.setText(profile.getPhone());
+            }
+        });
 
         buttonSave.setOnClickListener(v -> {
             if (profile != null) {
@@ -92,8 +97,11 @@ public class SettingsFragment extends Fragment {
                 profile.setPhone(editPhone.getText().toString());
                 profile.updateTimestamp();
                 profile.updateLastSeen();
-                profile.saveToFile(context);
-                PeerManager.updateOrAddPeer(context, profile);
+                UserProfile changed = profile;
+                StorageExecutor.execute(() -> {
+                    DataRepository.getInstance(appContext).saveLocalProfile(changed);
+                    PeerManager.updateOrAddPeer(appContext, changed);
+                });
 
                 Toast.makeText(context, "Profil gespeichert", Toast.LENGTH_SHORT).show();
                 requireActivity().getSupportFragmentManager().popBackStack();
@@ -114,7 +122,7 @@ public class SettingsFragment extends Fragment {
                             Log.e(TAG, "Failed to broadcast profile deletion", e);
                         }
 
-                        UserProfile.deleteProfileFile(context);
+                        DataRepository.getInstance(context).deleteLocalProfile();
 
                         Intent intent = new Intent(context, ProfileSetupActivity.class);
                         startActivity(intent);
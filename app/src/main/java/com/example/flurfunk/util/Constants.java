@@ -115,11 +115,68 @@ public class Constants {
         }
     }
 
+    /**
+     * Enumeration of the available on-disk storage formats for offers.
+     */
+    public enum StorageMode {
+        /**
+         * A single JSON file that is rewritten on every change.
+         */
+        JSON,
+        /**
+         * A JSON snapshot plus an append-only journal of changes, compacted in the background.
+         */
+        JOURNAL,
+        /**
+         * A compact binary file with an offset index, read through a memory mapping.
+         * Existing JSON data is migrated on first load.
+         */
+        BINARY,
+        /**
+         * Tables in an SQLite database, used for offers and peers.
+         * Existing JSON data is migrated on first load.
+         */
+        SQLITE
+    }
+
+    /**
+     * The storage format used for offers. Peers are stored in the database in
+     * {@link StorageMode#SQLITE} mode and in a JSON file otherwise.
+     */
+    public static final StorageMode STORAGE_MODE = StorageMode.JOURNAL;
+
+    /**
+     * The maximum number of stored offers. Beyond this, the least recently used offers of other
+     * users are evicted.
+     */
+    public static final int OFFER_QUOTA_COUNT = 5_000;
+
+    /**
+     * The maximum estimated size of all stored offers in bytes. Beyond this, the least recently
+     * used offers of other users are evicted.
+     */
+    public static final long OFFER_QUOTA_BYTES = 4L * 1024 * 1024;
+
     /**
      * The name of the JSON file where offer data is stored.
      */
     public static final String OFFER_FILE = "offers.json";
 
+    /**
+     * The name of the append-only journal file used in {@link StorageMode#JOURNAL} mode.
+     */
+    public static final String OFFER_JOURNAL_FILE = "offers.journal";
+
+    /**
+     * The name of the binary offer file used in {@link StorageMode#BINARY} mode.
+     */
+    public static final String OFFER_BINARY_FILE = "offers.bin";
+
+    /**
+     * The name of the SQLite database used in {@link StorageMode#SQLITE} mode.
+     */
+    public static final String DATABASE_NAME = "flurfunk.db";
+
     /**
      * Returns a list of display names for all available categories.
      *
@@ -24,7 +24,8 @@ public class Protocol {
     // --- Command keywords ---
 
     /**
-     * Offer synchronization: summary of known offers (IDs and timestamps).
+     * Offer synchronization: summary of known offers (IDs and timestamps), or hashes of a
+     * subtree of the offer hash trie ({@link #KEY_PFX}, {@link #KEY_HSH}).
      */
     public static final String SYNOF = "SYNOF";
     /**
@@ -37,7 +38,8 @@ public class Protocol {
     public static final String OFDAT = "OFDAT";
 
     /**
-     * Peer synchronization: summary of known peer profiles.
+     * Peer synchronization: summary of known peer profiles, or only a digest over them
+     * ({@link #KEY_DIG}).
      */
     public static final String SYNPR = "SYNPR";
     /**
@@ -91,6 +93,16 @@ public class Protocol {
      * List of requested offer IDs.
      */
     public static final String KEY_REQ = "REQ";
+    /**
+     * Prefix of the offer hash trie a {@code SYNOF} message refers to; empty for the whole trie.
+     * With {@link #KEY_OFF}, the summaries are the complete list of offers below the prefix.
+     */
+    public static final String KEY_PFX = "PFX";
+    /**
+     * Comma-separated hex hashes of the offer hash trie: either the hash of the prefix itself,
+     * or the hashes of its 16 children.
+     */
+    public static final String KEY_HSH = "HSH";
     /**
      * Array of full offer objects.
      */
@@ -146,6 +158,11 @@ public class Protocol {
      * Last seen timestamp.
      */
     public static final String KEY_LS = "LS";
+    /**
+     * Hex digest over the IDs and timestamps of all known peer profiles, independent of their
+     * order.
+     */
+    public static final String KEY_DIG = "DIG";
 
     /**
      * Builds a protocol message string from a command and a set of key-value pairs.
@@ -0,0 +1,127 @@
+package com.example.flurfunk.network;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link OfferHashTrie} class.
+ * <p>
+ * These tests verify:
+ * <ul>
+ *     <li>Hashes independent of the order offers were added in</li>
+ *     <li>Incremental updates of the root hash</li>
+ *     <li>Child hashes and entries below a prefix</li>
+ *     <li>Validation of prefixes received from other nodes</li>
+ * </ul>
+ */
+public class OfferHashTrieTest {
+
+    private static String path(String offerId) {
+        return String.format("%016x", OfferHashTrie.pathOf(offerId));
+    }
+
+    /**
+     * Verifies that two tries with the same offer versions have the same root hash regardless of
+     * insertion order, and that a different version changes it.
+     */
+    @Test
+    public void testRootHashIsOrderIndependent() {
+        OfferHashTrie first = new OfferHashTrie();
+        OfferHashTrie second = new OfferHashTrie();
+        for (int i = 0; i < 50; i++) {
+            first.put("offer" + i, 1000 + i);
+            second.put("offer" + (49 - i), 1049 - i);
+        }
+        assertEquals(first.hash(""), second.hash(""));
+
+        second.put("offer7", 5000);
+        assertNotEquals(first.hash(""), second.hash(""));
+        assertEquals(50, second.size());
+    }
+
+    /**
+     * Verifies that the root hash maintained across updates and removals equals the hash of a
+     * trie built from the remaining offers.
+     */
+    @Test
+    public void testIncrementalRootHash() {
+        OfferHashTrie trie = new OfferHashTrie();
+        for (int i = 0; i < 20; i++) trie.put("offer" + i, i);
+        trie.put("offer3", 300);
+        trie.remove("offer5");
+        trie.remove("unknown");
+
+        OfferHashTrie rebuilt = new OfferHashTrie();
+        for (int i = 0; i < 20; i++) {
+            if (i != 5) rebuilt.put("offer" + i, i == 3 ? 300 : i);
+        }
+        assertEquals(rebuilt.hash(""), trie.hash(""));
+        assertEquals(19, trie.size());
+
+        for (int i = 0; i < 20; i++) trie.remove("offer" + i);
+        assertEquals(0, trie.hash(""));
+    }
+
+    /**
+     * Verifies that the child hashes of a prefix combine to its hash and that entries are
+     * selected by the leading digits of their path.
+     */
+    @Test
+    public void testChildHashesAndEntries() {
+        OfferHashTrie trie = new OfferHashTrie();
+        for (int i = 0; i < 200; i++) trie.put("offer" + i, i);
+
+        long combined = 0;
+        for (long hash : trie.childHashes("")) combined ^= hash;
+        assertEquals(trie.hash(""), combined);
+
+        String prefix = path("offer42").substring(0, 2);
+        long childCombined = 0;
+        for (long hash : trie.childHashes(prefix)) childCombined ^= hash;
+        assertEquals(trie.hash(prefix), childCombined);
+
+        Map<String, Long> below = trie.entries(prefix);
+        assertEquals(Long.valueOf(42), below.get("offer42"));
+        for (String offerId : below.keySet()) assertTrue(path(offerId).startsWith(prefix));
+
+        int total = 0;
+        for (int digit = 0; digit < OfferHashTrie.RADIX; digit++) {
+            total += trie.entries(Character.toString(Character.forDigit(digit, 16))).size();
+        }
+        assertEquals(200, total);
+    }
+
+    /**
+     * Verifies that a full-length prefix selects exactly the offer on that path and that prefixes
+     * ending at the last path are bounded correctly.
+     */
+    @Test
+    public void testFullLengthPrefix() {
+        OfferHashTrie trie = new OfferHashTrie();
+        trie.put("a", 1);
+        trie.put("b", 2);
+
+        assertEquals(1, trie.entries(path("a")).size());
+        assertEquals(OfferHashTrie.hashOf("a", 1), trie.hash(path("a")));
+        assertTrue(trie.entries("ffffffffffffffff").isEmpty());
+        for (int i = 0; i < 100; i++) trie.put("offer" + i, i);
+        for (String offerId : trie.entries("f").keySet()) assertTrue(path(offerId).startsWith("f"));
+    }
+
+    /**
+     * Verifies that only lowercase hex strings of at most 16 digits are accepted as prefixes.
+     */
+    @Test
+    public void testIsValidPrefix() {
+        assertTrue(OfferHashTrie.isValidPrefix(""));
+        assertTrue(OfferHashTrie.isValidPrefix("0af"));
+        assertTrue(OfferHashTrie.isValidPrefix("ffffffffffffffff"));
+        assertFalse(OfferHashTrie.isValidPrefix(null));
+        assertFalse(OfferHashTrie.isValidPrefix("0AF"));
+        assertFalse(OfferHashTrie.isValidPrefix("xyz"));
+        assertFalse(OfferHashTrie.isValidPrefix("00000000000000000"));
+    }
+}
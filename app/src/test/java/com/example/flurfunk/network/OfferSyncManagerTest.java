@@ -21,6 +21,7 @@ import org.mockito.Mockito;
 import org.robolectric.RobolectricTestRunner;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -35,7 +36,14 @@ import static org.mockito.Mockito.*;
  * These tests verify correct behavior of the offer synchronization logic,
  * including:
  * <ul>
- *     <li>Broadcasting offer summaries (SYNOF)</li>
+ *     <li>Broadcasting the root hash of the offer summaries (SYNOF)</li>
+ *     <li>Answering a differing hash with the offers below it</li>
+ *     <li>Ignoring sync messages from other meshes</li>
+ *     <li>Matching root hashes of nodes that differ only in offers retention may purge</li>
+ *     <li>Advertising deleted versions of offers another node still lists</li>
+ *     <li>Delaying offer requests and dropping offers requested by other nodes</li>
+ *     <li>Cancelling offer data responses when another node answers first</li>
+ *     <li>Not repeating requests that are still awaiting an answer</li>
  *     <li>Sending encrypted offer data in response to requests (REQOF)</li>
  *     <li>Receiving and decrypting offer data (OFDAT)</li>
  *     <li>Chunking of large offer lists to fit LoRa constraints</li>
@@ -64,7 +72,7 @@ public class OfferSyncManagerTest {
 
     /**
      * Tests that {@link OfferSyncManager#sendOfferSync()} broadcasts a SYNOF message
-     * containing the local offer IDs if the creator is active.
+     * containing the root hash over the local offers whose creator is known.
      */
     @Test
     public void testSendOfferSync() {
@@ -89,14 +97,188 @@ public class OfferSyncManagerTest {
             ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
             verify(loRaManager, atLeastOnce()).sendBroadcast(captor.capture());
 
-            boolean containsOid = captor.getAllValues().stream().anyMatch(m -> m.contains("abc123"));
-            assertTrue("At least one message should contain offer ID", containsOid);
+            String rootHash = Long.toHexString(OfferHashTrie.hashOf("abc123", 1234));
+            boolean containsHash = captor.getAllValues().stream()
+                    .anyMatch(m -> m.contains(Protocol.KEY_HSH + "=" + rootHash));
+            assertTrue("At least one message should contain the root hash", containsHash);
+        }
+    }
+
+    /**
+     * Verifies that a root hash differing from the local one is answered with the list of local
+     * offers, which fits into a single message.
+     */
+    @Test
+    public void testHandleSyncMessage_differingRootHash() {
+        Offer offer = new Offer();
+        offer.setOfferId("abc123");
+        offer.setCreatorId("local-id");
+        offer.setLastModified(1234);
+
+        try (MockedStatic<OfferManager> offerMock = Mockito.mockStatic(OfferManager.class);
+             MockedStatic<PeerManager> peerMock = Mockito.mockStatic(PeerManager.class)) {
+
+            offerMock.when(() -> OfferManager.loadOffers(context)).thenReturn(Collections.singletonList(offer));
+            peerMock.when(() -> PeerManager.getPeerById(context, "local-id")).thenReturn(userProfile);
+
+            Map<String, String> payload = new HashMap<>();
+            payload.put(Protocol.KEY_MID, "mesh-123");
+            payload.put(Protocol.KEY_PFX, "");
+            payload.put(Protocol.KEY_HSH, Long.toHexString(OfferHashTrie.hashOf("other", 99)));
+
+            offerSyncManager.handleSyncMessage(new Protocol.ParsedMessage(Protocol.SYNOF, payload));
+            verify(loRaManager, never()).sendBroadcast(anyString());
+            offerSyncManager.sendDueSubtreeAnswers(Long.MAX_VALUE);
+
+            ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+            verify(loRaManager).sendBroadcast(captor.capture());
+            assertTrue(captor.getValue().contains("abc123"));
+            assertFalse(captor.getValue().contains(Protocol.KEY_HSH + "="));
+        }
+    }
+
+    /**
+     * Verifies that a pending subtree answer is cancelled when another node's identical answer
+     * is overheard, and that the prefix is not answered again right away.
+     */
+    @Test
+    public void testHandleSyncMessage_subtreeAnswerCancelledWhenOverheard() throws Exception {
+        Offer offer = new Offer();
+        offer.setOfferId("abc123");
+        offer.setCreatorId("local-id");
+        offer.setLastModified(1234);
+
+        try (MockedStatic<OfferManager> offerMock = Mockito.mockStatic(OfferManager.class);
+             MockedStatic<PeerManager> peerMock = Mockito.mockStatic(PeerManager.class)) {
+
+            offerMock.when(() -> OfferManager.loadOffers(context)).thenReturn(Collections.singletonList(offer));
+            offerMock.when(() -> OfferManager.getOfferById(context, "abc123")).thenReturn(offer);
+            peerMock.when(() -> PeerManager.getPeerById(context, "local-id")).thenReturn(userProfile);
+
+            Map<String, String> root = new HashMap<>();
+            root.put(Protocol.KEY_MID, "mesh-123");
+            root.put(Protocol.KEY_PFX, "");
+            root.put(Protocol.KEY_HSH, Long.toHexString(OfferHashTrie.hashOf("other", 99)));
+            offerSyncManager.handleSyncMessage(new Protocol.ParsedMessage(Protocol.SYNOF, root));
+
+            JSONArray list = new JSONArray();
+            list.put(new JSONObject().put(Protocol.KEY_OID, "abc123").put(Protocol.KEY_TS, 1234));
+            Map<String, String> answer = new HashMap<>();
+            answer.put(Protocol.KEY_MID, "mesh-123");
+            answer.put(Protocol.KEY_PFX, "");
+            answer.put(Protocol.KEY_OFF, list.toString());
+            offerSyncManager.handleSyncMessage(new Protocol.ParsedMessage(Protocol.SYNOF, answer));
+
+            offerSyncManager.handleSyncMessage(new Protocol.ParsedMessage(Protocol.SYNOF, root));
+            offerSyncManager.sendDueSubtreeAnswers(Long.MAX_VALUE);
+
+            verify(loRaManager, never()).sendBroadcast(anyString());
+        }
+    }
+
+    /**
+     * Verifies that a root hash from another mesh is not answered.
+     */
+    @Test
+    public void testHandleSyncMessage_otherMeshIgnored() {
+        try (MockedStatic<OfferManager> offerMock = Mockito.mockStatic(OfferManager.class)) {
+            Map<String, String> payload = new HashMap<>();
+            payload.put(Protocol.KEY_MID, "other-mesh");
+            payload.put(Protocol.KEY_PFX, "");
+            payload.put(Protocol.KEY_HSH, Long.toHexString(OfferHashTrie.hashOf("other", 99)));
+
+            offerSyncManager.handleSyncMessage(new Protocol.ParsedMessage(Protocol.SYNOF, payload));
+
+            verify(loRaManager, never()).sendBroadcast(anyString());
+            offerMock.verify(() -> OfferManager.loadOffers(any()), never());
+        }
+    }
+
+    private static Offer offer(String offerId, String creatorId, long lastModified,
+                               Constants.OfferStatus status, boolean deleted) {
+        Offer offer = new Offer();
+        offer.setOfferId(offerId);
+        offer.setCreatorId(creatorId);
+        offer.setLastModified(lastModified);
+        offer.setStatus(status);
+        offer.setDeleted(deleted);
+        return offer;
+    }
+
+    /**
+     * Verifies that two nodes with the same active offers broadcast the same root hash, although
+     * one of them still holds a deleted and an inactive foreign offer that the other has
+     * already purged.
+     */
+    @Test
+    public void testSendOfferSync_convergesWithDifferentRetentionState() {
+        Context otherContext = mock(Context.class);
+        LoRaManager otherLoRaManager = mock(LoRaManager.class);
+        OfferSyncManager other = new OfferSyncManager(otherContext, userProfile, otherLoRaManager);
+
+        Offer shared = offer("shared", "peer-1", 1000, Constants.OfferStatus.ACTIVE, false);
+        List<Offer> unpurged = new ArrayList<>();
+        unpurged.add(shared);
+        unpurged.add(offer("deleted", "peer-1", 2000, Constants.OfferStatus.ACTIVE, true));
+        unpurged.add(offer("inactive", "peer-1", 3000, Constants.OfferStatus.INACTIVE, false));
+
+        try (MockedStatic<OfferManager> offerMock = Mockito.mockStatic(OfferManager.class);
+             MockedStatic<PeerManager> peerMock = Mockito.mockStatic(PeerManager.class)) {
+
+            offerMock.when(() -> OfferManager.loadOffers(context)).thenReturn(unpurged);
+            offerMock.when(() -> OfferManager.loadOffers(otherContext)).thenReturn(Collections.singletonList(shared));
+            peerMock.when(() -> PeerManager.getPeerById(any(), eq("peer-1"))).thenReturn(userProfile);
+
+            offerSyncManager.sendOfferSync();
+            other.sendOfferSync();
+
+            ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+            verify(loRaManager).sendBroadcast(captor.capture());
+            ArgumentCaptor<String> otherCaptor = ArgumentCaptor.forClass(String.class);
+            verify(otherLoRaManager).sendBroadcast(otherCaptor.capture());
+
+            String rootHash = Long.toHexString(OfferHashTrie.hashOf("shared", 1000));
+            assertTrue(captor.getValue().contains(Protocol.KEY_HSH + "=" + rootHash));
+            assertTrue(otherCaptor.getValue().contains(Protocol.KEY_HSH + "=" + rootHash));
+        }
+    }
+
+    /**
+     * Verifies that an offer another node lists in an older version is advertised in its newer,
+     * deleted version, so that the deletion reaches that node.
+     */
+    @Test
+    public void testHandleSyncMessage_advertisesDeletedVersion() throws Exception {
+        Offer deleted = offer("gone", "peer-1", 5000, Constants.OfferStatus.ACTIVE, true);
+
+        try (MockedStatic<OfferManager> offerMock = Mockito.mockStatic(OfferManager.class);
+             MockedStatic<PeerManager> peerMock = Mockito.mockStatic(PeerManager.class)) {
+
+            offerMock.when(() -> OfferManager.loadOffers(context)).thenReturn(Collections.singletonList(deleted));
+            offerMock.when(() -> OfferManager.getOfferById(context, "gone")).thenReturn(deleted);
+            peerMock.when(() -> PeerManager.getPeerById(any(), eq("peer-1"))).thenReturn(userProfile);
+
+            JSONArray list = new JSONArray();
+            list.put(new JSONObject().put(Protocol.KEY_OID, "gone").put(Protocol.KEY_TS, 4000));
+            Map<String, String> payload = new HashMap<>();
+            payload.put(Protocol.KEY_MID, "mesh-123");
+            payload.put(Protocol.KEY_PFX, "");
+            payload.put(Protocol.KEY_OFF, list.toString());
+
+            offerSyncManager.handleSyncMessage(new Protocol.ParsedMessage(Protocol.SYNOF, payload));
+
+            ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+            verify(loRaManager).sendBroadcast(captor.capture());
+            assertTrue(captor.getValue().contains("gone"));
+            assertTrue(captor.getValue().contains("5000"));
+            assertFalse(captor.getValue().contains(Protocol.KEY_PFX + "="));
         }
     }
 
     /**
      * Verifies that {@link OfferSyncManager#handleSyncMessage(Protocol.ParsedMessage)}
-     * triggers a REQOF request when a remote offer has a newer timestamp than the local one.
+     * triggers a REQOF request when a remote offer has a newer timestamp than the local one,
+     * and that the offer is not requested again while the answer is awaited.
      */
     @Test
     public void testHandleSyncMessage() throws Exception {
@@ -106,7 +288,7 @@ public class OfferSyncManagerTest {
         localOffer.setCreatorId("creator42");
 
         try (MockedStatic<OfferManager> offerMock = Mockito.mockStatic(OfferManager.class)) {
-            offerMock.when(() -> OfferManager.loadOffers(context)).thenReturn(Collections.singletonList(localOffer));
+            offerMock.when(() -> OfferManager.getOfferById(context, "abc123")).thenReturn(localOffer);
 
             JSONArray remote = new JSONArray();
             JSONObject summary = new JSONObject();
@@ -122,7 +304,47 @@ public class OfferSyncManagerTest {
             OfferSyncManager spy = Mockito.spy(offerSyncManager);
 
             spy.handleSyncMessage(msg);
+            verify(spy, never()).sendOfferRequest(anyList());
+
+            spy.flushOfferRequests();
             verify(spy).sendOfferRequest(Collections.singletonList("abc123"));
+
+            spy.handleSyncMessage(msg);
+            spy.flushOfferRequests();
+            verify(spy, times(1)).sendOfferRequest(anyList());
+        }
+    }
+
+    /**
+     * Verifies that offers requested by another node while the own request is pending are not
+     * requested again.
+     */
+    @Test
+    public void testHandleSyncMessage_dropsOverheardRequest() throws Exception {
+        try (MockedStatic<OfferManager> offerMock = Mockito.mockStatic(OfferManager.class)) {
+            JSONArray remote = new JSONArray();
+            for (String id : new String[]{"abc123", "def456"}) {
+                JSONObject summary = new JSONObject();
+                summary.put(Protocol.KEY_OID, id);
+                summary.put(Protocol.KEY_TS, 50);
+                remote.put(summary);
+            }
+
+            Map<String, String> sync = new HashMap<>();
+            sync.put(Protocol.KEY_MID, "mesh-123");
+            sync.put(Protocol.KEY_OFF, remote.toString());
+
+            Map<String, String> request = new HashMap<>();
+            request.put(Protocol.KEY_MID, "mesh-123");
+            request.put(Protocol.KEY_REQ, new JSONArray().put("abc123").toString());
+
+            OfferSyncManager spy = Mockito.spy(offerSyncManager);
+            spy.handleSyncMessage(new Protocol.ParsedMessage(Protocol.SYNOF, sync));
+            spy.handleOfferRequest(new Protocol.ParsedMessage(Protocol.REQOF, request));
+            spy.flushOfferRequests();
+
+            verify(spy).sendOfferRequest(Collections.singletonList("def456"));
+            verify(loRaManager, times(1)).sendBroadcast(anyString());
         }
     }
 
@@ -146,7 +368,7 @@ public class OfferSyncManagerTest {
         try (MockedStatic<OfferManager> offerMock = Mockito.mockStatic(OfferManager.class);
              MockedStatic<SecureCrypto> cryptoMock = Mockito.mockStatic(SecureCrypto.class)) {
 
-            offerMock.when(() -> OfferManager.loadOffers(context)).thenReturn(Collections.singletonList(offer));
+            offerMock.when(() -> OfferManager.getOfferById(context, "abc123")).thenReturn(offer);
             cryptoMock.when(() -> SecureCrypto.encrypt(anyString(), eq("mesh-123"))).thenReturn(encrypted);
 
             JSONArray req = new JSONArray().put("abc123");
@@ -156,6 +378,7 @@ public class OfferSyncManagerTest {
 
             Protocol.ParsedMessage msg = new Protocol.ParsedMessage(Protocol.REQOF, payload);
             offerSyncManager.handleOfferRequest(msg);
+            offerSyncManager.sendDueOfferResponses(Long.MAX_VALUE);
 
             ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
             verify(loRaManager, atLeastOnce()).sendBroadcast(captor.capture());
@@ -166,6 +389,85 @@ public class OfferSyncManagerTest {
         }
     }
 
+    /**
+     * Verifies that an offer without a stored description is sent with an empty description
+     * rather than without the field.
+     */
+    @Test
+    public void testHandleOfferRequest_missingDescription() throws Exception {
+        Offer offer = new Offer();
+        offer.setOfferId("abc123");
+        offer.setTitle("Test");
+        offer.setCategory(Constants.Category.ELECTRONICS);
+        offer.setStatus(Constants.OfferStatus.ACTIVE);
+        offer.setCreatorId("local-id");
+        offer.setLastModified(1234);
+
+        SecureCrypto.EncryptedPayload encrypted = new SecureCrypto.EncryptedPayload("iv123", "ciphertext");
+
+        try (MockedStatic<OfferManager> offerMock = Mockito.mockStatic(OfferManager.class);
+             MockedStatic<SecureCrypto> cryptoMock = Mockito.mockStatic(SecureCrypto.class)) {
+
+            offerMock.when(() -> OfferManager.getOfferById(context, "abc123")).thenReturn(offer);
+            offerMock.when(() -> OfferManager.loadDescription(context, "abc123")).thenReturn(null);
+            ArgumentCaptor<String> plaintext = ArgumentCaptor.forClass(String.class);
+            cryptoMock.when(() -> SecureCrypto.encrypt(plaintext.capture(), eq("mesh-123"))).thenReturn(encrypted);
+
+            Map<String, String> payload = new HashMap<>();
+            payload.put(Protocol.KEY_REQ, new JSONArray().put("abc123").toString());
+            payload.put(Protocol.KEY_MID, "mesh-123");
+
+            offerSyncManager.handleOfferRequest(new Protocol.ParsedMessage(Protocol.REQOF, payload));
+            offerSyncManager.sendDueOfferResponses(Long.MAX_VALUE);
+
+            JSONObject sent = new JSONArray(plaintext.getValue()).getJSONObject(0);
+            assertEquals("", sent.getString(Protocol.KEY_DESC));
+        }
+    }
+
+    /**
+     * Verifies that a scheduled response is not sent once another node has sent the same offer
+     * version.
+     */
+    @Test
+    public void testHandleOfferRequest_cancelledWhenOverheard() throws Exception {
+        Offer offer = new Offer();
+        offer.setOfferId("abc123");
+        offer.setCreatorId("local-id");
+        offer.setLastModified(1234);
+
+        JSONObject offerData = new JSONObject();
+        offerData.put(Protocol.KEY_OID, "abc123");
+        offerData.put(Protocol.KEY_TTL, "Title");
+        offerData.put(Protocol.KEY_DESC, "Desc");
+        offerData.put(Protocol.KEY_CAT, "TLS");
+        offerData.put(Protocol.KEY_CID, "local-id");
+        offerData.put(Protocol.KEY_STAT, "AC");
+        offerData.put(Protocol.KEY_TS, 1234L);
+
+        try (MockedStatic<OfferManager> offerMock = Mockito.mockStatic(OfferManager.class);
+             MockedStatic<SecureCrypto> cryptoMock = Mockito.mockStatic(SecureCrypto.class)) {
+
+            offerMock.when(() -> OfferManager.getOfferById(context, "abc123")).thenReturn(offer);
+            cryptoMock.when(() -> SecureCrypto.decrypt("cipher", "iv123", "mesh-123"))
+                    .thenReturn(new JSONArray().put(offerData).toString());
+
+            Map<String, String> request = new HashMap<>();
+            request.put(Protocol.KEY_REQ, new JSONArray().put("abc123").toString());
+            request.put(Protocol.KEY_MID, "mesh-123");
+            offerSyncManager.handleOfferRequest(new Protocol.ParsedMessage(Protocol.REQOF, request));
+
+            Map<String, String> data = new HashMap<>();
+            data.put(Protocol.KEY_IV, "iv123");
+            data.put(Protocol.KEY_OFA, "cipher");
+            data.put(Protocol.KEY_MID, "mesh-123");
+            offerSyncManager.handleOfferData(new Protocol.ParsedMessage(Protocol.OFDAT, data));
+
+            offerSyncManager.sendDueOfferResponses(Long.MAX_VALUE);
+            verify(loRaManager, never()).sendBroadcast(anyString());
+        }
+    }
+
     /**
      * Verifies that {@link OfferSyncManager#handleOfferData(Protocol.ParsedMessage)}
      * correctly decrypts incoming OFDAT messages and updates the local offer list.
@@ -183,8 +485,6 @@ public class OfferSyncManagerTest {
         offerData.put(Protocol.KEY_TS, 123456789L);
         decryptedArray.put(offerData);
 
-        List<Offer> mutableOfferList = new ArrayList<>();
-
         try (
                 MockedStatic<SecureCrypto> cryptoMock = mockStatic(SecureCrypto.class);
                 MockedStatic<OfferManager> offerManagerMock =
@@ -194,17 +494,16 @@ public class OfferSyncManagerTest {
                     SecureCrypto.decrypt("cipher", "iv123", "mesh-123")
             ).thenReturn(decryptedArray.toString());
 
-            offerManagerMock.when(() -> OfferManager.loadOffers(context))
-                    .thenReturn(mutableOfferList);
-
             offerManagerMock.when(() ->
-                    OfferManager.saveOffers(eq(context), same(mutableOfferList))
+                    OfferManager.updateOrAddAll(eq(context), anyCollection())
             ).thenAnswer(inv -> {
-                mutableOfferList.forEach(o ->
+                Collection<Offer> argument = inv.getArgument(1);
+                List<Offer> imported = new ArrayList<>(argument);
+                imported.forEach(o ->
                         System.out.println("  ID=" + o.getOfferId() + ", Title=" + o.getTitle()));
 
-                assertEquals(1, mutableOfferList.size());
-                Offer o = mutableOfferList.get(0);
+                assertEquals(1, imported.size());
+                Offer o = imported.get(0);
                 assertEquals("abc123", o.getOfferId());
                 assertEquals("Title", o.getTitle());
                 assertEquals("Desc", o.getDescription());
@@ -225,6 +524,8 @@ public class OfferSyncManagerTest {
                     new Protocol.ParsedMessage(Protocol.OFDAT, new HashMap<>(payload));
 
             new OfferSyncManager(context, userProfile, loRaManager).handleOfferData(msg);
+
+            offerManagerMock.verify(() -> OfferManager.updateOrAddAll(eq(context), anyCollection()));
         }
     }
 
@@ -252,7 +553,9 @@ public class OfferSyncManagerTest {
         try (MockedStatic<OfferManager> offerMock = Mockito.mockStatic(OfferManager.class);
              MockedStatic<SecureCrypto> cryptoMock = Mockito.mockStatic(SecureCrypto.class)) {
 
-            offerMock.when(() -> OfferManager.loadOffers(context)).thenReturn(largeOfferList);
+            for (Offer offer : largeOfferList) {
+                offerMock.when(() -> OfferManager.getOfferById(context, offer.getOfferId())).thenReturn(offer);
+            }
             cryptoMock.when(() -> SecureCrypto.encrypt(anyString(), eq("mesh-123"))).thenReturn(encrypted);
 
             JSONArray requestArray = new JSONArray();
@@ -265,6 +568,7 @@ public class OfferSyncManagerTest {
 
             Protocol.ParsedMessage msg = new Protocol.ParsedMessage(Protocol.REQOF, new HashMap<>(payload));
             offerSyncManager.handleOfferRequest(msg);
+            offerSyncManager.sendDueOfferResponses(Long.MAX_VALUE);
 
             ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
             verify(loRaManager, atLeastOnce()).sendBroadcast(captor.capture());
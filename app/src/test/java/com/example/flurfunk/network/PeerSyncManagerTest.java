@@ -3,6 +3,7 @@ package com.example.flurfunk.network;
 import android.content.Context;
 
 import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.store.OfferManager;
 import com.example.flurfunk.store.PeerManager;
 import com.example.flurfunk.util.Protocol;
 import com.example.flurfunk.util.SecureCrypto;
@@ -30,7 +31,9 @@ import static org.mockito.Mockito.*;
  * <p>
  * Tests include:
  * <ul>
- *     <li>Sending peer summaries (SYNPR)</li>
+ *     <li>Sending a digest over the known peers (SYNPR)</li>
+ *     <li>Answering a differing digest with peer summaries</li>
+ *     <li>Answering summaries of nodes without digest support</li>
  *     <li>Handling remote peer summaries and requesting outdated profiles</li>
  *     <li>Encrypting and sending peer profile data (PRDAT)</li>
  *     <li>Decrypting and storing received peer data</li>
@@ -59,8 +62,8 @@ public class PeerSyncManagerTest {
     }
 
     /**
-     * Verifies that {@link PeerSyncManager#sendPeerSync()} collects active peers and
-     * broadcasts a SYNPR message using {@link LoRaManager}.
+     * Verifies that {@link PeerSyncManager#sendPeerSync()} broadcasts a SYNPR message with the
+     * digest over the known peers and an empty summary list using {@link LoRaManager}.
      */
     @Test
     public void testSendPeerSync() {
@@ -69,13 +72,87 @@ public class PeerSyncManagerTest {
         peer.setMeshId("mesh-001");
         peer.setTimestamp(100L);
 
-        try (MockedStatic<PeerManager> peerMock = mockStatic(PeerManager.class)) {
+        try (MockedStatic<PeerManager> peerMock = mockStatic(PeerManager.class);
+             MockedStatic<OfferManager> offerMock = mockStatic(OfferManager.class)) {
             peerMock.when(() -> PeerManager.loadPeers(context)).thenReturn(Collections.singletonList(peer));
             peerMock.when(() -> PeerManager.isPeerActive(peer)).thenReturn(true);
 
             peerSyncManager.sendPeerSync();
 
-            verify(loRaManager, atLeastOnce()).sendBroadcast(anyString());
+            ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+            verify(loRaManager).sendBroadcast(captor.capture());
+            String digest = Long.toHexString(OfferHashTrie.hashOf("peer-123", 100L));
+            assertTrue(captor.getValue().contains(Protocol.KEY_DIG + "=" + digest));
+            assertTrue(captor.getValue().contains(Protocol.KEY_PRS + "=[]"));
+        }
+    }
+
+    /**
+     * Verifies that a matching digest is not answered, while a differing digest is answered
+     * with the local peer summaries only once within the minimum interval.
+     */
+    @Test
+    public void testHandlePeerList_digest() {
+        UserProfile peer = new UserProfile();
+        peer.setId("peer-123");
+        peer.setMeshId("mesh-001");
+        peer.setTimestamp(100L);
+
+        try (MockedStatic<PeerManager> peerMock = mockStatic(PeerManager.class);
+             MockedStatic<OfferManager> offerMock = mockStatic(OfferManager.class)) {
+            peerMock.when(() -> PeerManager.loadPeers(context)).thenReturn(Collections.singletonList(peer));
+
+            HashMap<String, String> payload = new HashMap<>();
+            payload.put(Protocol.KEY_UID, "remote-sender");
+            payload.put(Protocol.KEY_MID, "mesh-001");
+            payload.put(Protocol.KEY_DIG, Long.toHexString(OfferHashTrie.hashOf("peer-123", 100L)));
+            peerSyncManager.handlePeerList(new Protocol.ParsedMessage(Protocol.SYNPR, payload));
+            verify(loRaManager, never()).sendBroadcast(anyString());
+
+            payload.put(Protocol.KEY_DIG, "0");
+            peerSyncManager.handlePeerList(new Protocol.ParsedMessage(Protocol.SYNPR, payload));
+            peerSyncManager.handlePeerList(new Protocol.ParsedMessage(Protocol.SYNPR, payload));
+
+            ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+            verify(loRaManager).sendBroadcast(captor.capture());
+            assertTrue(captor.getValue().contains(Protocol.KEY_PRS + "="));
+            assertTrue(captor.getValue().contains("peer-123"));
+        }
+    }
+
+    /**
+     * Verifies that summaries without a digest, as sent by nodes without digest support, are
+     * answered with the local summaries, while summaries sent in answer to a digest are not.
+     */
+    @Test
+    public void testHandlePeerList_withoutDigest() throws Exception {
+        UserProfile peer = new UserProfile();
+        peer.setId("peer-123");
+        peer.setMeshId("mesh-001");
+        peer.setTimestamp(100L);
+
+        try (MockedStatic<PeerManager> peerMock = mockStatic(PeerManager.class)) {
+            peerMock.when(() -> PeerManager.loadPeers(context)).thenReturn(Collections.singletonList(peer));
+            peerMock.when(() -> PeerManager.getPeerById(context, "peer-123")).thenReturn(peer);
+
+            JSONArray remote = new JSONArray();
+            remote.put(new JSONObject().put(Protocol.KEY_UID, "peer-123").put(Protocol.KEY_TS, 100L));
+
+            HashMap<String, String> payload = new HashMap<>();
+            payload.put(Protocol.KEY_UID, "remote-sender");
+            payload.put(Protocol.KEY_MID, "mesh-001");
+            payload.put(Protocol.KEY_PRS, remote.toString());
+            payload.put(Protocol.KEY_DIG, "0");
+            peerSyncManager.handlePeerList(new Protocol.ParsedMessage(Protocol.SYNPR, payload));
+            verify(loRaManager, never()).sendBroadcast(anyString());
+
+            payload.remove(Protocol.KEY_DIG);
+            peerSyncManager.handlePeerList(new Protocol.ParsedMessage(Protocol.SYNPR, payload));
+
+            ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+            verify(loRaManager).sendBroadcast(captor.capture());
+            assertTrue(captor.getValue().contains("peer-123"));
+            assertTrue(captor.getValue().contains(Protocol.KEY_DIG + "="));
         }
     }
 
@@ -90,7 +167,7 @@ public class PeerSyncManagerTest {
         localPeer.setTimestamp(100L);
 
         try (MockedStatic<PeerManager> peerMock = mockStatic(PeerManager.class)) {
-            peerMock.when(() -> PeerManager.loadPeers(context)).thenReturn(Collections.singletonList(localPeer));
+            peerMock.when(() -> PeerManager.getPeerById(context, "peer-123")).thenReturn(localPeer);
 
             JSONArray remote = new JSONArray();
             JSONObject summary = new JSONObject();
@@ -108,6 +185,7 @@ public class PeerSyncManagerTest {
 
             PeerSyncManager spy = Mockito.spy(peerSyncManager);
             spy.handlePeerList(msg);
+            spy.flushPeerRequests();
 
             verify(spy).sendPeerRequest(Collections.singletonList("peer-123"));
         }
@@ -135,6 +213,7 @@ public class PeerSyncManagerTest {
                 MockedStatic<SecureCrypto> cryptoMock = mockStatic(SecureCrypto.class)
         ) {
             peerMock.when(() -> PeerManager.loadPeers(context)).thenReturn(Collections.singletonList(peer));
+            peerMock.when(() -> PeerManager.getPeerById(context, "peer-001")).thenReturn(peer);
             cryptoMock.when(() -> SecureCrypto.encrypt(anyString(), eq("mesh-001"))).thenReturn(encrypted);
 
             JSONArray req = new JSONArray().put("peer-001");
@@ -145,6 +224,7 @@ public class PeerSyncManagerTest {
             Protocol.ParsedMessage msg = new Protocol.ParsedMessage(Protocol.REQPR, payload);
 
             peerSyncManager.handlePeerRequest(msg);
+            peerSyncManager.sendDuePeerResponses(Long.MAX_VALUE);
 
             ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
             verify(loRaManager, atLeastOnce()).sendBroadcast(captor.capture());
@@ -202,7 +282,7 @@ public class PeerSyncManagerTest {
 
     /**
      * Confirms that an outdated incoming profile is ignored and not stored or updated
-     * when handling a PRDAT message.
+     * when handling a PRDAT message, while the following profiles are still stored.
      */
     @Test
     public void testHandlePeerData_ignoresOutdatedProfile() throws Exception {
@@ -220,7 +300,16 @@ public class PeerSyncManagerTest {
         incoming.put(Protocol.KEY_TS, 1000); // älter!
         incoming.put(Protocol.KEY_MID, "mesh-001");
 
-        JSONArray decrypted = new JSONArray().put(incoming);
+        JSONObject newer = new JSONObject();
+        newer.put(Protocol.KEY_UID, "peer-002");
+        newer.put(Protocol.KEY_NAME, "Neu");
+        newer.put(Protocol.KEY_FLR, "3");
+        newer.put(Protocol.KEY_PHN, "222");
+        newer.put(Protocol.KEY_MAIL, "new@example.com");
+        newer.put(Protocol.KEY_TS, 3000);
+        newer.put(Protocol.KEY_MID, "mesh-001");
+
+        JSONArray decrypted = new JSONArray().put(incoming).put(newer);
 
         try (
                 MockedStatic<SecureCrypto> cryptoMock = mockStatic(SecureCrypto.class);
@@ -229,9 +318,10 @@ public class PeerSyncManagerTest {
             cryptoMock.when(() -> SecureCrypto.decrypt("cipher", "iv123", "mesh-001"))
                     .thenReturn(decrypted.toString());
 
-            peerMock.when(() -> PeerManager.loadPeers(context)).thenReturn(Collections.singletonList(existing));
+            peerMock.when(() -> PeerManager.getPeerById(context, "peer-001")).thenReturn(existing);
             peerMock.when(() -> PeerManager.updateOrAddPeer(any(), any())).thenAnswer(inv -> {
-                fail("Outdated peer profile should not be updated");
+                UserProfile profile = inv.getArgument(1);
+                assertNotEquals("Outdated peer profile should not be updated", "peer-001", profile.getId());
                 return null;
             });
 
@@ -243,6 +333,8 @@ public class PeerSyncManagerTest {
 
             Protocol.ParsedMessage msg = new Protocol.ParsedMessage(Protocol.PRDAT, payload);
             peerSyncManager.handlePeerData(msg);
+
+            peerMock.verify(() -> PeerManager.updateOrAddPeer(eq(context), argThat(p -> "peer-002".equals(p.getId()))));
         }
     }
 
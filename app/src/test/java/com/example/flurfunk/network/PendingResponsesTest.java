@@ -0,0 +1,96 @@
+package com.example.flurfunk.network;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link PendingResponses} class.
+ * <p>
+ * These tests verify:
+ * <ul>
+ *     <li>Answers become due at their deadline</li>
+ *     <li>Cancellation by overheard answers with the same or a newer version only</li>
+ *     <li>Scheduling of the next deadline</li>
+ *     <li>Response slots weighted by creator and neighbours</li>
+ * </ul>
+ */
+public class PendingResponsesTest {
+
+    /**
+     * Verifies that answers are taken once their deadline has passed and that a repeated
+     * request keeps the earlier deadline.
+     */
+    @Test
+    public void testTakeDue() {
+        PendingResponses responses = new PendingResponses();
+        responses.add("a", 10, 100);
+        responses.add("b", 10, 300);
+        responses.add("b", 10, 200);
+        responses.add("a", 10, 500);
+
+        assertTrue(responses.takeDue(50).isEmpty());
+        assertEquals(Collections.singletonList("a"), responses.takeDue(150));
+        assertEquals(Collections.singletonList("b"), responses.takeDue(200));
+        assertTrue(responses.takeDue(Long.MAX_VALUE).isEmpty());
+    }
+
+    /**
+     * Verifies that an overheard answer cancels only if it carries the same or a newer version.
+     */
+    @Test
+    public void testCancel() {
+        PendingResponses responses = new PendingResponses();
+        responses.add("a", 10, 100);
+        responses.add("b", 10, 100);
+        responses.add("c", 10, 100);
+
+        assertFalse(responses.cancel("a", 9));
+        assertTrue(responses.cancel("b", 10));
+        assertTrue(responses.cancel("c", 11));
+        assertFalse(responses.cancel("unknown", 10));
+
+        assertEquals(Collections.singletonList("a"), responses.takeDue(100));
+    }
+
+    /**
+     * Verifies that a task is requested only for a deadline earlier than the scheduled one.
+     */
+    @Test
+    public void testNextSchedule() {
+        PendingResponses responses = new PendingResponses();
+        assertEquals(-1, responses.nextSchedule());
+
+        responses.add("a", 10, 300);
+        assertEquals(300, responses.nextSchedule());
+        responses.add("b", 10, 400);
+        assertEquals(-1, responses.nextSchedule());
+        responses.add("c", 10, 200);
+        assertEquals(200, responses.nextSchedule());
+
+        assertEquals(Collections.singletonList("c"), responses.takeDue(250));
+        assertEquals(300, responses.nextSchedule());
+        assertEquals(Collections.singletonList("a"), responses.takeDue(300));
+        assertEquals(400, responses.nextSchedule());
+    }
+
+    /**
+     * Verifies that the creator answers in the first slot and that other nodes wait longer the
+     * fewer neighbours they have.
+     */
+    @Test
+    public void testDelaySlots() {
+        long slot = PendingResponses.SLOT_MS;
+        for (int i = 0; i < 100; i++) {
+            assertTrue(PendingResponses.delayMs(true, 0) < slot);
+
+            long wellLinked = PendingResponses.delayMs(false, PendingResponses.LINK_SLOTS);
+            assertTrue(wellLinked >= slot && wellLinked < slot * (1 + PendingResponses.SPREAD_SLOTS));
+
+            long isolated = PendingResponses.delayMs(false, 0);
+            assertTrue(isolated >= slot * (1 + PendingResponses.LINK_SLOTS));
+        }
+    }
+}
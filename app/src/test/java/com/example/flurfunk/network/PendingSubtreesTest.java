@@ -0,0 +1,74 @@
+package com.example.flurfunk.network;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link PendingSubtrees} class.
+ * <p>
+ * These tests verify:
+ * <ul>
+ *     <li>Answers become due at their deadline</li>
+ *     <li>Cancellation by overheard answers describing the same offers only</li>
+ *     <li>The rate limit per prefix</li>
+ * </ul>
+ */
+public class PendingSubtreesTest {
+
+    /**
+     * Verifies that answers are taken once their deadline has passed and that a repeated
+     * request keeps the first deadline.
+     */
+    @Test
+    public void testTakeDue() {
+        PendingSubtrees subtrees = new PendingSubtrees();
+        assertTrue(subtrees.add("", 1, 0, 100));
+        assertTrue(subtrees.add("a", 2, 0, 200));
+        assertTrue(subtrees.add("a", 2, 0, 300));
+
+        assertEquals(100, subtrees.nextSchedule());
+        assertTrue(subtrees.takeDue(50).isEmpty());
+        assertEquals(Collections.singletonList(""), subtrees.takeDue(150));
+        assertEquals(200, subtrees.nextSchedule());
+        assertEquals(Collections.singletonList("a"), subtrees.takeDue(200));
+        assertEquals(-1, subtrees.nextSchedule());
+    }
+
+    /**
+     * Verifies that an overheard answer cancels only if it describes the same offers.
+     */
+    @Test
+    public void testCancel() {
+        PendingSubtrees subtrees = new PendingSubtrees();
+        subtrees.add("a", 1, 0, 100);
+        subtrees.add("b", 2, 0, 100);
+
+        assertFalse(subtrees.cancel("a", 3, 50));
+        assertTrue(subtrees.cancel("b", 2, 50));
+        assertFalse(subtrees.cancel("c", 2, 50));
+
+        assertEquals(Collections.singletonList("a"), subtrees.takeDue(100));
+    }
+
+    /**
+     * Verifies that a prefix answered by this node or another node is not answered again
+     * within the minimum interval.
+     */
+    @Test
+    public void testRateLimit() {
+        long interval = PendingSubtrees.MIN_INTERVAL_MS;
+        PendingSubtrees subtrees = new PendingSubtrees();
+        subtrees.add("a", 1, 0, 100);
+        subtrees.add("b", 2, 0, 100);
+        subtrees.cancel("b", 2, 50);
+        assertEquals(Collections.singletonList("a"), subtrees.takeDue(100));
+
+        assertFalse(subtrees.add("a", 1, 100 + interval - 1, 200 + interval));
+        assertFalse(subtrees.add("b", 2, 50 + interval - 1, 200 + interval));
+        assertTrue(subtrees.add("a", 1, 100 + interval, 200 + interval));
+        assertTrue(subtrees.add("b", 2, 50 + interval, 200 + interval));
+    }
+}
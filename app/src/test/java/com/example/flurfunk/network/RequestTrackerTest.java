@@ -0,0 +1,113 @@
+package com.example.flurfunk.network;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link RequestTracker} class.
+ * <p>
+ * These tests verify:
+ * <ul>
+ *     <li>Coalescing of requests for IDs still awaiting an answer</li>
+ *     <li>Retries with exponentially growing timeouts</li>
+ *     <li>The negative cache for unanswerable IDs and its expiry</li>
+ *     <li>Clearing IDs whose data has arrived</li>
+ * </ul>
+ */
+public class RequestTrackerTest {
+
+    private static final List<String> A = Collections.singletonList("a");
+
+    /**
+     * Verifies that an ID is not requested again before its timeout, and that the timeout
+     * doubles with every attempt.
+     */
+    @Test
+    public void testBackoff() {
+        RequestTracker tracker = new RequestTracker();
+        long now = 0;
+
+        assertEquals(A, tracker.admit(A, now));
+        assertTrue(tracker.admit(A, now + RequestTracker.BASE_TIMEOUT_MS - 1).isEmpty());
+
+        now += RequestTracker.BASE_TIMEOUT_MS;
+        assertEquals(A, tracker.admit(A, now));
+        assertTrue(tracker.admit(A, now + 2 * RequestTracker.BASE_TIMEOUT_MS - 1).isEmpty());
+        assertEquals(A, tracker.admit(A, now + 2 * RequestTracker.BASE_TIMEOUT_MS));
+
+        assertEquals(RequestTracker.MAX_TIMEOUT_MS, RequestTracker.timeoutMs(100));
+    }
+
+    /**
+     * Verifies that only the IDs not awaiting an answer are admitted from a mixed request.
+     */
+    @Test
+    public void testCoalescing() {
+        RequestTracker tracker = new RequestTracker();
+        tracker.admit(A, 0);
+
+        assertEquals(Arrays.asList("b", "c"), tracker.admit(Arrays.asList("a", "b", "c"), 1000));
+    }
+
+    /**
+     * Verifies that an ID is put into the negative cache after the maximum number of attempts
+     * and requested again once the entry has expired.
+     */
+    @Test
+    public void testNegativeCache() {
+        RequestTracker tracker = new RequestTracker();
+        long now = 0;
+        for (int attempt = 1; attempt <= RequestTracker.MAX_ATTEMPTS; attempt++) {
+            assertEquals(A, tracker.admit(A, now));
+            now += RequestTracker.timeoutMs(attempt);
+        }
+
+        assertTrue(tracker.admit(A, now).isEmpty());
+        assertTrue(tracker.admit(A, now + RequestTracker.NEGATIVE_TTL_MS - 1).isEmpty());
+        assertEquals(A, tracker.admit(A, now + RequestTracker.NEGATIVE_TTL_MS));
+    }
+
+    /**
+     * Verifies that received data clears an ID from the tracker and the negative cache.
+     */
+    @Test
+    public void testAnswered() {
+        RequestTracker tracker = new RequestTracker();
+        tracker.admit(A, 0);
+        tracker.answered("a");
+        assertEquals(A, tracker.admit(A, 1));
+
+        long now = 1;
+        for (int attempt = 2; attempt <= RequestTracker.MAX_ATTEMPTS; attempt++) {
+            now += RequestTracker.timeoutMs(attempt - 1);
+            tracker.admit(A, now);
+        }
+        now += RequestTracker.MAX_TIMEOUT_MS;
+        assertTrue(tracker.admit(A, now).isEmpty());
+
+        tracker.answered("a");
+        assertEquals(A, tracker.admit(A, now));
+    }
+
+    /**
+     * Verifies that the negative cache drops its oldest entries when it is full.
+     */
+    @Test
+    public void testNegativeCacheIsBounded() {
+        RequestTracker tracker = new RequestTracker();
+        int ids = RequestTracker.MAX_NEGATIVE + 1;
+        long now = 0;
+        for (int attempt = 0; attempt <= RequestTracker.MAX_ATTEMPTS; attempt++) {
+            for (int i = 0; i < ids; i++) tracker.admit(Collections.singletonList("id" + i), now);
+            now += RequestTracker.MAX_TIMEOUT_MS;
+        }
+
+        assertEquals(Collections.singletonList("id0"), tracker.admit(Collections.singletonList("id0"), now));
+        assertTrue(tracker.admit(Collections.singletonList("id1"), now).isEmpty());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link BinaryOfferFile} class.
+ * <p>
+ * These tests verify that offers survive a round trip through the binary format, that single
+ * offers can be decoded through the offset index and that damaged files are rejected.
+ */
+public class BinaryOfferFileTest {
+
+    private static Offer offer(String id, String description) {
+        return new Offer(id, "Title " + id, description, Constants.Category.TOOLS, "creator1",
+                1000, 2000, Constants.OfferStatus.ACTIVE, false);
+    }
+
+    private static byte[] write(List<Offer> offers) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryOfferFile.write(out, offers);
+        return out.toByteArray();
+    }
+
+    /**
+     * Verifies that all fields, including {@code null} values and umlauts, survive a round trip.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        Offer deleted = new Offer("b", null, null, null, null, 5, 6, null, true);
+        byte[] data = write(Arrays.asList(offer("a", "Bohrmaschine für Dübel"), deleted));
+
+        List<Offer> offers = BinaryOfferFile.open(ByteBuffer.wrap(data)).readAll();
+
+        assertEquals(2, offers.size());
+        Offer a = offers.get(0);
+        assertEquals("a", a.getOfferId());
+        assertEquals("Bohrmaschine für Dübel", a.getDescription());
+        assertEquals(Constants.Category.TOOLS, a.getCategory());
+        assertEquals(1000, a.getCreatedAt());
+        assertEquals(2000, a.getLastModified());
+        assertEquals(Constants.OfferStatus.ACTIVE, a.getStatus());
+
+        Offer b = offers.get(1);
+        assertNull(b.getTitle());
+        assertNull(b.getCategory());
+        assertNull(b.getStatus());
+        assertTrue(b.isDeleted());
+    }
+
+    /**
+     * Verifies that single offers are decoded by ID and unknown IDs return {@code null}.
+     */
+    @Test
+    public void testReadById() throws IOException {
+        BinaryOfferFile file = BinaryOfferFile.open(ByteBuffer.wrap(
+                write(Arrays.asList(offer("a", "A"), offer("b", "B"), offer("c", "C")))));
+
+        assertEquals(3, file.size());
+        assertEquals("B", file.read("b").getDescription());
+        assertNull(file.read("unknown"));
+    }
+
+    /**
+     * Verifies that a file on disk is read through a memory mapping.
+     */
+    @Test
+    public void testOpenMappedFile() throws IOException {
+        File tmp = File.createTempFile("offers", ".bin");
+        tmp.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(write(Arrays.asList(offer("a", "A"), offer("b", "B"))));
+        }
+
+        BinaryOfferFile file;
+        try (FileInputStream in = new FileInputStream(tmp)) {
+            file = BinaryOfferFile.open(in);
+        }
+
+        assertEquals("A", file.read("a").getDescription());
+        assertEquals(2, file.readAll().size());
+    }
+
+    /**
+     * Verifies that truncated files and files with a wrong header are rejected.
+     */
+    @Test
+    public void testRejectsDamagedFile() throws IOException {
+        byte[] data = write(Arrays.asList(offer("a", "A"), offer("b", "B")));
+
+        try {
+            BinaryOfferFile.open(ByteBuffer.wrap(Arrays.copyOf(data, data.length - 3)));
+            fail("Expected IOException for truncated file");
+        } catch (IOException expected) {
+            // expected
+        }
+
+        data[0] = 0;
+        try {
+            BinaryOfferFile.open(ByteBuffer.wrap(data));
+            fail("Expected IOException for wrong magic number");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+}
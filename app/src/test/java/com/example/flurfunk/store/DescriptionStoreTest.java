@@ -0,0 +1,138 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link DescriptionStore} and offers whose descriptions are kept on disk.
+ * <p>
+ * These tests verify:
+ * <ul>
+ *     <li>Reading appended descriptions, also after the file is opened again</li>
+ *     <li>Discarding a record cut off by a crash</li>
+ *     <li>Compaction once most records are unused</li>
+ *     <li>Search and size estimates of offers without a description in memory</li>
+ * </ul>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DescriptionStoreTest {
+
+    private Context context;
+
+    @Before
+    public void setup() {
+        context = RuntimeEnvironment.getApplication();
+        new File(context.getFilesDir(), DescriptionStore.FILE_NAME).delete();
+    }
+
+    private static Map<String, String> descriptions(String... idsAndTexts) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < idsAndTexts.length; i += 2) map.put(idsAndTexts[i], idsAndTexts[i + 1]);
+        return map;
+    }
+
+    /**
+     * Verifies that descriptions are read back by ID, that newer descriptions replace older ones
+     * and that the index is rebuilt when the file is opened again.
+     */
+    @Test
+    public void testAppendAndReopen() {
+        DescriptionStore store = DescriptionStore.open(context);
+        assertTrue(store.append(descriptions("a", "Gut erhaltenes Fahrrad", "b", "Kühlschrank, 2 Jahre alt")));
+        assertTrue(store.append(descriptions("a", "Fahrrad mit neuen Reifen")));
+
+        assertEquals("Fahrrad mit neuen Reifen", store.read("a"));
+        assertEquals("Kühlschrank, 2 Jahre alt", store.read("b"));
+        assertNull(store.read("unknown"));
+        assertEquals("Kühlschrank, 2 Jahre alt".getBytes(StandardCharsets.UTF_8).length, store.length("b"));
+
+        DescriptionStore reopened = DescriptionStore.open(context);
+        assertEquals(2, reopened.size());
+        assertEquals("Fahrrad mit neuen Reifen", reopened.read("a"));
+        assertEquals("Kühlschrank, 2 Jahre alt", reopened.read("b"));
+    }
+
+    /**
+     * Verifies that a record cut off during an append is dropped and later appends are readable.
+     */
+    @Test
+    public void testTruncatedRecord() throws IOException {
+        DescriptionStore store = DescriptionStore.open(context);
+        store.append(descriptions("a", "Tisch"));
+        try (FileOutputStream out = new FileOutputStream(new File(context.getFilesDir(), DescriptionStore.FILE_NAME), true)) {
+            out.write(new byte[]{0, 1, 'b', 0, 0, 0, 100, 'x'});
+        }
+
+        DescriptionStore reopened = DescriptionStore.open(context);
+        assertEquals(1, reopened.size());
+        assertTrue(reopened.append(descriptions("c", "Stuhl")));
+        assertEquals("Tisch", DescriptionStore.open(context).read("a"));
+        assertEquals("Stuhl", DescriptionStore.open(context).read("c"));
+    }
+
+    /**
+     * Verifies that the file is compacted once the records of removed and replaced descriptions
+     * make up most of it, and that the remaining descriptions are still readable.
+     */
+    @Test
+    public void testCompaction() {
+        DescriptionStore store = DescriptionStore.open(context);
+        String text = new String(new char[5000]).replace('\0', 'x');
+        for (int round = 0; round < 10; round++) {
+            Map<String, String> batch = new LinkedHashMap<>();
+            for (int i = 0; i < 20; i++) batch.put("offer" + i, text + round);
+            store.append(batch);
+        }
+        File file = new File(context.getFilesDir(), DescriptionStore.FILE_NAME);
+        assertTrue(store.compactIfSparse());
+        assertFalse(store.compactIfSparse());
+        assertEquals(text + 9, store.read("offer0"));
+
+        store.retainAll(Arrays.asList("offer1", "offer2"));
+        long before = file.length();
+        assertTrue(store.compactIfSparse());
+        assertTrue(file.length() < before / 5);
+        assertEquals(text + 9, store.read("offer1"));
+        assertNull(store.read("offer3"));
+        assertEquals(text + 9, DescriptionStore.open(context).read("offer2"));
+    }
+
+    /**
+     * Verifies that an offer without its description in memory is still found by words of its
+     * description and counted with the size of the stored description.
+     */
+    @Test
+    public void testOfferStoreWithStoredDescriptions() {
+        DescriptionStore descriptions = DescriptionStore.open(context);
+        descriptions.append(Collections.singletonMap("a", "Kühlschrank mit Gefrierfach"));
+        Offer offer = new Offer("a", "Küchengerät", null, Constants.Category.HOUSEHOLD, "creator1",
+                100, 100, Constants.OfferStatus.ACTIVE, false);
+
+        OfferStore store = new OfferStore(new SearchIndex(), descriptions);
+        store.put(offer);
+        assertEquals(1, store.search("gefrier", null, null, null, null, 10).size());
+        assertEquals(OfferQuota.estimateBytes(offer) + descriptions.length("a"), store.totalBytes());
+
+        store.remove("a");
+        assertNull(descriptions.read("a"));
+    }
+}
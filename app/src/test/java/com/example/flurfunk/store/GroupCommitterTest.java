@@ -0,0 +1,94 @@
+package com.example.flurfunk.store;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link GroupCommitter} class.
+ * <p>
+ * These tests verify that commit requests are coalesced per data set, that deferred commits
+ * wait for their delay and that {@link GroupCommitter#flush()} runs everything that is pending.
+ */
+public class GroupCommitterTest {
+
+    private GroupCommitter committer;
+    private AtomicInteger runs;
+
+    @Before
+    public void setup() {
+        committer = new GroupCommitter("TestWriter", 50);
+        runs = new AtomicInteger();
+    }
+
+    /**
+     * Waits until all work submitted to the writer thread so far has run.
+     */
+    private void awaitWriter() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        committer.execute(done::countDown);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Verifies that several commits for the same key within one window run only once.
+     */
+    @Test
+    public void testCommitsAreCoalesced() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            committer.commit("peers", runs::incrementAndGet);
+        }
+        Thread.sleep(150);
+        awaitWriter();
+
+        assertEquals(1, runs.get());
+    }
+
+    /**
+     * Verifies that a deferred commit does not run within the regular window but runs on flush.
+     */
+    @Test
+    public void testDeferredCommitRunsOnFlush() throws InterruptedException {
+        committer.commitDeferred("peers", runs::incrementAndGet, 10_000);
+        committer.commitDeferred("peers", runs::incrementAndGet, 10_000);
+        Thread.sleep(150);
+        awaitWriter();
+        assertEquals(0, runs.get());
+
+        committer.flush();
+        awaitWriter();
+        assertEquals(1, runs.get());
+    }
+
+    /**
+     * Verifies that a deferred commit runs once its delay has passed.
+     */
+    @Test
+    public void testDeferredCommitRunsAfterDelay() throws InterruptedException {
+        committer.commitDeferred("peers", runs::incrementAndGet, 100);
+        Thread.sleep(400);
+        awaitWriter();
+
+        assertEquals(1, runs.get());
+    }
+
+    /**
+     * Verifies that a regular commit for the same key replaces a deferred one.
+     */
+    @Test
+    public void testCommitReplacesDeferredCommit() throws InterruptedException {
+        committer.commitDeferred("peers", runs::incrementAndGet, 10_000);
+        committer.commit("peers", runs::incrementAndGet);
+        Thread.sleep(150);
+        awaitWriter();
+        committer.flush();
+        awaitWriter();
+
+        assertEquals(1, runs.get());
+    }
+}
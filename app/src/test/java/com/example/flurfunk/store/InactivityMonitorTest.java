@@ -0,0 +1,151 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.util.Constants;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link InactivityMonitor}.
+ * <p>
+ * These tests verify:
+ * <ul>
+ *     <li>The first run deactivates the active offers of all inactive peers</li>
+ *     <li>Peers that pass the timeout later are found without a lastSeen change</li>
+ *     <li>Later runs only re-evaluate peers whose lastSeen changed</li>
+ *     <li>New active offers of inactive peers are deactivated on the next run</li>
+ * </ul>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class InactivityMonitorTest {
+
+    private static final long TIMEOUT_MS = 1_000;
+    private static long nextNow = 1_000_000;
+
+    /**
+     * The current time of a test. Each test starts later than all peers of previous tests, since
+     * they share the repository.
+     */
+    private long now;
+
+    private DataRepository repository;
+    private InactivityMonitor monitor;
+    private StoreChangeListener listener;
+
+    @Before
+    public void setup() {
+        now = nextNow;
+        nextNow += 100 * TIMEOUT_MS;
+        repository = DataRepository.getInstance(RuntimeEnvironment.getApplication());
+        monitor = new InactivityMonitor(repository, null, TIMEOUT_MS);
+        listener = monitor::onStoreChanged;
+        repository.addChangeListener(listener, Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        repository.removeChangeListener(listener);
+    }
+
+    private String addPeer(long lastSeen) {
+        UserProfile peer = new UserProfile();
+        peer.setId(randomId());
+        peer.setLastSeen(lastSeen);
+        repository.putPeer(peer);
+        return peer.getId();
+    }
+
+    private String addOffer(String creatorId) {
+        Offer offer = new Offer(randomId(), "Title", "Description", Constants.Category.TOOLS, creatorId,
+                now, now, Constants.OfferStatus.ACTIVE, false);
+        repository.putOffers(Collections.singletonList(offer));
+        return offer.getOfferId();
+    }
+
+    private Constants.OfferStatus statusOf(String offerId) {
+        return repository.getOffer(offerId).getStatus();
+    }
+
+    private static String randomId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Verifies that the first run deactivates the offers of inactive peers only.
+     */
+    @Test
+    public void testFirstRunDeactivatesInactivePeers() {
+        String active = addPeer(now - 10);
+        String inactive = addPeer(now - TIMEOUT_MS - 10);
+        String activeOffer = addOffer(active);
+        String inactiveOffer = addOffer(inactive);
+
+        monitor.run(now);
+
+        assertEquals(Constants.OfferStatus.ACTIVE, statusOf(activeOffer));
+        assertEquals(Constants.OfferStatus.INACTIVE, statusOf(inactiveOffer));
+        assertTrue(monitor.isInactive(inactive));
+        assertFalse(monitor.isInactive(active));
+    }
+
+    /**
+     * Verifies that a peer becomes inactive once its lastSeen falls behind the timeout, without
+     * any change of the peer, and that only this peer is evaluated.
+     */
+    @Test
+    public void testPeerPassingTimeoutIsFound() {
+        String peer = addPeer(now - 10);
+        String offer = addOffer(peer);
+        monitor.run(now);
+        assertEquals(Constants.OfferStatus.ACTIVE, statusOf(offer));
+
+        assertEquals(0, monitor.run(now + TIMEOUT_MS - 20));
+        assertEquals(1, monitor.run(now + TIMEOUT_MS));
+        assertEquals(Constants.OfferStatus.INACTIVE, statusOf(offer));
+    }
+
+    /**
+     * Verifies that a changed lastSeen is re-evaluated: a peer seen again becomes active, and
+     * unchanged peers are not evaluated again.
+     */
+    @Test
+    public void testOnlyChangedPeersReevaluated() {
+        String peer = addPeer(now - TIMEOUT_MS - 10);
+        addPeer(now - TIMEOUT_MS - 10);
+        monitor.run(now);
+        assertTrue(monitor.isInactive(peer));
+
+        repository.updateLastSeen(peer, now + 100);
+        assertEquals(0, monitor.run(now + 200));
+        assertFalse(monitor.isInactive(peer));
+
+        String offer = addOffer(peer);
+        monitor.run(now + 300);
+        assertEquals(Constants.OfferStatus.ACTIVE, statusOf(offer));
+    }
+
+    /**
+     * Verifies that an active offer received from an inactive peer is deactivated on the next run.
+     */
+    @Test
+    public void testNewOfferOfInactivePeerDeactivated() {
+        String peer = addPeer(now - TIMEOUT_MS - 10);
+        monitor.run(now);
+
+        String offer = addOffer(peer);
+        assertEquals(Constants.OfferStatus.ACTIVE, statusOf(offer));
+        assertEquals(1, monitor.run(now + 10));
+        assertEquals(Constants.OfferStatus.INACTIVE, statusOf(offer));
+    }
+}
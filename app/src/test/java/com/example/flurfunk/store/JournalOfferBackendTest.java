@@ -0,0 +1,94 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link JournalOfferBackend} class.
+ * <p>
+ * These tests verify:
+ * <ul>
+ *     <li>Changed offers are replayed from the journal on top of the snapshot</li>
+ *     <li>Removed offers are recorded in the journal and dropped on replay</li>
+ * </ul>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class JournalOfferBackendTest {
+
+    private Context context;
+    private JournalOfferBackend backend;
+
+    @Before
+    public void setup() {
+        context = RuntimeEnvironment.getApplication();
+        backend = new JournalOfferBackend(context);
+    }
+
+    @After
+    public void tearDown() {
+        FilePersistence.delete(context, Constants.OFFER_FILE);
+        FilePersistence.delete(context, Constants.OFFER_JOURNAL_FILE);
+    }
+
+    private static Offer offer(String id, String title, long lastModified) {
+        return new Offer(id, title, "Description " + id, Constants.Category.BOOKS, "creator1",
+                100, lastModified, Constants.OfferStatus.ACTIVE, false);
+    }
+
+    private static List<String> idsOf(List<Offer> offers) {
+        List<String> ids = new ArrayList<>();
+        for (Offer offer : offers) ids.add(offer.getOfferId());
+        return ids;
+    }
+
+    /**
+     * Verifies that changes written to the journal replace the snapshot's versions on load.
+     */
+    @Test
+    public void testReplaysChanges() {
+        backend.writeSnapshot(Arrays.asList(offer("a", "Old", 100), offer("b", "B", 100)));
+        backend.writeChanges(Arrays.asList(offer("a", "New", 200), offer("c", "C", 100)),
+                Collections.emptyList(), Collections::emptyList);
+
+        assertTrue(FilePersistence.exists(context, Constants.OFFER_JOURNAL_FILE));
+        List<Offer> loaded = new JournalOfferBackend(context).load();
+        assertEquals(Arrays.asList("a", "b", "c"), idsOf(loaded));
+        assertEquals("New", loaded.get(0).getTitle());
+    }
+
+    /**
+     * Verifies that removals are appended to the journal instead of rewriting the snapshot, and
+     * that a removed offer is not loaded again unless it is written later.
+     */
+    @Test
+    public void testReplaysRemovals() {
+        backend.writeSnapshot(Arrays.asList(offer("a", "A", 100), offer("b", "B", 100)));
+        backend.writeChanges(Collections.singletonList(offer("c", "C", 100)),
+                Arrays.asList("a", "unknown"), () -> {
+                    throw new AssertionError("Removals must not rewrite the snapshot");
+                });
+        backend.writeChanges(Collections.emptyList(), Collections.singletonList("c"), Collections::emptyList);
+        backend.writeChanges(Collections.singletonList(offer("c", "C", 200)),
+                Collections.emptyList(), Collections::emptyList);
+
+        List<Offer> loaded = new JournalOfferBackend(context).load();
+        assertEquals(Arrays.asList("b", "c"), idsOf(loaded));
+        assertEquals(200, loaded.get(1).getLastModified());
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests and load benchmarks for the {@link JsonStreams} class.
+ * <p>
+ * The tests verify that offer lists survive a streaming round trip and that empty or
+ * {@code null} content is handled. The benchmark compares the streaming loader with the
+ * previous approach of building the whole file as a {@code String} first, at 1k, 10k and
+ * 100k offers, and prints the load times to standard output.
+ */
+public class JsonStreamsTest {
+
+    private static Offer offer(int i) {
+        Offer offer = new Offer();
+        offer.setOfferId(String.format("%016x", i));
+        offer.setTitle("Offer " + i);
+        offer.setDescription("Description of offer " + i + " with a few more words in it, Grüße");
+        offer.setCategory(Constants.Category.values()[i % Constants.Category.values().length]);
+        offer.setCreatorId(String.format("%016x", i % 50));
+        offer.setStatus(Constants.OfferStatus.ACTIVE);
+        offer.setLastModified(1_700_000_000_000L + i);
+        return offer;
+    }
+
+    private static List<Offer> offers(int count) {
+        List<Offer> offers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            offers.add(offer(i));
+        }
+        return offers;
+    }
+
+    private static byte[] write(List<Offer> offers) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonStreams.writeList(out, offers, JsonStreams.OFFER_ADAPTER);
+        return out.toByteArray();
+    }
+
+    /**
+     * Verifies that written offers are read back with all fields intact.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<Offer> original = offers(20);
+
+        List<Offer> loaded = JsonStreams.readList(new ByteArrayInputStream(write(original)), JsonStreams.OFFER_ADAPTER);
+
+        assertEquals(original.size(), loaded.size());
+        for (int i = 0; i < original.size(); i++) {
+            assertEquals(original.get(i).getOfferId(), loaded.get(i).getOfferId());
+            assertEquals(original.get(i).getDescription(), loaded.get(i).getDescription());
+            assertEquals(original.get(i).getCategory(), loaded.get(i).getCategory());
+            assertEquals(original.get(i).getLastModified(), loaded.get(i).getLastModified());
+        }
+    }
+
+    /**
+     * Verifies that files written by the previous {@code Gson.toJson} based code can be read.
+     */
+    @Test
+    public void testReadsLegacyFormat() throws IOException {
+        byte[] legacy = new Gson().toJson(offers(5)).getBytes(StandardCharsets.UTF_8);
+
+        List<Offer> loaded = JsonStreams.readList(new ByteArrayInputStream(legacy), JsonStreams.OFFER_ADAPTER);
+
+        assertEquals(5, loaded.size());
+        assertEquals(String.format("%016x", 4), loaded.get(4).getOfferId());
+    }
+
+    /**
+     * Verifies that empty content and a JSON {@code null} result in an empty list.
+     */
+    @Test
+    public void testEmptyAndNullContent() throws IOException {
+        assertTrue(JsonStreams.readList(new ByteArrayInputStream(new byte[0]), JsonStreams.OFFER_ADAPTER).isEmpty());
+        byte[] nullJson = "null".getBytes(StandardCharsets.UTF_8);
+        assertTrue(JsonStreams.readList(new ByteArrayInputStream(nullJson), JsonStreams.OFFER_ADAPTER).isEmpty());
+    }
+
+    /**
+     * Measures loading 1k, 10k and 100k offers with the streaming loader and with the previous
+     * whole-file {@code String} approach.
+     */
+    @Test
+    public void benchmarkLoad() throws IOException {
+        for (int count : new int[]{1_000, 10_000, 100_000}) {
+            byte[] file = write(offers(count));
+
+            long start = System.nanoTime();
+            List<Offer> streamed = JsonStreams.readList(new ByteArrayInputStream(file), JsonStreams.OFFER_ADAPTER);
+            long streamingMs = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            List<Offer> legacy = loadLegacy(file);
+            long legacyMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(count, streamed.size());
+            assertEquals(count, legacy.size());
+            System.out.println("Loaded " + count + " offers (" + file.length / 1024 + " KiB): streaming "
+                    + streamingMs + " ms, string-based " + legacyMs + " ms");
+        }
+    }
+
+    /**
+     * The loader used before streaming: reads the file line by line into a {@code StringBuilder}
+     * and parses the resulting {@code String} with a new {@code Gson} instance.
+     */
+    private static List<Offer> loadLegacy(byte[] file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(file), StandardCharsets.UTF_8));
+        StringBuilder builder = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            builder.append(line);
+        }
+        return new Gson().fromJson(builder.toString(), new TypeToken<List<Offer>>() {
+        }.getType());
+    }
+}
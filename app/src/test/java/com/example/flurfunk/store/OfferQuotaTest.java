@@ -0,0 +1,102 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.util.Constants;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the eviction of offers by the {@link DataRepository} when the
+ * {@link OfferQuota} is exceeded.
+ * <p>
+ * These tests verify:
+ * <ul>
+ *     <li>Evicted inactive offers leave a tombstone</li>
+ *     <li>Evicted active offers stay advertised and are not stored again in the same version</li>
+ *     <li>A newer version of an evicted offer is stored again</li>
+ *     <li>Evicted versions are forgotten once they are outdated</li>
+ * </ul>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class OfferQuotaTest {
+
+    private DataRepository repository;
+    private String creatorId;
+
+    @Before
+    public void setup() {
+        repository = DataRepository.getInstance(RuntimeEnvironment.getApplication());
+        creatorId = String.format("%016x", ThreadLocalRandom.current().nextLong());
+        UserProfile peer = new UserProfile();
+        peer.setId(creatorId);
+        repository.putPeer(peer);
+    }
+
+    @After
+    public void tearDown() {
+        repository.setOfferQuota(OfferQuota.DEFAULT.maxOffers, OfferQuota.DEFAULT.maxBytes);
+    }
+
+    private Offer newOffer(String offerId, Constants.OfferStatus status, long lastModified) {
+        return new Offer(offerId, "Title", "Description", Constants.Category.BOOKS, creatorId,
+                lastModified, lastModified, status, false);
+    }
+
+    /**
+     * Verifies that an evicted inactive offer gets a tombstone, while an evicted active offer is
+     * recorded as evicted, stays ignored in the same version and is stored again in a newer one.
+     */
+    @Test
+    public void testActiveOffersEvictedWithoutTombstone() {
+        repository.setOffers(Arrays.asList(
+                newOffer("inactive", Constants.OfferStatus.INACTIVE, 100),
+                newOffer("active", Constants.OfferStatus.ACTIVE, 200)));
+        repository.setOfferQuota(1, Long.MAX_VALUE);
+        repository.enforceQuota();
+
+        assertNull(repository.getOffer("inactive"));
+        assertNull(repository.getOffer("active"));
+        assertEquals(Long.valueOf(200), repository.evictedVersions().get("active"));
+        assertFalse(repository.evictedVersions().containsKey("inactive"));
+        assertTrue(repository.isPurged("inactive", 100));
+        assertTrue(repository.isPurged("active", 200));
+
+        repository.setOfferQuota(OfferQuota.DEFAULT.maxOffers, OfferQuota.DEFAULT.maxBytes);
+        repository.putOffers(Collections.singletonList(newOffer("active", Constants.OfferStatus.ACTIVE, 200)));
+        assertNull(repository.getOffer("active"));
+
+        repository.putOffers(Collections.singletonList(newOffer("active", Constants.OfferStatus.ACTIVE, 300)));
+        assertNotNull(repository.getOffer("active"));
+        assertFalse(repository.evictedVersions().containsKey("active"));
+    }
+
+    /**
+     * Verifies that evicted versions older than the cutoff are forgotten.
+     */
+    @Test
+    public void testEvictedVersionsExpire() {
+        repository.setOffers(Arrays.asList(
+                newOffer("old", Constants.OfferStatus.ACTIVE, 100),
+                newOffer("new", Constants.OfferStatus.ACTIVE, 300)));
+        repository.setOfferQuota(1, Long.MAX_VALUE);
+        repository.enforceQuota();
+        assertTrue(repository.evictedVersions().containsKey("old"));
+
+        repository.expireEvicted(200);
+        assertFalse(repository.evictedVersions().containsKey("old"));
+        assertEquals(Long.valueOf(300), repository.evictedVersions().get("new"));
+        assertFalse(repository.isPurged("old", 100));
+    }
+}
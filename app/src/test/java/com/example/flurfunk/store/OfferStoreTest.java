@@ -0,0 +1,297 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link OfferStore} class.
+ * <p>
+ * These tests verify that the primary and secondary indexes stay consistent, including:
+ * <ul>
+ *     <li>Lookup by offer ID</li>
+ *     <li>Merging newer data into an existing offer</li>
+ *     <li>Re-indexing offers that were changed in place</li>
+ *     <li>Queries combining several criteria</li>
+ *     <li>Paging in order of last modification</li>
+ *     <li>Finding offers of a status by age</li>
+ *     <li>Removing offers from all indexes</li>
+ *     <li>Selecting offers to evict for the storage quota</li>
+ *     <li>Filtering by hex creator IDs and order after the table is compacted</li>
+ * </ul>
+ */
+public class OfferStoreTest {
+
+    private OfferStore store;
+
+    @Before
+    public void setup() {
+        store = new OfferStore();
+    }
+
+    private static Offer offer(String id, Constants.Category category, String creatorId, long lastModified) {
+        Offer offer = new Offer();
+        offer.setOfferId(id);
+        offer.setTitle("Title " + id);
+        offer.setDescription("Description " + id);
+        offer.setCategory(category);
+        offer.setCreatorId(creatorId);
+        offer.setStatus(Constants.OfferStatus.ACTIVE);
+        offer.setLastModified(lastModified);
+        return offer;
+    }
+
+    /**
+     * Verifies that stored offers can be retrieved by ID and unknown IDs return {@code null}.
+     */
+    @Test
+    public void testGetById() {
+        Offer offer = offer("a", Constants.Category.BOOKS, "creator1", 100);
+        store.put(offer);
+
+        assertSame(offer, store.get("a"));
+        assertNull(store.get("unknown"));
+        assertEquals(1, store.size());
+    }
+
+    /**
+     * Verifies that putting a newer version of a stored offer merges it into the existing
+     * instance and moves it to the new category index.
+     */
+    @Test
+    public void testPutMergesNewerVersion() {
+        Offer stored = offer("a", Constants.Category.BOOKS, "creator1", 100);
+        store.put(stored);
+
+        Offer newer = offer("a", Constants.Category.TOOLS, "creator1", 200);
+        store.put(newer);
+
+        assertEquals(1, store.size());
+        assertSame(stored, store.get("a"));
+        assertEquals(Constants.Category.TOOLS, stored.getCategory());
+        assertTrue(store.query(Constants.Category.BOOKS, null, null, null).isEmpty());
+        assertEquals(1, store.query(Constants.Category.TOOLS, null, null, null).size());
+    }
+
+    /**
+     * Verifies that an older version does not overwrite a stored offer.
+     */
+    @Test
+    public void testPutIgnoresOlderVersion() {
+        store.put(offer("a", Constants.Category.BOOKS, "creator1", 200));
+        store.put(offer("a", Constants.Category.TOOLS, "creator1", 100));
+
+        assertEquals(Constants.Category.BOOKS, store.get("a").getCategory());
+    }
+
+    /**
+     * Verifies that changing a stored offer in place and putting it again updates the
+     * status and deletion indexes.
+     */
+    @Test
+    public void testReindexAfterInPlaceChange() {
+        Offer offer = offer("a", Constants.Category.BOOKS, "creator1", 100);
+        store.put(offer);
+
+        offer.setStatus(Constants.OfferStatus.INACTIVE);
+        offer.setDeleted(true);
+        store.put(offer);
+
+        assertTrue(store.query(null, Constants.OfferStatus.ACTIVE, null, null).isEmpty());
+        assertEquals(1, store.query(null, Constants.OfferStatus.INACTIVE, null, true).size());
+        assertTrue(store.query(null, null, null, false).isEmpty());
+    }
+
+    /**
+     * Verifies that queries combine category, status, creator and deletion criteria.
+     */
+    @Test
+    public void testCombinedQuery() {
+        store.put(offer("a", Constants.Category.BOOKS, "creator1", 100));
+        store.put(offer("b", Constants.Category.BOOKS, "creator2", 100));
+        store.put(offer("c", Constants.Category.TOOLS, "creator1", 100));
+        Offer inactive = offer("d", Constants.Category.BOOKS, "creator1", 100);
+        inactive.setStatus(Constants.OfferStatus.INACTIVE);
+        store.put(inactive);
+
+        List<Offer> books = store.query(Constants.Category.BOOKS, Constants.OfferStatus.ACTIVE, null, false);
+        assertEquals(2, books.size());
+
+        List<Offer> own = store.query(null, null, "creator1", false);
+        assertEquals(3, own.size());
+
+        List<Offer> ownBooks = store.query(Constants.Category.BOOKS, Constants.OfferStatus.ACTIVE, "creator1", false);
+        assertEquals(1, ownBooks.size());
+        assertEquals("a", ownBooks.get(0).getOfferId());
+
+        assertEquals(4, store.query(null, null, null, null).size());
+    }
+
+    /**
+     * Verifies that pages are ordered newest first, filtered and continue after the previous page.
+     */
+    @Test
+    public void testPagesNewestFirst() {
+        for (int i = 0; i < 5; i++) {
+            store.put(offer("book" + i, Constants.Category.BOOKS, "creator1", 100 + i));
+            store.put(offer("tool" + i, Constants.Category.TOOLS, "creator1", 200 + i));
+        }
+
+        OfferPage first = store.page(Constants.Category.BOOKS, null, null, null, null, 2);
+        assertEquals(2, first.getOffers().size());
+        assertEquals("book4", first.getOffers().get(0).getOfferId());
+        assertEquals("book3", first.getOffers().get(1).getOfferId());
+        assertTrue(first.hasMore());
+
+        OfferPage second = store.page(Constants.Category.BOOKS, null, null, null, first, 2);
+        assertEquals("book2", second.getOffers().get(0).getOfferId());
+
+        OfferPage last = store.page(Constants.Category.BOOKS, null, null, null, second, 2);
+        assertEquals(1, last.getOffers().size());
+        assertEquals("book0", last.getOffers().get(0).getOfferId());
+        assertFalse(last.hasMore());
+    }
+
+    /**
+     * Verifies that an offer modified in place moves to the front of the recency order.
+     */
+    @Test
+    public void testPageOrderFollowsModification() {
+        Offer old = offer("a", Constants.Category.BOOKS, "creator1", 100);
+        store.put(old);
+        store.put(offer("b", Constants.Category.BOOKS, "creator1", 200));
+
+        old.setLastModified(300);
+        store.put(old);
+
+        OfferPage page = store.page(null, null, null, null, null, 10);
+        assertEquals("a", page.getOffers().get(0).getOfferId());
+        assertEquals(2, page.getOffers().size());
+    }
+
+    /**
+     * Verifies that a removed offer disappears from lookups, queries and pages.
+     */
+    @Test
+    public void testRemove() {
+        store.put(offer("a", Constants.Category.BOOKS, "creator1", 100));
+        store.put(offer("b", Constants.Category.BOOKS, "creator1", 200));
+
+        assertNotNull(store.remove("a"));
+        assertNull(store.remove("a"));
+
+        assertNull(store.get("a"));
+        assertEquals(1, store.size());
+        assertEquals(1, store.query(Constants.Category.BOOKS, null, "creator1", null).size());
+        assertEquals(1, store.page(null, null, null, null, null, 10).getOffers().size());
+    }
+
+    /**
+     * Verifies that only offers of the given status modified before the cutoff are returned,
+     * oldest first, and that status changes move offers between the age indexes.
+     */
+    @Test
+    public void testModifiedBefore() {
+        store.put(offer("a", Constants.Category.BOOKS, "creator1", 300));
+        store.put(offer("b", Constants.Category.BOOKS, "creator1", 100));
+        store.put(offer("c", Constants.Category.TOOLS, "creator2", 200));
+        store.put(offer("d", Constants.Category.TOOLS, "creator2", 400));
+
+        assertEquals(Arrays.asList("b", "c"), store.modifiedBefore(Constants.OfferStatus.ACTIVE, 300));
+        assertTrue(store.modifiedBefore(Constants.OfferStatus.ACTIVE, 100).isEmpty());
+
+        Offer c = store.get("c");
+        c.setStatus(Constants.OfferStatus.INACTIVE);
+        c.setLastModified(250);
+        store.put(c);
+
+        assertEquals(Arrays.asList("b"), store.modifiedBefore(Constants.OfferStatus.ACTIVE, 300));
+        assertEquals(Arrays.asList("c"), store.modifiedBefore(Constants.OfferStatus.INACTIVE, 300));
+
+        store.remove("b");
+        assertEquals(Arrays.asList("a"), store.modifiedBefore(Constants.OfferStatus.ACTIVE, 400));
+    }
+
+    /**
+     * Verifies that eviction takes the least recently used foreign offers, inactive ones first,
+     * and never the local user's offers.
+     */
+    @Test
+    public void testEvictionCandidates() {
+        store.put(offer("own", Constants.Category.BOOKS, "me", 100));
+        store.put(offer("a", Constants.Category.BOOKS, "creator1", 200));
+        store.put(offer("b", Constants.Category.BOOKS, "creator1", 300));
+        Offer inactive = offer("c", Constants.Category.BOOKS, "creator2", 400);
+        inactive.setStatus(Constants.OfferStatus.INACTIVE);
+        store.put(inactive);
+        store.put(offer("d", Constants.Category.BOOKS, "creator2", 500));
+
+        store.recordAccess("a");
+
+        assertEquals(Arrays.asList("c"), store.evictionCandidates("me", 4, Long.MAX_VALUE));
+        assertEquals(Arrays.asList("c", "b", "d"), store.evictionCandidates("me", 2, Long.MAX_VALUE));
+        assertEquals(Arrays.asList("c", "b", "d", "a"), store.evictionCandidates("me", 0, Long.MAX_VALUE));
+        assertTrue(store.evictionCandidates("me", 5, Long.MAX_VALUE).isEmpty());
+    }
+
+    /**
+     * Verifies that the estimated size follows puts, updates and removals, and that the byte
+     * limit is honored by eviction.
+     */
+    @Test
+    public void testTotalBytes() {
+        Offer a = offer("a", Constants.Category.BOOKS, "creator1", 100);
+        store.put(a);
+        long one = store.totalBytes();
+        assertEquals(OfferQuota.estimateBytes(a), one);
+
+        store.put(offer("b", Constants.Category.BOOKS, "creator1", 200));
+        Offer longer = offer("a", Constants.Category.BOOKS, "creator1", 300);
+        longer.setDescription(new String(new char[1000]).replace('\0', 'x'));
+        store.put(longer);
+        assertEquals(OfferQuota.estimateBytes(longer) + OfferQuota.estimateBytes(store.get("b")), store.totalBytes());
+
+        assertEquals(Arrays.asList("b"), store.evictionCandidates(null, 10, 1000 + one));
+
+        store.remove("a");
+        assertEquals(OfferQuota.estimateBytes(store.get("b")), store.totalBytes());
+    }
+
+    /**
+     * Verifies that hex and non-hex creator IDs are matched exactly, that creator IDs are
+     * interned, and that queries keep insertion order after removals compact the table.
+     */
+    @Test
+    public void testQueryAfterCompaction() {
+        String hexCreator = "00000000000000ff";
+        for (int i = 0; i < 200; i++) {
+            String creator = i % 2 == 0 ? new String(hexCreator) : "creator" + (i % 3);
+            store.put(offer(String.format("%016x", i), Constants.Category.BOOKS, creator, i));
+        }
+        for (int i = 0; i < 150; i++) {
+            store.remove(String.format("%016x", i));
+        }
+
+        List<Offer> own = store.query(null, null, hexCreator, false);
+        assertEquals(25, own.size());
+        for (int i = 1; i < own.size(); i++) {
+            assertTrue(own.get(i - 1).getOfferId().compareTo(own.get(i).getOfferId()) < 0);
+            assertSame(own.get(0).getCreatorId(), own.get(i).getCreatorId());
+        }
+        assertTrue(store.query(null, null, "00000000000000fe", null).isEmpty());
+        assertEquals(8, store.query(Constants.Category.BOOKS, null, "creator0", null).size());
+        assertTrue(store.query(null, null, "unknown", null).isEmpty());
+
+        store.get(String.format("%016x", 199)).setStatus(Constants.OfferStatus.INACTIVE);
+        store.put(store.get(String.format("%016x", 199)));
+        assertEquals(1, store.query(null, Constants.OfferStatus.INACTIVE, null, null).size());
+        assertEquals(50, store.query(null, null, null, null).size());
+    }
+}
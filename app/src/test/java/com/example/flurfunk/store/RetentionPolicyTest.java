@@ -0,0 +1,92 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link RetentionPolicy} defaults and the {@link Tombstones} kept for purged
+ * offers.
+ * <p>
+ * These tests verify:
+ * <ul>
+ *     <li>Deleted offers are purged only after the configured time</li>
+ *     <li>Inactive offers of other users are purged, the local user's own offers are kept</li>
+ *     <li>Tombstones hide old versions but not newer ones</li>
+ *     <li>Old tombstones expire</li>
+ * </ul>
+ */
+public class RetentionPolicyTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final long NOW = 100 * DAY;
+
+    private static Offer offer(String creatorId, long lastModified, Constants.OfferStatus status, boolean deleted) {
+        return new Offer("offer1", "Title", "Description", Constants.Category.BOOKS, creatorId,
+                0, lastModified, status, deleted);
+    }
+
+    /**
+     * Verifies that deleted offers are purged once they are older than the configured time.
+     */
+    @Test
+    public void testDeletedPolicy() {
+        RetentionPolicy policy = RetentionPolicy.deletedFor(7 * DAY);
+
+        assertTrue(policy.shouldPurge(offer("other", NOW - 8 * DAY, Constants.OfferStatus.INACTIVE, true), "me", NOW));
+        assertFalse(policy.shouldPurge(offer("other", NOW - 6 * DAY, Constants.OfferStatus.INACTIVE, true), "me", NOW));
+        assertFalse(policy.shouldPurge(offer("other", NOW - 8 * DAY, Constants.OfferStatus.INACTIVE, false), "me", NOW));
+    }
+
+    /**
+     * Verifies that only inactive offers of other users are purged.
+     */
+    @Test
+    public void testInactiveForeignPolicy() {
+        RetentionPolicy policy = RetentionPolicy.inactiveForeignFor(30 * DAY);
+        long old = NOW - 31 * DAY;
+
+        assertTrue(policy.shouldPurge(offer("other", old, Constants.OfferStatus.INACTIVE, false), "me", NOW));
+        assertFalse(policy.shouldPurge(offer("me", old, Constants.OfferStatus.INACTIVE, false), "me", NOW));
+        assertFalse(policy.shouldPurge(offer("other", old, Constants.OfferStatus.ACTIVE, false), "me", NOW));
+        assertFalse(policy.shouldPurge(offer("other", NOW - DAY, Constants.OfferStatus.INACTIVE, false), "me", NOW));
+    }
+
+    /**
+     * Verifies that a tombstone covers the purged and older versions only.
+     */
+    @Test
+    public void testTombstoneCoversOlderVersions() {
+        Tombstones tombstones = Tombstones.empty();
+        tombstones.add("offer1", 500);
+
+        assertTrue(tombstones.covers("offer1", 500));
+        assertTrue(tombstones.covers("offer1", 400));
+        assertFalse(tombstones.covers("offer1", 600));
+        assertFalse(tombstones.covers("offer2", 100));
+
+        assertTrue(tombstones.remove("offer1"));
+        assertFalse(tombstones.covers("offer1", 400));
+        assertFalse(tombstones.remove("offer1"));
+    }
+
+    /**
+     * Verifies that tombstones of versions older than the cutoff are dropped.
+     */
+    @Test
+    public void testTombstonesExpire() {
+        Tombstones tombstones = Tombstones.empty();
+        tombstones.add("old", 100);
+        tombstones.add("new", 300);
+
+        assertEquals(Collections.singletonList("old"), tombstones.expire(200));
+        assertEquals(1, tombstones.size());
+        assertTrue(tombstones.covers("new", 300));
+        assertFalse(tombstones.covers("old", 100));
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.util.Constants;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link SearchIndex} and the full-text search of the {@link OfferStore}.
+ * <p>
+ * These tests verify:
+ * <ul>
+ *     <li>Tokenization of German text with umlauts, ß and accents, precomposed or not</li>
+ *     <li>Prefix and multi-term queries combined with the offer criteria</li>
+ *     <li>Incremental updates when an offer is edited or removed</li>
+ *     <li>Persistence, so loaded offers are not tokenized again</li>
+ *     <li>Queries over a large number of offers, whose time is printed to standard output</li>
+ * </ul>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SearchIndexTest {
+
+    private static Offer offer(String id, String title, String description, long lastModified) {
+        Offer offer = new Offer();
+        offer.setOfferId(id);
+        offer.setTitle(title);
+        offer.setDescription(description);
+        offer.setCategory(Constants.Category.HOUSEHOLD);
+        offer.setCreatorId("creator1");
+        offer.setStatus(Constants.OfferStatus.ACTIVE);
+        offer.setLastModified(lastModified);
+        return offer;
+    }
+
+    private static List<String> ids(List<Offer> offers) {
+        List<String> ids = new ArrayList<>();
+        for (Offer offer : offers) ids.add(offer.getOfferId());
+        return ids;
+    }
+
+    /**
+     * Verifies that umlauts, ß, accents and case are folded and that punctuation splits terms.
+     */
+    @Test
+    public void testTokenizeGermanText() {
+        assertEquals(Arrays.asList("kuehlschrank", "grosse", "tuer", "cafe", "5"),
+                SearchIndex.tokenize("Kühlschrank, große Tür – Café! 5 a"));
+        assertEquals(SearchIndex.tokenize("KUEHLSCHRANK"), SearchIndex.tokenize("Kühlschrank"));
+        assertEquals(SearchIndex.tokenize("Kühlschrank"), SearchIndex.tokenize("Kühlschrank"));
+        assertTrue(SearchIndex.tokenize(null).isEmpty());
+    }
+
+    /**
+     * Verifies prefix and multi-term queries, the newest-first order and the offer criteria.
+     */
+    @Test
+    public void testPrefixAndMultiTermQueries() {
+        OfferStore store = new OfferStore();
+        store.put(offer("a", "Kühlschrank", "Kaum benutzt, weiß", 100));
+        store.put(offer("b", "Kühltasche", "Für Ausflüge", 200));
+        Offer deleted = offer("c", "Kühlbox", "weiß", 300);
+        deleted.setDeleted(true);
+        store.put(deleted);
+
+        assertEquals(Arrays.asList("c", "b", "a"), ids(store.search("kühl", null, null, null, null, 10)));
+        assertEquals(Arrays.asList("b", "a"), ids(store.search("kuehl", null, null, null, false, 10)));
+        assertEquals(Arrays.asList("a"), ids(store.search("KÜHL weiss", null, null, null, false, 10)));
+        assertEquals(Arrays.asList("b"), ids(store.search("ausfl", null, null, null, null, 10)));
+        assertEquals(Arrays.asList("c"), ids(store.search("kühl", null, null, null, null, 1)));
+        assertTrue(store.search("kühl sofa", null, null, null, null, 10).isEmpty());
+        assertTrue(store.search("kühl", Constants.Category.BOOKS, null, null, null, 10).isEmpty());
+        assertTrue(store.search("  ", null, null, null, null, 10).isEmpty());
+    }
+
+    /**
+     * Verifies that edits replace the old terms and removed offers are no longer found.
+     */
+    @Test
+    public void testUpdateAndRemove() {
+        OfferStore store = new OfferStore();
+        store.put(offer("a", "Fahrrad", "Rot", 100));
+        store.put(offer("a", "Roller", "Blau", 200));
+
+        assertTrue(store.search("fahrrad", null, null, null, null, 10).isEmpty());
+        assertEquals(Arrays.asList("a"), ids(store.search("roll blau", null, null, null, null, 10)));
+
+        store.remove("a");
+        assertTrue(store.search("roller", null, null, null, null, 10).isEmpty());
+        assertEquals(0, store.textIndex().size());
+    }
+
+    /**
+     * Verifies that a written index is loaded again and that offers in the same version are not
+     * tokenized again, while changed and removed offers are brought up to date.
+     */
+    @Test
+    public void testPersistence() {
+        Context context = RuntimeEnvironment.getApplication();
+        OfferStore store = new OfferStore();
+        store.replaceAll(Arrays.asList(offer("a", "Bücherregal", "Holz", 100), offer("b", "Sofa", "Grau", 100)));
+        SearchIndex.write(context, store.textIndex().snapshot());
+
+        SearchIndex loaded = SearchIndex.load(context);
+        assertEquals(2, loaded.size());
+        OfferStore reloaded = new OfferStore(loaded);
+        reloaded.replaceAll(Arrays.asList(offer("a", "Bücherregal", "Holz", 100)));
+        assertEquals(Arrays.asList("a"), ids(reloaded.search("buecher", null, null, null, null, 10)));
+        assertTrue(reloaded.search("sofa", null, null, null, null, 10).isEmpty());
+
+        SearchIndex unchanged = SearchIndex.load(context);
+        new OfferStore(unchanged).replaceAll(Arrays.asList(
+                offer("a", "Bücherregal", "Holz", 100), offer("b", "Sofa", "Grau", 100)));
+        assertFalse(unchanged.isDirty());
+    }
+
+    /**
+     * Measures multi-term queries over 20,000 offers. Only the results are asserted; the time per
+     * query is printed, since it depends on the machine running the tests.
+     */
+    @Test
+    public void benchmarkQuery() {
+        String[] words = {"Fahrrad", "Kühlschrank", "Bücher", "Sofa", "Lampe", "Tisch", "Stuhl", "Roller",
+                "Werkzeug", "Jacke", "Kinderwagen", "Spielzeug", "Töpfe", "Regal", "Bohrmaschine", "Schrank"};
+        OfferStore store = new OfferStore();
+        for (int i = 0; i < 20_000; i++) {
+            store.put(offer(String.format("%016x", i), words[i % words.length] + " " + i,
+                    "Gut erhalten, " + words[(i * 7) % words.length] + ", abzuholen im " + (i % 12) + ". Stock", i));
+        }
+
+        store.search("fahr", null, null, null, null, 50);
+        long start = System.nanoTime();
+        int queries = 100;
+        for (int i = 0; i < queries; i++) {
+            assertFalse(store.search("kühl erhalten", null, Constants.OfferStatus.ACTIVE, null, false, 50).isEmpty());
+        }
+        long perQueryMs = (System.nanoTime() - start) / queries / 1_000_000;
+        System.out.println("Search over 20000 offers: " + perQueryMs + " ms per query");
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.flurfunk.store;
+
+import android.content.Context;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.util.Constants;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link SqliteOfferBackend} and {@link SqlitePeerBackend} classes.
+ * <p>
+ * These tests run against Robolectric's SQLite implementation and verify:
+ * <ul>
+ *     <li>Writing and loading offers and peers with all fields</li>
+ *     <li>Inserting and replacing single offers without touching the others</li>
+ *     <li>Deleting removed offers</li>
+ *     <li>Replacing all offers with a snapshot</li>
+ *     <li>Migrating existing JSON files on first load</li>
+ * </ul>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SqliteBackendTest {
+
+    private Context context;
+    private FlurfunkDatabase database;
+    private SqliteOfferBackend offerBackend;
+    private SqlitePeerBackend peerBackend;
+
+    @Before
+    public void setup() {
+        context = RuntimeEnvironment.getApplication();
+        database = new FlurfunkDatabase(context);
+        offerBackend = new SqliteOfferBackend(context, database);
+        peerBackend = new SqlitePeerBackend(context, database);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    private static Offer offer(String id, String title, long lastModified) {
+        return new Offer(id, title, "Description " + id, Constants.Category.BOOKS, "creator1",
+                100, lastModified, Constants.OfferStatus.ACTIVE, false);
+    }
+
+    /**
+     * Verifies that a snapshot is loaded back with all fields and in insertion order.
+     */
+    @Test
+    public void testWriteSnapshotAndLoad() {
+        Offer deleted = new Offer("b", null, null, null, "creator2", 5, 6, Constants.OfferStatus.INACTIVE, true);
+        offerBackend.writeSnapshot(Arrays.asList(offer("a", "Buch", 200), deleted));
+
+        List<Offer> loaded = offerBackend.load();
+
+        assertEquals(2, loaded.size());
+        Offer a = loaded.get(0);
+        assertEquals("a", a.getOfferId());
+        assertEquals("Buch", a.getTitle());
+        assertEquals(Constants.Category.BOOKS, a.getCategory());
+        assertEquals(100, a.getCreatedAt());
+        assertEquals(200, a.getLastModified());
+        assertEquals(Constants.OfferStatus.ACTIVE, a.getStatus());
+
+        Offer b = loaded.get(1);
+        assertNull(b.getTitle());
+        assertNull(b.getCategory());
+        assertEquals(Constants.OfferStatus.INACTIVE, b.getStatus());
+        assertTrue(b.isDeleted());
+    }
+
+    /**
+     * Verifies that changed offers are inserted or replaced while other offers are kept.
+     */
+    @Test
+    public void testWriteChangesKeepsOtherOffers() {
+        offerBackend.writeSnapshot(Arrays.asList(offer("a", "Old", 100), offer("b", "B", 100)));
+
+        offerBackend.writeChanges(Arrays.asList(offer("a", "New", 200), offer("c", "C", 100)),
+                Collections.emptyList(), Collections::emptyList);
+
+        List<Offer> loaded = offerBackend.load();
+        assertEquals(3, loaded.size());
+        for (Offer offer : loaded) {
+            if (offer.getOfferId().equals("a")) assertEquals("New", offer.getTitle());
+        }
+    }
+
+    /**
+     * Verifies that removed offers are deleted together with the changes.
+     */
+    @Test
+    public void testWriteChangesDeletesRemovedOffers() {
+        offerBackend.writeSnapshot(Arrays.asList(offer("a", "A", 100), offer("b", "B", 100)));
+
+        offerBackend.writeChanges(Collections.singletonList(offer("c", "C", 100)),
+                Collections.singletonList("a"), Collections::emptyList);
+
+        List<Offer> loaded = offerBackend.load();
+        assertEquals(2, loaded.size());
+        for (Offer offer : loaded) assertNotEquals("a", offer.getOfferId());
+    }
+
+    /**
+     * Verifies that a snapshot removes offers that are no longer part of it.
+     */
+    @Test
+    public void testWriteSnapshotReplacesAll() {
+        offerBackend.writeSnapshot(Arrays.asList(offer("a", "A", 100), offer("b", "B", 100)));
+        offerBackend.writeSnapshot(Collections.singletonList(offer("c", "C", 100)));
+
+        List<Offer> loaded = offerBackend.load();
+        assertEquals(1, loaded.size());
+        assertEquals("c", loaded.get(0).getOfferId());
+    }
+
+    /**
+     * Verifies that peers are written and loaded with all fields.
+     */
+    @Test
+    public void testPeersRoundTrip() {
+        UserProfile peer = new UserProfile();
+        peer.setId("peer1");
+        peer.setName("Anna");
+        peer.setFloor("2");
+        peer.setMeshId("mesh-1");
+        peer.setTimestamp(10);
+        peer.setLastSeen(20);
+
+        peerBackend.writeSnapshot(Collections.singletonList(peer));
+        List<UserProfile> loaded = peerBackend.load();
+
+        assertEquals(1, loaded.size());
+        assertEquals("Anna", loaded.get(0).getName());
+        assertEquals("mesh-1", loaded.get(0).getMeshId());
+        assertNull(loaded.get(0).getPhone());
+        assertEquals(20, loaded.get(0).getLastSeen());
+    }
+
+    /**
+     * Verifies that existing JSON files are migrated into empty tables and removed afterwards.
+     */
+    @Test
+    public void testMigratesJsonFiles() {
+        OfferManager.writeOffersToFile(context, Arrays.asList(offer("a", "A", 100), offer("b", "B", 100)));
+        UserProfile peer = new UserProfile();
+        peer.setId("peer1");
+        PeerManager.writePeersToFile(context, Collections.singletonList(peer));
+
+        assertEquals(2, offerBackend.load().size());
+        assertEquals(1, peerBackend.load().size());
+
+        assertFalse(FilePersistence.exists(context, Constants.OFFER_FILE));
+        assertFalse(FilePersistence.exists(context, PeerManager.FILE_NAME));
+        assertEquals(2, offerBackend.load().size());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.flurfunk.store;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link StorageExecutor} class.
+ * <p>
+ * These tests verify that results and failures are passed to the returned future and that
+ * tasks are rejected instead of queued without limit.
+ */
+public class StorageExecutorTest {
+
+    /**
+     * Verifies that the result of a task completes the future on a storage thread.
+     */
+    @Test
+    public void testSubmitReturnsResult() throws Exception {
+        CompletableFuture<String> future = StorageExecutor.submit(() -> Thread.currentThread().getName());
+
+        assertTrue(future.get(5, TimeUnit.SECONDS).startsWith("Storage-"));
+    }
+
+    /**
+     * Verifies that an exception thrown by a task completes the future exceptionally.
+     */
+    @Test
+    public void testSubmitPassesFailure() throws Exception {
+        CompletableFuture<Object> future = StorageExecutor.submit(() -> {
+            throw new IllegalStateException("broken");
+        });
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    /**
+     * Verifies that tasks beyond the queue capacity are rejected without blocking the caller.
+     */
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        int capacity = StorageExecutor.THREADS + StorageExecutor.QUEUE_CAPACITY;
+        try {
+            for (int i = 0; i <= capacity; i++) {
+                futures.add(StorageExecutor.submit(() -> release.await(5, TimeUnit.SECONDS)));
+            }
+            CompletableFuture<Object> rejected = futures.get(capacity);
+            assertTrue(rejected.isCompletedExceptionally());
+            try {
+                rejected.get();
+                fail("Expected ExecutionException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+        } finally {
+            release.countDown();
+        }
+        futures.get(0).get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.util.Constants;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the change notifications of the {@link DataRepository}.
+ * <p>
+ * These tests verify:
+ * <ul>
+ *     <li>New, changed and status-changed offers are reported with their new state</li>
+ *     <li>Unchanged offers are not reported</li>
+ *     <li>Committed transactions and lastSeen updates are reported</li>
+ *     <li>Removed listeners are no longer called</li>
+ * </ul>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class StoreChangeTest {
+
+    private DataRepository repository;
+    private final List<StoreChange> received = new ArrayList<>();
+    private final StoreChangeListener listener = received::addAll;
+
+    @Before
+    public void setup() {
+        repository = DataRepository.getInstance(RuntimeEnvironment.getApplication());
+        repository.addChangeListener(listener, Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        repository.removeChangeListener(listener);
+    }
+
+    /**
+     * Verifies that adding, editing and deactivating an offer produce the matching change types.
+     */
+    @Test
+    public void testOfferChangeTypes() {
+        Offer offer = newOffer();
+        repository.putOffers(Collections.singletonList(offer));
+
+        Offer edited = new Offer(offer);
+        edited.setTitle("Edited");
+        edited.setLastModified(200);
+        repository.putOffers(Collections.singletonList(edited));
+
+        Offer deactivated = new Offer(edited);
+        deactivated.setStatus(Constants.OfferStatus.INACTIVE);
+        deactivated.setLastModified(300);
+        repository.putOffers(Collections.singletonList(deactivated));
+
+        assertEquals(3, received.size());
+        assertEquals(StoreChange.Type.OFFER_ADDED, received.get(0).getType());
+        assertEquals(StoreChange.Type.OFFER_UPDATED, received.get(1).getType());
+        assertEquals("Edited", received.get(1).getOffer().getTitle());
+        assertEquals(StoreChange.Type.OFFER_STATUS_CHANGED, received.get(2).getType());
+        assertEquals(Constants.OfferStatus.INACTIVE, received.get(2).getOffer().getStatus());
+        assertEquals(offer.getOfferId(), received.get(2).getId());
+    }
+
+    /**
+     * Verifies that receiving an older version of a stored offer is not reported.
+     */
+    @Test
+    public void testUnchangedOfferNotReported() {
+        Offer offer = newOffer();
+        offer.setLastModified(500);
+        repository.putOffers(Collections.singletonList(offer));
+        received.clear();
+
+        Offer older = new Offer(offer);
+        older.setTitle("Older");
+        older.setLastModified(400);
+        repository.putOffers(Collections.singletonList(older));
+
+        assertTrue(received.isEmpty());
+    }
+
+    /**
+     * Verifies that transactions and lastSeen updates are reported as offer and peer changes.
+     */
+    @Test
+    public void testTransactionAndPeerChanges() {
+        Offer offer = newOffer();
+        repository.putOffers(Collections.singletonList(offer));
+        UserProfile peer = new UserProfile();
+        peer.setId(String.format("%016x", ThreadLocalRandom.current().nextLong()));
+        repository.putPeer(peer);
+        received.clear();
+
+        repository.runInTransaction(transaction -> {
+            Offer copy = transaction.getOffer(offer.getOfferId());
+            copy.setDeleted(true);
+            transaction.putOffer(copy);
+        });
+        repository.updateLastSeen(peer.getId(), 1234);
+
+        assertEquals(2, received.size());
+        assertEquals(StoreChange.Type.OFFER_STATUS_CHANGED, received.get(0).getType());
+        assertTrue(received.get(0).getOffer().isDeleted());
+        assertEquals(StoreChange.Type.PEER_UPDATED, received.get(1).getType());
+        assertEquals(1234, received.get(1).getPeer().getLastSeen());
+    }
+
+    /**
+     * Verifies that a removed listener is not called and that the change count still advances.
+     */
+    @Test
+    public void testRemovedListenerNotCalled() {
+        repository.removeChangeListener(listener);
+        long before = repository.getChangeCount();
+
+        repository.putOffers(Collections.singletonList(newOffer()));
+
+        assertTrue(received.isEmpty());
+        assertTrue(repository.getChangeCount() > before);
+    }
+
+    private static Offer newOffer() {
+        return new Offer(String.format("%016x", ThreadLocalRandom.current().nextLong()), "Title", "Description",
+                Constants.Category.BOOKS, "creator1", 100, 100, Constants.OfferStatus.ACTIVE, false);
+    }
+}
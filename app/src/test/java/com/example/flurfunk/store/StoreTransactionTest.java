@@ -0,0 +1,222 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.util.Constants;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for transactions on the {@link DataRepository}.
+ * <p>
+ * These tests verify:
+ * <ul>
+ *     <li>Changes are applied on commit only</li>
+ *     <li>A commit fails if a read offer was changed concurrently</li>
+ *     <li>A commit fails if an offer was added to a queried creator's offers</li>
+ *     <li>A commit fails if a read offer was purged</li>
+ *     <li>Concurrent read-modify-write transactions do not lose updates</li>
+ *     <li>Offers and peers are changed together</li>
+ *     <li>Listeners are notified outside the lock after a transaction ran under the lock</li>
+ * </ul>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class StoreTransactionTest {
+
+    private DataRepository repository;
+    private String offerId;
+
+    @Before
+    public void setup() {
+        repository = DataRepository.getInstance(RuntimeEnvironment.getApplication());
+        offerId = String.format("%016x", ThreadLocalRandom.current().nextLong());
+        repository.putOffers(Collections.singletonList(new Offer(offerId, "Title", "Description",
+                Constants.Category.BOOKS, "creator1", 100, 100, Constants.OfferStatus.ACTIVE, false)));
+    }
+
+    /**
+     * Verifies that staged changes are invisible until the transaction commits.
+     */
+    @Test
+    public void testChangesAppliedOnCommit() {
+        StoreTransaction transaction = new StoreTransaction(repository);
+        Offer copy = transaction.getOffer(offerId);
+        copy.setStatus(Constants.OfferStatus.INACTIVE);
+        transaction.putOffer(copy);
+
+        assertEquals(Constants.OfferStatus.ACTIVE, repository.getOffer(offerId).getStatus());
+        assertTrue(repository.commit(transaction));
+        assertEquals(Constants.OfferStatus.INACTIVE, repository.getOffer(offerId).getStatus());
+    }
+
+    /**
+     * Verifies that a commit is rejected if an offer it read was changed in the meantime.
+     */
+    @Test
+    public void testConflictingCommitRejected() {
+        StoreTransaction transaction = new StoreTransaction(repository);
+        Offer copy = transaction.getOffer(offerId);
+        copy.setTitle("From transaction");
+        transaction.putOffer(copy);
+
+        Offer concurrent = new Offer(repository.getOffer(offerId));
+        concurrent.setTitle("Concurrent");
+        concurrent.setLastModified(copy.getLastModified() + 1);
+        repository.putOffers(Collections.singletonList(concurrent));
+
+        assertFalse(repository.commit(transaction));
+        assertEquals("Concurrent", repository.getOffer(offerId).getTitle());
+    }
+
+    /**
+     * Verifies that a commit is rejected if an offer was added to the offers of a creator it
+     * queried, while a query for another creator is not affected.
+     */
+    @Test
+    public void testQueriedCreatorChangedRejected() {
+        String creatorId = String.format("%016x", ThreadLocalRandom.current().nextLong());
+        StoreTransaction transaction = new StoreTransaction(repository);
+        StoreTransaction unaffected = new StoreTransaction(repository);
+        assertTrue(transaction.queryOffers(null, null, creatorId, null).isEmpty());
+        unaffected.queryOffers(null, null, "creator1", null);
+        Offer copy = transaction.getOffer(offerId);
+        transaction.putOffer(copy);
+
+        repository.putOffers(Collections.singletonList(new Offer(offerId + "-new", "New", "Description",
+                Constants.Category.BOOKS, creatorId, 200, 200, Constants.OfferStatus.ACTIVE, false)));
+        Offer unchanged = new Offer(repository.getOffer(offerId));
+        unaffected.putOffer(unchanged);
+
+        assertFalse(repository.commit(transaction));
+        assertTrue(repository.commit(unaffected));
+    }
+
+    /**
+     * Verifies that a commit is rejected if an offer it read was purged in the meantime, also
+     * when the offer was read with the version shared by all offers after a replacement.
+     */
+    @Test
+    public void testPurgedOfferRejected() {
+        repository.setOffers(Collections.singletonList(new Offer(offerId, "Title", "Description",
+                Constants.Category.BOOKS, "creator1", 100, 100, Constants.OfferStatus.ACTIVE, true)));
+
+        StoreTransaction transaction = new StoreTransaction(repository);
+        Offer copy = transaction.getOffer(offerId);
+        copy.setDeleted(false);
+        transaction.putOffer(copy);
+
+        List<RetentionPolicy> policies = Collections.singletonList(RetentionPolicy.deletedFor(0));
+        assertEquals(1, repository.purge(Collections.singletonList(offerId), policies, 1000));
+
+        assertFalse(repository.commit(transaction));
+        assertNull(repository.getOffer(offerId));
+    }
+
+    /**
+     * Verifies that concurrent increments through transactions are all applied.
+     */
+    @Test
+    public void testNoLostUpdates() throws InterruptedException {
+        int perThread = 200;
+        Runnable increment = () -> {
+            for (int i = 0; i < perThread; i++) {
+                repository.runInTransaction(transaction -> {
+                    Offer offer = transaction.getOffer(offerId);
+                    offer.setLastModified(offer.getLastModified() + 1);
+                    transaction.putOffer(offer);
+                });
+            }
+        };
+        Thread first = new Thread(increment);
+        Thread second = new Thread(increment);
+        first.start();
+        second.start();
+        first.join();
+        second.join();
+
+        assertEquals(100 + 2 * perThread, repository.getOffer(offerId).getLastModified());
+    }
+
+    /**
+     * Verifies that changes to a peer and its offers are applied together.
+     */
+    @Test
+    public void testOffersAndPeersChangedTogether() {
+        UserProfile peer = new UserProfile();
+        peer.setId("creator1");
+        peer.setLastSeen(500);
+        repository.putPeer(peer);
+
+        repository.runInTransaction(transaction -> {
+            UserProfile copy = transaction.getPeer("creator1");
+            copy.setLastSeen(0);
+            transaction.putPeer(copy);
+            Offer offer = transaction.getOffer(offerId);
+            offer.setStatus(Constants.OfferStatus.INACTIVE);
+            transaction.putOffer(offer);
+        });
+
+        assertEquals(0, repository.getPeer("creator1").getLastSeen());
+        assertEquals(Constants.OfferStatus.INACTIVE, repository.getOffer(offerId).getStatus());
+    }
+
+    /**
+     * Verifies that the changes of a transaction that ran under the lock after repeated
+     * conflicts are published once the lock is released, so a listener may read from the
+     * repository on another thread.
+     */
+    @Test
+    public void testFallbackPublishesOutsideLock() {
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicBoolean readable = new AtomicBoolean();
+        StoreChangeListener listener = changes -> {
+            Thread reader = new Thread(() -> repository.getOffer(offerId));
+            reader.start();
+            try {
+                reader.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            readable.set(!reader.isAlive());
+        };
+        repository.addChangeListener(listener, Runnable::run);
+        try {
+            repository.runInTransaction(transaction -> {
+                Offer offer = transaction.getOffer(offerId);
+                if (attempts.incrementAndGet() <= DataRepository.MAX_OPTIMISTIC_ATTEMPTS) {
+                    Thread writer = new Thread(() -> {
+                        Offer concurrent = new Offer(repository.getOffer(offerId));
+                        concurrent.setLastModified(concurrent.getLastModified() + 1);
+                        repository.putOffers(Collections.singletonList(concurrent));
+                    });
+                    writer.start();
+                    try {
+                        writer.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                offer.setTitle("Fallback");
+                transaction.putOffer(offer);
+            });
+        } finally {
+            repository.removeChangeListener(listener);
+        }
+
+        assertEquals(DataRepository.MAX_OPTIMISTIC_ATTEMPTS + 1, attempts.get());
+        assertEquals("Fallback", repository.getOffer(offerId).getTitle());
+        assertTrue(readable.get());
+    }
+}
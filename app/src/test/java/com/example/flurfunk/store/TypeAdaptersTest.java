@@ -0,0 +1,177 @@
+package com.example.flurfunk.store;
+
+import com.example.flurfunk.model.Offer;
+import com.example.flurfunk.model.UserProfile;
+import com.example.flurfunk.util.Constants;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the hand-written {@link OfferTypeAdapter}, {@link UserProfileTypeAdapter} and
+ * {@link EnumTypeAdapter}.
+ * <p>
+ * These tests verify that the adapters read and write the same format as Gson's reflective
+ * adapters, and compare both in a benchmark.
+ */
+public class TypeAdaptersTest {
+
+    private static final Gson REFLECTIVE = new Gson();
+
+    private static Offer offer(int i) {
+        return new Offer(String.format("%016x", i), "Angebot " + i, "Beschreibung für Angebot " + i,
+                Constants.Category.values()[i % Constants.Category.values().length], "creator" + (i % 50),
+                1_700_000_000_000L + i, 1_700_000_500_000L + i,
+                i % 3 == 0 ? Constants.OfferStatus.INACTIVE : Constants.OfferStatus.ACTIVE, i % 7 == 0);
+    }
+
+    private static void assertSameOffer(Offer expected, Offer actual) {
+        assertEquals(expected.getOfferId(), actual.getOfferId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getCategory(), actual.getCategory());
+        assertEquals(expected.getCreatorId(), actual.getCreatorId());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        assertEquals(expected.getLastModified(), actual.getLastModified());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.isDeleted(), actual.isDeleted());
+    }
+
+    /**
+     * Verifies that offers are written exactly as Gson's reflective adapter writes them.
+     */
+    @Test
+    public void testOfferFormatMatchesReflection() {
+        Offer full = offer(3);
+        Offer sparse = new Offer("b", null, null, null, null, 5, 6, null, true);
+
+        assertEquals(REFLECTIVE.toJson(full), JsonStreams.GSON.toJson(full));
+        assertEquals(REFLECTIVE.toJson(sparse), JsonStreams.GSON.toJson(sparse));
+    }
+
+    /**
+     * Verifies that offers written by reflection are read back with all fields, and the other way
+     * round.
+     */
+    @Test
+    public void testOfferRoundTripWithReflection() {
+        Offer original = offer(42);
+
+        assertSameOffer(original, JsonStreams.GSON.fromJson(REFLECTIVE.toJson(original), Offer.class));
+        assertSameOffer(original, REFLECTIVE.fromJson(JsonStreams.GSON.toJson(original), Offer.class));
+    }
+
+    /**
+     * Verifies that unknown fields are skipped and unknown enum names are read as {@code null}.
+     */
+    @Test
+    public void testOfferIgnoresUnknownContent() {
+        String json = "{\"offerId\":\"a\",\"extra\":{\"nested\":[1,2]},\"category\":\"GARDEN\","
+                + "\"status\":\"ACTIVE\",\"title\":null,\"createdAt\":1,\"lastModified\":2}";
+
+        Offer offer = JsonStreams.GSON.fromJson(json, Offer.class);
+
+        assertEquals("a", offer.getOfferId());
+        assertNull(offer.getCategory());
+        assertNull(offer.getTitle());
+        assertEquals(Constants.OfferStatus.ACTIVE, offer.getStatus());
+        assertEquals(2, offer.getLastModified());
+    }
+
+    /**
+     * Verifies that user profiles use the reflective format in both directions.
+     */
+    @Test
+    public void testUserProfileMatchesReflection() {
+        UserProfile profile = new UserProfile();
+        profile.setId("peer1");
+        profile.setName("Jürgen");
+        profile.setMeshId("mesh");
+        profile.setTimestamp(10);
+        profile.setLastSeen(20);
+
+        String json = JsonStreams.GSON.toJson(profile);
+        assertEquals(REFLECTIVE.toJson(profile), json);
+
+        UserProfile read = JsonStreams.GSON.fromJson(json, UserProfile.class);
+        assertEquals("Jürgen", read.getName());
+        assertNull(read.getPhone());
+        assertEquals(20, read.getLastSeen());
+    }
+
+    /**
+     * Compares time and allocated memory of the hand-written and the reflective offer adapter
+     * for loading and saving 10k and 100k offers.
+     */
+    @Test
+    public void benchmarkAdapters() throws IOException {
+        TypeAdapter<Offer> handWritten = JsonStreams.OFFER_ADAPTER;
+        TypeAdapter<Offer> reflective = REFLECTIVE.getAdapter(Offer.class);
+
+        for (int count : new int[]{10_000, 100_000}) {
+            List<Offer> offers = new ArrayList<>();
+            for (int i = 0; i < count; i++) offers.add(offer(i));
+            byte[] file = write(offers, reflective);
+
+            for (int round = 0; round < 2; round++) {
+                long[] reflectiveLoad = measure(() -> read(file, reflective));
+                long[] handWrittenLoad = measure(() -> read(file, handWritten));
+                long[] reflectiveSave = measure(() -> write(offers, reflective));
+                long[] handWrittenSave = measure(() -> write(offers, handWritten));
+                if (round == 0) continue;
+
+                System.out.println(count + " offers, load: reflective " + format(reflectiveLoad)
+                        + ", hand-written " + format(handWrittenLoad));
+                System.out.println(count + " offers, save: reflective " + format(reflectiveSave)
+                        + ", hand-written " + format(handWrittenSave));
+            }
+            assertEquals(count, read(file, handWritten).size());
+        }
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    /**
+     * @return the elapsed milliseconds and the bytes allocated by the current thread, or -1 if
+     * the JVM cannot measure allocations
+     */
+    private static long[] measure(Task task) throws IOException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = allocations != null ? allocations.getThreadAllocatedBytes(threadId) : 0;
+        long start = System.nanoTime();
+        task.run();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        long allocated = allocations != null ? allocations.getThreadAllocatedBytes(threadId) - allocatedBefore : -1;
+        return new long[]{elapsedMs, allocated};
+    }
+
+    private static String format(long[] result) {
+        return result[0] + " ms / " + (result[1] >= 0 ? result[1] / 1024 + " KiB" : "n/a");
+    }
+
+    private static byte[] write(List<Offer> offers, TypeAdapter<Offer> adapter) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonStreams.writeList(out, offers, adapter);
+        return out.toByteArray();
+    }
+
+    private static List<Offer> read(byte[] file, TypeAdapter<Offer> adapter) throws IOException {
+        return JsonStreams.readList(new ByteArrayInputStream(file), adapter);
+    }
+}